@@ -0,0 +1,62 @@
+package net.sf.flatpack.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sf.flatpack.structure.ColumnMetaData;
+import net.sf.flatpack.util.FixedWidthParserUtils;
+
+/**
+ * FixedWidthParserUtils.splitFixedText on 1,000 lines.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixedWidthSplitBenchmark {
+    private static final int LINES = 1_000;
+
+    @Param({ "true", "false" })
+    private boolean preserveWhitespace;
+
+    private List<String> lines;
+    private List<ColumnMetaData> columns;
+
+    @Setup
+    public void setup() {
+        lines = SyntheticData.fixedLines(LINES);
+        columns = SyntheticData.fixedColumns();
+    }
+
+    @Benchmark
+    public void splitFixedText(final Blackhole bh) {
+        for (final String line : lines) {
+            bh.consume(FixedWidthParserUtils.splitFixedText(columns, line, preserveWhitespace, preserveWhitespace));
+        }
+    }
+
+    @Benchmark
+    public void splitFixedTextToCells(final Blackhole bh) {
+        for (final String line : lines) {
+            bh.consume(FixedWidthParserUtils.splitFixedTextToCells(columns, line, preserveWhitespace, preserveWhitespace));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package net.sf.flatpack.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.flatpack.nio.MappedRecordReader;
+import net.sf.flatpack.util.FPConstants;
+
+/**
+ * Finding the records and cells of a memory-mapped file, 8 bytes at a time
+ * or byte by byte: a wide numeric file with 40 short cells per record and a
+ * file of long qualified comments. No cell is decoded.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappedScanBenchmark {
+    private static final int ROWS = 20_000;
+    private static final int COLUMNS = 40;
+
+    @Param({ "true", "false" })
+    private boolean wordScanning;
+
+    private File numeric;
+    private File text;
+
+    @Setup
+    public void setup() throws IOException {
+        final Random random = new Random(20061201L);
+        final StringBuilder sb = new StringBuilder(ROWS * COLUMNS * 8);
+        for (int r = 0; r < ROWS; r++) {
+            for (int c = 0; c < COLUMNS; c++) {
+                if (c > 0) {
+                    sb.append(',');
+                }
+                sb.append(random.nextInt(100_000) / 100.0);
+            }
+            sb.append('\n');
+        }
+        numeric = write(sb);
+
+        sb.setLength(0);
+        for (int r = 0; r < ROWS; r++) {
+            sb.append(r).append(",\"");
+            for (int w = 0; w < 30; w++) {
+                sb.append(SyntheticData.record(random, r)[6]).append(' ');
+            }
+            sb.append("\"\n");
+        }
+        text = write(sb);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(numeric.toPath());
+        Files.deleteIfExists(text.toPath());
+    }
+
+    @Benchmark
+    public long scanNumeric() throws IOException {
+        return scan(numeric, FPConstants.NO_QUALIFIER);
+    }
+
+    @Benchmark
+    public long scanQualifiedText() throws IOException {
+        return scan(text, '"');
+    }
+
+    private long scan(final File file, final char qualifier) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final MappedRecordReader reader = new MappedRecordReader(channel, 0, channel.size(), ',', qualifier, StandardCharsets.UTF_8);
+            reader.setWordScanning(wordScanning);
+            long cells = 0;
+            while (reader.nextRecord()) {
+                cells += reader.getCellCount();
+            }
+            return cells;
+        }
+    }
+
+    private static File write(final CharSequence content) throws IOException {
+        final File file = File.createTempFile("flatpack-scan", ".csv");
+        Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,64 @@
+package net.sf.flatpack.benchmarks;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.flatpack.DataSet;
+import net.sf.flatpack.DefaultParserFactory;
+import net.sf.flatpack.Parser;
+import net.sf.flatpack.ordering.OrderBy;
+import net.sf.flatpack.ordering.OrderColumn;
+
+/**
+ * DataSet.orderRows on parsed records; each invocation sorts twice, on a
+ * text then numeric key and back on the id, so that the rows are never
+ * already in order.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderByBenchmark {
+    @Param({ "10000", "100000" })
+    private int rows;
+
+    private DataSet ds;
+    private OrderBy byCityAndPrice;
+    private OrderBy byIdDesc;
+
+    @Setup
+    public void setup() {
+        final Parser p = DefaultParserFactory.getInstance().newDelimitedParser(new StringReader(SyntheticData.delimited(rows, ',', '"', false)),
+                ',', '"');
+        ds = p.parse();
+        byCityAndPrice = new OrderBy();
+        byCityAndPrice.addOrderColumn(new OrderColumn("CITY", OrderColumn.ASC));
+        byCityAndPrice.addOrderColumn(new OrderColumn("PRICE", OrderColumn.DESC, OrderColumn.COLTYPE_NUMERIC));
+        byIdDesc = new OrderBy();
+        byIdDesc.addOrderColumn(new OrderColumn("ID", OrderColumn.DESC));
+    }
+
+    @Benchmark
+    public DataSet orderRows() {
+        ds.orderRows(byCityAndPrice);
+        ds.orderRows(byIdDesc);
+        return ds;
+    }
+}
@@ -0,0 +1,85 @@
+package net.sf.flatpack.benchmarks;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sf.flatpack.DataSet;
+import net.sf.flatpack.DefaultParserFactory;
+import net.sf.flatpack.Parser;
+import net.sf.flatpack.ParserFactory;
+import net.sf.flatpack.brparse.BuffReaderParseFactory;
+import net.sf.flatpack.util.FPConstants;
+
+/**
+ * Full parse of 10,000 records, the DelimiterParser / FixedLengthParser
+ * keeping every row against the BuffReader parsers reading one row at a
+ * time.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+    private static final int ROWS = 10_000;
+
+    @Param({ "default", "buffreader" })
+    private String parser;
+
+    private String delimited;
+    private String qualified;
+    private String fixed;
+    private String fixedMapping;
+    private ParserFactory factory;
+
+    @Setup
+    public void setup() {
+        delimited = SyntheticData.delimited(ROWS, ',', FPConstants.NO_QUALIFIER, false);
+        qualified = SyntheticData.delimited(ROWS, ',', '"', false);
+        fixed = SyntheticData.fixed(ROWS);
+        fixedMapping = SyntheticData.fixedMapping();
+        factory = "default".equals(parser) ? DefaultParserFactory.getInstance() : BuffReaderParseFactory.getInstance();
+    }
+
+    @Benchmark
+    public void parseDelimited(final Blackhole bh) {
+        final Parser p = factory.newDelimitedParser(new StringReader(delimited), ',', FPConstants.NO_QUALIFIER);
+        consume(p.parse(), bh);
+    }
+
+    @Benchmark
+    public void parseQualified(final Blackhole bh) {
+        final Parser p = factory.newDelimitedParser(new StringReader(qualified), ',', '"');
+        consume(p.parse(), bh);
+    }
+
+    @Benchmark
+    public void parseFixed(final Blackhole bh) {
+        final Parser p = factory.newFixedLengthParser(new StringReader(fixedMapping), new StringReader(fixed));
+        consume(p.parse(), bh);
+    }
+
+    private static void consume(final DataSet ds, final Blackhole bh) {
+        while (ds.next()) {
+            bh.consume(ds.getString("NAME"));
+        }
+        bh.consume(ds.getErrorCount());
+    }
+}
@@ -0,0 +1,63 @@
+package net.sf.flatpack.benchmarks;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sf.flatpack.DataSet;
+import net.sf.flatpack.Parser;
+import net.sf.flatpack.brparse.BuffReaderParseFactory;
+
+/**
+ * BuffReader parse of 100,000 qualified records with some work done by the
+ * caller on each record, reading and building the rows on the caller's
+ * thread or ahead of it on background threads.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineBenchmark {
+    private static final int ROWS = 100_000;
+
+    @Param({ "false", "true" })
+    private boolean pipelined;
+
+    @Param({ "0", "500" })
+    private int work;
+
+    private String qualified;
+
+    @Setup
+    public void setup() {
+        qualified = SyntheticData.delimited(ROWS, ',', '"', false);
+    }
+
+    @Benchmark
+    public void parse(final Blackhole bh) {
+        final Parser p = BuffReaderParseFactory.getInstance().newDelimitedParser(new StringReader(qualified), ',', '"').setPipelined(pipelined);
+        final DataSet ds = p.parse();
+        while (ds.next()) {
+            bh.consume(ds.getString("NAME"));
+            Blackhole.consumeCPU(work);
+        }
+        bh.consume(ds.getErrorCount());
+    }
+}
@@ -0,0 +1,81 @@
+package net.sf.flatpack.benchmarks;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.flatpack.DataSet;
+import net.sf.flatpack.DefaultParserFactory;
+import net.sf.flatpack.Parser;
+import net.sf.flatpack.util.FPConstants;
+
+/**
+ * Full parse of 10,000 records keeping every column against keeping only
+ * NAME; run it with -prof gc to compare the allocations.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+    private static final int ROWS = 10_000;
+
+    @Param({ "false", "true" })
+    private boolean cellBuffers;
+
+    private String delimited;
+    private String fixed;
+    private String fixedMapping;
+
+    @Setup
+    public void setup() {
+        delimited = SyntheticData.delimited(ROWS, ',', '"', false);
+        fixed = SyntheticData.fixed(ROWS);
+        fixedMapping = SyntheticData.fixedMapping();
+    }
+
+    @Benchmark
+    public DataSet parseDelimited() {
+        return delimitedParser().parse();
+    }
+
+    @Benchmark
+    public DataSet parseDelimitedProjected() {
+        return delimitedParser().setProjection("NAME").parse();
+    }
+
+    @Benchmark
+    public DataSet parseFixed() {
+        return fixedParser().parse();
+    }
+
+    @Benchmark
+    public DataSet parseFixedProjected() {
+        return fixedParser().setProjection("NAME").parse();
+    }
+
+    private Parser delimitedParser() {
+        return DefaultParserFactory.getInstance().newDelimitedParser(new StringReader(delimited), ',', '"').setCellBuffers(cellBuffers);
+    }
+
+    private Parser fixedParser() {
+        return DefaultParserFactory.getInstance().newFixedLengthParser(new StringReader(fixedMapping), new StringReader(fixed))
+                .setCellBuffers(cellBuffers);
+    }
+}
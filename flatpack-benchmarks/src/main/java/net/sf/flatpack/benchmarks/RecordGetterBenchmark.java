@@ -0,0 +1,110 @@
+package net.sf.flatpack.benchmarks;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sf.flatpack.ColumnRef;
+import net.sf.flatpack.DataSet;
+import net.sf.flatpack.DefaultParserFactory;
+import net.sf.flatpack.Parser;
+
+/**
+ * Reads every cell of 10,000 parsed records through the RowRecord getters,
+ * by column name and by ColumnRef.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecordGetterBenchmark {
+    private static final int ROWS = 10_000;
+
+    @Param({ "false", "true" })
+    private boolean cellBuffers;
+
+    private DataSet ds;
+    private ColumnRef name;
+    private ColumnRef qty;
+    private ColumnRef price;
+
+    @Setup
+    public void setup() {
+        final Parser p = DefaultParserFactory.getInstance().newDelimitedParser(new StringReader(SyntheticData.delimited(ROWS, ',', '"', false)),
+                ',', '"');
+        p.setCellBuffers(cellBuffers);
+        ds = p.parse();
+        name = ds.column("NAME");
+        qty = ds.column("QTY");
+        price = ds.column("PRICE");
+    }
+
+    @Benchmark
+    public void getString(final Blackhole bh) {
+        ds.goTop();
+        while (ds.next()) {
+            bh.consume(ds.getString("NAME"));
+        }
+    }
+
+    @Benchmark
+    public void getInt(final Blackhole bh) {
+        ds.goTop();
+        while (ds.next()) {
+            bh.consume(ds.getInt("QTY"));
+        }
+    }
+
+    @Benchmark
+    public void getDouble(final Blackhole bh) {
+        ds.goTop();
+        while (ds.next()) {
+            bh.consume(ds.getDouble("PRICE"));
+        }
+    }
+
+    @Benchmark
+    public void getBigDecimal(final Blackhole bh) {
+        ds.goTop();
+        while (ds.next()) {
+            bh.consume(ds.getBigDecimal("PRICE"));
+        }
+    }
+
+    @Benchmark
+    public void getByColumnRef(final Blackhole bh) {
+        ds.goTop();
+        while (ds.next()) {
+            bh.consume(ds.getCharSequence(name));
+            bh.consume(ds.getInt(qty));
+            bh.consume(ds.getDouble(price));
+        }
+    }
+
+    @Benchmark
+    public void getByName(final Blackhole bh) {
+        ds.goTop();
+        while (ds.next()) {
+            bh.consume(ds.getCharSequence("NAME"));
+            bh.consume(ds.getInt("QTY"));
+            bh.consume(ds.getDouble("PRICE"));
+        }
+    }
+}
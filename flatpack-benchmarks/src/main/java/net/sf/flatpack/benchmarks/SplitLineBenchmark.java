@@ -0,0 +1,69 @@
+package net.sf.flatpack.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sf.flatpack.util.FPConstants;
+import net.sf.flatpack.util.ParserUtils;
+
+/**
+ * ParserUtils.splitLine on 1,000 lines, with and without qualifiers and
+ * padding whitespace.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SplitLineBenchmark {
+    private static final int LINES = 1_000;
+
+    @Param({ "true", "false" })
+    private boolean qualified;
+
+    @Param({ "true", "false" })
+    private boolean padding;
+
+    @Param({ "true", "false" })
+    private boolean preserveWhitespace;
+
+    private List<String> lines;
+    private char qualifier;
+
+    @Setup
+    public void setup() {
+        qualifier = qualified ? '"' : FPConstants.NO_QUALIFIER;
+        lines = SyntheticData.delimitedLines(LINES, ',', qualifier, padding);
+    }
+
+    @Benchmark
+    public void splitLine(final Blackhole bh) {
+        for (final String line : lines) {
+            bh.consume(ParserUtils.splitLine(line, ',', qualifier, SyntheticData.COLUMNS.length, preserveWhitespace, preserveWhitespace));
+        }
+    }
+
+    @Benchmark
+    public void splitLineToCells(final Blackhole bh) {
+        for (final String line : lines) {
+            bh.consume(ParserUtils.splitLineToCells(line, ',', qualifier, SyntheticData.COLUMNS.length, preserveWhitespace, preserveWhitespace));
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package net.sf.flatpack.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import net.sf.flatpack.structure.ColumnMetaData;
+
+/**
+ * Generates the data used by the benchmarks, always from the same seed so
+ * that two runs parse the same content.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public final class SyntheticData {
+    /** the columns of every generated record. */
+    public static final String[] COLUMNS = { "ID", "NAME", "CITY", "QTY", "PRICE", "TRADE_DATE", "COMMENT" };
+    /** the width of each column in the fixed width data. */
+    public static final int[] WIDTHS = { 10, 20, 15, 8, 12, 10, 40 };
+
+    private static final String[] NAMES = { "Alice", "Bob", "Charlie", "Dominique", "Eve", "Frank", "Grace", "Heidi" };
+    private static final String[] CITIES = { "London", "Paris", "New York", "Tokyo", "Sao Paulo", "Brussels" };
+    private static final long SEED = 20061201L;
+
+    private SyntheticData() {
+    }
+
+    /**
+     * @param rows
+     *            number of records, not counting the column names
+     * @param delimiter
+     * @param qualifier
+     *            FPConstants.NO_QUALIFIER for none; if set, text cells are
+     *            qualified and some contain the delimiter or a doubled
+     *            qualifier
+     * @param padding
+     *            adds spaces around the cells
+     * @return the delimited content, first line being the column names
+     */
+    public static String delimited(final int rows, final char delimiter, final char qualifier, final boolean padding) {
+        final Random random = new Random(SEED);
+        final StringBuilder sb = new StringBuilder(rows * 80);
+        for (int c = 0; c < COLUMNS.length; c++) {
+            if (c > 0) {
+                sb.append(delimiter);
+            }
+            sb.append(COLUMNS[c]);
+        }
+        sb.append('\n');
+        for (int r = 0; r < rows; r++) {
+            final String[] cells = record(random, r);
+            for (int c = 0; c < cells.length; c++) {
+                if (c > 0) {
+                    sb.append(delimiter);
+                }
+                if (padding) {
+                    sb.append("  ");
+                }
+                final boolean text = c == 1 || c == 2 || c == 6;
+                if (qualifier != 0 && text) {
+                    sb.append(qualifier);
+                    String cell = cells[c];
+                    if (c == 6 && r % 3 == 0) {
+                        cell = cell + delimiter + " said " + qualifier + qualifier + "ok" + qualifier + qualifier;
+                    }
+                    sb.append(cell).append(qualifier);
+                } else {
+                    sb.append(cells[c]);
+                }
+                if (padding) {
+                    sb.append(' ');
+                }
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the lines of {@link #delimited(int, char, char, boolean)}
+     *         without the column names
+     */
+    public static List<String> delimitedLines(final int rows, final char delimiter, final char qualifier, final boolean padding) {
+        final String[] lines = delimited(rows, delimiter, qualifier, padding).split("\n");
+        final List<String> list = new ArrayList<>(rows);
+        for (int i = 1; i < lines.length; i++) {
+            list.add(lines[i]);
+        }
+        return list;
+    }
+
+    /**
+     * @param rows
+     *            number of records
+     * @return fixed width content matching {@link #fixedMapping()}
+     */
+    public static String fixed(final int rows) {
+        final Random random = new Random(SEED);
+        final StringBuilder sb = new StringBuilder(rows * 120);
+        for (int r = 0; r < rows; r++) {
+            final String[] cells = record(random, r);
+            for (int c = 0; c < cells.length; c++) {
+                final String cell = cells[c].length() > WIDTHS[c] ? cells[c].substring(0, WIDTHS[c]) : cells[c];
+                sb.append(cell);
+                for (int i = cell.length(); i < WIDTHS[c]; i++) {
+                    sb.append(' ');
+                }
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the lines of {@link #fixed(int)}
+     */
+    public static List<String> fixedLines(final int rows) {
+        final String[] lines = fixed(rows).split("\n");
+        final List<String> list = new ArrayList<>(rows);
+        for (final String line : lines) {
+            list.add(line);
+        }
+        return list;
+    }
+
+    /**
+     * @return the pzmap of the fixed width data
+     */
+    public static String fixedMapping() {
+        final StringBuilder sb = new StringBuilder("<?xml version='1.0'?>\n<PZMAP>\n");
+        for (int c = 0; c < COLUMNS.length; c++) {
+            sb.append("    <COLUMN name=\"").append(COLUMNS[c]).append("\" length=\"").append(WIDTHS[c]).append("\" />\n");
+        }
+        return sb.append("</PZMAP>\n").toString();
+    }
+
+    /**
+     * @return the column definitions of the fixed width data
+     */
+    public static List<ColumnMetaData> fixedColumns() {
+        final List<ColumnMetaData> columns = new ArrayList<>();
+        int start = 1;
+        for (int c = 0; c < COLUMNS.length; c++) {
+            final ColumnMetaData cmd = new ColumnMetaData(COLUMNS[c]);
+            cmd.setColLength(WIDTHS[c]);
+            cmd.setStartPosition(start);
+            cmd.setEndPosition(start + WIDTHS[c] - 1);
+            start += WIDTHS[c];
+            columns.add(cmd);
+        }
+        return columns;
+    }
+
+    /**
+     * @return the cells of one record, in the order of {@link #COLUMNS}
+     */
+    public static String[] record(final Random random, final int row) {
+        final int day = 1 + random.nextInt(28);
+        return new String[] { String.valueOf(100_000 + row), //
+                NAMES[random.nextInt(NAMES.length)], //
+                CITIES[random.nextInt(CITIES.length)], //
+                String.valueOf(random.nextInt(10_000) - 100), //
+                String.valueOf(random.nextInt(1_000_000) / 100.0), //
+                "2018-0" + (1 + random.nextInt(9)) + (day < 10 ? "-0" : "-") + day, //
+                "order " + Long.toHexString(random.nextLong()) };
+    }
+}
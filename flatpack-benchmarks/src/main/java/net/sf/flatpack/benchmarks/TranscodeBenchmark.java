@@ -0,0 +1,83 @@
+package net.sf.flatpack.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.flatpack.DataSet;
+import net.sf.flatpack.Parser;
+import net.sf.flatpack.brparse.BuffReaderParseFactory;
+import net.sf.flatpack.writer.FixedWriterFactory;
+import net.sf.flatpack.writer.Transcoder;
+import net.sf.flatpack.writer.Writer;
+
+/**
+ * Converts 100,000 qualified delimited records to fixed length, copying each
+ * cell by name or with a Transcoder.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TranscodeBenchmark {
+    private static final int ROWS = 100_000;
+
+    private String qualified;
+    private FixedWriterFactory fixedFactory;
+
+    @Setup
+    public void setup() throws IOException {
+        qualified = SyntheticData.delimited(ROWS, ',', '"', false);
+        fixedFactory = new FixedWriterFactory(new StringReader(SyntheticData.fixedMapping()));
+    }
+
+    private Parser parser() {
+        return BuffReaderParseFactory.getInstance().newDelimitedParser(new StringReader(qualified), ',', '"');
+    }
+
+    @Benchmark
+    public String byName() throws IOException {
+        final StringWriter out = new StringWriter(ROWS * 120);
+        final DataSet ds = parser().parse();
+        final Writer writer = fixedFactory.createWriter(out);
+        while (ds.next()) {
+            for (final String column : SyntheticData.COLUMNS) {
+                writer.addRecordEntry(column, ds.getString(column));
+            }
+            writer.nextRecord();
+        }
+        writer.flush();
+        return out.toString();
+    }
+
+    @Benchmark
+    public String transcode() throws IOException {
+        final StringWriter out = new StringWriter(ROWS * 120);
+        new Transcoder(parser(), fixedFactory).transcode(out);
+        return out.toString();
+    }
+
+    @Benchmark
+    public String transcodeOnWriterThread() throws IOException {
+        final StringWriter out = new StringWriter(ROWS * 120);
+        new Transcoder(parser(), fixedFactory).setWriterThread(true).transcode(out);
+        return out.toString();
+    }
+}
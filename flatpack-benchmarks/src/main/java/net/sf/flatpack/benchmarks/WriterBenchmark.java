@@ -0,0 +1,115 @@
+package net.sf.flatpack.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.flatpack.writer.DelimiterWriterFactory;
+import net.sf.flatpack.writer.FixedWriterFactory;
+import net.sf.flatpack.writer.Writer;
+
+/**
+ * Writes 10,000 records with the DelimiterWriter and the FixedLengthWriter.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriterBenchmark {
+    private static final int ROWS = 10_000;
+
+    private List<String[]> records;
+    private DelimiterWriterFactory delimiterFactory;
+    private FixedWriterFactory fixedFactory;
+
+    @Setup
+    public void setup() throws IOException {
+        final Random random = new Random(1);
+        records = new ArrayList<>(ROWS);
+        for (int r = 0; r < ROWS; r++) {
+            records.add(SyntheticData.record(random, r));
+        }
+        delimiterFactory = new DelimiterWriterFactory(',', '"').addColumnTitles(SyntheticData.COLUMNS);
+        fixedFactory = new FixedWriterFactory(new StringReader(SyntheticData.fixedMapping()));
+    }
+
+    @Benchmark
+    public String writeDelimited() throws IOException {
+        final StringWriter out = new StringWriter(ROWS * 80);
+        try (Writer writer = delimiterFactory.createWriter(out)) {
+            write(writer);
+        }
+        return out.toString();
+    }
+
+    @Benchmark
+    public String writeFixed() throws IOException {
+        final StringWriter out = new StringWriter(ROWS * 120);
+        try (Writer writer = fixedFactory.createWriter(out)) {
+            write(writer);
+        }
+        return out.toString();
+    }
+
+    @Benchmark
+    public String writeDelimitedByIndex() throws IOException {
+        final StringWriter out = new StringWriter(ROWS * 80);
+        try (Writer writer = delimiterFactory.createWriter(out)) {
+            writeByIndex(writer);
+        }
+        return out.toString();
+    }
+
+    @Benchmark
+    public String writeFixedByIndex() throws IOException {
+        final StringWriter out = new StringWriter(ROWS * 120);
+        try (Writer writer = fixedFactory.createWriter(out)) {
+            writeByIndex(writer);
+        }
+        return out.toString();
+    }
+
+    private void writeByIndex(final Writer writer) throws IOException {
+        final int[] columns = new int[SyntheticData.COLUMNS.length];
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = writer.getColumnIndex(SyntheticData.COLUMNS[c]);
+        }
+        for (final String[] record : records) {
+            for (int c = 0; c < record.length; c++) {
+                writer.addRecordEntry(columns[c], record[c]);
+            }
+            writer.nextRecord();
+        }
+        writer.flush();
+    }
+
+    private void write(final Writer writer) throws IOException {
+        for (final String[] record : records) {
+            for (int c = 0; c < record.length; c++) {
+                writer.addRecordEntry(SyntheticData.COLUMNS[c], record[c]);
+            }
+            writer.nextRecord();
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,556 @@
+package net.sf.flatpack.excel;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import net.sf.flatpack.DataError;
+import net.sf.flatpack.Record;
+import net.sf.flatpack.RowRecord;
+import net.sf.flatpack.StreamingDataSet;
+import net.sf.flatpack.converter.ConverterRegistry;
+import net.sf.flatpack.structure.CellBuffer;
+import net.sf.flatpack.structure.ColumnMetaData;
+import net.sf.flatpack.structure.Row;
+import net.sf.flatpack.util.FPConstants;
+import net.sf.flatpack.util.FPException;
+import net.sf.flatpack.util.ParserUtils;
+import net.sf.flatpack.xml.MetaData;
+
+/**
+ * Reads a sheet of an Excel 2007 (.xlsx) workbook as a StreamingDataSet, the
+ * way the BuffReader parsers read a delimited file:
+ *
+ * <pre>
+ * try (XlsxParser.XlsxDataSet ds = new XlsxParser(new File("trades.xlsx")).setMetaData(md).setIgnoreFirstRecord(true).parseAsStream()) {
+ *     ds.stream().forEach(record -&gt; load(record));
+ * }
+ * </pre>
+ *
+ * The sheet XML is read with StAX straight from the zip file, one row at a
+ * time, so only the shared strings of the workbook are held in memory; they
+ * are kept in one char array. Without a MetaData the column names are read
+ * from the first row. Empty rows are skipped, as blank lines are, and the
+ * cells are given as Excel stores them: numbers and dates as numbers,
+ * booleans as TRUE or FALSE, formulas by their cached value.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public class XlsxParser {
+    private static final String RELATIONSHIPS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    private final File file;
+    private MetaData metaData;
+    private String sheetName;
+    private boolean ignoreFirstRecord;
+    private boolean columnNamesCaseSensitive;
+    private boolean addSuffixToDuplicateColumnNames;
+
+    /**
+     * @param file
+     *          the .xlsx workbook
+     */
+    public XlsxParser(final File file) {
+        if (file == null) {
+            throw new IllegalArgumentException("file cannot be null");
+        }
+        this.file = file;
+    }
+
+    /**
+     * @param metaData
+     *          the columns of the sheet, typically from a pzmap in a
+     *          MetaDataCache; null to read the column names from the first row
+     * @return this parser
+     */
+    public XlsxParser setMetaData(final MetaData metaData) {
+        this.metaData = metaData;
+        return this;
+    }
+
+    /**
+     * @param sheetName
+     *          the sheet to read, the first one by default
+     * @return this parser
+     */
+    public XlsxParser setSheetName(final String sheetName) {
+        this.sheetName = sheetName;
+        return this;
+    }
+
+    /**
+     * @param ignoreFirstRecord
+     *          when a MetaData is given, skip the first row holding the
+     *          column headings
+     * @return this parser
+     */
+    public XlsxParser setIgnoreFirstRecord(final boolean ignoreFirstRecord) {
+        this.ignoreFirstRecord = ignoreFirstRecord;
+        return this;
+    }
+
+    /**
+     * @param columnNamesCaseSensitive
+     *          for the column names read from the first row, a compiled
+     *          MetaData keeps its own
+     * @return this parser
+     */
+    public XlsxParser setColumnNamesCaseSensitive(final boolean columnNamesCaseSensitive) {
+        this.columnNamesCaseSensitive = columnNamesCaseSensitive;
+        return this;
+    }
+
+    /**
+     * @param addSuffixToDuplicateColumnNames
+     *          when the first row has the same column name twice, name the
+     *          second one with a 2 suffix instead of failing
+     * @return this parser
+     */
+    public XlsxParser setAddSuffixToDuplicateColumnNames(final boolean addSuffixToDuplicateColumnNames) {
+        this.addSuffixToDuplicateColumnNames = addSuffixToDuplicateColumnNames;
+        return this;
+    }
+
+    /**
+     * Opens the workbook and reads its shared strings, the rows are read as
+     * the data set is.
+     *
+     * @return the records of the sheet, close it to close the file
+     * @throws IOException
+     *           if the file is not a workbook or has no such sheet
+     */
+    public XlsxDataSet parseAsStream() throws IOException {
+        final ZipFile zip = new ZipFile(file);
+        try {
+            return new XlsxDataSet(zip);
+        } catch (final IOException | RuntimeException e) {
+            zip.close();
+            throw e;
+        } catch (final XMLStreamException e) {
+            zip.close();
+            throw new IOException("Cannot read " + file, e);
+        }
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        return factory;
+    }
+
+    /**
+     * @return the part path of a relationship target
+     */
+    private static String resolve(final String base, final String target) {
+        if (target.startsWith("/")) {
+            return target.substring(1);
+        }
+        final List<String> path = new ArrayList<>(Arrays.asList(base.substring(0, base.lastIndexOf('/') + 1).split("/")));
+        path.removeIf(String::isEmpty);
+        for (final String part : target.split("/")) {
+            if ("..".equals(part)) {
+                path.remove(path.size() - 1);
+            } else if (!".".equals(part)) {
+                path.add(part);
+            }
+        }
+        return String.join("/", path);
+    }
+
+    /**
+     * @return the column of a cell reference such as AB12, 0 for A
+     */
+    static int columnIndex(final String reference) {
+        int column = 0;
+        for (int i = 0; i < reference.length(); i++) {
+            final char c = reference.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + c - 'A' + 1;
+        }
+        return column - 1;
+    }
+
+    /**
+     * The records of the sheet.
+     */
+    public final class XlsxDataSet implements StreamingDataSet, AutoCloseable {
+        private final ZipFile zip;
+        private final XMLInputFactory factory = newInputFactory();
+        private final SharedStrings sharedStrings = new SharedStrings();
+        private final List<DataError> errors = new ArrayList<>();
+        private final InputStream sheetStream;
+        private final XMLStreamReader sheet;
+        private MetaData md = metaData;
+        private boolean caseSensitive;
+        private boolean skipFirstRow = ignoreFirstRecord;
+        private int detailColumnCount;
+
+        // the cells of the current row
+        private final StringBuilder chars = new StringBuilder(256);
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private int cellCount;
+        private int rowNumber;
+        private Record current;
+
+        private XlsxDataSet(final ZipFile zip) throws IOException, XMLStreamException {
+            this.zip = zip;
+            final String workbook = findWorkbook();
+            final Map<String, String> relationships = new HashMap<>();
+            String sharedStringsPart = null;
+            for (final String[] rel : readRelationships(resolve(workbook, "_rels/" + workbook.substring(workbook.lastIndexOf('/') + 1) + ".rels"))) {
+                relationships.put(rel[0], resolve(workbook, rel[2]));
+                if (rel[1].endsWith("/sharedStrings")) {
+                    sharedStringsPart = resolve(workbook, rel[2]);
+                }
+            }
+            final String sheetPart = relationships.get(findSheet(workbook));
+            if (sheetPart == null || zip.getEntry(sheetPart) == null) {
+                throw new IOException("No sheet " + (sheetName != null ? sheetName : "") + " in " + file);
+            }
+            if (sharedStringsPart != null && zip.getEntry(sharedStringsPart) != null) {
+                readSharedStrings(sharedStringsPart);
+            }
+            if (md != null) {
+                caseSensitive = md.isCompiled() ? md.isColumnNamesCaseSensitive() : columnNamesCaseSensitive;
+                detailColumnCount = md.getColumnsNames().size();
+            } else {
+                caseSensitive = columnNamesCaseSensitive;
+            }
+            sheetStream = zip.getInputStream(zip.getEntry(sheetPart));
+            sheet = factory.createXMLStreamReader(sheetStream);
+        }
+
+        private XMLStreamReader open(final String part) throws IOException, XMLStreamException {
+            final ZipEntry entry = zip.getEntry(part);
+            if (entry == null) {
+                throw new IOException("No " + part + " in " + file);
+            }
+            return factory.createXMLStreamReader(zip.getInputStream(entry));
+        }
+
+        private String findWorkbook() throws IOException, XMLStreamException {
+            for (final String[] rel : readRelationships("_rels/.rels")) {
+                if (rel[1].endsWith("/officeDocument")) {
+                    return resolve("", rel[2]);
+                }
+            }
+            return "xl/workbook.xml";
+        }
+
+        /**
+         * @return the id, type and target of each relationship of the part
+         */
+        private List<String[]> readRelationships(final String part) throws IOException, XMLStreamException {
+            final List<String[]> relationships = new ArrayList<>();
+            final XMLStreamReader reader = open(part);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT && "Relationship".equals(reader.getLocalName())) {
+                        relationships.add(new String[] { reader.getAttributeValue(null, "Id"), String.valueOf(reader.getAttributeValue(null, "Type")),
+                                reader.getAttributeValue(null, "Target") });
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+            return relationships;
+        }
+
+        /**
+         * @return the relationship id of the sheet
+         */
+        private String findSheet(final String workbook) throws IOException, XMLStreamException {
+            final XMLStreamReader reader = open(workbook);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT && "sheet".equals(reader.getLocalName())
+                            && (sheetName == null || sheetName.equals(reader.getAttributeValue(null, "name")))) {
+                        return reader.getAttributeValue(RELATIONSHIPS, "id");
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+            return null;
+        }
+
+        private void readSharedStrings(final String part) throws IOException, XMLStreamException {
+            final XMLStreamReader reader = open(part);
+            try {
+                int phonetic = 0;
+                while (reader.hasNext()) {
+                    final int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        if ("rPh".equals(reader.getLocalName())) {
+                            phonetic++;
+                        } else if ("t".equals(reader.getLocalName()) && phonetic == 0) {
+                            sharedStrings.append(reader.getElementText());
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        if ("rPh".equals(reader.getLocalName())) {
+                            phonetic--;
+                        } else if ("si".equals(reader.getLocalName())) {
+                            sharedStrings.next();
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+
+        @Override
+        public boolean next() {
+            try {
+                while (readRow()) {
+                    if (md == null) {
+                        readColumnNames();
+                    } else if (skipFirstRow) {
+                        skipFirstRow = false;
+                    } else {
+                        final Row row = buildRow();
+                        if (row != null) {
+                            current = new RowRecord(row, md, caseSensitive, (ConverterRegistry) null, false, false, false, false);
+                            return true;
+                        }
+                    }
+                }
+            } catch (final XMLStreamException e) {
+                throw new FPException("Error reading " + file + " at row " + rowNumber, e);
+            }
+            current = null;
+            return false;
+        }
+
+        /**
+         * @return false at the end of the sheet, otherwise the cells of the
+         *         next row with a value
+         */
+        private boolean readRow() throws XMLStreamException {
+            while (sheet.hasNext()) {
+                final int event = sheet.next();
+                if (event == XMLStreamConstants.START_ELEMENT && "row".equals(sheet.getLocalName())) {
+                    final String r = sheet.getAttributeValue(null, "r");
+                    rowNumber = r != null ? Integer.parseInt(r) : rowNumber + 1;
+                    if (readCells()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean readCells() throws XMLStreamException {
+            chars.setLength(0);
+            cellCount = 0;
+            int column = -1;
+            while (sheet.hasNext()) {
+                final int event = sheet.next();
+                if (event == XMLStreamConstants.END_ELEMENT && "row".equals(sheet.getLocalName())) {
+                    return cellCount > 0;
+                }
+                if (event == XMLStreamConstants.START_ELEMENT && "c".equals(sheet.getLocalName())) {
+                    final String r = sheet.getAttributeValue(null, "r");
+                    column = r != null ? columnIndex(r) : column + 1;
+                    readCell(column, sheet.getAttributeValue(null, "t"));
+                }
+            }
+            return cellCount > 0;
+        }
+
+        private void readCell(final int column, final String type) throws XMLStreamException {
+            final int start = chars.length();
+            while (sheet.hasNext()) {
+                final int event = sheet.next();
+                if (event == XMLStreamConstants.END_ELEMENT && "c".equals(sheet.getLocalName())) {
+                    break;
+                }
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if ("v".equals(sheet.getLocalName())) {
+                        final String value = sheet.getElementText();
+                        if ("s".equals(type)) {
+                            sharedStrings.appendTo(Integer.parseInt(value.trim()), chars);
+                        } else if ("b".equals(type)) {
+                            chars.append("1".equals(value) ? "TRUE" : "FALSE");
+                        } else {
+                            chars.append(value);
+                        }
+                    } else if ("t".equals(sheet.getLocalName())) {
+                        // inline string
+                        chars.append(sheet.getElementText());
+                    } else if ("rPh".equals(sheet.getLocalName())) {
+                        skipElement();
+                    }
+                }
+            }
+            if (chars.length() > start) {
+                setCell(column, start, chars.length());
+            }
+        }
+
+        private void skipElement() throws XMLStreamException {
+            int depth = 1;
+            while (depth > 0) {
+                final int event = sheet.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+        }
+
+        private void setCell(final int column, final int start, final int end) {
+            if (column >= starts.length) {
+                final int size = Math.max(column + 1, starts.length * 2);
+                starts = Arrays.copyOf(starts, size);
+                ends = Arrays.copyOf(ends, size);
+            }
+            // the cells left out are empty
+            for (int i = cellCount; i < column; i++) {
+                starts[i] = start;
+                ends[i] = start;
+            }
+            starts[column] = start;
+            ends[column] = end;
+            cellCount = Math.max(cellCount, column + 1);
+        }
+
+        private CellBuffer cells(final int columnCount) {
+            final char[] buffer = new char[chars.length()];
+            chars.getChars(0, buffer.length, buffer, 0);
+            final CellBuffer cells = new CellBuffer(buffer, Math.max(cellCount, columnCount));
+            for (int i = 0; i < cellCount; i++) {
+                cells.addCell(starts[i], ends[i]);
+            }
+            for (int i = cellCount; i < columnCount; i++) {
+                cells.addCell(buffer.length, buffer.length);
+            }
+            return cells;
+        }
+
+        private void readColumnNames() {
+            final List<String> names = new ArrayList<>(cells(0));
+            final List<ColumnMetaData> columns = ParserUtils.getPZMetaDataFromFile(names, null, addSuffixToDuplicateColumnNames).getColumnsNames();
+            md = MetaData.compile(columns, caseSensitive);
+            detailColumnCount = columns.size();
+        }
+
+        /**
+         * @return the row, null if it does not match the columns
+         */
+        private Row buildRow() {
+            String mdkey = FPConstants.DETAIL_ID;
+            int columnCount = detailColumnCount;
+            if (md.isAnyRecordFormatSpecified()) {
+                mdkey = md.getDelimitedRecordKey(cells(0));
+                if (!FPConstants.DETAIL_ID.equals(mdkey)) {
+                    columnCount = md.getListColumnsForRecord(mdkey).size();
+                }
+            }
+            if (cellCount > columnCount) {
+                errors.add(new DataError("Too many columns expected: " + columnCount + " Flatpack got: " + cellCount, rowNumber, 2));
+                return null;
+            }
+            final Row row = new Row();
+            row.setCols(cells(columnCount));
+            row.setRowNumber(rowNumber);
+            row.setMdkey(FPConstants.DETAIL_ID.equals(mdkey) ? null : mdkey);
+            return row;
+        }
+
+        @Override
+        public Optional<Record> getRecord() {
+            return Optional.ofNullable(current);
+        }
+
+        @Override
+        public List<DataError> getErrors() {
+            return errors;
+        }
+
+        @Override
+        public int getErrorCount() {
+            return errors.size();
+        }
+
+        /**
+         * @return the MetaData of the records, read from the first row if none
+         *         was given
+         */
+        public MetaData getMetaData() {
+            return md;
+        }
+
+        /**
+         * Closes the workbook.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                sheet.close();
+            } catch (final XMLStreamException e) {
+                throw new IOException(e);
+            } finally {
+                try {
+                    sheetStream.close();
+                } finally {
+                    zip.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * The shared strings of the workbook in one char array, indexed by the
+     * end of each string.
+     */
+    private static final class SharedStrings {
+        private char[] chars = new char[1024];
+        private int[] ends = new int[64];
+        private int length;
+        private int count;
+
+        private void append(final String text) {
+            if (length + text.length() > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(length + text.length(), chars.length * 2));
+            }
+            text.getChars(0, text.length(), chars, length);
+            length += text.length();
+        }
+
+        private void next() {
+            if (count == ends.length) {
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            ends[count++] = length;
+        }
+
+        private void appendTo(final int index, final StringBuilder sb) {
+            if (index < 0 || index >= count) {
+                throw new FPException("No shared string " + index);
+            }
+            final int start = index == 0 ? 0 : ends[index - 1];
+            sb.append(chars, start, ends[index] - start);
+        }
+    }
+}
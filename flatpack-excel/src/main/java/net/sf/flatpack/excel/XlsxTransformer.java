@@ -0,0 +1,374 @@
+package net.sf.flatpack.excel;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import net.sf.flatpack.ColumnRef;
+import net.sf.flatpack.DataSet;
+import net.sf.flatpack.Record;
+import net.sf.flatpack.RecordDataSet;
+import net.sf.flatpack.StreamingDataSet;
+import net.sf.flatpack.util.FPConstants;
+import net.sf.flatpack.util.FPStringUtils;
+
+/**
+ * Converts a DataSet or a StreamingDataSet into an Excel 2007 (.xlsx)
+ * spreadsheet. Unlike the ExcelTransformer, the sheet is written to the zip
+ * stream row by row as the records are read, so the memory used does not
+ * depend on the number of records:
+ *
+ * <pre>
+ * try (BuffReaderDelimParser parser = (BuffReaderDelimParser) BuffReaderParseFactory.getInstance().newDelimitedParser(reader, ',', '"')) {
+ *     final XlsxTransformer xlsx = new XlsxTransformer(parser.parseAsStream(), new File("trades.xlsx"));
+ *     xlsx.setNumericColumns(new String[] { "QTY", "PRICE" });
+ *     xlsx.writeExcelFile();
+ * }
+ * </pre>
+ *
+ * The strings are written inline, not in a shared string table. Only detail
+ * records will be contained in the export, the columns being those of the
+ * first detail record.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public class XlsxTransformer {
+    /** rows of an xlsx sheet, including the column headings. */
+    public static final int MAX_ROWS = 1_048_576;
+    /** columns of an xlsx sheet. */
+    public static final int MAX_COLUMNS = 16_384;
+
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    private static final String CONTENT_TYPES = XML_HEADER
+            + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+            + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+            + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+            + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+            + "<Override PartName=\"/xl/worksheets/sheet1.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>"
+            + "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>"
+            + "</Types>";
+    private static final String RELS = XML_HEADER + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+            + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+            + "</Relationships>";
+    private static final String WORKBOOK_RELS = XML_HEADER + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+            + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet1.xml\"/>"
+            + "<Relationship Id=\"rId2\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>"
+            + "</Relationships>";
+    /** style 1 is used for the bold column headings. */
+    private static final String STYLES = XML_HEADER + "<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+            + "<fonts count=\"2\"><font><sz val=\"10\"/><name val=\"Times New Roman\"/></font>"
+            + "<font><b/><sz val=\"10\"/><name val=\"Times New Roman\"/></font></fonts>"
+            + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>"
+            + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+            + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+            + "<cellXfs count=\"2\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+            + "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/></cellXfs>"
+            + "</styleSheet>";
+    private static final String SHEET_START = XML_HEADER + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>";
+    private static final String SHEET_END = "</sheetData></worksheet>";
+
+    private final RecordDataSet ds;
+
+    private final File xlsxFile;
+
+    private String sheetName = "results";
+
+    private String[] exportOnlyColumns;
+
+    private String[] excludeFromExportColumns;
+
+    private String[] numericColumns;
+
+    /**
+     * Constructs a new Excel transformer, the DataSet pointer is put back
+     * where it was once written
+     *
+     * @param ds
+     *            DataSet to convert
+     * @param xlsxFile
+     *            Excel file to be created
+     */
+    public XlsxTransformer(final DataSet ds, final File xlsxFile) {
+        this.ds = ds;
+        this.xlsxFile = xlsxFile;
+    }
+
+    /**
+     * Constructs a new Excel transformer reading the records once
+     *
+     * @param ds
+     *            StreamingDataSet to convert
+     * @param xlsxFile
+     *            Excel file to be created, may be null if only
+     *            write(OutputStream) is used
+     */
+    public XlsxTransformer(final StreamingDataSet ds, final File xlsxFile) {
+        this.ds = ds;
+        this.xlsxFile = xlsxFile;
+    }
+
+    /**
+     * Writes the Excel file to disk
+     *
+     * @return the number of records written
+     * @throws IOException
+     */
+    public int writeExcelFile() throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(xlsxFile))) {
+            return write(out);
+        }
+    }
+
+    /**
+     * Writes the spreadsheet to the stream, which is not closed.
+     *
+     * @return the number of records written
+     * @throws IOException
+     */
+    public int write(final OutputStream out) throws IOException {
+        int curDsPointer = -1;
+        if (ds instanceof DataSet) {
+            // get the current position of the DataSet, we will put the pointer
+            // back where it was after we are done
+            curDsPointer = ((DataSet) ds).getIndex();
+            ((DataSet) ds).goTop();
+        }
+        try {
+            final ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+            final Writer writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 64 * 1024);
+            writeEntry(zip, writer, "[Content_Types].xml", CONTENT_TYPES);
+            writeEntry(zip, writer, "_rels/.rels", RELS);
+            writeEntry(zip, writer, "xl/workbook.xml", XML_HEADER + "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\""
+                    + " xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets><sheet name=\""
+                    + escape(sheetName) + "\" sheetId=\"1\" r:id=\"rId1\"/></sheets></workbook>");
+            writeEntry(zip, writer, "xl/_rels/workbook.xml.rels", WORKBOOK_RELS);
+            writeEntry(zip, writer, "xl/styles.xml", STYLES);
+
+            zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+            writer.write(SHEET_START);
+            final int count = new SheetWriter(writer).write();
+            writer.write(SHEET_END);
+            writer.flush();
+            zip.closeEntry();
+            zip.finish();
+            return count;
+        } finally {
+            if (curDsPointer > -1) {
+                ((DataSet) ds).absolute(curDsPointer);
+            }
+        }
+    }
+
+    private static void writeEntry(final ZipOutputStream zip, final Writer writer, final String name, final String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        writer.write(content);
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    private static String escape(final String value) {
+        final StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '&') {
+                sb.append("&amp;");
+            } else if (c == '<') {
+                sb.append("&lt;");
+            } else if (c == '>') {
+                sb.append("&gt;");
+            } else if (c == '"') {
+                sb.append("&quot;");
+            } else if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the rows of the sheet, the exported columns and the cell
+     * references are worked out once from the first detail record.
+     */
+    private final class SheetWriter {
+        private final Writer writer;
+        private ColumnRef[] columns;
+        private char[][] references;
+        private boolean[] numeric;
+        private int row;
+
+        private SheetWriter(final Writer writer) {
+            this.writer = writer;
+        }
+
+        private int write() throws IOException {
+            int count = 0;
+            while (ds.next()) {
+                final Record record = ds.getRecord().get();
+                if (!record.isRecordID(FPConstants.DETAIL_ID)) {
+                    continue;
+                }
+                if (columns == null) {
+                    init(record.getColumns(FPConstants.DETAIL_ID));
+                }
+                if (row == MAX_ROWS) {
+                    throw new IOException("More than " + (MAX_ROWS - 1) + " records to export in a sheet");
+                }
+                startRow();
+                for (int i = 0; i < columns.length; i++) {
+                    final CharSequence value = record.getCharSequence(columns[i]);
+                    if (FPStringUtils.isBlank(value)) {
+                        continue;
+                    }
+                    if (numeric[i]) {
+                        startCell(i, null);
+                        writer.write("><v>");
+                        writer.write(Double.toString(record.getDouble(columns[i])));
+                        writer.write("</v></c>");
+                    } else {
+                        writeString(i, null, value);
+                    }
+                }
+                writer.write("</row>");
+                count++;
+            }
+            if (columns == null && ds instanceof DataSet) {
+                init(((DataSet) ds).getColumns());
+            }
+            return count;
+        }
+
+        private void init(final String[] columnNames) throws IOException {
+            final List<String> exportOnlyColumnsList = exportOnlyColumns != null ? Arrays.asList(exportOnlyColumns) : null;
+            final List<String> excludeFromExportColumnsList = excludeFromExportColumns != null ? Arrays.asList(excludeFromExportColumns)
+                    : Collections.emptyList();
+            final List<String> numericColumnList = numericColumns != null ? Arrays.asList(numericColumns) : Collections.emptyList();
+            final List<String> exported = new ArrayList<>();
+            for (final String column : columnNames) {
+                if ((exportOnlyColumnsList == null || exportOnlyColumnsList.contains(column)) && !excludeFromExportColumnsList.contains(column)) {
+                    exported.add(column);
+                }
+            }
+            if (exported.size() > MAX_COLUMNS) {
+                throw new IOException("More than " + MAX_COLUMNS + " columns to export in a sheet");
+            }
+
+            columns = new ColumnRef[exported.size()];
+            references = new char[exported.size()][];
+            numeric = new boolean[exported.size()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = ColumnRef.of(exported.get(i));
+                references[i] = columnLetters(i);
+                numeric[i] = numericColumnList.contains(exported.get(i));
+            }
+
+            // write the column headings in the spreadsheet
+            startRow();
+            for (int i = 0; i < columns.length; i++) {
+                writeString(i, "1", exported.get(i));
+            }
+            writer.write("</row>");
+        }
+
+        private void startRow() throws IOException {
+            row++;
+            writer.write("<row r=\"");
+            writer.write(Integer.toString(row));
+            writer.write("\">");
+        }
+
+        private void startCell(final int column, final String style) throws IOException {
+            writer.write("<c r=\"");
+            writer.write(references[column]);
+            writer.write(Integer.toString(row));
+            writer.write('"');
+            if (style != null) {
+                writer.write(" s=\"");
+                writer.write(style);
+                writer.write('"');
+            }
+        }
+
+        private void writeString(final int column, final String style, final CharSequence value) throws IOException {
+            startCell(column, style);
+            writer.write(" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c == '&') {
+                    writer.write("&amp;");
+                } else if (c == '<') {
+                    writer.write("&lt;");
+                } else if (c == '>') {
+                    writer.write("&gt;");
+                } else if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                    writer.write(c);
+                }
+                // other control characters are not allowed in XML 1.0
+            }
+            writer.write("</t></is></c>");
+        }
+    }
+
+    /**
+     * @return the letters of the column, A for 0, AA for 26
+     */
+    static char[] columnLetters(final int column) {
+        final StringBuilder letters = new StringBuilder(3);
+        for (int c = column + 1; c > 0; c = (c - 1) / 26) {
+            letters.insert(0, (char) ('A' + (c - 1) % 26));
+        }
+        return letters.toString().toCharArray();
+    }
+
+    /**
+     * @param sheetName the name of the sheet, "results" by default
+     */
+    public void setSheetName(final String sheetName) {
+        this.sheetName = sheetName;
+    }
+
+    /**
+     * The columns names contained in the array will be igored if
+     * setExportOnlyColumns() is called.
+     *
+     * Any columns names contained in this list will be excluded from
+     * the export in Excel.
+     *
+     * @param excludeFromExportColumns the excludeFromExportColumns to set
+     */
+    public void setExcludeFromExportColumns(final String[] excludeFromExportColumns) {
+        this.excludeFromExportColumns = excludeFromExportColumns != null ? excludeFromExportColumns.clone() : null;
+    }
+
+    /**
+     * When set, only columns contained in the String[] will
+     * be exported out to Excel.
+     *
+     * @param exportOnlyColumns the exportOnlyColumns to set
+     */
+    public void setExportOnlyColumns(final String[] exportOnlyColumns) {
+        this.exportOnlyColumns = exportOnlyColumns != null ? exportOnlyColumns.clone() : null;
+    }
+
+    /**
+     * Columns contained in this array will be written as numerics to Excel
+     * instead of Text, blank values are left empty
+     *
+     * @param numericColumns the numericColumns to set
+     */
+    public void setNumericColumns(final String[] numericColumns) {
+        this.numericColumns = numericColumns != null ? numericColumns.clone() : null;
+    }
+}
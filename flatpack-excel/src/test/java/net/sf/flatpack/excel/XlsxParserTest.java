@@ -0,0 +1,154 @@
+package net.sf.flatpack.excel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.sf.flatpack.brparse.BuffReaderParseFactory;
+import net.sf.flatpack.structure.ColumnMetaData;
+import net.sf.flatpack.xml.MetaData;
+
+public class XlsxParserTest {
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("flatpack", ".xlsx");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private void zip(final String... entries) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(file))) {
+            for (int i = 0; i < entries.length; i += 2) {
+                zip.putNextEntry(new ZipEntry(entries[i]));
+                zip.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * A workbook as written by Excel, with shared strings, rich text, a
+     * boolean, a gap between cells and an empty row.
+     */
+    private void excelWorkbook() throws IOException {
+        zip("_rels/.rels", "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                + "</Relationships>", //
+                "xl/workbook.xml", "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\""
+                        + " xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>"
+                        + "<sheet name=\"Summary\" sheetId=\"1\" r:id=\"rId1\"/><sheet name=\"Trades\" sheetId=\"2\" r:id=\"rId2\"/></sheets></workbook>", //
+                "xl/_rels/workbook.xml.rels", "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                        + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet1.xml\"/>"
+                        + "<Relationship Id=\"rId2\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"/xl/worksheets/sheet2.xml\"/>"
+                        + "<Relationship Id=\"rId3\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/sharedStrings\" Target=\"sharedStrings.xml\"/>"
+                        + "</Relationships>", //
+                "xl/sharedStrings.xml", "<sst xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">"
+                        + "<si><t>ID</t></si><si><t>Name</t></si><si><t>Active</t></si><si><t>Qty</t></si>"
+                        + "<si><r><t>Fish </t></r><r><rPr><b/></rPr><t>&amp; Chips</t></r><rPh><t>x</t></rPh></si></sst>", //
+                "xl/worksheets/sheet1.xml", "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>"
+                        + "<row r=\"1\"><c r=\"A1\" t=\"s\"><v>1</v></c></row></sheetData></worksheet>", //
+                "xl/worksheets/sheet2.xml", "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>"
+                        + "<row r=\"1\"><c r=\"A1\" t=\"s\"><v>0</v></c><c r=\"B1\" t=\"s\"><v>1</v></c><c r=\"C1\" t=\"s\"><v>2</v></c>"
+                        + "<c r=\"D1\" t=\"s\"><v>3</v></c></row>" //
+                        + "<row r=\"2\"><c r=\"A2\"><v>1</v></c><c r=\"B2\" t=\"s\"><v>4</v></c><c r=\"C2\" t=\"b\"><v>1</v></c>"
+                        + "<c r=\"D2\"><f>2*3</f><v>6</v></c></row>" //
+                        + "<row r=\"3\"/>" //
+                        + "<row r=\"5\"><c r=\"A5\"><v>2</v></c><c r=\"C5\" t=\"b\"><v>0</v></c></row>" //
+                        + "<row r=\"6\"><c r=\"E6\" t=\"inlineStr\"><is><t>extra</t></is></c></row>" //
+                        + "</sheetData></worksheet>");
+    }
+
+    @Test
+    public void testExcelWorkbook() throws IOException {
+        excelWorkbook();
+        try (XlsxParser.XlsxDataSet ds = new XlsxParser(file).setSheetName("Trades").parseAsStream()) {
+            assertThat(ds.next()).isTrue();
+            assertThat(ds.getRecord().get().getColumns()).containsExactly("ID", "Name", "Active", "Qty");
+            assertThat(ds.getRecord().get().getString("name")).isEqualTo("Fish & Chips");
+            assertThat(ds.getRecord().get().getString("Active")).isEqualTo("TRUE");
+            assertThat(ds.getRecord().get().getInt("Qty")).isEqualTo(6);
+            assertThat(ds.getRecord().get().getRowNo()).isEqualTo(2);
+
+            assertThat(ds.next()).isTrue();
+            assertThat(ds.getRecord().get().getInt("ID")).isEqualTo(2);
+            assertThat(ds.getRecord().get().getString("Name")).isEmpty();
+            assertThat(ds.getRecord().get().getString("Active")).isEqualTo("FALSE");
+            assertThat(ds.getRecord().get().getString("Qty")).isEmpty();
+            assertThat(ds.getRecord().get().getRowNo()).isEqualTo(5);
+
+            assertThat(ds.next()).isFalse();
+            assertThat(ds.getErrorCount()).isEqualTo(1);
+            assertThat(ds.getErrors().get(0).getLineNo()).isEqualTo(6);
+        }
+    }
+
+    @Test
+    public void testMetaData() throws IOException {
+        excelWorkbook();
+        final MetaData md = MetaData.compile(
+                Arrays.asList(new ColumnMetaData("Key"), new ColumnMetaData("Label"), new ColumnMetaData("Flag"), new ColumnMetaData("Count")), false);
+        try (XlsxParser.XlsxDataSet ds = new XlsxParser(file).setSheetName("Trades").setMetaData(md).setIgnoreFirstRecord(true).parseAsStream()) {
+            assertThat(ds.stream().map(r -> r.getString("key") + ":" + r.getString("FLAG")).collect(Collectors.toList())).containsExactly("1:TRUE",
+                    "2:FALSE");
+        }
+    }
+
+    @Test
+    public void testFirstSheet() throws IOException {
+        excelWorkbook();
+        try (XlsxParser.XlsxDataSet ds = new XlsxParser(file).parseAsStream()) {
+            assertThat(ds.next()).isFalse();
+            assertThat(ds.getMetaData().getColumnsNames()).hasSize(1);
+        }
+    }
+
+    @Test
+    public void testMissingSheet() throws IOException {
+        excelWorkbook();
+        try {
+            new XlsxParser(file).setSheetName("Other").parseAsStream();
+            Assert.fail("Expected IOException");
+        } catch (final IOException e) {
+            assertThat(e.getMessage()).contains("Other");
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final StringBuilder csv = new StringBuilder("ID,NAME,PRICE\n");
+        for (int i = 0; i < 5_000; i++) {
+            csv.append(i).append(",\"a <b> & ").append(i).append("\",").append(i / 4.0).append('\n');
+        }
+        final XlsxTransformer xlsx = new XlsxTransformer(
+                BuffReaderParseFactory.getInstance().newDelimitedParser(new StringReader(csv.toString()), ',', '"').parseAsStream(), file);
+        xlsx.setNumericColumns(new String[] { "PRICE" });
+        xlsx.writeExcelFile();
+
+        try (XlsxParser.XlsxDataSet ds = new XlsxParser(file).parseAsStream()) {
+            final List<String> rows = ds.stream().map(r -> r.getString("ID") + "," + r.getString("NAME") + "," + r.getDouble("PRICE"))
+                    .collect(Collectors.toList());
+            assertThat(rows).hasSize(5_000);
+            assertThat(rows.get(4_001)).isEqualTo("4001,a <b> & 4001,1000.25");
+            assertThat(ds.getErrorCount()).isZero();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package net.sf.flatpack.excel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.Test;
+
+import net.sf.flatpack.DataSet;
+import net.sf.flatpack.DefaultParserFactory;
+import net.sf.flatpack.brparse.BuffReaderParseFactory;
+
+public class XlsxTransformerTest {
+    private static final String CSV = "ID,NAME,PRICE\n1,\"Fish & <Chips>\",2.5\n2,,\n";
+
+    private static Map<String, String> unzip(final byte[] xlsx) throws IOException {
+        final Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(xlsx))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                final ByteArrayOutputStream content = new ByteArrayOutputStream();
+                final byte[] buffer = new byte[4096];
+                int read;
+                while ((read = zip.read(buffer)) > 0) {
+                    content.write(buffer, 0, read);
+                }
+                entries.put(entry.getName(), new String(content.toByteArray(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    @Test
+    public void testStreamingDataSet() throws IOException {
+        final XlsxTransformer xlsx = new XlsxTransformer(
+                BuffReaderParseFactory.getInstance().newDelimitedParser(new StringReader(CSV), ',', '"').parseAsStream(), null);
+        xlsx.setNumericColumns(new String[] { "PRICE" });
+        xlsx.setExcludeFromExportColumns(new String[] { "ID" });
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(xlsx.write(out)).isEqualTo(2);
+
+        final Map<String, String> entries = unzip(out.toByteArray());
+        assertThat(entries).containsOnlyKeys("[Content_Types].xml", "_rels/.rels", "xl/workbook.xml", "xl/_rels/workbook.xml.rels", "xl/styles.xml",
+                "xl/worksheets/sheet1.xml");
+        assertThat(entries.get("xl/workbook.xml")).contains("<sheet name=\"results\"");
+        assertThat(entries.get("xl/worksheets/sheet1.xml")).contains("<sheetData>"
+                + "<row r=\"1\"><c r=\"A1\" s=\"1\" t=\"inlineStr\"><is><t xml:space=\"preserve\">NAME</t></is></c>"
+                + "<c r=\"B1\" s=\"1\" t=\"inlineStr\"><is><t xml:space=\"preserve\">PRICE</t></is></c></row>"
+                + "<row r=\"2\"><c r=\"A2\" t=\"inlineStr\"><is><t xml:space=\"preserve\">Fish &amp; &lt;Chips&gt;</t></is></c>"
+                + "<c r=\"B2\"><v>2.5</v></c></row>" //
+                + "<row r=\"3\"></row></sheetData>");
+    }
+
+    @Test
+    public void testDataSetPointerKept() throws IOException {
+        final DataSet ds = DefaultParserFactory.getInstance().newDelimitedParser(new StringReader(CSV), ',', '"').parse();
+        ds.next();
+        final XlsxTransformer xlsx = new XlsxTransformer(ds, null);
+        xlsx.setExportOnlyColumns(new String[] { "ID" });
+        xlsx.setSheetName("a&b");
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(xlsx.write(out)).isEqualTo(2);
+        assertThat(ds.getIndex()).isEqualTo(0);
+
+        final Map<String, String> entries = unzip(out.toByteArray());
+        assertThat(entries.get("xl/workbook.xml")).contains("<sheet name=\"a&amp;b\"");
+        assertThat(entries.get("xl/worksheets/sheet1.xml")).contains("<row r=\"3\"><c r=\"A3\" t=\"inlineStr\"><is><t xml:space=\"preserve\">2</t>");
+    }
+
+    @Test
+    public void testColumnLetters() {
+        assertThat(new String(XlsxTransformer.columnLetters(0))).isEqualTo("A");
+        assertThat(new String(XlsxTransformer.columnLetters(25))).isEqualTo("Z");
+        assertThat(new String(XlsxTransformer.columnLetters(26))).isEqualTo("AA");
+        assertThat(new String(XlsxTransformer.columnLetters(16_383))).isEqualTo("XFD");
+    }
+}
@@ -40,8 +40,11 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.sf.flatpack.metrics.ParseListener;
+import net.sf.flatpack.metrics.ParsePhase;
 import net.sf.flatpack.structure.ColumnMetaData;
 import net.sf.flatpack.structure.Row;
+import net.sf.flatpack.util.DelimitedRecordReader;
 import net.sf.flatpack.util.FPConstants;
 import net.sf.flatpack.util.ParserUtils;
 
@@ -127,89 +130,51 @@ public abstract class AbstractDelimiterParser extends AbstractParser {
         if (dataSource == null) {
             throw new IllegalArgumentException("dataSource is null");
         }
-        final DefaultDataSet ds = new DefaultDataSet(getPzMetaData(), this);
-        try (BufferedReader br = new BufferedReader(dataSource)) {
-            // gather the conversion properties
-            ds.setPZConvertProps(ParserUtils.loadConvertProperties());
-
+        final DefaultDataSet ds = newDataSet();
+        try (Reader source = dataSource) {
             boolean processedFirst = false;
-            /** loop through each line in the file */
-            String line = null;
-            int estimatedColCount = FPConstants.SPLITLINE_SIZE_INIT;
-            while ((line = fetchNextRecord(br, getQualifier(), getDelimiter())) != null) {
+            /** loop through each record in the file */
+            final DelimitedRecordReader reader = newRecordReader(source);
+            final ParseListener listener = getParseListener();
+            long mark = listener != null ? System.nanoTime() : 0;
+            while (nextRecord(reader)) {
+                if (listener != null) {
+                    mark = lap(listener, ParsePhase.READ, mark);
+                }
                 // check to see if the user has elected to skip the first record
                 if (!processedFirst && isIgnoreFirstRecord()) {
                     processedFirst = true;
                     continue;
                 } else if (!processedFirst && createMDFromFile) {
                     processedFirst = true;
-                    setPzMetaData(ParserUtils.getPZMetaDataFromFile(line, delimiter, qualifier, this, isAddSuffixToDuplicateColumnNames()));
+                    setPzMetaData(ParserUtils.getPZMetaDataFromFile(reader.getCells(false, false), this, isAddSuffixToDuplicateColumnNames()));
                     ds.setMetaData(getPzMetaData());
                     continue;
                 }
                 // column values
+                final String line = isStoreRawDataToDataError() || isStoreRawDataToDataSet() ? reader.getRawRecord() : null;
 
                 // check number of Qualifier, if ODD number --> Incorrect!!!
-                if (oddNumberOfQualifier(line, getQualifier())) {
+                if (getQualifier() > 0 && reader.hasOddNumberOfQualifiers()) {
                     addError(ds, "Odd number of Qualifier characters", lineCount, 1, isStoreRawDataToDataError() ? line : null);
                     continue;
                 }
 
-                List<String> columns = ParserUtils.splitLine(line, getDelimiter(), getQualifier(), estimatedColCount, isPreserveLeadingWhitespace(),
-                        isPreserveTrailingWhitespace());
-                final String mdkey = ParserUtils.getCMDKeyForDelimitedFile(getPzMetaData(), columns);
-                final List<ColumnMetaData> metaData = ParserUtils.getColumnMetaData(mdkey, getPzMetaData());
-                final int columnCount = metaData.size();
-                estimatedColCount = columnCount;
-
-                if (columns.size() > columnCount) {
-                    // Incorrect record length on line log the error. Line
-                    // will not be included in the dataset log the error
-                    if (isIgnoreExtraColumns()) {
-                        // user has chosen to ignore the fact that we have too many columns in the data from
-                        // what the mapping has described. sublist the array to remove un-needed columns
-                        columns = columns.subList(0, columnCount);
-                        addError(ds, "Flatpack truncated line to correct number of columns", lineCount, 1, isStoreRawDataToDataError() ? line : null);
-                    } else {
-                        addError(ds, "Too many columns expected: " + columnCount + " Flatpack got: " + columns.size(), lineCount, 2,
-                                isStoreRawDataToDataError() ? line : null);
-                        continue;
-                    }
-                } else if (columns.size() < columnCount) {
-                    if (isHandlingShortLines()) {
-                        // We can pad this line out
-                        while (columns.size() < columnCount) {
-                            columns.add("");
-                        }
-
-                        // log a warning
-                        addError(ds, "Flatpack padded line to correct number of columns", lineCount, 1, isStoreRawDataToDataError() ? line : null);
-
-                    } else {
-                        addError(ds, "Too few columns expected: " + columnCount + " only got: " + columns.size(), lineCount, 2,
-                                isStoreRawDataToDataError() ? line : null);
-                        continue;
-                    }
+                final List<String> columns = getCells(reader);
+                if (listener != null) {
+                    mark = lap(listener, ParsePhase.SPLIT, mark);
                 }
-
-                final Row row = new Row();
-                row.setMdkey(mdkey.equals(FPConstants.DETAIL_ID) ? null : mdkey); // try
-                // to limit the memory use
-                row.setCols(columns);
-                row.setRowNumber(lineCount);
-                if (isFlagEmptyRows()) {
-                    // user has elected to have the parser flag rows that are empty
-                    row.setEmpty(ParserUtils.isListElementsEmpty(columns));
+                final Row row = buildRowFromColumns(ds, columns, line, lineCount);
+                if (row != null) {
+                    // add the row to the array
+                    ds.addRow(row);
                 }
-                if (isStoreRawDataToDataSet()) {
-                    // user told the parser to keep a copy of the raw data in the row
-                    // WARNING potential for high memory usage here
-                    row.setRawData(line);
+                if (listener != null) {
+                    mark = lap(listener, ParsePhase.BUILD, mark);
                 }
-
-                // add the row to the array
-                ds.addRow(row);
-
+            }
+            if (listener != null) {
+                listener.dataSetLoaded(ds.getRowCount());
             }
         } finally {
             closeReaders();
@@ -217,18 +182,130 @@ public abstract class AbstractDelimiterParser extends AbstractParser {
         return ds;
     }
 
-    private boolean oddNumberOfQualifier(final String line, final char q) {
-        if (line == null || line.isEmpty()) {
-            return false;
+    /**
+     * @return a reader splitting the records of the data with the delimiter
+     *         and qualifier of this parser
+     * @since 4.0.5
+     */
+    protected DelimitedRecordReader newRecordReader(final Reader dataSource) {
+        return new DelimitedRecordReader(dataSource, delimiter, qualifier);
+    }
+
+    /**
+     * Moves the reader to the next record, blank lines are skipped, and tells
+     * the ParseListener about it.
+     *
+     * @return false at the end of the data
+     * @since 4.0.5
+     */
+    protected boolean nextRecord(final DelimitedRecordReader reader) throws IOException {
+        final ParseListener listener = getParseListener();
+        final long before = reader.getCharsRead();
+        final boolean found = reader.nextRecord();
+        if (found) {
+            lineCount = reader.getRecordLineNumber();
+        }
+        if (listener != null && (found || reader.getCharsRead() > before)) {
+            listener.recordsRead(found ? 1 : 0, reader.getCharsRead() - before, found && reader.isMultiLine() ? 1 : 0);
+        }
+        return found;
+    }
+
+    /**
+     * @return the cells of the current record of the reader, kept in a
+     *         CellBuffer if {@link #isCellBuffers()}, only the projected ones
+     *         are read
+     * @since 4.0.5
+     */
+    protected List<String> getCells(final DelimitedRecordReader reader) {
+        final boolean[] projection = getProjectionMask();
+        if (isCellBuffers()) {
+            return reader.getCellBuffer(isPreserveLeadingWhitespace(), isPreserveTrailingWhitespace(), projection);
         }
-        int count = 0;
-        int idx = 0;
-        while ((idx = line.indexOf(q, idx)) != -1) {
-            count++;
-            idx++;
+        return reader.getCells(isPreserveLeadingWhitespace(), isPreserveTrailingWhitespace(), projection);
+    }
+
+    /**
+     * Splits the line in cells, kept in a CellBuffer if {@link #isCellBuffers()}.
+     *
+     * @since 4.0.5
+     */
+    protected List<String> splitLine(final String line, final int initialSize) {
+        final boolean[] projection = getProjectionMask();
+        if (isCellBuffers()) {
+            return ParserUtils.splitLineToCells(line, getDelimiter(), getQualifier(), initialSize, isPreserveLeadingWhitespace(),
+                    isPreserveTrailingWhitespace(), projection);
         }
+        return ParserUtils.splitLine(line, getDelimiter(), getQualifier(), initialSize, isPreserveLeadingWhitespace(), isPreserveTrailingWhitespace(),
+                projection);
+    }
 
-        return count % 2 != 0;
+    /**
+     * Checks the split columns of a record against the mapping and builds the
+     * Row to be added to the DataSet. The line is padded or truncated if the
+     * parser has been told to handle short lines or ignore extra columns.
+     *
+     * @param ds
+     *          DataSet receiving the errors
+     * @param splitColumns
+     *          columns of the record, the list may get padded or truncated
+     * @param line
+     *          raw data of the record, only used if the raw data is to be stored
+     * @param lineNo
+     *          line number of the record in the file
+     * @return the Row or null if the record has been rejected
+     */
+    protected Row buildRowFromColumns(final DefaultDataSet ds, final List<String> splitColumns, final String line, final int lineNo) {
+        List<String> columns = splitColumns;
+        final String mdkey = ParserUtils.getCMDKeyForDelimitedFile(getPzMetaData(), columns);
+        final List<ColumnMetaData> metaData = ParserUtils.getColumnMetaData(mdkey, getPzMetaData());
+        final int columnCount = metaData.size();
+
+        if (columns.size() > columnCount) {
+            // Incorrect record length on line log the error. Line
+            // will not be included in the dataset log the error
+            if (isIgnoreExtraColumns()) {
+                // user has chosen to ignore the fact that we have too many columns in the data from
+                // what the mapping has described. sublist the array to remove un-needed columns
+                columns = columns.subList(0, columnCount);
+                addError(ds, "Flatpack truncated line to correct number of columns", lineNo, 1, isStoreRawDataToDataError() ? line : null);
+            } else {
+                addError(ds, "Too many columns expected: " + columnCount + " Flatpack got: " + columns.size(), lineNo, 2,
+                        isStoreRawDataToDataError() ? line : null);
+                return null;
+            }
+        } else if (columns.size() < columnCount) {
+            if (isHandlingShortLines()) {
+                // We can pad this line out
+                while (columns.size() < columnCount) {
+                    columns.add("");
+                }
+
+                // log a warning
+                addError(ds, "Flatpack padded line to correct number of columns", lineNo, 1, isStoreRawDataToDataError() ? line : null);
+
+            } else {
+                addError(ds, "Too few columns expected: " + columnCount + " only got: " + columns.size(), lineNo, 2,
+                        isStoreRawDataToDataError() ? line : null);
+                return null;
+            }
+        }
+
+        final Row row = new Row();
+        row.setMdkey(mdkey.equals(FPConstants.DETAIL_ID) ? null : mdkey); // try
+        // to limit the memory use
+        row.setCols(columns);
+        row.setRowNumber(lineNo);
+        if (isFlagEmptyRows()) {
+            // user has elected to have the parser flag rows that are empty
+            row.setEmpty(ParserUtils.isListElementsEmpty(columns));
+        }
+        if (isStoreRawDataToDataSet()) {
+            // user told the parser to keep a copy of the raw data in the row
+            // WARNING potential for high memory usage here
+            row.setRawData(line);
+        }
+        return row;
     }
 
     /**
@@ -245,7 +322,10 @@ public abstract class AbstractDelimiterParser extends AbstractParser {
      * @return String
      *          Record from delimited file
      * @throws IOException if any problem with the stream of data (e.g. file reader)
+     * @deprecated the parsers read the records with a {@link DelimitedRecordReader}
+     *          which reads each char once, see {@link #nextRecord(DelimitedRecordReader)}
      */
+    @Deprecated
     protected String fetchNextRecord(final BufferedReader br, final char qual, final char delim) throws IOException {
         String line = null;
         final StringBuilder lineData = new StringBuilder();
@@ -41,6 +41,8 @@ import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.sf.flatpack.metrics.ParseListener;
+import net.sf.flatpack.metrics.ParsePhase;
 import net.sf.flatpack.structure.ColumnMetaData;
 import net.sf.flatpack.structure.Row;
 import net.sf.flatpack.util.FPConstants;
@@ -72,6 +74,19 @@ public abstract class AbstractFixedLengthParser extends AbstractParser {
         return null;
     }
 
+    /**
+     * Splits the line in cells, kept in a CellBuffer if {@link #isCellBuffers()}.
+     *
+     * @since 4.0.5
+     */
+    protected List<String> splitFixedText(final List<ColumnMetaData> cmds, final String line) {
+        final boolean[] projection = getProjectionMask(cmds);
+        if (isCellBuffers()) {
+            return FixedWidthParserUtils.splitFixedTextToCells(cmds, line, isPreserveLeadingWhitespace(), isPreserveTrailingWhitespace(), projection);
+        }
+        return FixedWidthParserUtils.splitFixedText(cmds, line, isPreserveLeadingWhitespace(), isPreserveTrailingWhitespace(), projection);
+    }
+
     /*
      * This is the new version of doDelimitedFile using InputStrem instead of
      * File. This is more flexible especially it is working with WebStart.
@@ -81,12 +96,9 @@ public abstract class AbstractFixedLengthParser extends AbstractParser {
      */
     private DataSet doFixedLengthFile(final Reader dataSource) throws IOException {
 
-        final DefaultDataSet ds = new DefaultDataSet(getPzMetaData(), this);
+        final DefaultDataSet ds = newDataSet();
 
         try (BufferedReader br = new BufferedReader(dataSource)) {
-            // gather the conversion properties
-            ds.setPZConvertProps(ParserUtils.loadConvertProperties());
-
             final Map<String, Integer> recordLengths = ParserUtils.calculateRecordLengths(getPzMetaData());
 
             // Read in the flat file
@@ -94,12 +106,21 @@ public abstract class AbstractFixedLengthParser extends AbstractParser {
             int lineCount = 0;
             // map of record lengths corresponding to the ID's in the columnMD
             // array loop through each line in the file
+            final ParseListener listener = getParseListener();
+            long mark = listener != null ? System.nanoTime() : 0;
             while ((line = br.readLine()) != null) {
                 lineCount++;
                 // empty line skip past it
                 if (line.trim().length() == 0) {
+                    if (listener != null) {
+                        listener.recordsRead(0, line.length() + 1, 0);
+                    }
                     continue;
                 }
+                if (listener != null) {
+                    listener.recordsRead(1, line.length() + 1, 0);
+                    mark = lap(listener, ParsePhase.READ, mark);
+                }
 
                 final String mdkey = FixedWidthParserUtils.getCMDKey(getPzMetaData(), line);
                 final int recordLength = recordLengths.get(mdkey);
@@ -137,8 +158,11 @@ public abstract class AbstractFixedLengthParser extends AbstractParser {
                 row.setMdkey(mdkey.equals(FPConstants.DETAIL_ID) ? null : mdkey); // try
 
                 final List<ColumnMetaData> cmds = ParserUtils.getColumnMetaData(mdkey, getPzMetaData());
-                row.addColumn(FixedWidthParserUtils.splitFixedText(cmds, line, isPreserveLeadingWhitespace(), isPreserveTrailingWhitespace()));
+                row.setCols(splitFixedText(cmds, line));
                 row.setRowNumber(lineCount);
+                if (listener != null) {
+                    mark = lap(listener, ParsePhase.SPLIT, mark);
+                }
 
                 if (isFlagEmptyRows()) {
                     // user has elected to have the parser flag rows that are empty
@@ -152,6 +176,12 @@ public abstract class AbstractFixedLengthParser extends AbstractParser {
 
                 // add the row to the array
                 ds.addRow(row);
+                if (listener != null) {
+                    mark = lap(listener, ParsePhase.BUILD, mark);
+                }
+            }
+            if (listener != null) {
+                listener.dataSetLoaded(ds.getRowCount());
             }
         } finally {
             closeReaders();
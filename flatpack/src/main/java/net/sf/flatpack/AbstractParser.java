@@ -40,9 +40,18 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Stream;
 
+import net.sf.flatpack.converter.ConverterRegistry;
+import net.sf.flatpack.metrics.ParseListener;
+import net.sf.flatpack.metrics.ParsePhase;
 import net.sf.flatpack.structure.ColumnMetaData;
 import net.sf.flatpack.util.ParserUtils;
 import net.sf.flatpack.xml.MetaData;
@@ -85,6 +94,23 @@ public abstract class AbstractParser implements Parser {
 
     private boolean storeRawDataToDataSet;
 
+    private boolean columnarStorage;
+
+    private boolean cellBuffers;
+
+    private final Map<String, Boolean> indexes = new LinkedHashMap<>();
+
+    private Set<String> projection;
+
+    private volatile ProjectionMasks projectionMasks;
+
+    private boolean pipelined;
+
+    private ParseListener parseListener;
+
+    private ErrorRetention errorRetention = ErrorRetention.all();
+    private ConverterRegistry converterRegistry;
+
     private String dataFileTable = "DATAFILE";
 
     private String dataStructureTable = "DATASTRUCTURE";
@@ -181,17 +207,21 @@ public abstract class AbstractParser implements Parser {
         if (!initialised) {
             init();
         }
-        return doParse();
+        final DataSet ds = doParse();
+        if (!indexes.isEmpty() && ds instanceof DefaultDataSet) {
+            ((DefaultDataSet) ds).createIndexes(indexes);
+        }
+        return ds;
     }
 
     @Override
-    public final StreamingDataSet parseAsStream() {
+    public StreamingDataSet parseAsStream() {
         return new StreamingRecord(parse());
     }
 
     @Override
-    public final Stream<Record> stream() {
-        return new StreamingRecord(parse()).stream();
+    public Stream<Record> stream() {
+        return parseAsStream().stream();
     }
 
     protected abstract DataSet doParse();
@@ -216,7 +246,7 @@ public abstract class AbstractParser implements Parser {
     }
 
     protected void addToMetaData(final List<ColumnMetaData> columns) {
-        if (pzMetaData == null) {
+        if (pzMetaData == null || pzMetaData.isCompiled()) {
             pzMetaData = new MetaData(columns, ParserUtils.buidColumnIndexMap(columns, this));
         } else {
             pzMetaData.setColumnsNames(columns);
@@ -332,7 +362,15 @@ public abstract class AbstractParser implements Parser {
         return pzMetaData;
     }
 
+    /**
+     * @param pzMap
+     *          if compiled, the parser also takes its column names case
+     *          sensitivity
+     */
     public void setPzMetaData(final MetaData pzMap) {
+        if (pzMap != null && pzMap.isCompiled()) {
+            setColumnNamesCaseSensitive(pzMap.isColumnNamesCaseSensitive());
+        }
         this.pzMetaData = pzMap;
     }
 
@@ -390,6 +428,150 @@ public abstract class AbstractParser implements Parser {
         return this;
     }
 
+    @Override
+    public boolean isColumnarStorage() {
+        return columnarStorage;
+    }
+
+    @Override
+    public Parser setColumnarStorage(final boolean columnarStorage) {
+        this.columnarStorage = columnarStorage;
+        return this;
+    }
+
+    @Override
+    public Parser addIndex(final String column, final boolean unique) {
+        indexes.put(column, unique);
+        return this;
+    }
+
+    @Override
+    public Set<String> getProjection() {
+        return projection;
+    }
+
+    @Override
+    public Parser setProjection(final String... columns) {
+        projection = columns == null || columns.length == 0 ? null : Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(columns)));
+        projectionMasks = null;
+        return this;
+    }
+
+    /**
+     * @param columns
+     *          the columns of the record being split
+     * @return the cells to read, by position, null to read all of them
+     * @since 4.0.5
+     */
+    protected boolean[] getProjectionMask(final List<ColumnMetaData> columns) {
+        final ProjectionMasks masks = getProjectionMasks();
+        return masks != null ? masks.get(columns) : null;
+    }
+
+    /**
+     * @return the cells to read whatever the record, by position, null to read
+     *         all of them
+     * @since 4.0.5
+     */
+    protected boolean[] getProjectionMask() {
+        final ProjectionMasks masks = getProjectionMasks();
+        return masks != null ? masks.getAnyRecord() : null;
+    }
+
+    private ProjectionMasks getProjectionMasks() {
+        if (projection == null || pzMetaData == null) {
+            return null;
+        }
+        // computed again if the MetaData has been read from the first record
+        ProjectionMasks masks = projectionMasks;
+        if (masks == null || !masks.isFor(pzMetaData)) {
+            masks = new ProjectionMasks(pzMetaData, projection, isColumnNamesCaseSensitive());
+            projectionMasks = masks;
+        }
+        return masks;
+    }
+
+    @Override
+    public boolean isCellBuffers() {
+        return cellBuffers;
+    }
+
+    @Override
+    public Parser setCellBuffers(final boolean cellBuffers) {
+        this.cellBuffers = cellBuffers;
+        return this;
+    }
+
+    @Override
+    public boolean isPipelined() {
+        return pipelined;
+    }
+
+    @Override
+    public Parser setPipelined(final boolean pipelined) {
+        this.pipelined = pipelined;
+        return this;
+    }
+
+    @Override
+    public ParseListener getParseListener() {
+        return parseListener;
+    }
+
+    @Override
+    public Parser setParseListener(final ParseListener parseListener) {
+        this.parseListener = parseListener;
+        return this;
+    }
+
+    @Override
+    public ErrorRetention getErrorRetention() {
+        return errorRetention;
+    }
+
+    @Override
+    public Parser setErrorRetention(final ErrorRetention errorRetention) {
+        if (errorRetention == null) {
+            throw new IllegalArgumentException("errorRetention cannot be null");
+        }
+        this.errorRetention = errorRetention;
+        return this;
+    }
+
+    @Override
+    public ConverterRegistry getConverterRegistry() {
+        return converterRegistry != null ? converterRegistry : ConverterRegistry.getDefault();
+    }
+
+    @Override
+    public Parser setConverterRegistry(final ConverterRegistry converterRegistry) {
+        this.converterRegistry = converterRegistry;
+        return this;
+    }
+
+    /**
+     * @return the DataSet to fill, columnar if {@link #isColumnarStorage()}
+     * @since 4.0.5
+     */
+    protected DefaultDataSet newDataSet() {
+        final DefaultDataSet ds = columnarStorage ? new ColumnarDataSet(getPzMetaData(), this) : new DefaultDataSet(getPzMetaData(), this);
+        ds.setParseListener(parseListener);
+        ds.setErrorRetention(errorRetention);
+        return ds;
+    }
+
+    /**
+     * Reports the time spent since start to the listener.
+     *
+     * @return the current time, start of the next phase
+     * @since 4.0.5
+     */
+    protected static long lap(final ParseListener listener, final ParsePhase phase, final long start) {
+        final long now = System.nanoTime();
+        listener.timeSpent(phase, now - start);
+        return now;
+    }
+
     @Override
     public String getDataFileTable() {
         return dataFileTable;
@@ -0,0 +1,170 @@
+package net.sf.flatpack;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Spliterator over a source that can only be read sequentially (a Reader, an
+ * Iterator...). When a parallel stream splits it, a batch of raw entries is
+ * read and handed over; the entries of a batch are turned into Records by the
+ * thread consuming the batch, so the expensive part of the parsing runs in
+ * parallel, only the reading is sequential.
+ * <p>
+ * The batches grow from {@link #DEFAULT_BATCH_SIZE} up to
+ * {@link #MAX_BATCH_SIZE} entries.
+ * </p>
+ *
+ * @param <T> the raw entries read from the source
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public class BatchSpliterator<T> implements Spliterator<Record> {
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+    public static final int MAX_BATCH_SIZE = 1 << 16;
+    private static final int MIN_SUB_BATCH = 128;
+
+    private final Supplier<T> source;
+    private final Function<T, Record> builder;
+    private int batchSize;
+    private boolean exhausted;
+
+    /**
+     * @param source
+     *          returns the next raw entry or null at the end, only called by one thread at a time
+     * @param builder
+     *          turns a raw entry into a Record or null if the entry is rejected, must be thread safe
+     * @param batchSize
+     *          size of the first batch
+     */
+    public BatchSpliterator(final Supplier<T> source, final Function<T, Record> builder, final int batchSize) {
+        this.source = source;
+        this.builder = builder;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * @return a spliterator over the Records of the DataSet, read with next()/getRecord().
+     */
+    public static BatchSpliterator<Record> of(final RecordDataSet ds) {
+        return new BatchSpliterator<>(() -> ds.next() ? ds.getRecord().orElse(null) : null, Function.identity(), DEFAULT_BATCH_SIZE);
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super Record> action) {
+        while (!exhausted) {
+            final T raw = source.get();
+            if (raw == null) {
+                exhausted = true;
+            } else {
+                final Record record = builder.apply(raw);
+                if (record != null) {
+                    action.accept(record);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super Record> action) {
+        while (tryAdvance(action)) {
+            // keep going
+        }
+    }
+
+    @Override
+    public Spliterator<Record> trySplit() {
+        if (exhausted) {
+            return null;
+        }
+        final Object[] batch = new Object[batchSize];
+        int size = 0;
+        while (size < batch.length) {
+            final T raw = source.get();
+            if (raw == null) {
+                exhausted = true;
+                break;
+            }
+            batch[size++] = raw;
+        }
+        if (size == 0) {
+            return null;
+        }
+        batchSize = Math.min(MAX_BATCH_SIZE, batchSize * 2);
+        return new Batch<>(batch, 0, size, builder);
+    }
+
+    @Override
+    public long estimateSize() {
+        return exhausted ? 0 : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+
+    /**
+     * Raw entries already read, they are turned into Records when consumed.
+     */
+    private static final class Batch<T> implements Spliterator<Record> {
+        private final Object[] entries;
+        private final Function<T, Record> builder;
+        private int index;
+        private final int fence;
+
+        private Batch(final Object[] entries, final int origin, final int fence, final Function<T, Record> builder) {
+            this.entries = entries;
+            this.index = origin;
+            this.fence = fence;
+            this.builder = builder;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(final Consumer<? super Record> action) {
+            while (index < fence) {
+                final T raw = (T) entries[index];
+                // release the raw entry as soon as possible
+                entries[index++] = null;
+                final Record record = builder.apply(raw);
+                if (record != null) {
+                    action.accept(record);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(final Consumer<? super Record> action) {
+            while (tryAdvance(action)) {
+                // keep going
+            }
+        }
+
+        @Override
+        public Spliterator<Record> trySplit() {
+            final int mid = (index + fence) >>> 1;
+            if (mid - index < MIN_SUB_BATCH) {
+                return null;
+            }
+            final Batch<T> prefix = new Batch<>(entries, index, mid, builder);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package net.sf.flatpack;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.flatpack.structure.Row;
+import net.sf.flatpack.util.FPConstants;
+import net.sf.flatpack.util.FPException;
+
+/**
+ * Hash index of the positions of the detail rows of a DefaultDataSet by the
+ * value of one column. A value found on a single row maps to an Integer,
+ * otherwise to the sorted positions of its rows.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+final class ColumnIndex {
+    private static final int[] NONE = new int[0];
+
+    private final String column;
+    private final int columnIndex;
+    private final boolean unique;
+    private Map<String, Object> positions;
+
+    ColumnIndex(final String column, final int columnIndex, final boolean unique) {
+        this.column = column;
+        this.columnIndex = columnIndex;
+        this.unique = unique;
+    }
+
+    boolean isUnique() {
+        return unique;
+    }
+
+    int getColumnIndex() {
+        return columnIndex;
+    }
+
+    /**
+     * Indexes the rows from scratch.
+     *
+     * @exception FPException if the index is unique and a value is repeated,
+     *              the index is left unbuilt
+     */
+    void build(final List<Row> rows) {
+        positions = new HashMap<>();
+        try {
+            for (int i = 0; i < rows.size(); i++) {
+                final Row row = rows.get(i);
+                if (isDetail(row)) {
+                    add(row.getValue(columnIndex), i);
+                }
+            }
+        } catch (final FPException e) {
+            positions = null;
+            throw e;
+        }
+    }
+
+    /**
+     * @return false if the rows changed since the index was built
+     */
+    boolean isBuilt() {
+        return positions != null;
+    }
+
+    /**
+     * Marks the index to be built again on its next lookup.
+     */
+    void invalidate() {
+        positions = null;
+    }
+
+    static boolean isDetail(final Row row) {
+        return row.getMdkey() == null || FPConstants.DETAIL_ID.equals(row.getMdkey());
+    }
+
+    /**
+     * @return the positions of the rows with that value, in row order
+     */
+    int[] find(final String value) {
+        final Object found = positions.get(value);
+        if (found == null) {
+            return NONE;
+        }
+        return found instanceof Integer ? new int[] { (Integer) found } : ((Positions) found).toArray();
+    }
+
+    /**
+     * @return the position of the first row with that value, -1 if none
+     */
+    int findFirst(final String value) {
+        final Object found = positions.get(value);
+        if (found == null) {
+            return -1;
+        }
+        return found instanceof Integer ? (Integer) found : ((Positions) found).values[0];
+    }
+
+    /**
+     * @exception FPException if the index is unique and another row has the
+     *              new value, nothing is changed then
+     */
+    void update(final int position, final String oldValue, final String newValue) {
+        if (unique) {
+            final int existing = findFirst(newValue);
+            if (existing >= 0 && existing != position) {
+                throw duplicate(newValue);
+            }
+        }
+        remove(oldValue, position);
+        add(newValue, position);
+    }
+
+    private void add(final String value, final int position) {
+        final Object found = positions.get(value);
+        if (found == null) {
+            positions.put(value, position);
+        } else if (unique) {
+            throw duplicate(value);
+        } else if (found instanceof Integer) {
+            final Positions list = new Positions();
+            list.insert((Integer) found);
+            list.insert(position);
+            positions.put(value, list);
+        } else {
+            ((Positions) found).insert(position);
+        }
+    }
+
+    private void remove(final String value, final int position) {
+        final Object found = positions.get(value);
+        if (found instanceof Integer) {
+            if ((Integer) found == position) {
+                positions.remove(value);
+            }
+        } else if (found != null) {
+            final Positions list = (Positions) found;
+            list.remove(position);
+            if (list.size == 1) {
+                positions.put(value, list.values[0]);
+            }
+        }
+    }
+
+    private FPException duplicate(final String value) {
+        return new FPException("Duplicate value [" + value + "] in the unique index of column [" + column + "]");
+    }
+
+    /**
+     * Sorted positions of a value found on several rows.
+     */
+    private static final class Positions {
+        private int[] values = new int[4];
+        private int size;
+
+        private void insert(final int position) {
+            int i = size;
+            if (size > 0 && values[size - 1] > position) {
+                i = Arrays.binarySearch(values, 0, size, position);
+                i = i < 0 ? -i - 1 : i;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, i, values, i + 1, size - i);
+            values[i] = position;
+            size++;
+        }
+
+        private void remove(final int position) {
+            final int i = Arrays.binarySearch(values, 0, size, position);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, size - i - 1);
+                size--;
+            }
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package net.sf.flatpack;
+
+import java.util.NoSuchElementException;
+
+import net.sf.flatpack.util.ParserUtils;
+import net.sf.flatpack.xml.MetaData;
+
+/**
+ * A column whose index is looked up once and then reused for every record of
+ * the same type, instead of lowering the case of the name and looking it up
+ * in the MetaData on each get:
+ *
+ * <pre>
+ * final ColumnRef amount = ds.column("amount");
+ * while (ds.next()) {
+ *     total += ds.getLong(amount);
+ * }
+ * </pre>
+ *
+ * The index is kept for the last record type (and MetaData) it was used
+ * with, a ColumnRef can be shared between threads.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public final class ColumnRef {
+    private final String name;
+    private Resolved resolved;
+
+    private ColumnRef(final String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("Column name cannot be null");
+        }
+        this.name = name;
+    }
+
+    /**
+     * @param column
+     *            - Name of the column
+     * @return a ColumnRef for that column, it is resolved on first use
+     */
+    public static ColumnRef of(final String column) {
+        return new ColumnRef(column);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the index of the column in the records with this key
+     * @exception NoSuchElementException if those records have no such column
+     */
+    int indexIn(final MetaData metaData, final String mdkey, final boolean caseSensitive) {
+        final Resolved r = resolved;
+        if (r != null && r.metaData == metaData && r.caseSensitive == caseSensitive && (r.mdkey == mdkey || mdkey != null && mdkey.equals(r.mdkey))) {
+            return r.index;
+        }
+        final int index = ParserUtils.getColumnIndex(mdkey, metaData, name, caseSensitive);
+        resolved = new Resolved(metaData, mdkey, caseSensitive, index);
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Immutable so that it is safely read by another thread.
+     */
+    private static final class Resolved {
+        private final MetaData metaData;
+        private final String mdkey;
+        private final boolean caseSensitive;
+        private final int index;
+
+        private Resolved(final MetaData metaData, final String mdkey, final boolean caseSensitive, final int index) {
+            this.metaData = metaData;
+            this.mdkey = mdkey;
+            this.caseSensitive = caseSensitive;
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package net.sf.flatpack;
+
+import net.sf.flatpack.xml.MetaData;
+
+/**
+ * DataSet storing the parsed rows column by column instead of one Row object
+ * per line. A column with few distinct values is dictionary encoded (one int
+ * per row), other columns are packed in a single char buffer with the offset
+ * of each value; row numbers, record ids and flags are held in primitive
+ * arrays. For large files this takes several times less memory than
+ * {@link DefaultDataSet}, at the cost of creating the Strings of a row when
+ * moving to it.
+ * <p>
+ * The values changed by setValue() in a packed column are written to its
+ * buffer in batches, so an update costs about the length of a value. remove()
+ * moves the values after the row in every column, it costs as much as the
+ * data of the rows after it: prefer filtering the rows while parsing to
+ * removing many of them.
+ * </p>
+ * <p>
+ * Use {@link Parser#setColumnarStorage(boolean)} to get one from parse().
+ * </p>
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public class ColumnarDataSet extends DefaultDataSet {
+    private final ColumnarRows columnarRows;
+
+    public ColumnarDataSet(final MetaData pzMetaData, final Parser pzparser) {
+        this(pzMetaData, pzparser, new ColumnarRows());
+    }
+
+    private ColumnarDataSet(final MetaData pzMetaData, final Parser pzparser, final ColumnarRows rows) {
+        super(pzMetaData, pzparser, rows);
+        this.columnarRows = rows;
+    }
+
+    /**
+     * Releases the spare capacity of the columns, useful once the parse is
+     * complete.
+     */
+    public void trimToSize() {
+        columnarRows.trimToSize();
+    }
+}
@@ -0,0 +1,184 @@
+package net.sf.flatpack;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+import net.sf.flatpack.structure.Row;
+
+/**
+ * List of Rows stored column by column; a Row is only created when it is
+ * read, changes made to it are lost unless it is {@link #set(int, Row)}
+ * back.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+final class ColumnarRows extends AbstractList<Row> implements RandomAccess {
+    private int size;
+    private int[] rowNumbers = new int[16];
+    private int[] cellCounts = new int[16];
+    private BitSet empty = new BitSet();
+    private StringColumn mdkeys = new StringColumn();
+    private StringColumn rawData = new StringColumn();
+    private StringColumn[] columns = new StringColumn[0];
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Row get(final int index) {
+        checkIndex(index);
+        final Row row = new Row();
+        row.setRowNumber(rowNumbers[index]);
+        row.setMdkey(mdkeys.get(index));
+        row.setEmpty(empty.get(index));
+        row.setRawData(rawData.get(index));
+        final int cells = cellCounts[index];
+        final List<String> cols = row.getCols();
+        for (int i = 0; i < cells; i++) {
+            cols.add(columns[i].get(index));
+        }
+        return row;
+    }
+
+    @Override
+    public boolean add(final Row row) {
+        final List<String> cols = row.getCols();
+        if (cols.size() > columns.length) {
+            final int previous = columns.length;
+            columns = Arrays.copyOf(columns, cols.size());
+            for (int i = previous; i < columns.length; i++) {
+                columns[i] = new StringColumn();
+                // earlier rows do not have this column
+                for (int r = 0; r < size; r++) {
+                    columns[i].add(null);
+                }
+            }
+        }
+        rowNumbers = ensureCapacity(rowNumbers, size + 1);
+        cellCounts = ensureCapacity(cellCounts, size + 1);
+        rowNumbers[size] = row.getRowNumber();
+        cellCounts[size] = cols.size();
+        empty.set(size, row.isEmpty());
+        mdkeys.add(row.getMdkey());
+        rawData.add(row.getRawData());
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].add(i < cols.size() ? cols.get(i) : null);
+        }
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void add(final int index, final Row row) {
+        if (index != size) {
+            throw new UnsupportedOperationException("Rows can only be added at the end");
+        }
+        add(row);
+    }
+
+    @Override
+    public Row set(final int index, final Row row) {
+        final Row previous = get(index);
+        final List<String> cols = row.getCols();
+        if (cols.size() > columns.length) {
+            throw new UnsupportedOperationException("Cannot add columns to an existing row");
+        }
+        rowNumbers[index] = row.getRowNumber();
+        cellCounts[index] = cols.size();
+        empty.set(index, row.isEmpty());
+        mdkeys.set(index, row.getMdkey());
+        rawData.set(index, row.getRawData());
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].set(index, i < cols.size() ? cols.get(i) : null);
+        }
+        return previous;
+    }
+
+    @Override
+    public Row remove(final int index) {
+        final Row previous = get(index);
+        System.arraycopy(rowNumbers, index + 1, rowNumbers, index, size - index - 1);
+        System.arraycopy(cellCounts, index + 1, cellCounts, index, size - index - 1);
+        for (int i = index; i < size; i++) {
+            empty.set(i, empty.get(i + 1));
+        }
+        mdkeys.remove(index);
+        rawData.remove(index);
+        for (final StringColumn column : columns) {
+            column.remove(index);
+        }
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        rowNumbers = new int[16];
+        cellCounts = new int[16];
+        empty = new BitSet();
+        mdkeys = new StringColumn();
+        rawData = new StringColumn();
+        columns = new StringColumn[0];
+        modCount++;
+    }
+
+    /**
+     * Sorts the row indexes then rebuilds the columns in the new order, the
+     * Rows are only created to be compared.
+     */
+    @Override
+    public void sort(final Comparator<? super Row> comparator) {
+        final Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> comparator.compare(get(a), get(b)));
+        final ColumnarRows sorted = new ColumnarRows();
+        for (final Integer index : order) {
+            sorted.add(get(index));
+        }
+        rowNumbers = sorted.rowNumbers;
+        cellCounts = sorted.cellCounts;
+        empty = sorted.empty;
+        mdkeys = sorted.mdkeys;
+        rawData = sorted.rawData;
+        columns = sorted.columns;
+        modCount++;
+    }
+
+    /**
+     * Releases the spare capacity once all the rows have been added.
+     */
+    void trimToSize() {
+        rowNumbers = Arrays.copyOf(rowNumbers, size);
+        cellCounts = Arrays.copyOf(cellCounts, size);
+        mdkeys.trimToSize();
+        rawData.trimToSize();
+        for (final StringColumn column : columns) {
+            column.trimToSize();
+        }
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private static int[] ensureCapacity(final int[] array, final int required) {
+        if (required <= array.length) {
+            return array;
+        }
+        return Arrays.copyOf(array, Math.max(required, array.length + (array.length >> 1)));
+    }
+}
@@ -47,6 +47,8 @@ public class DataError {
 
     private final String rawData;
 
+    private final String source;
+
     /**
      *
      * @param errorDesc
@@ -72,10 +74,29 @@ public class DataError {
      *          String of data which the parse failed on
      */
     public DataError(final String errorDesc, final int lineNo, final int errorLevel, final String rawData) {
+        this(errorDesc, lineNo, errorLevel, rawData, null);
+    }
+
+    /**
+     *
+     * @param errorDesc
+     *          Text description of the error that occurred
+     * @param lineNo
+     *          Line number in the data file the error occurred on
+     * @param errorLevel
+     *          Level of the error (1=warning, 2=moderate, 3=severe)
+     * @param rawData
+     *          String of data which the parse failed on
+     * @param source
+     *          the file or other source of the line
+     * @since 4.0.5
+     */
+    public DataError(final String errorDesc, final int lineNo, final int errorLevel, final String rawData, final String source) {
         this.errorDesc = errorDesc;
         this.lineNo = lineNo;
         this.errorLevel = errorLevel;
         this.rawData = rawData;
+        this.source = source;
     }
 
     /**
@@ -108,6 +129,9 @@ public class DataError {
     @Override
     public String toString() {
         final StringBuilder buf = new StringBuilder();
+        if (source != null) {
+            buf.append("Source:").append(source).append(' ');
+        }
         buf.append("Line:").append(lineNo).append(" Level:").append(errorLevel).append(" Desc:").append(errorDesc)
                 .append(System.getProperty("line.separator"));
         return buf.toString();
@@ -122,4 +146,13 @@ public class DataError {
     public String getRawData() {
         return rawData;
     }
+
+    /**
+     * @return the file or other source of the line when read by a
+     *         MultiSourceParser, null otherwise
+     * @since 4.0.5
+     */
+    public String getSource() {
+        return source;
+    }
 }
@@ -32,6 +32,8 @@
  */
 package net.sf.flatpack;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.Properties;
 
 import net.sf.flatpack.ordering.OrderBy;
@@ -121,6 +123,69 @@ public interface DataSet extends Record, RecordDataSet {
      */
     void absolute(int localPointer);
 
+    /**
+     * Builds a hash index of the detail rows by the value of the column, so
+     * that findFirst(), findAll() and indexOf() do not scan the rows.  The
+     * index is kept up to date by setValue() and rebuilt on its next lookup
+     * after rows are removed, added or ordered; a unique index finding a
+     * repeated value then throws and is dropped, the other indexes are not
+     * affected.  The values are compared as parsed, before any upper/lower
+     * case setting.
+     *
+     * @param column
+     *            Name of the column
+     * @param unique
+     *            true if each value must be on one row only
+     * @exception net.sf.flatpack.util.FPException if the index is unique and a
+     *            value is repeated
+     * @since 4.0.5
+     */
+    void createIndex(String column, boolean unique);
+
+    /**
+     * Removes the index of the column, if any.
+     *
+     * @param column
+     *            Name of the column
+     * @since 4.0.5
+     */
+    void dropIndex(String column);
+
+    /**
+     * @param column
+     *            Name of the column, a non unique index is created for it if
+     *            there is none
+     * @param value
+     *            the value looked up
+     * @return the first detail record with that value, it does not move the
+     *         pointer
+     * @since 4.0.5
+     */
+    Optional<Record> findFirst(String column, String value);
+
+    /**
+     * @param column
+     *            Name of the column, a non unique index is created for it if
+     *            there is none
+     * @param value
+     *            the value looked up
+     * @return the detail records with that value, in row order
+     * @since 4.0.5
+     */
+    List<Record> findAll(String column, String value);
+
+    /**
+     * @param column
+     *            Name of the column, a non unique index is created for it if
+     *            there is none
+     * @param value
+     *            the value looked up
+     * @return the position of the first detail record with that value, for
+     *         absolute(), -1 if none
+     * @since 4.0.5
+     */
+    int indexOf(String column, String value);
+
     /**
      * Setting this to True will parse text as is and throw a
      * NumberFormatException. Setting to false, which is the default, will
@@ -136,7 +201,9 @@ public interface DataSet extends Record, RecordDataSet {
     /**
      * Sets the properties from the pzconvert.properties file.
      * This file specifies the PZConverter implementation to use
-     * for a particular class
+     * for a particular class. Each converter is instantiated once and
+     * shared by every thread reading this DataSet, so it must be stateless
+     * or thread safe.
      *
      * @param props
      *          Property mapping for String to Object conversion
@@ -38,9 +38,10 @@ import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.function.DoubleSupplier;
@@ -48,6 +49,8 @@ import java.util.function.IntSupplier;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
+import net.sf.flatpack.converter.ConverterRegistry;
+import net.sf.flatpack.metrics.ParseListener;
 import net.sf.flatpack.ordering.OrderBy;
 import net.sf.flatpack.structure.ColumnMetaData;
 import net.sf.flatpack.structure.Row;
@@ -64,11 +67,13 @@ import net.sf.flatpack.xml.MetaData;
 public class DefaultDataSet implements DataSet {
     private static final String NEW_LINE = System.lineSeparator();
 
-    private final List<Row> rows = new ArrayList<>();
+    private final List<Row> rows;
 
-    private final List<DataError> errors = new ArrayList<>();
+    private ErrorLog errors = ErrorRetention.all().newLog();
 
-    private Properties pzConvertProps = null;
+    private ParseListener parseListener;
+
+    private ConverterRegistry converters;
 
     /** Pointer for the current row in the array we are on */
     private int pointer = -1;
@@ -92,17 +97,55 @@ public class DefaultDataSet implements DataSet {
 
     private Record currentRecord;
 
+    /** by position of the column, each one rebuilt on its next lookup once the rows changed. */
+    private Map<Integer, ColumnIndex> indexes;
+
     public DefaultDataSet(final MetaData pzMetaData, final Parser pzparser) {
+        this(pzMetaData, pzparser, new ArrayList<>());
+    }
+
+    /**
+     * @param rows
+     *            storage for the rows, Rows read from it are written back with
+     *            set() when they are modified
+     * @since 4.0.5
+     */
+    protected DefaultDataSet(final MetaData pzMetaData, final Parser pzparser, final List<Row> rows) {
         this.metaData = pzMetaData;
         this.parser = pzparser;
+        this.rows = rows;
+        this.converters = pzparser != null ? pzparser.getConverterRegistry() : null;
     }
 
     public void addRow(final Row row) {
         rows.add(row);
+        invalidateIndexes();
     }
 
     public void addError(final DataError dataError) {
         errors.add(dataError);
+        if (parseListener != null) {
+            parseListener.errorAdded(dataError.getErrorLevel());
+        }
+    }
+
+    /**
+     * Replaces the errors of this DataSet by an empty set kept as per the
+     * policy.
+     *
+     * @since 4.0.5
+     */
+    protected void setErrorRetention(final ErrorRetention errorRetention) {
+        this.errors = errorRetention.newLog();
+    }
+
+    /**
+     * @param parseListener
+     *            told about the errors added to this DataSet
+     * @since 4.0.5
+     */
+    protected void setParseListener(final ParseListener parseListener) {
+        this.parseListener = parseListener;
     }
 
     /*
@@ -186,6 +229,11 @@ public class DefaultDataSet implements DataSet {
         return currentRecord.getDate(column, defaultSupplier);
     }
 
+    @Override
+    public CharSequence getCharSequence(final String column) {
+        return currentRecord.getCharSequence(column);
+    }
+
     @Override
     public double getDouble(final String column, final DoubleSupplier defaultSupplier) {
         return currentRecord.getDouble(column, defaultSupplier);
@@ -213,11 +261,7 @@ public class DefaultDataSet implements DataSet {
      */
     @Override
     public int getErrorCount() {
-        if (getErrors() != null) {
-            return getErrors().size();
-        }
-
-        return 0;
+        return errors.getCount();
     }
 
     /*
@@ -227,7 +271,7 @@ public class DefaultDataSet implements DataSet {
      */
     @Override
     public List<DataError> getErrors() {
-        return errors;
+        return errors.getErrors();
     }
 
     /*
@@ -250,6 +294,41 @@ public class DefaultDataSet implements DataSet {
         return currentRecord.getLong(column);
     }
 
+    @Override
+    public String getString(final ColumnRef column) {
+        return currentRecord.getString(column);
+    }
+
+    @Override
+    public CharSequence getCharSequence(final ColumnRef column) {
+        return currentRecord.getCharSequence(column);
+    }
+
+    @Override
+    public double getDouble(final ColumnRef column) {
+        return currentRecord.getDouble(column);
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(final ColumnRef column) {
+        return currentRecord.getBigDecimal(column);
+    }
+
+    @Override
+    public int getInt(final ColumnRef column) {
+        return currentRecord.getInt(column);
+    }
+
+    @Override
+    public long getLong(final ColumnRef column) {
+        return currentRecord.getLong(column);
+    }
+
+    @Override
+    public <T> T getObject(final ColumnRef column, final Class<T> type) {
+        return currentRecord.getObject(column, type);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -285,7 +364,14 @@ public class DefaultDataSet implements DataSet {
         final Row row = rows.get(pointer);
         final int colIndex = ParserUtils.getColumnIndex(row.getMdkey(), metaData, column, parser.isColumnNamesCaseSensitive());
 
+        final ColumnIndex index = indexes != null && ColumnIndex.isDetail(row) ? indexes.get(colIndex) : null;
+        if (index != null && index.isBuilt()) {
+            index.update(pointer, row.getValue(colIndex), value);
+        }
         row.setValue(colIndex, value);
+        rows.set(pointer, row);
+        // a columnar DataSet gives a new Row on each get()
+        currentRecord = newRecord(row);
     }
 
     /*
@@ -315,8 +401,9 @@ public class DefaultDataSet implements DataSet {
      */
     @Override
     public boolean isAnError(final int lineNo) {
-        for (int i = 0; i < errors.size(); i++) {
-            if (errors.get(i).getLineNo() == lineNo && errors.get(i).getErrorLevel() > 1) {
+        final List<DataError> retained = errors.getErrors();
+        for (int i = 0; i < retained.size(); i++) {
+            if (retained.get(i).getLineNo() == lineNo && retained.get(i).getErrorLevel() > 1) {
                 return true;
             }
         }
@@ -332,14 +419,27 @@ public class DefaultDataSet implements DataSet {
     public boolean next() {
         if (pointer < rows.size() && pointer + 1 != rows.size()) {
             pointer++;
-            currentRecord = new RowRecord(rows.get(pointer), metaData, parser.isColumnNamesCaseSensitive(), pzConvertProps, strictNumericParse,
-                    upperCase, lowerCase, parser.isNullEmptyStrings());
+            currentRecord = newRecord(rows.get(pointer));
             return true;
         }
         currentRecord = null;
         return false;
     }
 
+    /**
+     * Makes the row the current record without adding it to the rows, for a
+     * forward-only DataSet.
+     *
+     * @param row
+     *            the row, null if there are no more
+     * @return true if there is a row
+     * @since 4.0.5
+     */
+    protected boolean setCurrentRow(final Row row) {
+        currentRecord = row != null ? newRecord(row) : null;
+        return row != null;
+    }
+
     @Override
     public Optional<Record> getRecord() {
         return Optional.ofNullable(currentRecord);
@@ -355,7 +455,8 @@ public class DefaultDataSet implements DataSet {
         if (ob != null) {
             ob.setMetaData(getMetaData());
             ob.setParser(parser);
-            Collections.sort(rows, ob);
+            ob.sort(rows);
+            invalidateIndexes();
             goTop();
         }
     }
@@ -372,8 +473,7 @@ public class DefaultDataSet implements DataSet {
             return false;
         }
         pointer--;
-        currentRecord = new RowRecord(rows.get(pointer), metaData, parser.isColumnNamesCaseSensitive(), pzConvertProps, strictNumericParse, upperCase,
-                lowerCase, parser.isNullEmptyStrings());
+        currentRecord = newRecord(rows.get(pointer));
         return true;
     }
 
@@ -425,8 +525,7 @@ public class DefaultDataSet implements DataSet {
         }
 
         pointer = localPointer;
-        currentRecord = new RowRecord(rows.get(pointer), metaData, parser.isColumnNamesCaseSensitive(), pzConvertProps, strictNumericParse, upperCase,
-                lowerCase, parser.isNullEmptyStrings());
+        currentRecord = newRecord(rows.get(pointer));
     }
 
     /**
@@ -452,12 +551,114 @@ public class DefaultDataSet implements DataSet {
     @Override
     public void remove() {
         rows.remove(pointer);
+        invalidateIndexes();
         pointer--;
     }
 
+    @Override
+    public void createIndex(final String column, final boolean unique) {
+        final ColumnIndex index = new ColumnIndex(column, detailColumnIndex(column), unique);
+        index.build(rows);
+        if (indexes == null) {
+            indexes = new HashMap<>();
+        }
+        indexes.put(index.getColumnIndex(), index);
+    }
+
+    @Override
+    public void dropIndex(final String column) {
+        if (indexes != null) {
+            indexes.remove(detailColumnIndex(column));
+        }
+    }
+
+    @Override
+    public Optional<Record> findFirst(final String column, final String value) {
+        final int position = indexOf(column, value);
+        return position >= 0 ? Optional.of(newRecord(rows.get(position))) : Optional.empty();
+    }
+
+    @Override
+    public List<Record> findAll(final String column, final String value) {
+        final int[] positions = index(column).find(value);
+        final List<Record> found = new ArrayList<>(positions.length);
+        for (final int position : positions) {
+            found.add(newRecord(rows.get(position)));
+        }
+        return found;
+    }
+
+    @Override
+    public int indexOf(final String column, final String value) {
+        return index(column).findFirst(value);
+    }
+
+    /**
+     * Creates the indexes requested from the parser once the rows are parsed.
+     *
+     * @param uniqueByColumn
+     *            true for a unique index, by column name
+     * @since 4.0.5
+     */
+    protected void createIndexes(final Map<String, Boolean> uniqueByColumn) {
+        uniqueByColumn.forEach(this::createIndex);
+    }
+
+    private int detailColumnIndex(final String column) {
+        return ParserUtils.getColumnIndex(null, metaData, column, parser.isColumnNamesCaseSensitive());
+    }
+
+    private ColumnIndex index(final String column) {
+        final int colIndex = detailColumnIndex(column);
+        ColumnIndex index = indexes != null ? indexes.get(colIndex) : null;
+        if (index == null) {
+            createIndex(column, false);
+            index = indexes.get(colIndex);
+        } else if (!index.isBuilt()) {
+            // only the index looked up is rebuilt, the uniqueness of the others is not its concern
+            try {
+                index.build(rows);
+            } catch (final FPException e) {
+                indexes.remove(index.getColumnIndex());
+                throw e;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Marks the indexes to be rebuilt on their next lookup, after rows were
+     * added, removed or ordered.
+     */
+    private void invalidateIndexes() {
+        if (indexes != null) {
+            indexes.values().forEach(ColumnIndex::invalidate);
+        }
+    }
+
     @Override
     public void setPZConvertProps(final Properties props) {
-        this.pzConvertProps = props;
+        this.converters = props != null ? ConverterRegistry.forProperties(props) : null;
+    }
+
+    /**
+     * @param converters
+     *            for getObject, the one of the parser by default
+     * @since 4.0.5
+     */
+    public void setConverterRegistry(final ConverterRegistry converters) {
+        this.converters = converters;
+    }
+
+    /**
+     * Wraps a Row in a Record using the settings of this DataSet; the Record
+     * does not depend on the current position.
+     *
+     * @since 4.0.5
+     */
+    protected Record newRecord(final Row row) {
+        return new RowRecord(row, metaData, parser.isColumnNamesCaseSensitive(), converters, strictNumericParse, upperCase, lowerCase,
+                parser.isNullEmptyStrings());
     }
 
     /**
@@ -473,6 +674,7 @@ public class DefaultDataSet implements DataSet {
         pointer = -1; // set the pointer back to -1 directly just in case this
         // instance is a BuffReaderDataSet.
         rows.clear();
+        invalidateIndexes();
     }
 
     @Override
@@ -493,15 +695,16 @@ public class DefaultDataSet implements DataSet {
     public void setMetaData(final MetaData metaData) {
         this.metaData = metaData;
         this.columns = null;
+        this.indexes = null;
     }
 
     @Override
     public String toString() {
         final StringBuilder buf = new StringBuilder();
-        buf.append("Errors:").append(errors.size()).append(NEW_LINE);
+        buf.append("Errors:").append(errors.getCount()).append(NEW_LINE);
         buf.append("Rows:").append(rows.size()).append(NEW_LINE);
         buf.append("Position:").append(pointer).append(NEW_LINE);
-        buf.append("Conversion Props:").append(pzConvertProps).append(NEW_LINE);
+        buf.append("Conversion Props:").append(converters).append(NEW_LINE);
         buf.append("MetaData:").append(metaData).append(NEW_LINE);
         return buf.toString();
     }
@@ -37,6 +37,9 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.sql.Connection;
 
+import net.sf.flatpack.nio.MappedDelimParser;
+import net.sf.flatpack.xml.MetaData;
+
 /**
  * @author xhensevb
  *
@@ -102,6 +105,11 @@ public class DefaultParserFactory implements ParserFactory {
         return new FixedLengthParser(pzmapXMLStream, dataSource);
     }
 
+    @Override
+    public Parser newFixedLengthParser(final MetaData metaData, final Reader dataSource) {
+        return new FixedLengthParser(metaData, dataSource);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -167,6 +175,36 @@ public class DefaultParserFactory implements ParserFactory {
         return INSTANCE.newDelimitedParser(dataSource, ',', '"');
     }
 
+    /**
+     * Parser reading the file through a memory-mapped channel, records are split
+     * straight from the mapped bytes. The column names are taken from the first
+     * line of the file which must use the platform default charset.
+     * @param dataSource
+     * @param delimiter
+     * @param qualifier
+     * @return a memory-mapped delimited parser
+     * @since 4.0.5
+     */
+    public static MappedDelimParser newMappedDelimitedParser(final File dataSource, final char delimiter, final char qualifier) {
+        return new MappedDelimParser(dataSource, delimiter, qualifier, false);
+    }
+
+    /**
+     * Parser reading the file through a memory-mapped channel, records are split
+     * straight from the mapped bytes.
+     * @param pzmapXML
+     * @param dataSource
+     * @param delimiter
+     * @param qualifier
+     * @param ignoreFirstRecord
+     * @return a memory-mapped delimited parser
+     * @since 4.0.5
+     */
+    public static MappedDelimParser newMappedDelimitedParser(final Reader pzmapXML, final File dataSource, final char delimiter,
+            final char qualifier, final boolean ignoreFirstRecord) {
+        return new MappedDelimParser(pzmapXML, dataSource, delimiter, qualifier, ignoreFirstRecord);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -195,4 +233,10 @@ public class DefaultParserFactory implements ParserFactory {
         return new DelimiterParser(dataSource, pzmapXML, delimiter, qualifier, ignoreFirstRecord);
     }
 
+    @Override
+    public Parser newDelimitedParser(final MetaData metaData, final Reader dataSource, final char delimiter, final char qualifier,
+            final boolean ignoreFirstRecord) {
+        return new DelimiterParser(dataSource, metaData, delimiter, qualifier, ignoreFirstRecord);
+    }
+
 }
@@ -39,6 +39,7 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 
 import net.sf.flatpack.xml.MapParser;
+import net.sf.flatpack.xml.MetaData;
 
 /**
  * @author xhensevb
@@ -48,6 +49,7 @@ public class DelimiterParser extends AbstractDelimiterParser {
     private InputStream pzmapXMLStream = null;
     private File pzmapXML = null;
     private Reader pzmapReader;
+    private MetaData metaData;
 
     // this InputStream and file can be removed after support for
     // file and inputstream is removed from the parserfactory. The
@@ -88,6 +90,18 @@ public class DelimiterParser extends AbstractDelimiterParser {
         this.pzmapReader = pzmapReader;
     }
 
+    /**
+     * @param metaData
+     *          built beforehand, typically a compiled MetaData from a
+     *          MetaDataCache
+     * @since 4.0.5
+     */
+    public DelimiterParser(final Reader dataSourceReader, final MetaData metaData, final char delimiter, final char qualifier,
+            final boolean ignoreFirstRecord) {
+        super(dataSourceReader, delimiter, qualifier, ignoreFirstRecord);
+        this.metaData = metaData;
+    }
+
     @Override
     protected void init() {
         try {
@@ -104,7 +118,9 @@ public class DelimiterParser extends AbstractDelimiterParser {
                 closeMapReader = true;
             }
 
-            if (this.pzmapReader != null) {
+            if (metaData != null) {
+                setPzMetaData(metaData);
+            } else if (this.pzmapReader != null) {
                 try {
                     setPzMetaData(MapParser.parseMap(this.pzmapReader, this));
                 } finally {
@@ -124,6 +140,6 @@ public class DelimiterParser extends AbstractDelimiterParser {
 
     @Override
     protected boolean shouldCreateMDFromFile() {
-        return pzmapReader == null;
+        return pzmapReader == null && metaData == null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package net.sf.flatpack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The errors of a DataSet, kept as per its {@link ErrorRetention}. The last N
+ * errors are kept in a ring. This class is not thread safe, a log shared by
+ * several threads is used under its own lock.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public final class ErrorLog {
+    private final int capacity;
+    private final Consumer<DataError> sink;
+    private final List<DataError> all;
+    private final DataError[] ring;
+    private int next;
+    private int count;
+
+    ErrorLog(final int capacity, final Consumer<DataError> sink) {
+        this.capacity = capacity;
+        this.sink = sink;
+        this.all = capacity < 0 ? new ArrayList<>() : null;
+        this.ring = capacity > 0 ? new DataError[capacity] : null;
+    }
+
+    public void add(final DataError error) {
+        if (all != null) {
+            all.add(error);
+        } else if (ring != null) {
+            ring[next] = error;
+            next = (next + 1) % capacity;
+        }
+        count++;
+        if (sink != null) {
+            sink.accept(error);
+        }
+    }
+
+    /**
+     * @return the number of errors added since the last clear
+     */
+    public int getCount() {
+        return all != null ? all.size() : count;
+    }
+
+    /**
+     * @return all the errors, or a copy of the errors in the ring, oldest first
+     */
+    public List<DataError> getErrors() {
+        if (all != null) {
+            return all;
+        } else if (ring == null || count == 0) {
+            return Collections.emptyList();
+        }
+        final int size = Math.min(count, capacity);
+        final List<DataError> errors = new ArrayList<>(size);
+        for (int i = next - size + capacity; i < next + capacity; i++) {
+            errors.add(ring[i % capacity]);
+        }
+        return errors;
+    }
+
+    public void clear() {
+        if (all != null) {
+            all.clear();
+        } else if (ring != null) {
+            Arrays.fill(ring, null);
+        }
+        next = 0;
+        count = 0;
+    }
+}
@@ -0,0 +1,88 @@
+package net.sf.flatpack;
+
+import java.util.function.Consumer;
+
+/**
+ * Which of the DataErrors added to a DataSet are kept in memory. The number of
+ * errors is always counted, {@link DataSet#getErrorCount()} is the number of
+ * errors added whatever the policy, but {@link DataSet#getErrors()} and
+ * {@link DataSet#isAnError(int)} only see the errors retained.
+ * <p>
+ * All the errors are kept by default, which can use a lot of memory when
+ * streaming a large and dirty file with a BuffReader parser:
+ * </p>
+ *
+ * <pre>
+ * parser.setErrorRetention(ErrorRetention.lastErrors(100));
+ * parser.setErrorRetention(ErrorRetention.sink(error -&gt; LOG.warn("{}", error)));
+ * </pre>
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public final class ErrorRetention {
+    private static final int ALL = -1;
+    private static final ErrorRetention KEEP_ALL = new ErrorRetention(ALL, null);
+    private static final ErrorRetention COUNT_ONLY = new ErrorRetention(0, null);
+
+    private final int capacity;
+    private final Consumer<DataError> sink;
+
+    private ErrorRetention(final int capacity, final Consumer<DataError> sink) {
+        this.capacity = capacity;
+        this.sink = sink;
+    }
+
+    /**
+     * @return keeps every error, the default
+     */
+    public static ErrorRetention all() {
+        return KEEP_ALL;
+    }
+
+    /**
+     * @return only counts the errors
+     */
+    public static ErrorRetention countOnly() {
+        return COUNT_ONLY;
+    }
+
+    /**
+     * @param count
+     *          number of errors to keep
+     * @return keeps the last count errors, older ones are dropped
+     */
+    public static ErrorRetention lastErrors(final int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be positive, use countOnly() to keep none");
+        }
+        return new ErrorRetention(count, null);
+    }
+
+    /**
+     * @param sink
+     *          given each error as it is added, on the thread adding it
+     * @return counts the errors and hands them to the sink without keeping them
+     */
+    public static ErrorRetention sink(final Consumer<DataError> sink) {
+        if (sink == null) {
+            throw new IllegalArgumentException("sink cannot be null");
+        }
+        return new ErrorRetention(0, sink);
+    }
+
+    /**
+     * @return the errors of a new DataSet
+     */
+    public ErrorLog newLog() {
+        return new ErrorLog(capacity, sink);
+    }
+
+    @Override
+    public String toString() {
+        if (sink != null) {
+            return "sink";
+        }
+        return capacity == ALL ? "all" : capacity == 0 ? "countOnly" : "lastErrors(" + capacity + ")";
+    }
+}
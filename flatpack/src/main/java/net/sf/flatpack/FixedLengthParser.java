@@ -39,6 +39,7 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 
 import net.sf.flatpack.xml.MapParser;
+import net.sf.flatpack.xml.MetaData;
 
 /**
  * @author xhensevb
@@ -52,6 +53,8 @@ public class FixedLengthParser extends AbstractFixedLengthParser {
 
     private Reader pzmapReader;
 
+    private MetaData metaData;
+
     // this InputStream and file can be removed after support for
     // file and inputstream is removed from the parserfactory. The
     // methods have been deprecated..pz
@@ -76,6 +79,17 @@ public class FixedLengthParser extends AbstractFixedLengthParser {
         this.pzmapReader = pzmapReader;
     }
 
+    /**
+     * @param metaData
+     *          built beforehand, typically a compiled MetaData from a
+     *          MetaDataCache
+     * @since 4.0.5
+     */
+    public FixedLengthParser(final MetaData metaData, final Reader dataSourceReader) {
+        super(dataSourceReader);
+        this.metaData = metaData;
+    }
+
     protected FixedLengthParser(final Reader dataSourceReader, final String dataDefinition) {
         super(dataSourceReader, dataDefinition);
     }
@@ -86,6 +100,10 @@ public class FixedLengthParser extends AbstractFixedLengthParser {
             // check to see if the user is using a File or InputStream. This is
             // here for backwards compatability
             initStreamOrSource(dataSourceStream, dataSource);
+            if (metaData != null) {
+                setPzMetaData(metaData);
+                return;
+            }
 
             boolean closeMapReader = false;
             if (pzmapXML != null) {
@@ -0,0 +1,338 @@
+package net.sf.flatpack;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sf.flatpack.brparse.BuffReaderParseFactory;
+import net.sf.flatpack.util.FPException;
+import net.sf.flatpack.xml.MetaData;
+
+/**
+ * Parses many files concurrently on a bounded pool of threads and merges
+ * their records in a single StreamingDataSet:
+ *
+ * <pre>
+ * final MetaData md = MAPPINGS.getMapping(new File("orders.pzmap.xml"), false);
+ * try (MultiSourceParser.MergedDataSet ds = MultiSourceParser.delimited(files, md, ',', '"', true, StandardCharsets.UTF_8)
+ *         .setThreads(8).setPreserveOrder(true).parse()) {
+ *     ds.stream().forEach(record -&gt; load(record.getSource(), record));
+ * }
+ * </pre>
+ *
+ * The records of a file are always in the order of the file; with
+ * setPreserveOrder(true) the files also follow each other in the order of the
+ * collection, otherwise the records are merged as they are read. Each record
+ * and DataError tells the source it comes from. The errors are kept by the
+ * ErrorRetention of the MultiSourceParser, not the one of each parser.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public class MultiSourceParser<S> {
+    private static final int BATCH_SIZE = 256;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    /**
+     * Creates the parser of a source, the parser is closed once read if it is
+     * AutoCloseable.
+     */
+    @FunctionalInterface
+    public interface ParserSupplier<S> {
+        Parser newParser(S source) throws IOException;
+    }
+
+    private final List<S> sources;
+    private final ParserSupplier<S> parsers;
+    private int threads;
+    private boolean preserveOrder;
+    private int queueCapacity = 16;
+    private ErrorRetention errorRetention = ErrorRetention.all();
+
+    /**
+     * @param sources
+     *          named by their toString() in the records and errors
+     * @param parsers
+     *          creates the parser of each source, called by the threads of the
+     *          pool
+     */
+    public MultiSourceParser(final Collection<S> sources, final ParserSupplier<S> parsers) {
+        if (sources == null || parsers == null) {
+            throw new IllegalArgumentException("sources and parsers cannot be null");
+        }
+        this.sources = new ArrayList<>(sources);
+        this.parsers = parsers;
+        this.threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), this.sources.size()));
+    }
+
+    /**
+     * Delimited files read by the BuffReader parsers.
+     *
+     * @param metaData
+     *          shared by the parsers, typically from a MetaDataCache; null to
+     *          read the column names from the first line of each file
+     */
+    public static MultiSourceParser<Path> delimited(final Collection<Path> files, final MetaData metaData, final char delimiter, final char qualifier,
+            final boolean ignoreFirstRecord, final Charset charset) {
+        return new MultiSourceParser<>(files, file -> {
+            final InputStreamReader reader = new InputStreamReader(Files.newInputStream(file), charset);
+            if (metaData == null) {
+                return BuffReaderParseFactory.getInstance().newDelimitedParser(reader, delimiter, qualifier);
+            }
+            return BuffReaderParseFactory.getInstance().newDelimitedParser(metaData, reader, delimiter, qualifier, ignoreFirstRecord);
+        });
+    }
+
+    /**
+     * Fixed length files read by the BuffReader parsers.
+     *
+     * @param metaData
+     *          shared by the parsers, typically from a MetaDataCache
+     */
+    public static MultiSourceParser<Path> fixedLength(final Collection<Path> files, final MetaData metaData, final Charset charset) {
+        return new MultiSourceParser<>(files,
+                file -> BuffReaderParseFactory.getInstance().newFixedLengthParser(metaData, new InputStreamReader(Files.newInputStream(file), charset)));
+    }
+
+    /**
+     * @param threads
+     *          number of files parsed at the same time, by default the number
+     *          of processors
+     * @return this parser
+     */
+    public MultiSourceParser<S> setThreads(final int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * @param preserveOrder
+     *          when true, the records of a file are only read once every
+     *          record of the previous files has been read
+     * @return this parser
+     */
+    public MultiSourceParser<S> setPreserveOrder(final boolean preserveOrder) {
+        this.preserveOrder = preserveOrder;
+        return this;
+    }
+
+    /**
+     * @param queueCapacity
+     *          batches of records read ahead per file when the order is
+     *          preserved, per thread otherwise
+     * @return this parser
+     */
+    public MultiSourceParser<S> setQueueCapacity(final int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be positive: " + queueCapacity);
+        }
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * @param errorRetention
+     *          which errors of all the sources are kept
+     * @return this parser
+     */
+    public MultiSourceParser<S> setErrorRetention(final ErrorRetention errorRetention) {
+        this.errorRetention = errorRetention != null ? errorRetention : ErrorRetention.all();
+        return this;
+    }
+
+    /**
+     * Starts parsing the sources.
+     *
+     * @return the merged records, close it if it is not read to the end
+     */
+    public MergedDataSet parse() {
+        return new MergedDataSet();
+    }
+
+    /**
+     * The records of every source.
+     */
+    public final class MergedDataSet implements StreamingDataSet, AutoCloseable {
+        private final List<BlockingQueue<Batch>> queues = new ArrayList<>();
+        private final ErrorLog errors = errorRetention.newLog();
+        private final ExecutorService executor;
+        private volatile boolean closed;
+        private int finished;
+        private int queueIndex;
+        private Iterator<Record> batch = Collections.emptyIterator();
+        private Record current;
+
+        private MergedDataSet() {
+            if (preserveOrder) {
+                for (int i = 0; i < sources.size(); i++) {
+                    queues.add(new ArrayBlockingQueue<>(queueCapacity));
+                }
+            } else {
+                queues.add(new ArrayBlockingQueue<>(queueCapacity * threads));
+            }
+            executor = Executors.newFixedThreadPool(threads, r -> {
+                final Thread thread = new Thread(r, "flatpack-source-" + THREAD_COUNT.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            for (int i = 0; i < sources.size(); i++) {
+                final S source = sources.get(i);
+                final BlockingQueue<Batch> queue = queues.get(preserveOrder ? i : 0);
+                executor.execute(() -> read(source, queue));
+            }
+            // the pool ends once the sources are read
+            executor.shutdown();
+        }
+
+        private void read(final S source, final BlockingQueue<Batch> queue) {
+            final String name = String.valueOf(source);
+            Throwable failure = null;
+            Parser parser = null;
+            try {
+                parser = parsers.newParser(source);
+                parser.setErrorRetention(ErrorRetention.sink(
+                        e -> addError(new DataError(e.getErrorDesc(), e.getLineNo(), e.getErrorLevel(), e.getRawData(), name))));
+                final StreamingDataSet ds = parser.parseAsStream();
+                List<Record> records = new ArrayList<>(BATCH_SIZE);
+                while (!closed && ds.next()) {
+                    records.add(new SourcedRecord(ds.getRecord().get(), name));
+                    if (records.size() == BATCH_SIZE) {
+                        queue.put(new Batch(name, records, false, null));
+                        records = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+                if (!records.isEmpty()) {
+                    queue.put(new Batch(name, records, false, null));
+                }
+            } catch (final InterruptedException e) {
+                // closed
+                Thread.currentThread().interrupt();
+                return;
+            } catch (final Exception | Error e) {
+                failure = e;
+            } finally {
+                if (parser instanceof AutoCloseable) {
+                    try {
+                        ((AutoCloseable) parser).close();
+                    } catch (final Exception e) {
+                        if (failure == null) {
+                            failure = e;
+                        }
+                    }
+                }
+            }
+            try {
+                queue.put(new Batch(name, Collections.emptyList(), true, failure));
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void addError(final DataError error) {
+            synchronized (errors) {
+                errors.add(error);
+            }
+        }
+
+        @Override
+        public boolean next() {
+            while (!batch.hasNext()) {
+                if (finished == sources.size() || closed) {
+                    current = null;
+                    return false;
+                }
+                final Batch next = take();
+                if (next.failure != null) {
+                    close();
+                    throw new FPException("Error parsing " + next.source, next.failure);
+                }
+                if (next.last) {
+                    finished++;
+                    if (preserveOrder) {
+                        queueIndex++;
+                    }
+                }
+                batch = next.records.iterator();
+            }
+            current = batch.next();
+            return true;
+        }
+
+        private Batch take() {
+            try {
+                return queues.get(queueIndex).take();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new FPException("Interrupted while waiting for records", e);
+            }
+        }
+
+        /**
+         * @return the current record, its getSource() tells where it was read
+         *         from
+         */
+        @Override
+        public Optional<Record> getRecord() {
+            return Optional.ofNullable(current);
+        }
+
+        /**
+         * @return the errors of the sources read so far, see
+         *         DataError.getSource()
+         */
+        @Override
+        public List<DataError> getErrors() {
+            synchronized (errors) {
+                return new ArrayList<>(errors.getErrors());
+            }
+        }
+
+        @Override
+        public int getErrorCount() {
+            synchronized (errors) {
+                return errors.getCount();
+            }
+        }
+
+        /**
+         * Stops the threads still parsing, their parsers are closed.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            executor.shutdownNow();
+            queues.forEach(BlockingQueue::clear);
+        }
+    }
+
+    private static final class Batch {
+        private final String source;
+        private final List<Record> records;
+        private final boolean last;
+        private final Throwable failure;
+
+        private Batch(final String source, final List<Record> records, final boolean last, final Throwable failure) {
+            this.source = source;
+            this.records = records;
+            this.last = last;
+            this.failure = failure;
+        }
+    }
+}
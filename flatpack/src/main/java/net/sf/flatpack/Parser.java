@@ -32,8 +32,12 @@
  */
 package net.sf.flatpack;
 
+import java.util.Set;
 import java.util.stream.Stream;
 
+import net.sf.flatpack.converter.ConverterRegistry;
+import net.sf.flatpack.metrics.ParseListener;
+
 /**
  * PZParser is ready to parse the data and return an object that can then be
  * traversed. The default parser should NOT handle short lines, the user can
@@ -244,6 +248,152 @@ public interface Parser {
      */
     Parser setStoreRawDataToDataSet(boolean storeRawDataToDataError);
 
+    /**
+     * @return when true, parse() returns a {@link ColumnarDataSet}
+     * @since 4.0.5
+     */
+    boolean isColumnarStorage();
+
+    /**
+     * when true, parse() returns a {@link ColumnarDataSet} which stores the data column
+     * by column and takes much less memory for large files.  Reading a row is slightly
+     * slower and removing a row moves the data of the rows after it.  It is off by
+     * default and ignored by the BuffReader parsers.
+     *
+     * @param columnarStorage true to store the rows column by column
+     * @return the Parser
+     * @since 4.0.5
+     */
+    Parser setColumnarStorage(boolean columnarStorage);
+
+    /**
+     * Builds a hash index of the detail rows by the value of the column once parse()
+     * has read them, see {@link DataSet#createIndex(String, boolean)}.  It is ignored
+     * by the BuffReader parsers.
+     *
+     * @param column the column to index
+     * @param unique true if each value must be on one row only, parse() then throws an
+     *        FPException if a value is repeated
+     * @return the Parser
+     * @since 4.0.5
+     */
+    Parser addIndex(String column, boolean unique);
+
+    /**
+     * @return when true, the cells of each row are kept in a {@link net.sf.flatpack.structure.CellBuffer}
+     * @since 4.0.5
+     */
+    boolean isCellBuffers();
+
+    /**
+     * when true, the cells of each row are kept in one char buffer with the offsets of
+     * the cells (a {@link net.sf.flatpack.structure.CellBuffer}) instead of one String
+     * per cell.  Strings are only created when read with getString(); getCharSequence(),
+     * getInt(), getLong() and getDouble() read the buffer directly.  It is off by default
+     * and has no effect on the memory-mapped parser.
+     *
+     * @param cellBuffers true to keep the cells in a buffer
+     * @return the Parser
+     * @since 4.0.5
+     */
+    Parser setCellBuffers(boolean cellBuffers);
+
+    /**
+     * @return the columns read, null if all of them are read
+     * @since 4.0.5
+     */
+    Set<String> getProjection();
+
+    /**
+     * Reads only the given columns.  The other cells of each record are skipped while
+     * splitting the record: they are not trimmed, unescaped or copied and read as empty
+     * Strings.  The records keep all their columns, so the column count checks, the
+     * &lt;RECORD&gt; indicators and the column names work as before; fixed width cells
+     * are reached by their offset.  Names unknown to the mapping are ignored.  It has no
+     * effect on the memory-mapped parser.
+     *
+     * @param columns the columns to read, none to read all of them
+     * @return the Parser
+     * @since 4.0.5
+     */
+    Parser setProjection(String... columns);
+
+    /**
+     * @return when true, the BuffReader parsers read and build the rows on background threads
+     * @since 4.0.5
+     */
+    boolean isPipelined();
+
+    /**
+     * when true, the DataSet of a BuffReader parser reads the file on one background thread
+     * and builds the rows on another, in batches handed over through bounded lock-free
+     * queues, so that next() only takes rows which are ready while the caller processes the
+     * previous ones.  The ParseListener and error retention are then called from the
+     * background threads.  It needs 2 spare processors to pay off.  Close the parser if the
+     * DataSet is not read to the end.  It is off by default and ignored by the other parsers.
+     *
+     * @param pipelined true to read ahead on background threads
+     * @return the Parser
+     * @since 4.0.5
+     */
+    Parser setPipelined(boolean pipelined);
+
+    /**
+     * @return the listener told about the progress of the parse, null if none
+     * @since 4.0.5
+     */
+    ParseListener getParseListener();
+
+    /**
+     * Sets a listener told about the records read, the errors and the time spent
+     * reading, splitting and building the rows, for instance a
+     * {@link net.sf.flatpack.metrics.ParseMetrics}.  Nothing is measured when no
+     * listener is set, which is the default.
+     *
+     * @param parseListener the listener, null for none
+     * @return the Parser
+     * @since 4.0.5
+     */
+    Parser setParseListener(ParseListener parseListener);
+
+    /**
+     * @return which errors are kept by the DataSet
+     * @since 4.0.5
+     */
+    ErrorRetention getErrorRetention();
+
+    /**
+     * Sets which of the errors are kept in memory by the DataSet, all of them by
+     * default.  They are still counted by getErrorCount() whatever the policy.  Use
+     * {@link ErrorRetention#lastErrors(int)}, {@link ErrorRetention#countOnly()} or
+     * {@link ErrorRetention#sink(java.util.function.Consumer)} to stream a large
+     * file with a BuffReader parser in constant memory.
+     *
+     * @param errorRetention the policy
+     * @return the Parser
+     * @since 4.0.5
+     */
+    Parser setErrorRetention(ErrorRetention errorRetention);
+
+    /**
+     * @return the converters used by getObject, the shared
+     *         ConverterRegistry.getDefault() unless set
+     * @since 4.0.5
+     */
+    ConverterRegistry getConverterRegistry();
+
+    /**
+     * Sets the converters used by getObject on the DataSets of this parser.
+     * The converters are instantiated once per registry, not on each call, and
+     * shared by every thread reading the DataSets: they must be stateless or
+     * thread safe.
+     *
+     * @param converterRegistry the converters, null for the default
+     * @return the Parser
+     * @since 4.0.5
+     */
+    Parser setConverterRegistry(ConverterRegistry converterRegistry);
+
     /**
      * Returns the table name that will be used to read the MetaData from the db.  The
      * default table name is DATAFILE.  This may be problimatic for some who are using case
@@ -37,6 +37,8 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.sql.Connection;
 
+import net.sf.flatpack.xml.MetaData;
+
 /**
  * Factory definitions for creating a PZParser (delimiter or fixed length). The
  * creation of a parser will not start the parsing. It should not fail either
@@ -155,6 +157,20 @@ public interface ParserFactory {
      */
     Parser newFixedLengthParser(Reader pzmapXMLStream, Reader dataSource);
 
+    /**
+     * Constructs a new DataSet using a MetaData built beforehand, typically a
+     * compiled one shared through a MetaDataCache, so that the mapping is not
+     * read again. This is used for a FIXED LENGTH text file.
+     *
+     * @param metaData -
+     *            the layout of the file, from a pzmap or a database
+     * @param dataSource -
+     *            text file Reader to read from, user must close it after use.
+     * @return PZParser
+     * @since 4.0.5
+     */
+    Parser newFixedLengthParser(MetaData metaData, Reader dataSource);
+
     //
     //
     // ------------------------------------------ DELIMITED -----------
@@ -274,6 +290,26 @@ public interface ParserFactory {
      */
     Parser newDelimitedParser(Reader pzmapXML, Reader dataSource, char delimiter, char qualifier, boolean ignoreFirstRecord);
 
+    /**
+     * Constructs a new DataSet using a MetaData built beforehand, typically a
+     * compiled one shared through a MetaDataCache, so that the mapping is not
+     * read again. This is used for a DELIMITED text file.
+     *
+     * @param metaData -
+     *            the layout of the file, from a pzmap or a database
+     * @param dataSource -
+     *            text file Reader to read from, user must close it after use.
+     * @param delimiter -
+     *            Char the file is delimited By
+     * @param qualifier -
+     *            Char text is qualified by
+     * @param ignoreFirstRecord -
+     *            skips the first line that contains data in the file
+     * @return PZParser
+     * @since 4.0.5
+     */
+    Parser newDelimitedParser(MetaData metaData, Reader dataSource, char delimiter, char qualifier, boolean ignoreFirstRecord);
+
     /**
      * New constructor based on InputStream. Constructs a new DataSet using the
      * PZMAP XML file layout method. This is used for a DELIMITED text file.
@@ -0,0 +1,109 @@
+package net.sf.flatpack;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import net.sf.flatpack.structure.ColumnMetaData;
+import net.sf.flatpack.xml.MetaData;
+import net.sf.flatpack.xml.XMLRecordElement;
+
+/**
+ * Which cells of the records of a MetaData are read for a projection, by
+ * position. The masks are computed once and never changed, they can be
+ * shared by the threads of a pipelined parser.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+final class ProjectionMasks {
+    private final MetaData metaData;
+    private final Set<String> columns;
+    private final boolean caseSensitive;
+    /** by the column list of each record, compared by identity. */
+    private final Map<List<ColumnMetaData>, boolean[]> byRecord = new IdentityHashMap<>();
+    private final boolean[] anyRecord;
+
+    ProjectionMasks(final MetaData metaData, final Collection<String> projection, final boolean caseSensitive) {
+        this.metaData = metaData;
+        this.caseSensitive = caseSensitive;
+        columns = new HashSet<>();
+        for (final String column : projection) {
+            columns.add(caseSensitive ? column : column.toLowerCase(Locale.getDefault()));
+        }
+
+        boolean[] any = add(metaData.getColumnsNames());
+        if (metaData.isAnyRecordFormatSpecified()) {
+            final Iterator<Entry<String, XMLRecordElement>> it = metaData.xmlRecordIterator();
+            while (it.hasNext()) {
+                final XMLRecordElement record = it.next().getValue();
+                any = or(any, add(record.getColumns()));
+                // the indicator of a delimited record is read before its columns are known
+                if (record.getIndicator() != null && record.getElementNumber() > 0) {
+                    any = keep(any, record.getElementNumber() - 1);
+                }
+            }
+        }
+        anyRecord = any;
+    }
+
+    boolean isFor(final MetaData md) {
+        return metaData == md;
+    }
+
+    /**
+     * @return the cells read for a record with these columns
+     */
+    boolean[] get(final List<ColumnMetaData> recordColumns) {
+        final boolean[] mask = byRecord.get(recordColumns);
+        return mask != null ? mask : createMask(recordColumns);
+    }
+
+    /**
+     * @return the cells read for any record, for the cells split before the
+     *         record is identified
+     */
+    boolean[] getAnyRecord() {
+        return anyRecord;
+    }
+
+    private boolean[] add(final List<ColumnMetaData> recordColumns) {
+        if (recordColumns == null) {
+            return new boolean[0];
+        }
+        final boolean[] mask = createMask(recordColumns);
+        byRecord.put(recordColumns, mask);
+        return mask;
+    }
+
+    private boolean[] createMask(final List<ColumnMetaData> recordColumns) {
+        final boolean[] mask = new boolean[recordColumns.size()];
+        for (int i = 0; i < mask.length; i++) {
+            final String name = recordColumns.get(i).getColName();
+            mask[i] = name != null && columns.contains(caseSensitive ? name : name.toLowerCase(Locale.getDefault()));
+        }
+        return mask;
+    }
+
+    private static boolean[] or(final boolean[] mask, final boolean[] other) {
+        final boolean[] result = mask.length >= other.length ? mask.clone() : other.clone();
+        final boolean[] shorter = mask.length >= other.length ? other : mask;
+        for (int i = 0; i < shorter.length; i++) {
+            result[i] |= shorter[i];
+        }
+        return result;
+    }
+
+    private static boolean[] keep(final boolean[] mask, final int position) {
+        final boolean[] result = position < mask.length ? mask.clone() : Arrays.copyOf(mask, position + 1);
+        result[position] = true;
+        return result;
+    }
+}
@@ -37,6 +37,20 @@ public interface Record {
      */
     String getString(String column, Supplier<String> defaultSupplier);
 
+    /**
+     * Returns the value of a specified column, without creating a String if
+     * the parser kept the cells in a buffer (see Parser.setCellBuffers).
+     *
+     * @param column
+     *            - Name of the column
+     * @exception NoSuchElementException if col does not exist
+     * @return the value, only valid as long as the record
+     * @since 4.0.5
+     */
+    default CharSequence getCharSequence(final String column) {
+        return getString(column);
+    }
+
     /**
      * Returns the double value of a specified column
      *
@@ -133,6 +147,67 @@ public interface Record {
      */
     long getLong(String column);
 
+    /**
+     * Resolves a column once so that it can be read from many records without
+     * looking up its name each time.
+     *
+     * @param column
+     *            - Name of the column
+     * @return ColumnRef
+     * @since 4.0.5
+     */
+    default ColumnRef column(final String column) {
+        return ColumnRef.of(column);
+    }
+
+    /**
+     * @see #getString(String)
+     * @since 4.0.5
+     */
+    default String getString(final ColumnRef column) {
+        return getString(column.getName());
+    }
+
+    /**
+     * @see #getCharSequence(String)
+     * @since 4.0.5
+     */
+    default CharSequence getCharSequence(final ColumnRef column) {
+        return getCharSequence(column.getName());
+    }
+
+    /**
+     * @see #getDouble(String)
+     * @since 4.0.5
+     */
+    default double getDouble(final ColumnRef column) {
+        return getDouble(column.getName());
+    }
+
+    /**
+     * @see #getBigDecimal(String)
+     * @since 4.0.5
+     */
+    default BigDecimal getBigDecimal(final ColumnRef column) {
+        return getBigDecimal(column.getName());
+    }
+
+    /**
+     * @see #getInt(String)
+     * @since 4.0.5
+     */
+    default int getInt(final ColumnRef column) {
+        return getInt(column.getName());
+    }
+
+    /**
+     * @see #getLong(String)
+     * @since 4.0.5
+     */
+    default long getLong(final ColumnRef column) {
+        return getLong(column.getName());
+    }
+
     /**
      * Returns the date value of a specified column. This assumes the date is in
      * yyyyMMdd. If your date is not in this format, see
@@ -292,6 +367,18 @@ public interface Record {
      */
     Object getObject(String column, Class<?> classToConvertTo);
 
+    /**
+     * Returns the value of the column converted by the converter registered
+     * for the type in the ConverterRegistry of the parser.
+     *
+     * @see #getObject(String, Class)
+     * @since 4.0.5
+     */
+    @SuppressWarnings("unchecked")
+    default <T> T getObject(final ColumnRef column, final Class<T> type) {
+        return (T) getObject(column.getName(), type);
+    }
+
     /**
      * Returns a String array of column names in the DataSet. This will assume
      * 'detail' &lt;RECORD&gt; ID.
@@ -356,4 +443,13 @@ public interface Record {
      * must be specified before calling this method.
      */
     String getRawData();
+
+    /**
+     * @return the file or other source the record was read from when read by a
+     *         MultiSourceParser, null otherwise
+     * @since 4.0.5
+     */
+    default String getSource() {
+        return null;
+    }
 }
@@ -15,6 +15,7 @@ import java.util.function.IntSupplier;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
 
+import net.sf.flatpack.converter.ConverterRegistry;
 import net.sf.flatpack.structure.ColumnMetaData;
 import net.sf.flatpack.structure.Row;
 import net.sf.flatpack.util.FPConstants;
@@ -26,20 +27,36 @@ public class RowRecord implements Record {
     private final Row row;
     private final boolean columnCaseSensitive;
     private final MetaData metaData;
-    private Properties pzConvertProps = null;
+    private final ConverterRegistry converters;
     private final boolean strictNumericParse;
     private final boolean upperCase;
     private final boolean lowerCase;
     private final boolean nullEmptyString;
     private String[] columns = null;
 
+    /**
+     * @param pzConvertProps
+     *            for getObject, resolved with ConverterRegistry.forProperties;
+     *            prefer passing the ConverterRegistry when building many records
+     */
     public RowRecord(final Row row, final MetaData metaData, final boolean columnCaseSensitive, final Properties pzConvertProps,
             final boolean strictNumericParse, final boolean upperCase, final boolean lowerCase, final boolean nullEmptyString) {
+        this(row, metaData, columnCaseSensitive, pzConvertProps != null ? ConverterRegistry.forProperties(pzConvertProps) : null,
+                strictNumericParse, upperCase, lowerCase, nullEmptyString);
+    }
+
+    /**
+     * @param converters
+     *            for getObject, the default registry if null
+     * @since 4.0.5
+     */
+    public RowRecord(final Row row, final MetaData metaData, final boolean columnCaseSensitive, final ConverterRegistry converters,
+            final boolean strictNumericParse, final boolean upperCase, final boolean lowerCase, final boolean nullEmptyString) {
         super();
         this.row = row;
         this.metaData = metaData;
         this.columnCaseSensitive = columnCaseSensitive;
-        this.pzConvertProps = pzConvertProps;
+        this.converters = converters;
         this.strictNumericParse = strictNumericParse;
         this.upperCase = upperCase;
         this.lowerCase = lowerCase;
@@ -204,75 +221,104 @@ public class RowRecord implements Record {
 
     @Override
     public double getDouble(final String column, final DoubleSupplier defaultSupplier) {
-        final String s = getStringValue(column);
+        final CharSequence s = getCharSequenceValue(column);
         if (FPStringUtils.isBlank(s)) {
             return defaultSupplier.getAsDouble();
         }
-        return getDouble(column);
+        return ParserUtils.parseDouble(s, strictNumericParse);
     }
 
     @Override
     public double getDouble(final String column) {
-        final StringBuilder newString = new StringBuilder();
-        final String s = getStringValue(column);
-
-        if (!strictNumericParse) {
-            newString.append(ParserUtils.stripNonDoubleChars(s));
-        } else {
-            newString.append(s);
-        }
-
-        return Double.parseDouble(newString.toString());
+        return ParserUtils.parseDouble(getCharSequenceValue(column), strictNumericParse);
     }
 
     @Override
     public int getInt(final String column, final IntSupplier defaultSupplier) {
-        final String s = getStringValue(column);
+        final CharSequence s = getCharSequenceValue(column);
         if (FPStringUtils.isBlank(s)) {
             return defaultSupplier.getAsInt();
         }
-        return getInt(column);
+        return ParserUtils.parseInt(s, strictNumericParse);
     }
 
     @Override
     public int getInt(final String column) {
-        final String s = getStringValue(column);
-
-        if (!strictNumericParse) {
-            return Integer.parseInt(ParserUtils.stripNonLongChars(s));
-        }
-
-        return Integer.parseInt(s);
+        return ParserUtils.parseInt(getCharSequenceValue(column), strictNumericParse);
     }
 
     @Override
     public long getLong(final String column, final LongSupplier defaultSupplier) {
-        final String s = getStringValue(column);
+        final CharSequence s = getCharSequenceValue(column);
         if (FPStringUtils.isBlank(s)) {
             return defaultSupplier.getAsLong();
         }
-        return getLong(column);
+        return ParserUtils.parseLong(s, strictNumericParse);
     }
 
     @Override
     public long getLong(final String column) {
-        final String s = getStringValue(column);
+        return ParserUtils.parseLong(getCharSequenceValue(column), strictNumericParse);
+    }
+
+    private String getStringValue(final String column) {
+        return row.getValue(ParserUtils.getColumnIndex(row.getMdkey(), metaData, column, columnCaseSensitive));
+    }
+
+    private CharSequence getCharSequenceValue(final String column) {
+        return row.getCharSequence(ParserUtils.getColumnIndex(row.getMdkey(), metaData, column, columnCaseSensitive));
+    }
 
-        if (!strictNumericParse) {
-            return Long.parseLong(ParserUtils.stripNonLongChars(s));
+    private int getColumnIndex(final ColumnRef column) {
+        return column.indexIn(metaData, row.getMdkey(), columnCaseSensitive);
+    }
+
+    @Override
+    public String getString(final ColumnRef column) {
+        return format(row.getValue(getColumnIndex(column)));
+    }
+
+    @Override
+    public CharSequence getCharSequence(final ColumnRef column) {
+        if (nullEmptyString || upperCase || lowerCase) {
+            return getString(column);
         }
+        return row.getCharSequence(getColumnIndex(column));
+    }
 
-        return Long.parseLong(s);
+    @Override
+    public double getDouble(final ColumnRef column) {
+        return ParserUtils.parseDouble(row.getCharSequence(getColumnIndex(column)), strictNumericParse);
     }
 
-    private String getStringValue(final String column) {
-        return row.getValue(ParserUtils.getColumnIndex(row.getMdkey(), metaData, column, columnCaseSensitive));
+    @Override
+    public BigDecimal getBigDecimal(final ColumnRef column) {
+        return ParserUtils.parseBigDecimal(row.getCharSequence(getColumnIndex(column)));
+    }
+
+    @Override
+    public int getInt(final ColumnRef column) {
+        return ParserUtils.parseInt(row.getCharSequence(getColumnIndex(column)), strictNumericParse);
+    }
+
+    @Override
+    public long getLong(final ColumnRef column) {
+        return ParserUtils.parseLong(row.getCharSequence(getColumnIndex(column)), strictNumericParse);
     }
 
     @Override
     public Object getObject(final String column, final Class<?> classToConvertTo) {
         final String s = getStringValue(column);
-        return ParserUtils.runPzConverter(pzConvertProps, s, classToConvertTo);
+        return getConverters().convert(s, classToConvertTo);
+    }
+
+    @Override
+    public <T> T getObject(final ColumnRef column, final Class<T> type) {
+        return getConverters().convert(row.getValue(getColumnIndex(column)), type);
+    }
+
+    private ConverterRegistry getConverters() {
+        return converters != null ? converters : ConverterRegistry.getDefault();
     }
 
     @Override
@@ -286,19 +332,7 @@ public class RowRecord implements Record {
 
     @Override
     public BigDecimal getBigDecimal(final String column) {
-        String s = getStringValue(column);
-        if (FPStringUtils.isBlank(s)) {
-            // don't do the parse on empties
-            return null;
-        }
-
-        s = ParserUtils.replace(s, ",", "", -1).trim();
-
-        if (FPStringUtils.isBlank(s)) {
-            // don't do the parse on empties
-            return null;
-        }
-        return new BigDecimal(s);
+        return ParserUtils.parseBigDecimal(getCharSequenceValue(column));
     }
 
     @Override
@@ -312,7 +346,11 @@ public class RowRecord implements Record {
 
     @Override
     public String getString(final String column) {
-        String s = getStringValue(column);
+        return format(getStringValue(column));
+    }
+
+    private String format(final String value) {
+        String s = value;
 
         if (nullEmptyString && FPStringUtils.isBlank(s)) {
             s = null;
@@ -326,6 +364,14 @@ public class RowRecord implements Record {
         return s;
     }
 
+    @Override
+    public CharSequence getCharSequence(final String column) {
+        if (nullEmptyString || upperCase || lowerCase) {
+            return getString(column);
+        }
+        return getCharSequenceValue(column);
+    }
+
     @Override
     public String getRawData() {
         return row.getRawData();
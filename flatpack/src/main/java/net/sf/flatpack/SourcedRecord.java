@@ -0,0 +1,223 @@
+package net.sf.flatpack;
+
+import java.math.BigDecimal;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A record read by a MultiSourceParser and the source it was read from.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+final class SourcedRecord implements Record {
+    private final Record record;
+    private final String source;
+
+    SourcedRecord(final Record record, final String source) {
+        this.record = record;
+        this.source = source;
+    }
+
+    @Override
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String getString(final String column) {
+        return record.getString(column);
+    }
+
+    @Override
+    public String getString(final String column, final Supplier<String> defaultSupplier) {
+        return record.getString(column, defaultSupplier);
+    }
+
+    @Override
+    public CharSequence getCharSequence(final String column) {
+        return record.getCharSequence(column);
+    }
+
+    @Override
+    public double getDouble(final String column, final DoubleSupplier defaultSupplier) {
+        return record.getDouble(column, defaultSupplier);
+    }
+
+    @Override
+    public double getDouble(final String column) {
+        return record.getDouble(column);
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(final String column, final Supplier<BigDecimal> defaultSupplier) {
+        return record.getBigDecimal(column, defaultSupplier);
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(final String column) {
+        return record.getBigDecimal(column);
+    }
+
+    @Override
+    public int getInt(final String column, final IntSupplier defaultSupplier) {
+        return record.getInt(column, defaultSupplier);
+    }
+
+    @Override
+    public int getInt(final String column) {
+        return record.getInt(column);
+    }
+
+    @Override
+    public long getLong(final String column, final LongSupplier defaultSupplier) {
+        return record.getLong(column, defaultSupplier);
+    }
+
+    @Override
+    public long getLong(final String column) {
+        return record.getLong(column);
+    }
+
+    @Override
+    public ColumnRef column(final String column) {
+        return record.column(column);
+    }
+
+    @Override
+    public String getString(final ColumnRef column) {
+        return record.getString(column);
+    }
+
+    @Override
+    public CharSequence getCharSequence(final ColumnRef column) {
+        return record.getCharSequence(column);
+    }
+
+    @Override
+    public double getDouble(final ColumnRef column) {
+        return record.getDouble(column);
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(final ColumnRef column) {
+        return record.getBigDecimal(column);
+    }
+
+    @Override
+    public int getInt(final ColumnRef column) {
+        return record.getInt(column);
+    }
+
+    @Override
+    public long getLong(final ColumnRef column) {
+        return record.getLong(column);
+    }
+
+    @Override
+    public Date getDate(final String column, final Supplier<Date> defaultSupplier) throws ParseException {
+        return record.getDate(column, defaultSupplier);
+    }
+
+    @Override
+    public Date getDate(final String column) throws ParseException {
+        return record.getDate(column);
+    }
+
+    @Override
+    public Date getDate(final String column, final SimpleDateFormat sdf, final Supplier<Date> defaultSupplier) throws ParseException {
+        return record.getDate(column, sdf, defaultSupplier);
+    }
+
+    @Override
+    public Date getDate(final String column, final SimpleDateFormat sdf) throws ParseException {
+        return record.getDate(column, sdf);
+    }
+
+    @Override
+    public LocalDate getLocalDate(final String column, final Supplier<LocalDate> defaultSupplier) throws ParseException {
+        return record.getLocalDate(column, defaultSupplier);
+    }
+
+    @Override
+    public LocalDate getLocalDate(final String column) throws ParseException {
+        return record.getLocalDate(column);
+    }
+
+    @Override
+    public LocalDate getLocalDate(final String column, final DateTimeFormatter formatter) throws ParseException {
+        return record.getLocalDate(column, formatter);
+    }
+
+    @Override
+    public LocalDate getLocalDate(final String column, final String dateFormat, final Supplier<LocalDate> defaultSupplier) throws ParseException {
+        return record.getLocalDate(column, dateFormat, defaultSupplier);
+    }
+
+    @Override
+    public LocalDate getLocalDate(final String column, final String dateFormat) throws ParseException {
+        return record.getLocalDate(column, dateFormat);
+    }
+
+    @Override
+    public Object getObject(final String column, final Class<?> classToConvertTo) {
+        return record.getObject(column, classToConvertTo);
+    }
+
+    @Override
+    public <T> T getObject(final ColumnRef column, final Class<T> type) {
+        return record.getObject(column, type);
+    }
+
+    @Override
+    public String[] getColumns() {
+        return record.getColumns();
+    }
+
+    @Override
+    public String[] getColumns(final String recordID) {
+        return record.getColumns(recordID);
+    }
+
+    @Override
+    public int getRowNo() {
+        return record.getRowNo();
+    }
+
+    @Override
+    public boolean isRecordID(final String recordID) {
+        return record.isRecordID(recordID);
+    }
+
+    @Override
+    public String getRecordID() {
+        return record.getRecordID();
+    }
+
+    @Override
+    public boolean contains(final String column) {
+        return record.contains(column);
+    }
+
+    @Override
+    public boolean isRowEmpty() {
+        return record.isRowEmpty();
+    }
+
+    @Override
+    public String getRawData() {
+        return record.getRawData();
+    }
+
+    @Override
+    public String toString() {
+        return source + ":" + record.getRowNo();
+    }
+}
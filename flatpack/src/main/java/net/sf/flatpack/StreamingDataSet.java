@@ -3,8 +3,6 @@ package net.sf.flatpack;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.Spliterator;
-import java.util.Spliterators;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -17,12 +15,12 @@ import java.util.stream.StreamSupport;
  */
 public interface StreamingDataSet extends RecordDataSet {
     /**
+     * The stream can be turned parallel, Records are then read in batches, see {@link BatchSpliterator}.
      * @since 4.0
      * @return a stream of Records
      */
     default Stream<Record> stream() {
-        return StreamSupport
-                .stream(Spliterators.spliteratorUnknownSize(spliterator(), Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+        return StreamSupport.stream(BatchSpliterator.of(this), false);
     }
 
     /**
@@ -30,8 +28,7 @@ public interface StreamingDataSet extends RecordDataSet {
      * @return a stream of Records
      */
     default Stream<Record> parallelStream() {
-        return StreamSupport
-                .stream(Spliterators.spliteratorUnknownSize(spliterator(), Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE), true);
+        return StreamSupport.stream(BatchSpliterator.of(this), true);
     }
 
     default Iterator<Record> spliterator() {
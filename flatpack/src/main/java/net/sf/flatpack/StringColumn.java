@@ -0,0 +1,242 @@
+package net.sf.flatpack;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.sf.flatpack.util.FPException;
+
+/**
+ * The values of one column of a {@link ColumnarDataSet}. Values are
+ * dictionary encoded (one int per value) while the column has few distinct
+ * values; once most values are distinct the column is packed in a single
+ * char buffer with the end offset of each value. The values set in a packed
+ * column are kept aside and written to the buffer in one pass once there are
+ * enough of them; removing a value moves the values after it.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+final class StringColumn {
+    /** number of distinct values before checking if the dictionary is worth it. */
+    private static final int MIN_DICTIONARY_CHECK = 1024;
+    private static final int MAX_DICTIONARY_SIZE = 1 << 16;
+    private static final int NULL_CODE = -1;
+    /** number of values set in a packed column before they are written to the buffer, at least. */
+    private static final int MIN_PENDING_EDITS = 64;
+
+    private int size;
+
+    // dictionary encoding
+    private Map<String, Integer> codes = new HashMap<>();
+    private String[] dictionary = new String[16];
+    private int[] values = new int[16];
+
+    // packed encoding
+    private char[] chars;
+    private int length;
+    private int[] ends;
+    private BitSet nulls;
+    /** values set since the buffer was last rebuilt, by index. */
+    private Map<Integer, String> edits;
+
+    int size() {
+        return size;
+    }
+
+    boolean isDictionaryEncoded() {
+        return codes != null;
+    }
+
+    void add(final String value) {
+        if (codes == null) {
+            append(value);
+            return;
+        }
+        values = ensureCapacity(values, size + 1);
+        values[size++] = code(value);
+        if (codes.size() > MAX_DICTIONARY_SIZE || codes.size() > MIN_DICTIONARY_CHECK && codes.size() * 2 > size) {
+            pack();
+        }
+    }
+
+    String get(final int index) {
+        if (codes != null) {
+            final int code = values[index];
+            return code == NULL_CODE ? null : dictionary[code];
+        }
+        if (edits != null && edits.containsKey(index)) {
+            return edits.get(index);
+        }
+        if (nulls.get(index)) {
+            return null;
+        }
+        final int start = start(index);
+        return new String(chars, start, ends[index] - start);
+    }
+
+    void set(final int index, final String value) {
+        if (codes != null) {
+            values[index] = code(value);
+            return;
+        }
+        if (edits == null) {
+            edits = new HashMap<>();
+        }
+        edits.put(index, value);
+        if (edits.size() > Math.max(MIN_PENDING_EDITS, size >> 3)) {
+            applyEdits();
+        }
+    }
+
+    void remove(final int index) {
+        if (codes != null) {
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+        } else {
+            applyEdits();
+            splice(index, null);
+            System.arraycopy(ends, index + 1, ends, index, size - index - 1);
+            for (int i = index; i < size; i++) {
+                nulls.set(i, nulls.get(i + 1));
+            }
+        }
+        size--;
+    }
+
+    void trimToSize() {
+        if (codes != null) {
+            values = Arrays.copyOf(values, size);
+        } else {
+            applyEdits();
+            chars = Arrays.copyOf(chars, length);
+            ends = Arrays.copyOf(ends, size);
+        }
+    }
+
+    private int code(final String value) {
+        if (value == null) {
+            return NULL_CODE;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = codes.size();
+            if (code == dictionary.length) {
+                dictionary = Arrays.copyOf(dictionary, code * 2);
+            }
+            dictionary[code] = value;
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    /**
+     * Moves from the dictionary to the packed encoding.
+     */
+    private void pack() {
+        final int[] oldValues = values;
+        final String[] oldDictionary = dictionary;
+        final int count = size;
+        codes = null;
+        dictionary = null;
+        values = null;
+        chars = new char[1024];
+        ends = new int[oldValues.length];
+        nulls = new BitSet();
+        size = 0;
+        length = 0;
+        for (int i = 0; i < count; i++) {
+            final int code = oldValues[i];
+            append(code == NULL_CODE ? null : oldDictionary[code]);
+        }
+    }
+
+    private void append(final String value) {
+        if (value == null) {
+            nulls.set(size);
+        } else {
+            ensureChars(value.length());
+            value.getChars(0, value.length(), chars, length);
+            length += value.length();
+        }
+        ends = ensureCapacity(ends, size + 1);
+        ends[size++] = length;
+    }
+
+    /**
+     * Rebuilds the char buffer with the values set since the last rebuild.
+     */
+    private void applyEdits() {
+        if (edits == null) {
+            return;
+        }
+        final char[] oldChars = chars;
+        final int[] oldEnds = ends;
+        final Map<Integer, String> pending = edits;
+        edits = null;
+        chars = new char[oldChars.length];
+        ends = new int[oldEnds.length];
+        length = 0;
+        for (int i = 0; i < size; i++) {
+            final int start = i == 0 ? 0 : oldEnds[i - 1];
+            if (pending.containsKey(i)) {
+                final String value = pending.get(i);
+                nulls.set(i, value == null);
+                if (value != null) {
+                    ensureChars(value.length());
+                    value.getChars(0, value.length(), chars, length);
+                    length += value.length();
+                }
+            } else {
+                final int valueLength = oldEnds[i] - start;
+                ensureChars(valueLength);
+                System.arraycopy(oldChars, start, chars, length, valueLength);
+                length += valueLength;
+            }
+            ends[i] = length;
+        }
+    }
+
+    /**
+     * Replaces the value at the given index, moving the following values.
+     */
+    private void splice(final int index, final String value) {
+        final int start = start(index);
+        final int oldLength = ends[index] - start;
+        final int newLength = value == null ? 0 : value.length();
+        final int delta = newLength - oldLength;
+        if (delta != 0) {
+            ensureChars(delta);
+            System.arraycopy(chars, start + oldLength, chars, start + newLength, length - start - oldLength);
+            length += delta;
+            for (int i = index; i < size; i++) {
+                ends[i] += delta;
+            }
+        }
+        if (value != null) {
+            value.getChars(0, newLength, chars, start);
+        }
+        nulls.set(index, value == null);
+    }
+
+    private int start(final int index) {
+        return index == 0 ? 0 : ends[index - 1];
+    }
+
+    private void ensureChars(final int extra) {
+        final long required = (long) length + extra;
+        if (required > Integer.MAX_VALUE - 8) {
+            throw new FPException("Column too large to be stored in a ColumnarDataSet");
+        }
+        if (required > chars.length) {
+            chars = Arrays.copyOf(chars, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(required, chars.length + (long) (chars.length >> 1))));
+        }
+    }
+
+    private static int[] ensureCapacity(final int[] array, final int required) {
+        if (required <= array.length) {
+            return array;
+        }
+        return Arrays.copyOf(array, Math.max(required, array.length + (array.length >> 1)));
+    }
+}
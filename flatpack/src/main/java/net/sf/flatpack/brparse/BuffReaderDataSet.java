@@ -32,12 +32,21 @@
  */
 package net.sf.flatpack.brparse;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
 import net.sf.flatpack.AbstractParser;
+import net.sf.flatpack.BatchSpliterator;
+import net.sf.flatpack.DataError;
 import net.sf.flatpack.DefaultDataSet;
 import net.sf.flatpack.Parser;
+import net.sf.flatpack.Record;
 import net.sf.flatpack.ordering.OrderBy;
 import net.sf.flatpack.structure.Row;
 import net.sf.flatpack.util.FPException;
+import net.sf.flatpack.util.FPInvalidUsageException;
 import net.sf.flatpack.xml.MetaData;
 
 /**
@@ -48,6 +57,7 @@ import net.sf.flatpack.xml.MetaData;
 public class BuffReaderDataSet extends DefaultDataSet {
     private final InterfaceBuffReaderParse brParser;
     private int index = 0;
+    private RecordPipeline pipeline;
 
     /**
      *
@@ -59,6 +69,8 @@ public class BuffReaderDataSet extends DefaultDataSet {
         // register the parser with the dataset so we can fetch rows from
         // the bufferedreader as needed
         this.brParser = brParser;
+        setParseListener(((Parser) brParser).getParseListener());
+        setErrorRetention(((Parser) brParser).getErrorRetention());
     }
 
     @Override
@@ -72,14 +84,127 @@ public class BuffReaderDataSet extends DefaultDataSet {
             setMetaData(((AbstractParser) brParser).getPzMetaData());
         }
 
-        clearRows();
-        final Row r = brParser.buildRow(this);
+        // the row is not added to the rows, only the current one is held
+        final Row r;
+        if (isPipelined()) {
+            if (pipeline == null) {
+                pipeline = new RecordPipeline(brParser, this);
+                pipeline.start();
+            }
+            r = pipeline.next();
+            // the reader thread may have read the MetaData from the first line
+            if (getMetaData() == null) {
+                setMetaData(((AbstractParser) brParser).getPzMetaData());
+            }
+        } else {
+            r = brParser.buildRow(this);
+        }
         if (r != null) {
-            addRow(r);
             index++;
         }
 
-        return super.next();
+        return setCurrentRow(r);
+    }
+
+    /*
+     * The rows are not kept, the current one is only held as the current
+     * record: contains, isRowEmpty and getRawData read it instead of the rows.
+     */
+    @Override
+    public boolean contains(final String column) {
+        final Optional<Record> record = getRecord();
+        if (!record.isPresent()) {
+            throw new IndexOutOfBoundsException("dataset on invalid row. need to call next()");
+        }
+        return record.get().contains(column);
+    }
+
+    @Override
+    public boolean isRowEmpty() {
+        if (!((Parser) brParser).isFlagEmptyRows()) {
+            throw new FPInvalidUsageException("Parser.isFlagEmptyRows(true) must be set before using isRowEmpty()");
+        }
+        return currentRecord().isRowEmpty();
+    }
+
+    @Override
+    public String getRawData() {
+        if (!((Parser) brParser).isStoreRawDataToDataSet()) {
+            throw new FPInvalidUsageException("Parser.isStoreRawDataToDataSet(true) must be set before using getRawData()");
+        }
+        return currentRecord().getRawData();
+    }
+
+    private Record currentRecord() {
+        return getRecord().orElseThrow(() -> new FPException("Cursor on invalid row.. Make sure next() is called and returns true"));
+    }
+
+    boolean isPipelined() {
+        return ((Parser) brParser).isPipelined();
+    }
+
+    /**
+     * Stops the threads reading ahead if the parser is pipelined.
+     */
+    void stopPipeline() {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    /**
+     * Errors can be added by several threads when the DataSet is streamed in
+     * parallel, the rows being built by the threads consuming the records; the
+     * errors are read under the same lock.
+     */
+    @Override
+    public synchronized void addError(final DataError dataError) {
+        super.addError(dataError);
+    }
+
+    @Override
+    public synchronized int getErrorCount() {
+        return super.getErrorCount();
+    }
+
+    /**
+     * @return a copy of the errors, in the order they were added
+     */
+    @Override
+    public synchronized List<DataError> getErrors() {
+        return new ArrayList<>(super.getErrors());
+    }
+
+    @Override
+    public synchronized boolean isAnError(final int lineNo) {
+        return super.isAnError(lineNo);
+    }
+
+    @Override
+    public synchronized void clearErrors() {
+        super.clearErrors();
+    }
+
+    /**
+     * Reads the raw records sequentially, the Rows are built by the threads
+     * consuming them.
+     *
+     * @return a Spliterator over the remaining records of the File
+     */
+    BatchSpliterator<RawRecord> recordSpliterator() {
+        if (brParser == null) {
+            // this should not happen, throw exception
+            throw new FPException("No parser available to fetch row");
+        }
+        return new BatchSpliterator<>(() -> {
+            if (getMetaData() == null) {
+                setMetaData(((AbstractParser) brParser).getPzMetaData());
+            }
+            return brParser.readRecord(this);
+        }, raw -> {
+            final Row row = brParser.buildRow(this, raw);
+            return row != null ? newRecord(row) : null;
+        }, BatchSpliterator.DEFAULT_BATCH_SIZE);
     }
 
     /**
@@ -92,14 +217,32 @@ public class BuffReaderDataSet extends DefaultDataSet {
     }
 
     /**
-     * Not Supported!
+     * Not Supported! Sort the records with an ExternalSorter instead.
      * @param ob - OrderBy object
      * @see net.sf.flatpack.ordering.OrderBy
      * @see net.sf.flatpack.ordering.OrderColumn
+     * @see net.sf.flatpack.ordering.ExternalSorter
      */
     @Override
     public void orderRows(final OrderBy ob) {
-        throw new UnsupportedOperationException("orderRows() is Not Implemented");
+        throw new UnsupportedOperationException("orderRows() is Not Implemented, use an ExternalSorter");
+    }
+
+    /**
+     * Not Supported! The rows are not kept.
+     * @exception UnsupportedOperationException unsupported
+     */
+    @Override
+    public void createIndex(final String column, final boolean unique) {
+        throw new UnsupportedOperationException("createIndex() is Not Implemented");
+    }
+
+    /**
+     * The indexes requested from the parser are ignored.
+     */
+    @Override
+    protected void createIndexes(final Map<String, Boolean> uniqueByColumn) {
+        // the rows are not kept
     }
 
     /**
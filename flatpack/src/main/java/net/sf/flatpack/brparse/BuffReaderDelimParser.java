@@ -32,7 +32,6 @@
  */
 package net.sf.flatpack.brparse;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -45,17 +44,24 @@ import org.slf4j.LoggerFactory;
 import net.sf.flatpack.DataSet;
 import net.sf.flatpack.DefaultDataSet;
 import net.sf.flatpack.DelimiterParser;
+import net.sf.flatpack.StreamingDataSet;
+import net.sf.flatpack.metrics.ParseListener;
+import net.sf.flatpack.metrics.ParsePhase;
 import net.sf.flatpack.structure.ColumnMetaData;
 import net.sf.flatpack.structure.Row;
+import net.sf.flatpack.util.DelimitedRecordReader;
 import net.sf.flatpack.util.FPConstants;
 import net.sf.flatpack.util.FPException;
 import net.sf.flatpack.util.ParserUtils;
+import net.sf.flatpack.xml.MetaData;
 
 public class BuffReaderDelimParser extends DelimiterParser implements InterfaceBuffReaderParse {
-    private BufferedReader br;
+    private DelimitedRecordReader reader;
 
     private boolean processedFirst = false;
 
+    private BuffReaderDataSet dataSet;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(BuffReaderDelimParser.class);
 
     public BuffReaderDelimParser(final File pzmapXML, final File dataSource, final char delimiter, final char qualifier,
@@ -85,22 +91,22 @@ public class BuffReaderDelimParser extends DelimiterParser implements InterfaceB
         super(dataSourceStream, delimiter, qualifier, ignoreFirstRecord);
     }
 
+    /**
+     * @param metaData
+     *          built beforehand, typically a compiled MetaData from a
+     *          MetaDataCache
+     * @since 4.0.5
+     */
+    public BuffReaderDelimParser(final MetaData metaData, final Reader dataSource, final char delimiter, final char qualifier,
+            final boolean ignoreFirstRecord) {
+        super(dataSource, metaData, delimiter, qualifier, ignoreFirstRecord);
+    }
+
     @Override
     protected DataSet doParse() {
-        final DataSet ds = new BuffReaderDataSet(getPzMetaData(), this);
-        try {
-            // gather the conversion properties
-            ds.setPZConvertProps(ParserUtils.loadConvertProperties());
-
-            br = new BufferedReader(getDataSourceReader());
-
-            return ds;
-
-        } catch (final IOException ex) {
-            LOGGER.error("error accessing/creating inputstream", ex);
-        }
-
-        return null;
+        dataSet = new BuffReaderDataSet(getPzMetaData(), this);
+        reader = newRecordReader(getDataSourceReader());
+        return dataSet;
     }
 
     /**
@@ -113,61 +119,102 @@ public class BuffReaderDelimParser extends DelimiterParser implements InterfaceB
     public Row buildRow(final DefaultDataSet ds) {
         /** loop through each line in the file */
         while (true) {
-            String line;
+            final RawRecord record = readRecord(ds);
+            if (record == null) {
+                return null;
+            }
+
+            final Row row = buildRow(ds, record);
+            if (row != null) {
+                return row;
+            }
+        }
+    }
+
+    @Override
+    public RawRecord readRecord(final DefaultDataSet ds) {
+        final ParseListener listener = getParseListener();
+        final long start = listener != null ? System.nanoTime() : 0;
+        while (true) {
             try {
-                line = fetchNextRecord(br, getQualifier(), getDelimiter());
+                if (!nextRecord(reader)) {
+                    return null;
+                }
             } catch (final IOException e) {
                 throw new FPException("Error Fetching Record From File...", e);
             }
 
-            if (line == null) {
-                return null;
-            }
-
             // check to see if the user has elected to skip the first record
-            if (shouldSkipFirstRecord(line, ds)) {
+            if (shouldSkipFirstRecord(ds)) {
                 continue;
             }
 
-            // TODO
-            // seems like we may want to try doing something like this. I have my reservations because
-            // it is possible that we don't get a "detail" id and this might generate NPE
-            // is it going to create too much overhead to do a null check here as well???
-            List<String> columns = ParserUtils.splitLine(line, getDelimiter(), getQualifier(), FPConstants.SPLITLINE_SIZE_INIT,
-                    isPreserveLeadingWhitespace(), isPreserveTrailingWhitespace());
-            final String mdkey = ParserUtils.getCMDKeyForDelimitedFile(getPzMetaData(), columns);
-            final List<ColumnMetaData> cmds = ParserUtils.getColumnMetaData(mdkey, getPzMetaData());
-            // DEBUG
-
-            // Incorrect record length on line log the error. Line
-            // will not be included in the dataset
-            if (!validateColumns(ds, columns, cmds, line)) {
-                continue;
+            // the cells are found while reading, only the Strings are created here
+            final String line = isStoreRawDataToDataError() || isStoreRawDataToDataSet() ? reader.getRawRecord() : null;
+            final RawRecord record = new RawRecord(line, getLineCount(), getCells(reader));
+            if (listener != null) {
+                lap(listener, ParsePhase.READ, start);
             }
+            return record;
+        }
+    }
 
-            return createRow(line, columns, mdkey);
+    @Override
+    public Row buildRow(final DefaultDataSet ds, final RawRecord record) {
+        final String line = record.getLine();
+        final int lineNo = record.getLineNo();
+
+        // TODO
+        // seems like we may want to try doing something like this. I have my reservations because
+        // it is possible that we don't get a "detail" id and this might generate NPE
+        // is it going to create too much overhead to do a null check here as well???
+        final ParseListener listener = getParseListener();
+        long mark = listener != null ? System.nanoTime() : 0;
+        final List<String> columns = record.getCells() != null ? record.getCells() : splitLine(line, FPConstants.SPLITLINE_SIZE_INIT);
+        if (listener != null) {
+            mark = lap(listener, ParsePhase.SPLIT, mark);
+        }
+        final String mdkey = ParserUtils.getCMDKeyForDelimitedFile(getPzMetaData(), columns);
+        final List<ColumnMetaData> cmds = ParserUtils.getColumnMetaData(mdkey, getPzMetaData());
+        // DEBUG
+
+        // Incorrect record length on line log the error. Line
+        // will not be included in the dataset
+        final Row row = validateColumns(ds, columns, cmds, line, lineNo) ? createRow(line, columns, mdkey, lineNo) : null;
+        if (listener != null) {
+            lap(listener, ParsePhase.BUILD, mark);
         }
+        return row;
     }
 
-    private boolean shouldSkipFirstRecord(String line, DefaultDataSet ds) {
+    /**
+     * The Rows of the stream are built by the threads consuming it when it is
+     * parallel, see {@link net.sf.flatpack.BatchSpliterator}.
+     */
+    @Override
+    public StreamingDataSet parseAsStream() {
+        return new BuffReaderStreamingDataSet((BuffReaderDataSet) parse());
+    }
+
+    private boolean shouldSkipFirstRecord(final DefaultDataSet ds) {
         if (!processedFirst && isIgnoreFirstRecord()) {
             processedFirst = true;
             return true;
         } else if (!processedFirst && shouldCreateMDFromFile()) {
             processedFirst = true;
-            setPzMetaData(ParserUtils.getPZMetaDataFromFile(line, getDelimiter(), getQualifier(), this, isAddSuffixToDuplicateColumnNames()));
+            setPzMetaData(ParserUtils.getPZMetaDataFromFile(reader.getCells(false, false), this, isAddSuffixToDuplicateColumnNames()));
             ds.setMetaData(getPzMetaData());
             return true;
         }
         return false;
     }
 
-    private Row createRow(String line, List<String> columns, final String mdkey) {
+    private Row createRow(String line, List<String> columns, final String mdkey, final int lineNo) {
         final Row row = new Row();
         row.setMdkey(mdkey.equals(FPConstants.DETAIL_ID) ? null : mdkey); // try
         // to limit the memory use
         row.setCols(columns);
-        row.setRowNumber(getLineCount());
+        row.setRowNumber(lineNo);
 
         if (isFlagEmptyRows()) {
             // user has elected to have the parser flag rows that are empty
@@ -181,17 +228,17 @@ public class BuffReaderDelimParser extends DelimiterParser implements InterfaceB
         return row;
     }
 
-    private boolean validateColumns(DefaultDataSet ds, List<String> columns, List<ColumnMetaData> cmds, String line) {
+    private boolean validateColumns(DefaultDataSet ds, List<String> columns, List<ColumnMetaData> cmds, String line, final int lineNo) {
         final int columnCount = cmds.size();
         if (columns.size() > columnCount) {
-            return handleTooManyColumns(ds, columns, line, columnCount);
+            return handleTooManyColumns(ds, columns, line, columnCount, lineNo);
         } else if (columns.size() < columnCount) {
-            return handleTooFewColumns(ds, columns, line, columnCount);
+            return handleTooFewColumns(ds, columns, line, columnCount, lineNo);
         }
         return true;
     }
 
-    private boolean handleTooFewColumns(DefaultDataSet ds, List<String> columns, String line, final int columnCount) {
+    private boolean handleTooFewColumns(DefaultDataSet ds, List<String> columns, String line, final int columnCount, final int lineNo) {
         if (isHandlingShortLines()) {
             // We can pad this line out
             while (columns.size() < columnCount) {
@@ -199,27 +246,27 @@ public class BuffReaderDelimParser extends DelimiterParser implements InterfaceB
             }
 
             // log a warning
-            addError(ds, "PADDED LINE TO CORRECT NUMBER OF COLUMNS", getLineCount(), 1);
+            addError(ds, "PADDED LINE TO CORRECT NUMBER OF COLUMNS", lineNo, 1);
             return true;
         } else {
-            addError(ds, "TOO FEW COLUMNS WANTED: " + columnCount + " GOT: " + columns.size(), getLineCount(), 2,
+            addError(ds, "TOO FEW COLUMNS WANTED: " + columnCount + " GOT: " + columns.size(), lineNo, 2,
                     isStoreRawDataToDataError() ? line : null);
             return false;
         }
     }
 
-    private boolean handleTooManyColumns(DefaultDataSet ds, List<String> columns, String line, final int columnCount) {
+    private boolean handleTooManyColumns(DefaultDataSet ds, List<String> columns, String line, final int columnCount, final int lineNo) {
         if (isIgnoreExtraColumns()) {
             // user has chosen to ignore the fact that we have too many columns in the data from
             // what the mapping has described. sublist the array to remove unneeded columns
             //
             // columns = columns.subList(0, columnCount);
             columns.retainAll(columns.subList(0, columnCount));
-            addError(ds, "TRUNCATED LINE TO CORRECT NUMBER OF COLUMNS", getLineCount(), 1);
+            addError(ds, "TRUNCATED LINE TO CORRECT NUMBER OF COLUMNS", lineNo, 1);
             return true;
         } else {
             // log the error
-            addError(ds, "TOO MANY COLUMNS WANTED: " + columnCount + " GOT: " + columns.size(), getLineCount(), 2,
+            addError(ds, "TOO MANY COLUMNS WANTED: " + columnCount + " GOT: " + columns.size(), lineNo, 2,
                     isStoreRawDataToDataError() ? line : null);
             return false;
         }
@@ -232,9 +279,12 @@ public class BuffReaderDelimParser extends DelimiterParser implements InterfaceB
      */
     @Override
     public void close() throws IOException {
-        if (br != null) {
-            br.close();
-            br = null;
+        if (dataSet != null) {
+            dataSet.stopPipeline();
+        }
+        if (reader != null) {
+            getDataSourceReader().close();
+            reader = null;
         }
     }
 
@@ -46,12 +46,16 @@ import org.slf4j.LoggerFactory;
 import net.sf.flatpack.DataSet;
 import net.sf.flatpack.DefaultDataSet;
 import net.sf.flatpack.FixedLengthParser;
+import net.sf.flatpack.StreamingDataSet;
+import net.sf.flatpack.metrics.ParseListener;
+import net.sf.flatpack.metrics.ParsePhase;
 import net.sf.flatpack.structure.ColumnMetaData;
 import net.sf.flatpack.structure.Row;
 import net.sf.flatpack.util.FPConstants;
 import net.sf.flatpack.util.FPException;
 import net.sf.flatpack.util.FixedWidthParserUtils;
 import net.sf.flatpack.util.ParserUtils;
+import net.sf.flatpack.xml.MetaData;
 
 /**
  *
@@ -63,6 +67,7 @@ public class BuffReaderFixedParser extends FixedLengthParser implements Interfac
     private BufferedReader br = null;
     private int lineCount = 0;
     private Map recordLengths = null;
+    private BuffReaderDataSet dataSet;
 
     /**
      *
@@ -92,28 +97,28 @@ public class BuffReaderFixedParser extends FixedLengthParser implements Interfac
         super(pzmapXML, dataSource);
     }
 
+    /**
+     * @param metaData
+     *          built beforehand, typically a compiled MetaData from a
+     *          MetaDataCache
+     * @param dataSource
+     * @since 4.0.5
+     */
+    public BuffReaderFixedParser(final MetaData metaData, final Reader dataSource) {
+        super(metaData, dataSource);
+    }
+
     protected BuffReaderFixedParser(final Reader dataSourceReader, final String dataDefinition) {
         super(dataSourceReader, dataDefinition);
     }
 
     @Override
     protected DataSet doParse() {
-        final DataSet ds = new BuffReaderDataSet(getPzMetaData(), this);
+        dataSet = new BuffReaderDataSet(getPzMetaData(), this);
         lineCount = 0;
         recordLengths = ParserUtils.calculateRecordLengths(getPzMetaData());
-        try {
-            // gather the conversion properties
-            ds.setPZConvertProps(ParserUtils.loadConvertProperties());
-
-            br = new BufferedReader(getDataSourceReader());
-
-            return ds;
-
-        } catch (final IOException ex) {
-            LOGGER.error("error accessing/creating inputstream", ex);
-        }
-
-        return null;
+        br = new BufferedReader(getDataSourceReader());
+        return dataSet;
     }
 
     /**
@@ -124,70 +129,37 @@ public class BuffReaderFixedParser extends FixedLengthParser implements Interfac
      */
     @Override
     public Row buildRow(final DefaultDataSet ds) {
+        RawRecord record;
+        while ((record = readRecord(ds)) != null) {
+            final Row row = buildRow(ds, record);
+            if (row != null) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public RawRecord readRecord(final DefaultDataSet ds) {
         String line = null;
+        final ParseListener listener = getParseListener();
+        final long start = listener != null ? System.nanoTime() : 0;
         try {
             while ((line = br.readLine()) != null) {
                 lineCount++;
                 // empty line skip past it
                 if (line.trim().length() == 0) {
-                    continue;
-                }
-
-                final String mdkey = FixedWidthParserUtils.getCMDKey(getPzMetaData(), line);
-
-                final Row row = new Row();
-                row.setRowNumber(lineCount);
-                row.setMdkey(mdkey.equals(FPConstants.DETAIL_ID) ? null : mdkey);
-
-                final List<ColumnMetaData> cmds = ParserUtils.getColumnMetaData(mdkey, getPzMetaData());
-
-                final int recordLength = ((Integer) recordLengths.get(mdkey)).intValue();
-
-                if (line.length() > recordLength) {
-                    // Incorrect record length on line log the error. Line will not
-                    // be included in the
-                    // dataset
-                    if (isIgnoreExtraColumns()) {
-                        addError(ds, "TRUNCATED LINE TO CORRECT LENGTH", lineCount, 1);
-                        // user has chosen to ignore the fact that we have too many bytes in the fixed
-                        // width file. Truncate the line to the correct length
-                        row.addColumn(FixedWidthParserUtils.splitFixedText(cmds, line.substring(0, recordLength), isPreserveLeadingWhitespace(),
-                                isPreserveTrailingWhitespace()));
-                    } else {
-                        addError(ds, "LINE TOO LONG. LINE IS " + line.length() + " LONG. SHOULD BE " + recordLength, lineCount, 2,
-                                isStoreRawDataToDataError() ? line : null);
-                        continue;
-                    }
-                } else if (line.length() < recordLength) {
-                    if (isHandlingShortLines()) {
-                        // log a warning
-                        addError(ds, "PADDED LINE TO CORRECT RECORD LENGTH", lineCount, 1);
-                        // We can pad this line out
-                        row.addColumn(FixedWidthParserUtils.splitFixedText(cmds, line + ParserUtils.padding(recordLength - line.length(), ' '),
-                                isPreserveLeadingWhitespace(), isPreserveTrailingWhitespace()));
-
-                    } else {
-                        addError(ds, "LINE TOO SHORT. LINE IS " + line.length() + " LONG. SHOULD BE " + recordLength, lineCount, 2,
-                                isStoreRawDataToDataError() ? line : null);
-                        continue;
+                    if (listener != null) {
+                        listener.recordsRead(0, line.length() + 1, 0);
                     }
-                } else {
-                    row.addColumn(FixedWidthParserUtils.splitFixedText(cmds, line, isPreserveLeadingWhitespace(), isPreserveTrailingWhitespace()));
-                }
-
-                if (isFlagEmptyRows()) {
-                    // user has elected to have the parser flag rows that are empty
-                    row.setEmpty(ParserUtils.isListElementsEmpty(row.getCols()));
+                    continue;
                 }
-                if (isStoreRawDataToDataSet()) {
-                    // user told the parser to keep a copy of the raw data in the row
-                    // WARNING potential for high memory usage here
-                    row.setRawData(line);
+                if (listener != null) {
+                    listener.recordsRead(1, line.length() + 1, 0);
+                    lap(listener, ParsePhase.READ, start);
                 }
-
-                return row;
+                return new RawRecord(line, lineCount);
             }
-
         } catch (final IOException e) {
             throw new FPException("Error Fetching Record From File...", e);
         }
@@ -195,6 +167,80 @@ public class BuffReaderFixedParser extends FixedLengthParser implements Interfac
         return null;
     }
 
+    @Override
+    public Row buildRow(final DefaultDataSet ds, final RawRecord record) {
+        final String line = record.getLine();
+        final int lineNo = record.getLineNo();
+        final ParseListener listener = getParseListener();
+        long mark = listener != null ? System.nanoTime() : 0;
+        final String mdkey = FixedWidthParserUtils.getCMDKey(getPzMetaData(), line);
+
+        final Row row = new Row();
+        row.setRowNumber(lineNo);
+        row.setMdkey(mdkey.equals(FPConstants.DETAIL_ID) ? null : mdkey);
+
+        final List<ColumnMetaData> cmds = ParserUtils.getColumnMetaData(mdkey, getPzMetaData());
+
+        final int recordLength = ((Integer) recordLengths.get(mdkey)).intValue();
+
+        if (line.length() > recordLength) {
+            // Incorrect record length on line log the error. Line will not
+            // be included in the
+            // dataset
+            if (isIgnoreExtraColumns()) {
+                addError(ds, "TRUNCATED LINE TO CORRECT LENGTH", lineNo, 1);
+                // user has chosen to ignore the fact that we have too many bytes in the fixed
+                // width file. Truncate the line to the correct length
+                row.setCols(splitFixedText(cmds, line.substring(0, recordLength)));
+            } else {
+                addError(ds, "LINE TOO LONG. LINE IS " + line.length() + " LONG. SHOULD BE " + recordLength, lineNo, 2,
+                        isStoreRawDataToDataError() ? line : null);
+                return null;
+            }
+        } else if (line.length() < recordLength) {
+            if (isHandlingShortLines()) {
+                // log a warning
+                addError(ds, "PADDED LINE TO CORRECT RECORD LENGTH", lineNo, 1);
+                // We can pad this line out
+                row.setCols(splitFixedText(cmds, line + ParserUtils.padding(recordLength - line.length(), ' ')));
+
+            } else {
+                addError(ds, "LINE TOO SHORT. LINE IS " + line.length() + " LONG. SHOULD BE " + recordLength, lineNo, 2,
+                        isStoreRawDataToDataError() ? line : null);
+                return null;
+            }
+        } else {
+            row.setCols(splitFixedText(cmds, line));
+        }
+        if (listener != null) {
+            mark = lap(listener, ParsePhase.SPLIT, mark);
+        }
+
+        if (isFlagEmptyRows()) {
+            // user has elected to have the parser flag rows that are empty
+            row.setEmpty(ParserUtils.isListElementsEmpty(row.getCols()));
+        }
+        if (isStoreRawDataToDataSet()) {
+            // user told the parser to keep a copy of the raw data in the row
+            // WARNING potential for high memory usage here
+            row.setRawData(line);
+        }
+        if (listener != null) {
+            lap(listener, ParsePhase.BUILD, mark);
+        }
+
+        return row;
+    }
+
+    /**
+     * The Rows of the stream are built by the threads consuming it when it is
+     * parallel, see {@link net.sf.flatpack.BatchSpliterator}.
+     */
+    @Override
+    public StreamingDataSet parseAsStream() {
+        return new BuffReaderStreamingDataSet((BuffReaderDataSet) parse());
+    }
+
     /**
      * Closes out the file readers
      *
@@ -202,6 +248,9 @@ public class BuffReaderFixedParser extends FixedLengthParser implements Interfac
      */
     @Override
     public void close() throws IOException {
+        if (dataSet != null) {
+            dataSet.stopPipeline();
+        }
         if (br != null) {
             br.close();
         }
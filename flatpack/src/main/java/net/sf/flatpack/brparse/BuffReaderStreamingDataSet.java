@@ -0,0 +1,38 @@
+package net.sf.flatpack.brparse;
+
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import net.sf.flatpack.Record;
+import net.sf.flatpack.StreamingRecord;
+
+/**
+ * Streams the records of a BuffReaderDataSet; in a parallel stream only the
+ * reading of the records is sequential, they are parsed by the threads
+ * consuming them.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+class BuffReaderStreamingDataSet extends StreamingRecord {
+    private final BuffReaderDataSet dataSet;
+
+    BuffReaderStreamingDataSet(final BuffReaderDataSet dataSet) {
+        super(dataSet);
+        this.dataSet = dataSet;
+    }
+
+    @Override
+    public Stream<Record> stream() {
+        if (dataSet != null && dataSet.isPipelined()) {
+            // next() takes the rows built ahead by the pipeline
+            return super.stream();
+        }
+        return dataSet != null ? StreamSupport.stream(dataSet.recordSpliterator(), false) : Stream.empty();
+    }
+
+    @Override
+    public Stream<Record> parallelStream() {
+        return dataSet != null ? StreamSupport.stream(dataSet.recordSpliterator(), true) : Stream.empty();
+    }
+}
@@ -19,4 +19,30 @@ public interface InterfaceBuffReaderParse extends AutoCloseable {
      */
     public Row buildRow(final DefaultDataSet ds);
 
+    /**
+     * Reads the next record from the File without parsing it, so that
+     * {@link #buildRow(DefaultDataSet, RawRecord)} can be called from another
+     * thread. By default the record is parsed straight away.
+     *
+     * @param ds
+     * @return the record or null at the end of the File
+     * @since 4.0.5
+     */
+    default RawRecord readRecord(final DefaultDataSet ds) {
+        final Row row = buildRow(ds);
+        return row != null ? new RawRecord(row) : null;
+    }
+
+    /**
+     * Builds the row of a record returned by {@link #readRecord(DefaultDataSet)},
+     * this must be thread safe.
+     *
+     * @param ds
+     * @param record
+     * @return Row object or null if the record has been rejected
+     * @since 4.0.5
+     */
+    default Row buildRow(final DefaultDataSet ds, final RawRecord record) {
+        return record.getRow();
+    }
 }
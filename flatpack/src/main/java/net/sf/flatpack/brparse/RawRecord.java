@@ -0,0 +1,68 @@
+package net.sf.flatpack.brparse;
+
+import java.util.List;
+
+import net.sf.flatpack.structure.Row;
+
+/**
+ * A record read from the file but not parsed yet, see
+ * {@link InterfaceBuffReaderParse#readRecord(net.sf.flatpack.DefaultDataSet)}.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public final class RawRecord {
+    private final String line;
+    private final int lineNo;
+    private final Row row;
+    private final List<String> cells;
+
+    public RawRecord(final String line, final int lineNo) {
+        this(line, lineNo, null);
+    }
+
+    /**
+     * For parsers which split the record while reading it.
+     *
+     * @param line
+     *          can be null if the raw data is not to be stored
+     */
+    public RawRecord(final String line, final int lineNo, final List<String> cells) {
+        this.line = line;
+        this.lineNo = lineNo;
+        this.row = null;
+        this.cells = cells;
+    }
+
+    /**
+     * For parsers which cannot separate reading a record from parsing it.
+     */
+    public RawRecord(final Row row) {
+        this.line = row.getRawData();
+        this.lineNo = row.getRowNumber();
+        this.row = row;
+        this.cells = null;
+    }
+
+    public String getLine() {
+        return line;
+    }
+
+    public int getLineNo() {
+        return lineNo;
+    }
+
+    /**
+     * @return the cells if the record has already been split
+     */
+    public List<String> getCells() {
+        return cells;
+    }
+
+    /**
+     * @return the Row if it has already been built
+     */
+    public Row getRow() {
+        return row;
+    }
+}
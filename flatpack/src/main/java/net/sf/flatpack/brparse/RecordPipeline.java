@@ -0,0 +1,176 @@
+package net.sf.flatpack.brparse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import net.sf.flatpack.DefaultDataSet;
+import net.sf.flatpack.structure.Row;
+import net.sf.flatpack.util.FPException;
+
+/**
+ * Reads and builds the rows of a BuffReader parser ahead of the consumer: a
+ * reader thread reads batches of raw records, a tokenizer thread builds their
+ * rows and the consumer only takes rows which are ready. The stages hand over
+ * batches through SpscRingBuffers; a stage waiting on another spins, yields
+ * and then parks for a short while.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+final class RecordPipeline {
+    static final int BATCH_SIZE = 256;
+    /** batches held between two stages. */
+    static final int CAPACITY = 32;
+
+    private static final long PARK_NANOS = 50_000L;
+    /** spinning only helps when the other stage runs on another processor. */
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 100 : 0;
+    private static final int YIELDS = SPINS + 100;
+
+    /** marks the end of the records, compared by identity. */
+    @SuppressWarnings("rawtypes")
+    private static final List END = Collections.unmodifiableList(new ArrayList<>());
+
+    private final SpscRingBuffer<List<RawRecord>> records = new SpscRingBuffer<>(CAPACITY);
+    private final SpscRingBuffer<List<Row>> rows = new SpscRingBuffer<>(CAPACITY);
+    private final Thread reader;
+    private final Thread tokenizer;
+    private volatile boolean stopped;
+    private volatile Throwable failure;
+    private List<Row> batch = Collections.emptyList();
+    private int position;
+
+    RecordPipeline(final InterfaceBuffReaderParse parser, final DefaultDataSet ds) {
+        reader = new Thread(() -> read(parser, ds), "flatpack-reader");
+        tokenizer = new Thread(() -> tokenize(parser, ds), "flatpack-tokenizer");
+        reader.setDaemon(true);
+        tokenizer.setDaemon(true);
+    }
+
+    void start() {
+        reader.start();
+        tokenizer.start();
+    }
+
+    /**
+     * Consumer side.
+     *
+     * @return the next row or null at the end of the records
+     * @throws FPException
+     *           if the records could not be read or built
+     */
+    Row next() {
+        while (position == batch.size()) {
+            if (batch == END) {
+                return null;
+            }
+            batch = take(rows);
+            position = 0;
+            if (batch == END && failure != null) {
+                throw failure instanceof RuntimeException ? (RuntimeException) failure : new FPException("Error Fetching Record From File...", failure);
+            }
+        }
+        return batch.get(position++);
+    }
+
+    /**
+     * Stops the reader and tokenizer, the rows not taken yet are lost.
+     */
+    void stop() {
+        stopped = true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void read(final InterfaceBuffReaderParse parser, final DefaultDataSet ds) {
+        try {
+            List<RawRecord> read = new ArrayList<>(BATCH_SIZE);
+            RawRecord record;
+            while (!stopped && (record = parser.readRecord(ds)) != null) {
+                read.add(record);
+                if (read.size() == BATCH_SIZE) {
+                    if (!put(records, read)) {
+                        return;
+                    }
+                    read = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!read.isEmpty()) {
+                put(records, read);
+            }
+        } catch (final Throwable e) {
+            failure = e;
+        } finally {
+            put(records, END);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void tokenize(final InterfaceBuffReaderParse parser, final DefaultDataSet ds) {
+        try {
+            List<RawRecord> read;
+            while ((read = take(records)) != END) {
+                final List<Row> built = new ArrayList<>(read.size());
+                for (int i = 0; i < read.size(); i++) {
+                    final Row row = parser.buildRow(ds, read.get(i));
+                    if (row != null) {
+                        built.add(row);
+                    }
+                }
+                if (!built.isEmpty() && !put(rows, built)) {
+                    return;
+                }
+            }
+        } catch (final Throwable e) {
+            failure = e;
+            // the reader may be waiting for room
+            stopped = true;
+        } finally {
+            put(rows, END);
+        }
+    }
+
+    /**
+     * @return false if the pipeline has been stopped
+     */
+    private <E> boolean put(final SpscRingBuffer<E> buffer, final E element) {
+        for (int attempt = 0; !buffer.offer(element); attempt++) {
+            if (stopped) {
+                return false;
+            }
+            idle(attempt);
+        }
+        return true;
+    }
+
+    /**
+     * @return the next element or END once the pipeline is stopped and the
+     *         buffer is empty
+     */
+    @SuppressWarnings("unchecked")
+    private <E> E take(final SpscRingBuffer<E> buffer) {
+        for (int attempt = 0;; attempt++) {
+            final E element = buffer.poll();
+            if (element != null) {
+                return element;
+            }
+            if (stopped) {
+                // what was offered before the pipeline stopped is still taken
+                final E last = buffer.poll();
+                return last != null ? last : (E) END;
+            }
+            idle(attempt);
+        }
+    }
+
+    private static void idle(final int attempt) {
+        if (attempt < SPINS) {
+            return;
+        } else if (attempt < YIELDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+}
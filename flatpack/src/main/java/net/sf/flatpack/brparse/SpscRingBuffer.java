@@ -0,0 +1,79 @@
+package net.sf.flatpack.brparse;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free queue for exactly one producer thread and one consumer
+ * thread. Each side caches the last index seen of the other so that the
+ * shared counters are only read when the buffer looks full or empty.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+final class SpscRingBuffer<E> {
+    private final Object[] buffer;
+    private final int mask;
+    /** next index to poll, only written by the consumer. */
+    private final AtomicLong head = new AtomicLong();
+    /** next index to offer, only written by the producer. */
+    private final AtomicLong tail = new AtomicLong();
+    private long producerHead;
+    private long consumerTail;
+
+    /**
+     * @param capacity
+     *          rounded up to a power of 2
+     */
+    SpscRingBuffer(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        final int size = Integer.highestOneBit(capacity - 1 << 1 | 1);
+        buffer = new Object[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Producer side.
+     *
+     * @return false if the buffer is full
+     */
+    boolean offer(final E element) {
+        final long t = tail.get();
+        if (t - producerHead >= buffer.length) {
+            producerHead = head.get();
+            if (t - producerHead >= buffer.length) {
+                return false;
+            }
+        }
+        buffer[(int) t & mask] = element;
+        // the element is published by the ordered write of the tail
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Consumer side.
+     *
+     * @return null if the buffer is empty
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        final long h = head.get();
+        if (h >= consumerTail) {
+            consumerTail = tail.get();
+            if (h >= consumerTail) {
+                return null;
+            }
+        }
+        final int index = (int) h & mask;
+        final E element = (E) buffer[index];
+        buffer[index] = null;
+        head.lazySet(h + 1);
+        return element;
+    }
+
+    int capacity() {
+        return buffer.length;
+    }
+}
@@ -11,14 +11,14 @@ import net.sf.flatpack.util.ParserUtils;
  *
  * @author Paul Zepernick
  */
-public class ConvertBigDecimal implements Converter {
+public class ConvertBigDecimal implements Converter<BigDecimal> {
     /*
      * (non-Javadoc)
      *
      * @see net.sf.flatpack.converter#convertValue(java.lang.String)
      */
     @Override
-    public Object convertValue(final String valueToConvert) {
+    public BigDecimal convertValue(final String valueToConvert) {
         return new BigDecimal(ParserUtils.stripNonDoubleChars(valueToConvert));
     }
 }
@@ -42,16 +42,16 @@ import net.sf.flatpack.util.ParserUtils;
  *
  * @author Paul Zepernick
  */
-public class ConvertDouble implements Converter {
+public class ConvertDouble implements DoubleConverter {
 
     /*
      * (non-Javadoc)
      *
-     * @see net.sf.flatpack.converter#convertValue(java.lang.String)
+     * @see net.sf.flatpack.converter.DoubleConverter#convertDouble(java.lang.String)
      */
     @Override
-    public Object convertValue(final String valueToConvert) {
-        return new Double(ParserUtils.stripNonDoubleChars(valueToConvert));
+    public double convertDouble(final String valueToConvert) {
+        return Double.parseDouble(ParserUtils.stripNonDoubleChars(valueToConvert));
     }
 
 }
@@ -42,16 +42,16 @@ import net.sf.flatpack.util.ParserUtils;
  *
  * @author Paul Zepernick
  */
-public class ConvertInteger implements Converter {
+public class ConvertInteger implements IntConverter {
 
     /*
      * (non-Javadoc)
      *
-     * @see net.sf.flatpack.converter#convertValue(java.lang.String)
+     * @see net.sf.flatpack.converter.IntConverter#convertInt(java.lang.String)
      */
     @Override
-    public Object convertValue(final String valueToConvert) {
-        return Integer.valueOf(ParserUtils.stripNonLongChars(valueToConvert));
+    public int convertInt(final String valueToConvert) {
+        return Integer.parseInt(ParserUtils.stripNonLongChars(valueToConvert));
     }
 
 }
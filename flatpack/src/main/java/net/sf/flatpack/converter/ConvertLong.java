@@ -0,0 +1,19 @@
+package net.sf.flatpack.converter;
+
+import net.sf.flatpack.util.ParserUtils;
+
+/**
+ * Returns a Long
+ * Non numeric chars are removed from the string
+ * before converting
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public class ConvertLong implements LongConverter {
+
+    @Override
+    public long convertLong(final String valueToConvert) {
+        return Long.parseLong(ParserUtils.stripNonLongChars(valueToConvert));
+    }
+}
@@ -34,11 +34,14 @@ package net.sf.flatpack.converter;
 
 /**
  * Responsible for converting a column in IDataSet
- * to the desired Object.
+ * to the desired Object. Since 4.0.5 an instance is cached by its
+ * ConverterRegistry and called concurrently by the threads reading the
+ * DataSets, so an implementation must be stateless or thread safe.
  *
+ * @param <T> the type of the converted value, since 4.0.5
  * @author Paul Zepernick
  */
-public interface Converter {
+public interface Converter<T> {
 
     /**
      * Returns the converted object from the
@@ -47,5 +50,5 @@ public interface Converter {
      * @param valueToConvert
      * @return Object
      */
-    Object convertValue(String valueToConvert);
+    T convertValue(String valueToConvert);
 }
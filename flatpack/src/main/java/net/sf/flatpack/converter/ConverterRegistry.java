@@ -0,0 +1,202 @@
+package net.sf.flatpack.converter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.sf.flatpack.util.ParserUtils;
+
+/**
+ * Converters by type for the getObject() calls. A converter named in the
+ * properties is instantiated the first time its type is asked for and then
+ * reused: the same instance serves every getObject() call, from every thread
+ * reading the DataSets and Records of the registry, so a converter must be
+ * stateless or thread safe. The default registry reads fpconvert.properties
+ * once for every parser and DataSet:
+ *
+ * <pre>
+ * final ConverterRegistry converters = new ConverterRegistry(ParserUtils.loadConvertProperties());
+ * converters.register(LocalDate.class, LocalDate::parse);
+ * parser.setConverterRegistry(converters);
+ * ...
+ * final LocalDate date = ds.getObject(tradeDate, LocalDate.class);
+ * </pre>
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public class ConverterRegistry {
+    private static volatile ConverterRegistry defaultRegistry;
+    private static volatile Resolved lastResolved;
+
+    private final Map<String, String> classNames = new HashMap<>();
+    private final ConcurrentMap<Class<?>, Converter<?>> converters = new ConcurrentHashMap<>();
+
+    /**
+     * An empty registry.
+     */
+    public ConverterRegistry() {
+    }
+
+    /**
+     * @param classXref
+     *          converter class names by the name of the type they return, as
+     *          in fpconvert.properties
+     */
+    public ConverterRegistry(final Properties classXref) {
+        for (final String type : classXref.stringPropertyNames()) {
+            classNames.put(type, classXref.getProperty(type));
+        }
+    }
+
+    /**
+     * @return the registry of the converters in fpconvert.properties, shared by
+     *         the parsers without a registry of their own; do not register
+     *         converters in it
+     */
+    public static ConverterRegistry getDefault() {
+        ConverterRegistry registry = defaultRegistry;
+        if (registry == null) {
+            synchronized (ConverterRegistry.class) {
+                registry = defaultRegistry;
+                if (registry == null) {
+                    try {
+                        registry = new ConverterRegistry(ParserUtils.loadConvertProperties());
+                    } catch (final IOException e) {
+                        throw new FPConvertException("Cannot read fpconvert.properties", e);
+                    }
+                    defaultRegistry = registry;
+                }
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * Resolves the registry of a Properties instance, for the callers that
+     * are only given the properties. The registry of the last instance
+     * resolved is reused, so its converters are not instantiated again for
+     * every Record or DataSet built with the same Properties; later changes to
+     * that Properties are not seen.
+     *
+     * @param classXref
+     *          converter class names by the name of the type they return, as
+     *          in fpconvert.properties
+     * @return the registry of these properties
+     */
+    public static ConverterRegistry forProperties(final Properties classXref) {
+        final Resolved resolved = lastResolved;
+        if (resolved != null && resolved.classXref == classXref) {
+            return resolved.registry;
+        }
+        final ConverterRegistry registry = new ConverterRegistry(classXref);
+        lastResolved = new Resolved(classXref, registry);
+        return registry;
+    }
+
+    /**
+     * @param type
+     *          the type returned by the converter, replaces the one named in
+     *          the properties if any
+     * @param converter
+     *          used by every thread reading the DataSets
+     * @return this registry
+     */
+    public <T> ConverterRegistry register(final Class<T> type, final Converter<? extends T> converter) {
+        if (type == null || converter == null) {
+            throw new IllegalArgumentException("type and converter cannot be null");
+        }
+        converters.put(type, converter);
+        return this;
+    }
+
+    /**
+     * @return the converter for the type
+     * @throws FPConvertException
+     *           if no converter is registered for that type or it cannot be
+     *           instantiated
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Converter<? extends T> getConverter(final Class<T> type) {
+        Converter<?> converter = converters.get(type);
+        if (converter == null) {
+            // computeIfAbsent locks the bin even when the key is present, only
+            // use it on a miss
+            converter = converters.computeIfAbsent(type, this::newConverter);
+        }
+        return (Converter<? extends T>) converter;
+    }
+
+    /**
+     * @return the value converted by the converter registered for the type
+     */
+    public <T> T convert(final String value, final Class<T> type) {
+        return getConverter(type).convertValue(value);
+    }
+
+    /**
+     * Converts without boxing if the converter registered for the type is an
+     * IntConverter.
+     */
+    public int convertInt(final String value, final Class<?> type) {
+        final Converter<?> converter = getConverter(type);
+        if (converter instanceof IntConverter) {
+            return ((IntConverter) converter).convertInt(value);
+        }
+        return ((Number) converter.convertValue(value)).intValue();
+    }
+
+    /**
+     * Converts without boxing if the converter registered for the type is a
+     * LongConverter.
+     */
+    public long convertLong(final String value, final Class<?> type) {
+        final Converter<?> converter = getConverter(type);
+        if (converter instanceof LongConverter) {
+            return ((LongConverter) converter).convertLong(value);
+        }
+        return ((Number) converter.convertValue(value)).longValue();
+    }
+
+    /**
+     * Converts without boxing if the converter registered for the type is a
+     * DoubleConverter.
+     */
+    public double convertDouble(final String value, final Class<?> type) {
+        final Converter<?> converter = getConverter(type);
+        if (converter instanceof DoubleConverter) {
+            return ((DoubleConverter) converter).convertDouble(value);
+        }
+        return ((Number) converter.convertValue(value)).doubleValue();
+    }
+
+    private Converter<?> newConverter(final Class<?> type) {
+        final String className = classNames.get(type.getName());
+        if (className == null) {
+            throw new FPConvertException(type.getName() + " is not registered in pzconvert.properties");
+        }
+        try {
+            return (Converter<?>) Class.forName(className).newInstance();
+        } catch (final IllegalAccessException | InstantiationException | ClassNotFoundException ex) {
+            throw new FPConvertException(ex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ConverterRegistry" + classNames.keySet();
+    }
+
+    private static final class Resolved {
+        private final Properties classXref;
+        private final ConverterRegistry registry;
+
+        private Resolved(final Properties classXref, final ConverterRegistry registry) {
+            this.classXref = classXref;
+            this.registry = registry;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package net.sf.flatpack.converter;
+
+/**
+ * Converter to a double, {@link #convertDouble(String)} avoids boxing the
+ * value.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+@FunctionalInterface
+public interface DoubleConverter extends Converter<Double> {
+    double convertDouble(String valueToConvert);
+
+    @Override
+    default Double convertValue(final String valueToConvert) {
+        return convertDouble(valueToConvert);
+    }
+}
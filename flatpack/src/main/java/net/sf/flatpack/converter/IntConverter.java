@@ -0,0 +1,17 @@
+package net.sf.flatpack.converter;
+
+/**
+ * Converter to an int, {@link #convertInt(String)} avoids boxing the value.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+@FunctionalInterface
+public interface IntConverter extends Converter<Integer> {
+    int convertInt(String valueToConvert);
+
+    @Override
+    default Integer convertValue(final String valueToConvert) {
+        return convertInt(valueToConvert);
+    }
+}
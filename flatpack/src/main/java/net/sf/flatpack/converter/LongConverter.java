@@ -0,0 +1,17 @@
+package net.sf.flatpack.converter;
+
+/**
+ * Converter to a long, {@link #convertLong(String)} avoids boxing the value.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+@FunctionalInterface
+public interface LongConverter extends Converter<Long> {
+    long convertLong(String valueToConvert);
+
+    @Override
+    default Long convertValue(final String valueToConvert) {
+        return convertLong(valueToConvert);
+    }
+}
@@ -0,0 +1,57 @@
+package net.sf.flatpack.metrics;
+
+/**
+ * Told about the progress of a parse, see
+ * {@link net.sf.flatpack.Parser#setParseListener(ParseListener)}. Nothing is
+ * measured when no listener is set.
+ * <p>
+ * The methods can be called by several threads at once (parallel streams,
+ * parallel parse of a memory-mapped file) so an implementation must be thread
+ * safe. A multi-threaded parse may report the counts of several records in one
+ * call.
+ * </p>
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public interface ParseListener {
+    /**
+     * @param records
+     *          number of records read, including the rejected ones
+     * @param size
+     *          their size, in chars for a Reader or bytes for a memory-mapped
+     *          file, line breaks and blank lines included
+     * @param multiLineRecords
+     *          how many of those spanned several lines
+     */
+    default void recordsRead(final int records, final long size, final int multiLineRecords) {
+    }
+
+    /**
+     * An error was added to the DataSet, warnings ignored by the parser are
+     * not reported.
+     *
+     * @param errorLevel
+     *          1=warning 2=error (the record is rejected) 3=severe error
+     */
+    default void errorAdded(final int errorLevel) {
+    }
+
+    /**
+     * @param phase
+     *          what the parser was doing
+     * @param nanos
+     *          time spent doing it
+     */
+    default void timeSpent(final ParsePhase phase, final long nanos) {
+    }
+
+    /**
+     * A parse keeping all the rows in memory has completed.
+     *
+     * @param rows
+     *          number of rows held by the DataSet
+     */
+    default void dataSetLoaded(final int rows) {
+    }
+}
@@ -0,0 +1,192 @@
+package net.sf.flatpack.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * ParseListener keeping counters, it can be shared by several parsers and
+ * parses. Register it as an MBean to follow a long running load with JMX:
+ *
+ * <pre>
+ * final ParseMetrics metrics = new ParseMetrics();
+ * final ObjectName name = metrics.registerMBean("nightly-load");
+ * parser.setParseListener(metrics);
+ * ...
+ * ParseMetrics.unregisterMBean(name);
+ * </pre>
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public class ParseMetrics implements ParseListener, ParseMetricsMXBean {
+    private final LongAdder recordsRead = new LongAdder();
+    private final LongAdder sizeRead = new LongAdder();
+    private final LongAdder multiLineRecords = new LongAdder();
+    private final LongAdder warnings = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder severeErrors = new LongAdder();
+    private final LongAdder[] nanos = new LongAdder[ParsePhase.values().length];
+    private final LongAccumulator peakRowsHeld = new LongAccumulator(Math::max, 0);
+
+    public ParseMetrics() {
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void recordsRead(final int records, final long size, final int multiLine) {
+        recordsRead.add(records);
+        sizeRead.add(size);
+        if (multiLine > 0) {
+            multiLineRecords.add(multiLine);
+        }
+    }
+
+    @Override
+    public void errorAdded(final int errorLevel) {
+        if (errorLevel <= 1) {
+            warnings.increment();
+        } else if (errorLevel == 2) {
+            errors.increment();
+        } else {
+            severeErrors.increment();
+        }
+    }
+
+    @Override
+    public void timeSpent(final ParsePhase phase, final long time) {
+        nanos[phase.ordinal()].add(time);
+    }
+
+    @Override
+    public void dataSetLoaded(final int rows) {
+        peakRowsHeld.accumulate(rows);
+    }
+
+    /**
+     * Adds the records read and time spent counted by this instance to the
+     * listener.
+     */
+    public void addTo(final ParseListener listener) {
+        listener.recordsRead((int) recordsRead.sum(), sizeRead.sum(), (int) multiLineRecords.sum());
+        for (final ParsePhase phase : ParsePhase.values()) {
+            listener.timeSpent(phase, getNanos(phase));
+        }
+    }
+
+    @Override
+    public long getRecordsRead() {
+        return recordsRead.sum();
+    }
+
+    /**
+     * @return chars read from a Reader or bytes from a memory-mapped file
+     */
+    @Override
+    public long getSizeRead() {
+        return sizeRead.sum();
+    }
+
+    @Override
+    public long getMultiLineRecords() {
+        return multiLineRecords.sum();
+    }
+
+    @Override
+    public long getWarnings() {
+        return warnings.sum();
+    }
+
+    /**
+     * @return the number of records rejected
+     */
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getSevereErrors() {
+        return severeErrors.sum();
+    }
+
+    public long getNanos(final ParsePhase phase) {
+        return nanos[phase.ordinal()].sum();
+    }
+
+    @Override
+    public long getReadMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(getNanos(ParsePhase.READ));
+    }
+
+    @Override
+    public long getSplitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(getNanos(ParsePhase.SPLIT));
+    }
+
+    @Override
+    public long getBuildMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(getNanos(ParsePhase.BUILD));
+    }
+
+    /**
+     * @return the largest DataSet loaded, in rows
+     */
+    @Override
+    public long getPeakRowsHeld() {
+        return peakRowsHeld.get();
+    }
+
+    @Override
+    public void reset() {
+        recordsRead.reset();
+        sizeRead.reset();
+        multiLineRecords.reset();
+        warnings.reset();
+        errors.reset();
+        severeErrors.reset();
+        for (final LongAdder adder : nanos) {
+            adder.reset();
+        }
+        peakRowsHeld.reset();
+    }
+
+    /**
+     * Registers these metrics with the platform MBeanServer as
+     * net.sf.flatpack:type=ParseMetrics,name=[name].
+     *
+     * @return the name to unregister them
+     * @throws JMException
+     *           if the name is invalid or already registered
+     */
+    public ObjectName registerMBean(final String name) throws JMException {
+        final ObjectName objectName = new ObjectName("net.sf.flatpack:type=ParseMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /**
+     * @param objectName
+     *          as returned by {@link #registerMBean(String)}
+     * @throws JMException
+     *           if nothing is registered under that name
+     */
+    public static void unregisterMBean(final ObjectName objectName) throws JMException {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.unregisterMBean(objectName);
+    }
+
+    @Override
+    public String toString() {
+        return "records=" + getRecordsRead() + " size=" + getSizeRead() + " multiLine=" + getMultiLineRecords() + " warnings=" + getWarnings()
+                + " errors=" + getErrors() + " severe=" + getSevereErrors() + " readMs=" + getReadMillis() + " splitMs=" + getSplitMillis()
+                + " buildMs=" + getBuildMillis() + " peakRows=" + getPeakRowsHeld();
+    }
+}
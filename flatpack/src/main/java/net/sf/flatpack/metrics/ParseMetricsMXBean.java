@@ -0,0 +1,31 @@
+package net.sf.flatpack.metrics;
+
+/**
+ * JMX view of the {@link ParseMetrics}.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public interface ParseMetricsMXBean {
+    long getRecordsRead();
+
+    long getSizeRead();
+
+    long getMultiLineRecords();
+
+    long getWarnings();
+
+    long getErrors();
+
+    long getSevereErrors();
+
+    long getReadMillis();
+
+    long getSplitMillis();
+
+    long getBuildMillis();
+
+    long getPeakRowsHeld();
+
+    void reset();
+}
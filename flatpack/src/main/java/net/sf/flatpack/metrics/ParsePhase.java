@@ -0,0 +1,16 @@
+package net.sf.flatpack.metrics;
+
+/**
+ * The stages of the parse of a record that are timed.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public enum ParsePhase {
+    /** reading the record from the file, including multi-line records. */
+    READ,
+    /** splitting the record in cells. */
+    SPLIT,
+    /** checking the cells against the mapping and building the Row. */
+    BUILD
+}
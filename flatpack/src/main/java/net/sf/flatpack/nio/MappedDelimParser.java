@@ -0,0 +1,427 @@
+package net.sf.flatpack.nio;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.flatpack.AbstractDelimiterParser;
+import net.sf.flatpack.DataError;
+import net.sf.flatpack.DataSet;
+import net.sf.flatpack.DefaultDataSet;
+import net.sf.flatpack.ErrorLog;
+import net.sf.flatpack.InitialisationException;
+import net.sf.flatpack.StreamingDataSet;
+import net.sf.flatpack.metrics.ParseListener;
+import net.sf.flatpack.metrics.ParseMetrics;
+import net.sf.flatpack.metrics.ParsePhase;
+import net.sf.flatpack.structure.Row;
+import net.sf.flatpack.util.FPException;
+import net.sf.flatpack.util.ParserUtils;
+import net.sf.flatpack.xml.MapParser;
+
+/**
+ * Delimited parser reading the file through a memory-mapped FileChannel, the
+ * records are split straight from the mapped bytes by a
+ * {@link MappedRecordReader} and only the cells are decoded. It produces the
+ * same DataSet as the Reader based DelimiterParser for files in an ASCII
+ * compatible charset, see {@link MappedRecordReader#isSupported(Charset)}.
+ * <p>
+ * The parallel stream of {@link #parseAsStream()} splits the file by byte
+ * range, see {@link MappedRecordSpliterator}.
+ * </p>
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public class MappedDelimParser extends AbstractDelimiterParser {
+    /** Default size of the byte ranges parsed in parallel. */
+    public static final long DEFAULT_CHUNK_SIZE = 8L * 1024 * 1024;
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedDelimParser.class);
+    private static final int MAX_CHUNK_OVERLAP = 64 * 1024;
+
+    private final File dataSource;
+    private Reader pzmapReader;
+    private Charset charset = Charset.defaultCharset();
+    private int windowSize = MappedRecordReader.DEFAULT_WINDOW_SIZE;
+    private ForkJoinPool forkJoinPool;
+    private long chunkSize = DEFAULT_CHUNK_SIZE;
+    private boolean wordScanning = true;
+
+    public MappedDelimParser(final File dataSource, final char delimiter, final char qualifier, final boolean ignoreFirstRecord) {
+        super(null, delimiter, qualifier, ignoreFirstRecord);
+        this.dataSource = dataSource;
+    }
+
+    public MappedDelimParser(final Reader pzmapReader, final File dataSource, final char delimiter, final char qualifier,
+            final boolean ignoreFirstRecord) {
+        this(dataSource, delimiter, qualifier, ignoreFirstRecord);
+        this.pzmapReader = pzmapReader;
+    }
+
+    /**
+     * @param charset
+     *          charset of the file, the platform default if not set
+     * @return this parser
+     */
+    public MappedDelimParser setCharset(final Charset charset) {
+        if (!MappedRecordReader.isSupported(charset)) {
+            throw new IllegalArgumentException("Unsupported charset for a memory-mapped parser: " + charset);
+        }
+        this.charset = charset;
+        return this;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * @param windowSize
+     *          size in bytes of the region of the file mapped at any one time
+     * @return this parser
+     */
+    public MappedDelimParser setWindowSize(final int windowSize) {
+        this.windowSize = windowSize;
+        return this;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Parses the file in parallel on the given pool, the file is split in
+     * chunks of {@link #setChunkSize(long)} bytes. The DataSet is the same as
+     * for a sequential parse, in the same order and with the same line numbers.
+     *
+     * @param forkJoinPool
+     *          the pool to use, null to parse sequentially
+     * @return this parser
+     */
+    public MappedDelimParser setForkJoinPool(final ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+        return this;
+    }
+
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    /**
+     * @param chunkSize
+     *          number of bytes given to each parallel task, a file smaller than this is parsed sequentially;
+     *          a parallel stream does not split ranges smaller than this either
+     * @return this parser
+     */
+    public MappedDelimParser setChunkSize(final long chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public long getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @param wordScanning
+     *          false to look at the bytes one by one instead of 8 at a time, see
+     *          {@link MappedRecordReader#setWordScanning(boolean)}
+     * @return this parser
+     */
+    public MappedDelimParser setWordScanning(final boolean wordScanning) {
+        this.wordScanning = wordScanning;
+        return this;
+    }
+
+    public boolean isWordScanning() {
+        return wordScanning;
+    }
+
+    protected File getDataSource() {
+        return dataSource;
+    }
+
+    boolean isQualified() {
+        return getDelimiter() > 0 && getQualifier() > 0;
+    }
+
+    @Override
+    protected void init() {
+        if (dataSource == null) {
+            throw new IllegalArgumentException("dataSource is null");
+        }
+        try {
+            if (pzmapReader != null) {
+                setPzMetaData(MapParser.parseMap(pzmapReader, this));
+            }
+            setInitialised(true);
+        } catch (final Exception e) {
+            throw new InitialisationException(e);
+        }
+    }
+
+    @Override
+    protected boolean shouldCreateMDFromFile() {
+        return pzmapReader == null;
+    }
+
+    @Override
+    protected DataSet doParse() {
+        try (FileChannel channel = FileChannel.open(dataSource.toPath(), StandardOpenOption.READ)) {
+            return doMappedFile(channel);
+        } catch (final IOException e) {
+            LOGGER.error("error accessing/mapping file", e);
+        }
+        return null;
+    }
+
+    /**
+     * The file stays open until the stream has been fully read or closed.
+     */
+    @Override
+    public StreamingDataSet parseAsStream() {
+        if (!isInitialised()) {
+            init();
+        }
+        final FileChannel channel;
+        try {
+            channel = FileChannel.open(dataSource.toPath(), StandardOpenOption.READ);
+        } catch (final IOException e) {
+            throw new FPException("Error opening " + dataSource, e);
+        }
+        try {
+            final MappedRecordReader reader = newRecordReader(channel, 0, channel.size());
+            readFirstRecord(reader, null);
+            final ErrorLog errors = getErrorRetention().newLog();
+            return new MappedStreamingDataSet(
+                    new MappedRecordSpliterator(this, channel, reader.getPosition(), reader.getLinesRead(), errors), errors);
+        } catch (final IOException | RuntimeException e) {
+            try {
+                channel.close();
+            } catch (final IOException closing) {
+                e.addSuppressed(closing);
+            }
+            throw e instanceof IOException ? new FPException("Error reading " + dataSource, e) : (RuntimeException) e;
+        }
+    }
+
+    /**
+     * Creates a reader for the records starting in the given range of the file.
+     */
+    protected MappedRecordReader newRecordReader(final FileChannel channel, final long start, final long end) throws IOException {
+        final MappedRecordReader reader = new MappedRecordReader(channel, start, end, getDelimiter(), getQualifier(), charset);
+        reader.setWindowSize(windowSize);
+        reader.setWordScanning(wordScanning);
+        return reader;
+    }
+
+    private DataSet doMappedFile(final FileChannel channel) throws IOException {
+        final DefaultDataSet ds = newDataSet();
+        final MappedRecordReader reader = newRecordReader(channel, 0, channel.size());
+        if (!readFirstRecord(reader, ds)) {
+            return ds;
+        }
+
+        final ParseListener listener = getParseListener();
+        if (forkJoinPool != null && channel.size() - reader.getPosition() > chunkSize) {
+            doChunks(channel, ds, reader.getPosition(), reader.getLinesRead());
+        } else {
+            while (nextRecord(reader, listener)) {
+                final Row row = buildRow(ds, reader, reader.getRecordLineNumber(), listener);
+                if (row != null) {
+                    ds.addRow(row);
+                }
+            }
+        }
+        if (listener != null) {
+            listener.dataSetLoaded(ds.getRowCount());
+        }
+        return ds;
+    }
+
+    /**
+     * Skips the first record or reads the column names from it.
+     *
+     * @return false if the file is empty
+     */
+    private boolean readFirstRecord(final MappedRecordReader reader, final DefaultDataSet ds) throws IOException {
+        // check to see if the user has elected to skip the first record
+        if (isIgnoreFirstRecord() || shouldCreateMDFromFile()) {
+            if (!nextRecord(reader, getParseListener())) {
+                return false;
+            }
+            if (!isIgnoreFirstRecord()) {
+                setPzMetaData(ParserUtils.getPZMetaDataFromFile(reader.getCells(false, false), this, isAddSuffixToDuplicateColumnNames()));
+                if (ds != null) {
+                    ds.setMetaData(getPzMetaData());
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses the rest of the file in chunks on the ForkJoinPool. Each chunk
+     * guesses that its first record starts on the first line after its
+     * nominal start; the chunks are then merged in order and a chunk is parsed
+     * again if the previous one actually stopped somewhere else (a multi-line
+     * record crossing the boundary). Row numbers are relative to the chunk
+     * until the merge.
+     */
+    private void doChunks(final FileChannel channel, final DefaultDataSet ds, final long dataStart, final int linesBefore) throws IOException {
+        final long size = channel.size();
+        final List<ForkJoinTask<Chunk>> tasks = new ArrayList<>();
+        try {
+            for (long from = dataStart; from < size; from += chunkSize) {
+                final long nominalStart = from;
+                final long nominalEnd = Math.min(size, from + chunkSize);
+                tasks.add(forkJoinPool.submit(() -> {
+                    final long start = nominalStart == dataStart ? dataStart : MappedRecordReader.findLineStart(channel, nominalStart);
+                    return parseChunk(channel, start, nominalEnd);
+                }));
+            }
+
+            int lineOffset = linesBefore;
+            long expectedStart = dataStart;
+            for (final ForkJoinTask<Chunk> task : tasks) {
+                Chunk chunk = join(task);
+                if (chunk.start != expectedStart) {
+                    chunk = parseChunk(channel, expectedStart, chunk.end);
+                }
+                for (final Row row : chunk.rows) {
+                    row.setRowNumber(row.getRowNumber() + lineOffset);
+                    ds.addRow(row);
+                }
+                for (final DataError error : chunk.errors.getErrors()) {
+                    ds.addError(new DataError(error.getErrorDesc(), error.getLineNo() + lineOffset, error.getErrorLevel(), error.getRawData()));
+                }
+                if (chunk.metrics != null) {
+                    chunk.metrics.addTo(getParseListener());
+                }
+                lineOffset += chunk.linesRead;
+                expectedStart = chunk.stop;
+            }
+        } finally {
+            for (final ForkJoinTask<Chunk> task : tasks) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * The records read and time spent are kept in the Chunk and only given to
+     * the ParseListener if the chunk is merged; its errors are counted when
+     * they are added to the DataSet.
+     */
+    private Chunk parseChunk(final FileChannel channel, final long start, final long end) throws IOException {
+        final Chunk chunk = new Chunk(start, end, new DefaultDataSet(getPzMetaData(), this));
+        if (getParseListener() != null) {
+            chunk.metrics = new ParseMetrics();
+        }
+        final MappedRecordReader reader = newRecordReader(channel, start, end);
+        // no need to map much more than the chunk, the window grows if a record needs it
+        reader.setWindowSize((int) Math.min(windowSize, Math.max(2, end - start + MAX_CHUNK_OVERLAP)));
+        while (nextRecord(reader, chunk.metrics)) {
+            final Row row = buildRow(chunk.errors, reader, reader.getRecordLineNumber(), chunk.metrics);
+            if (row != null) {
+                chunk.rows.add(row);
+            }
+        }
+        chunk.stop = reader.getPosition();
+        chunk.linesRead = reader.getLinesRead();
+        return chunk;
+    }
+
+    private static Chunk join(final ForkJoinTask<Chunk> task) throws IOException {
+        try {
+            return task.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FPException("Interrupted while parsing in parallel", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new FPException("Failed to parse a chunk of the file", e.getCause());
+        }
+    }
+
+    /**
+     * Moves the reader to the next record, reporting it and the time spent to
+     * the listener if not null.
+     */
+    boolean nextRecord(final MappedRecordReader reader, final ParseListener listener) throws IOException {
+        if (listener == null) {
+            return reader.nextRecord();
+        }
+        final long start = System.nanoTime();
+        final long position = reader.getPosition();
+        final boolean found = reader.nextRecord();
+        listener.recordsRead(found ? 1 : 0, reader.getPosition() - position, found && reader.isMultiLine() ? 1 : 0);
+        lap(listener, ParsePhase.READ, start);
+        return found;
+    }
+
+    /**
+     * Builds the Row for the current record of the reader, errors are added to
+     * the DataSet and null is returned if the record is rejected.
+     *
+     * @param listener
+     *          receives the time spent, can be null
+     */
+    protected Row buildRow(final DefaultDataSet ds, final MappedRecordReader reader, final int lineNo, final ParseListener listener) {
+        long mark = listener != null ? System.nanoTime() : 0;
+        final String line = isStoreRawDataToDataError() || isStoreRawDataToDataSet() ? reader.getRawRecord() : null;
+        Row row = null;
+        // check number of Qualifier, if ODD number --> Incorrect!!!
+        if (getQualifier() > 0 && reader.hasOddNumberOfQualifiers()) {
+            addError(ds, "Odd number of Qualifier characters", lineNo, 1, isStoreRawDataToDataError() ? line : null);
+        } else {
+            final List<String> cells = reader.getCells(isPreserveLeadingWhitespace(), isPreserveTrailingWhitespace());
+            if (listener != null) {
+                mark = lap(listener, ParsePhase.SPLIT, mark);
+            }
+            row = buildRowFromColumns(ds, cells, line, lineNo);
+        }
+        if (listener != null) {
+            lap(listener, ParsePhase.BUILD, mark);
+        }
+        return row;
+    }
+
+    /**
+     * Rows and errors of a byte range of the file, line numbers are relative
+     * to the start of the range.
+     */
+    private static final class Chunk {
+        private final long start;
+        private final long end;
+        private final DefaultDataSet errors;
+        private final List<Row> rows = new ArrayList<>();
+        private long stop;
+        private int linesRead;
+        private ParseMetrics metrics;
+
+        private Chunk(final long start, final long end, final DefaultDataSet errors) {
+            this.start = start;
+            this.end = end;
+            this.errors = errors;
+        }
+    }
+}
@@ -0,0 +1,608 @@
+package net.sf.flatpack.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sf.flatpack.util.ParserUtils;
+import net.sf.flatpack.util.RecordCells;
+
+/**
+ * Splits delimited records straight out of the bytes of a memory-mapped file.
+ * The file is mapped window by window, delimiters, qualifiers and line breaks
+ * are located in the mapped bytes and only the cells actually requested get
+ * decoded to a String.
+ * <p>
+ * The delimiter, qualifier and line breaks must be single ASCII bytes that can
+ * never be part of another character, which is the case for UTF-8, US-ASCII,
+ * ISO-8859-x and the windows-125x code pages, see {@link #isSupported(Charset)}.
+ * </p>
+ * <p>
+ * A reader handles the records <b>starting</b> in the [start, end) range of the
+ * file; the last one is read to its end even if it goes beyond the range.
+ * This class is not thread safe.
+ * </p>
+ * <p>
+ * The bytes are read 8 at a time as a long and the delimiters, qualifiers and
+ * line breaks are located in the word with a few arithmetic operations (SWAR,
+ * SIMD within a register), the bytes in between are skipped without being
+ * looked at one by one; see {@link #setWordScanning(boolean)}.
+ * </p>
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public class MappedRecordReader {
+    /** Default size of the region of the file mapped at any one time. */
+    public static final int DEFAULT_WINDOW_SIZE = 32 * 1024 * 1024;
+
+    private static final int SCAN_SIZE = 64 * 1024;
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+    private static final byte SPACE = ' ';
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long SPACES = SPACE * ONES;
+    private static final long LFS = LF * ONES;
+    private static final long CRS = CR * ONES;
+
+    private static final int QUOTED = RecordCells.QUOTED;
+    private static final int ESCAPED = RecordCells.ESCAPED;
+
+    private static final int RECORD = 0;
+    private static final int BLANK = 1;
+    private static final int NEED_MORE = 2;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final long end;
+    private final byte delimiter;
+    private final byte qualifier;
+    private final boolean splitting;
+    private final boolean quoting;
+    private final Charset charset;
+    private final RecordCells cellBounds;
+    private int windowSize = DEFAULT_WINDOW_SIZE;
+    private boolean wordScanning = true;
+    private final long delimiters;
+    private final long qualifiers;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int windowLimit;
+
+    private long position;
+    private int linesRead;
+    private long scanLimit = Long.MAX_VALUE;
+    private boolean startInQuotes;
+
+    // current record, offsets are relative to the start of the window
+    private int recordStart;
+    private int recordEnd;
+    private int recordLineNumber;
+    private int recordLineBreaks;
+    private int qualifierCount;
+    private int cellCount;
+    private byte[] recordBytes = new byte[1024];
+    private boolean recordCopied;
+
+    /**
+     * @param channel
+     *          open channel on the file, it is not closed by this reader
+     * @param start
+     *          offset of the first byte to read, must be at the beginning of a line
+     * @param end
+     *          no record starting at or after this offset is returned
+     * @param delimiter
+     *          ASCII delimiter, 0 if the lines should not be split
+     * @param qualifier
+     *          ASCII qualifier, 0 if there is none
+     * @param charset
+     *          the charset of the file
+     * @throws IOException
+     */
+    public MappedRecordReader(final FileChannel channel, final long start, final long end, final char delimiter, final char qualifier,
+            final Charset charset) throws IOException {
+        if (delimiter > 0x7F || qualifier > 0x7F) {
+            throw new IllegalArgumentException("Delimiter and qualifier must be ASCII characters");
+        }
+        if (!isSupported(charset)) {
+            throw new IllegalArgumentException("Unsupported charset for a memory-mapped parser: " + charset);
+        }
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.end = Math.min(end, fileSize);
+        this.delimiter = (byte) delimiter;
+        this.qualifier = (byte) qualifier;
+        this.splitting = delimiter > 0;
+        this.quoting = splitting && qualifier > 0;
+        this.charset = charset;
+        this.cellBounds = new RecordCells(delimiter, qualifier);
+        this.delimiters = delimiter * ONES;
+        this.qualifiers = qualifier * ONES;
+        this.position = start;
+        if (start == 0 && StandardCharsets.UTF_8.equals(charset)) {
+            skipByteOrderMark();
+        }
+    }
+
+    /**
+     * @return true if the delimiter, qualifier and line breaks can be searched
+     *         for as plain bytes in a file using this charset
+     */
+    public static boolean isSupported(final Charset charset) {
+        final String name = charset.name();
+        return StandardCharsets.UTF_8.equals(charset) || StandardCharsets.US_ASCII.equals(charset) || name.startsWith("ISO-8859-")
+                || name.startsWith("windows-125");
+    }
+
+    /**
+     * Finds the beginning of the first line starting at or after the given
+     * offset. The line may be in the middle of a multi-line record, it is
+     * only a guess that the caller has to confirm.
+     *
+     * @return the offset of the line or the size of the file if there is none
+     * @throws IOException
+     */
+    public static long findLineStart(final FileChannel channel, final long offset) throws IOException {
+        final long size = channel.size();
+        if (offset <= 0) {
+            return 0;
+        }
+        long from = offset - 1;
+        while (from < size) {
+            final int length = (int) Math.min(SCAN_SIZE, size - from);
+            final MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+            for (int i = 0; i < length; i++) {
+                final byte b = buf.get(i);
+                if (b == LF) {
+                    return from + i + 1;
+                } else if (b == CR) {
+                    final long next = from + i + 1;
+                    if (next < size && (i + 1 < length ? buf.get(i + 1) : readByte(channel, next)) == LF) {
+                        return next + 1;
+                    }
+                    return next;
+                }
+            }
+            from += length;
+        }
+        return size;
+    }
+
+    private static byte readByte(final FileChannel channel, final long offset) throws IOException {
+        final ByteBuffer buf = ByteBuffer.allocate(1);
+        channel.read(buf, offset);
+        return buf.get(0);
+    }
+
+    /**
+     * Changes the size of the region of the file mapped at any one time, the
+     * window is grown automatically for records that would not fit.
+     */
+    public void setWindowSize(final int windowSize) {
+        if (windowSize < 2) {
+            throw new IllegalArgumentException("windowSize must be at least 2 bytes");
+        }
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * @param wordScanning
+     *          true, the default, to look for the delimiters, qualifiers and line
+     *          breaks 8 bytes at a time, false to look at each byte
+     */
+    public void setWordScanning(final boolean wordScanning) {
+        this.wordScanning = wordScanning;
+    }
+
+    public boolean isWordScanning() {
+        return wordScanning;
+    }
+
+    /**
+     * Moves to the next record, skipping blank lines.
+     *
+     * @return false once no more record starts before the end of the range
+     * @throws IOException
+     */
+    public boolean nextRecord() throws IOException {
+        cellCount = 0;
+        while (position < end) {
+            if (window == null || position < windowStart || position >= windowStart + windowLimit) {
+                map(position);
+            }
+            final int status = scanRecord((int) (position - windowStart));
+            if (status == RECORD) {
+                return true;
+            } else if (status == NEED_MORE) {
+                if (windowStart + windowLimit >= scanLimit) {
+                    return false;
+                }
+                if (position == windowStart) {
+                    // the record does not fit in a whole window
+                    growWindow();
+                }
+                map(position);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of cells in the current record
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * Decodes the cells of the current record, the same cells as
+     * {@link net.sf.flatpack.util.DelimitedRecordReader#getCells(boolean, boolean)},
+     * see its class comment for how they compare to
+     * {@link ParserUtils#splitLine(String, char, char, int, boolean, boolean)}.
+     *
+     * @return a new modifiable list
+     */
+    public List<String> getCells(final boolean preserveLeading, final boolean preserveTrailing) {
+        final List<String> cells = new ArrayList<>(cellCount);
+        for (int i = 0; i < cellCount; i++) {
+            cells.add(getCell(i, preserveLeading, preserveTrailing));
+        }
+        return cells;
+    }
+
+    /**
+     * Decodes a single cell of the current record.
+     */
+    public String getCell(final int index, final boolean preserveLeading, final boolean preserveTrailing) {
+        if (index < 0 || index >= cellCount) {
+            throw new IndexOutOfBoundsException("Cell " + index + " of " + cellCount);
+        }
+        final byte[] bytes = recordBytes();
+        final long bounds = cellBounds.trim(bytes, recordStart, index, preserveLeading, preserveTrailing);
+        final String value = decode(bytes, RecordCells.start(bounds), RecordCells.stop(bounds));
+        return cellBounds.isEscaped(index) ? cellBounds.unescape(value) : value;
+    }
+
+    /**
+     * @return the current record as found in the file, without its final line break
+     */
+    public String getRawRecord() {
+        final String raw = decode(recordBytes(), 0, recordEnd - recordStart);
+        return recordLineBreaks > 0 ? RecordCells.normaliseLineBreaks(raw) : raw;
+    }
+
+    /**
+     * @return the number of qualifier characters in the current record is odd,
+     *         the record is most likely malformed
+     */
+    public boolean hasOddNumberOfQualifiers() {
+        return qualifierCount % 2 != 0;
+    }
+
+    /**
+     * @return true if the current record spans several lines
+     */
+    public boolean isMultiLine() {
+        return recordLineBreaks > 0;
+    }
+
+    /**
+     * @return line number, relative to the start of this reader, of the last
+     *         line of the current record
+     */
+    public int getRecordLineNumber() {
+        return recordLineNumber;
+    }
+
+    /**
+     * @return number of lines consumed so far, including blank ones
+     */
+    public int getLinesRead() {
+        return linesRead;
+    }
+
+    /**
+     * @return offset in the file of the first byte not consumed yet
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Stops looking for the end of a record past this offset (roughly, the
+     * whole window is scanned), nextRecord() then returns false.
+     */
+    void setScanLimit(final long scanLimit) {
+        this.scanLimit = scanLimit;
+    }
+
+    /**
+     * The next record is read as if the current position was inside a qualified
+     * cell, in the middle of a multi-line record.
+     */
+    void startInsideQualifier() {
+        this.startInQuotes = quoting;
+    }
+
+    /**
+     * Counts the lines ending in the given range, the way a reader counts them.
+     */
+    public static int countLineBreaks(final FileChannel channel, final long from, final long to) throws IOException {
+        int lines = 0;
+        long offset = from;
+        while (offset < to) {
+            final int length = (int) Math.min(DEFAULT_WINDOW_SIZE, to - offset);
+            final MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            for (int i = 0; i < length; i++) {
+                final byte b = buf.get(i);
+                if (b == LF) {
+                    lines++;
+                } else if (b == CR) {
+                    final long next = offset + i + 1;
+                    final byte following = i + 1 < length ? buf.get(i + 1) : next < channel.size() ? readByte(channel, next) : 0;
+                    if (following != LF) {
+                        lines++;
+                    }
+                }
+            }
+            offset += length;
+        }
+        return lines;
+    }
+
+    private void map(final long from) throws IOException {
+        final long size = Math.min(windowSize, fileSize - from);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, from, size);
+        // byte i of a word read at p is the byte at p + i
+        window.order(ByteOrder.LITTLE_ENDIAN);
+        windowStart = from;
+        windowLimit = (int) size;
+    }
+
+    private void growWindow() throws IOException {
+        if (windowSize == Integer.MAX_VALUE) {
+            throw new IOException("Record starting at offset " + position + " is too large to be mapped");
+        }
+        windowSize = (int) Math.min(Integer.MAX_VALUE, windowSize * 2L);
+    }
+
+    private void skipByteOrderMark() throws IOException {
+        if (fileSize >= 3) {
+            map(0);
+            if (window.get(0) == (byte) 0xEF && window.get(1) == (byte) 0xBB && window.get(2) == (byte) 0xBF) {
+                position = 3;
+            }
+        }
+    }
+
+    /**
+     * Finds the end of the record starting at the given offset in the window
+     * and records the boundaries of its cells.
+     */
+    private int scanRecord(final int start) {
+        final MappedByteBuffer buf = window;
+        final int limit = windowLimit;
+        final boolean lastWindow = windowStart + limit >= fileSize;
+        final byte delim = delimiter;
+        final byte qual = qualifier;
+        final boolean words = wordScanning;
+        final int lastWord = limit - Long.BYTES;
+
+        int cells = 0;
+        int qualifiers = 0;
+        int breaks = 0;
+        int cellStart = start;
+        int contentEnd = start;
+        boolean inQuotes = startInQuotes;
+        int flags = inQuotes ? QUOTED : 0;
+        boolean leading = !inQuotes;
+        boolean blank = !inQuotes;
+        int terminator = 0;
+        boolean trailingBreak = false;
+        int p = start;
+        while (true) {
+            if (p >= limit) {
+                if (!lastWindow) {
+                    return NEED_MORE;
+                }
+                if (inQuotes) {
+                    // the qualifier is never closed, the cell runs to the end of the file
+                    contentEnd = p;
+                    trailingBreak = p > start && (buf.get(p - 1) == LF || buf.get(p - 1) == CR);
+                }
+                break;
+            }
+            if (words && p <= lastWord) {
+                // skip the bytes before the next qualifier, delimiter or line break
+                final long word = buf.getLong(p);
+                final long found = inQuotes ? quotedBreaks(word) : cellBreaks(word);
+                final int skip = found == 0 ? Long.BYTES : Long.numberOfTrailingZeros(found) >>> 3;
+                if (skip > 0) {
+                    if (!inQuotes) {
+                        final long lanes = skip == Long.BYTES ? -1L : (1L << (skip << 3)) - 1;
+                        final long data = word & lanes;
+                        if (data != (SPACES & lanes)) {
+                            leading = false;
+                            if (blank && hasAboveSpace(data, skip)) {
+                                blank = false;
+                            }
+                        }
+                    }
+                    p += skip;
+                    continue;
+                }
+            }
+            final byte b = buf.get(p);
+            if (inQuotes) {
+                if (b == qual) {
+                    qualifiers++;
+                    final int next = p + 1;
+                    if (next >= limit && !lastWindow) {
+                        return NEED_MORE;
+                    }
+                    if (next < limit && buf.get(next) == qual) {
+                        // doubled qualifier, part of the data
+                        qualifiers++;
+                        flags |= ESCAPED;
+                        p += 2;
+                        continue;
+                    }
+                    // closing qualifier only if followed by the delimiter or the end of the line
+                    int q = next;
+                    if (delim != SPACE) {
+                        while (q < limit && buf.get(q) == SPACE) {
+                            q++;
+                        }
+                    }
+                    if (q >= limit && !lastWindow) {
+                        return NEED_MORE;
+                    }
+                    if (q >= limit || isCellEnd(buf.get(q))) {
+                        inQuotes = false;
+                        contentEnd = p;
+                        p = q;
+                        continue;
+                    }
+                } else if (b == LF || b == CR) {
+                    if (b == CR) {
+                        if (p + 1 >= limit && !lastWindow) {
+                            return NEED_MORE;
+                        }
+                        if (p + 1 < limit && buf.get(p + 1) == LF) {
+                            p++;
+                        }
+                    }
+                    breaks++;
+                    flags |= ESCAPED;
+                }
+                p++;
+                continue;
+            }
+
+            if (b == LF || b == CR) {
+                terminator = 1;
+                if (b == CR) {
+                    if (p + 1 >= limit && !lastWindow) {
+                        return NEED_MORE;
+                    }
+                    if (p + 1 < limit && buf.get(p + 1) == LF) {
+                        terminator = 2;
+                    }
+                }
+                break;
+            }
+            if (blank && (b & 0xFF) > SPACE) {
+                blank = false;
+            }
+            if (splitting && b == delim) {
+                cells = cellBounds.add(cells, cellStart, (flags & QUOTED) != 0 ? contentEnd : p, flags);
+                cellStart = p + 1;
+                flags = 0;
+                leading = true;
+            } else if (b == qual && qual != 0) {
+                qualifiers++;
+                if (quoting && leading) {
+                    inQuotes = true;
+                    flags |= QUOTED;
+                    cellStart = p + 1;
+                } else if (quoting) {
+                    flags |= ESCAPED;
+                }
+                leading = false;
+            } else if (b != SPACE) {
+                leading = false;
+            }
+            p++;
+        }
+
+        linesRead += breaks;
+        if (terminator > 0) {
+            linesRead++;
+        }
+        position = windowStart + p + terminator;
+        startInQuotes = false;
+        if (blank) {
+            return BLANK;
+        }
+        cellCount = cellBounds.add(cells, cellStart, (flags & QUOTED) != 0 ? contentEnd : p, flags);
+        recordStart = start;
+        recordEnd = p;
+        recordLineNumber = linesRead + (terminator > 0 || trailingBreak ? 0 : 1);
+        recordLineBreaks = breaks;
+        qualifierCount = qualifiers;
+        recordCopied = false;
+        return RECORD;
+    }
+
+    /**
+     * @return the high bit of each byte of the word which is a delimiter, a
+     *         qualifier or a line break
+     */
+    private long cellBreaks(final long word) {
+        long found = zeroBytes(word ^ LFS) | zeroBytes(word ^ CRS);
+        if (splitting) {
+            found |= zeroBytes(word ^ delimiters);
+        }
+        if (qualifier != 0) {
+            found |= zeroBytes(word ^ qualifiers);
+        }
+        return found;
+    }
+
+    /**
+     * @return the high bit of each byte of the word which is a qualifier or a
+     *         line break
+     */
+    private long quotedBreaks(final long word) {
+        return zeroBytes(word ^ qualifiers) | zeroBytes(word ^ LFS) | zeroBytes(word ^ CRS);
+    }
+
+    /**
+     * @return the high bit of each byte of the value which is 0, exactly
+     */
+    private static long zeroBytes(final long value) {
+        return ~((value & LOW_SEVEN_BITS) + LOW_SEVEN_BITS | value | LOW_SEVEN_BITS);
+    }
+
+    /**
+     * @return true if one of the first count bytes of the word, as an unsigned
+     *         value, is above a space
+     */
+    private static boolean hasAboveSpace(final long word, final int count) {
+        for (int i = 0; i < count; i++) {
+            if ((word >>> (i << 3) & 0xFF) > SPACE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isCellEnd(final byte b) {
+        return splitting && b == delimiter || b == LF || b == CR;
+    }
+
+    private byte[] recordBytes() {
+        if (!recordCopied) {
+            final int length = recordEnd - recordStart;
+            if (recordBytes.length < length) {
+                recordBytes = new byte[Math.max(length, recordBytes.length * 2)];
+            }
+            window.position(recordStart);
+            window.get(recordBytes, 0, length);
+            recordCopied = true;
+        }
+        return recordBytes;
+    }
+
+    private String decode(final byte[] bytes, final int start, final int stop) {
+        return stop <= start ? "" : new String(bytes, start, stop - start, charset);
+    }
+}
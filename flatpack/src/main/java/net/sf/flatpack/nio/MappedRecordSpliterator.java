@@ -0,0 +1,301 @@
+package net.sf.flatpack.nio;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sf.flatpack.DataError;
+import net.sf.flatpack.DefaultDataSet;
+import net.sf.flatpack.ErrorLog;
+import net.sf.flatpack.Record;
+import net.sf.flatpack.metrics.ParseListener;
+import net.sf.flatpack.structure.Row;
+import net.sf.flatpack.util.FPException;
+
+/**
+ * Spliterator over the records of a byte range of a memory-mapped file. It
+ * splits by byte range: the middle of the range is moved to the start of a
+ * record, taking into account qualified cells spanning several lines, so each
+ * part is parsed independently by its own {@link MappedRecordReader}.
+ * <p>
+ * The number of records in a range is not known before it is parsed, so the
+ * spliterator is not SIZED, {@link #estimateSize()} is the number of bytes
+ * left which is an upper bound. The line numbers of a part are only counted
+ * (a byte scan of the previous parts) when the part starts.
+ * </p>
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public class MappedRecordSpliterator implements Spliterator<Record> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedRecordSpliterator.class);
+    /** how far to look for the start of a record when splitting a range. */
+    private static final int BOUNDARY_LOOKAHEAD = 1024 * 1024;
+
+    private final MappedDelimParser parser;
+    private final SharedChannel channel;
+    private final ErrorLog errors;
+    private final long minSplitSize;
+    private final long end;
+    private long start;
+    private LineBase lineBase;
+    private MappedRecordReader reader;
+    private PartDataSet part;
+    private int firstLine;
+    private boolean done;
+
+    /**
+     * @param parser
+     *          the parser giving the options, MetaData and rules for the rows
+     * @param channel
+     *          the file, it is closed once every part has been read
+     * @param start
+     *          offset of the first record
+     * @param linesBefore
+     *          number of lines before the first record
+     * @param errors
+     *          receives the errors of all the parts, used under its lock
+     */
+    MappedRecordSpliterator(final MappedDelimParser parser, final FileChannel channel, final long start, final int linesBefore,
+            final ErrorLog errors) throws IOException {
+        this.parser = parser;
+        this.channel = new SharedChannel(channel);
+        this.errors = errors;
+        this.minSplitSize = parser.getChunkSize();
+        this.start = start;
+        this.end = channel.size();
+        this.lineBase = new LineBase(linesBefore);
+    }
+
+    private MappedRecordSpliterator(final MappedRecordSpliterator parent, final long start, final long end) {
+        this.parser = parent.parser;
+        this.channel = parent.channel;
+        this.errors = parent.errors;
+        this.minSplitSize = parent.minSplitSize;
+        this.start = start;
+        this.end = end;
+        this.lineBase = parent.lineBase;
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super Record> action) {
+        if (done) {
+            return false;
+        }
+        try {
+            if (reader == null) {
+                open();
+            }
+            final ParseListener listener = parser.getParseListener();
+            while (parser.nextRecord(reader, listener)) {
+                final Row row = parser.buildRow(part, reader, firstLine + reader.getRecordLineNumber(), listener);
+                if (part.getErrorCount() > 0) {
+                    synchronized (errors) {
+                        for (final DataError error : part.getErrors()) {
+                            errors.add(error);
+                        }
+                    }
+                    part.clearErrors();
+                }
+                if (row != null) {
+                    action.accept(part.toRecord(row));
+                    return true;
+                }
+            }
+        } catch (final IOException e) {
+            throw new FPException("Error reading " + parser.getDataSource(), e);
+        }
+        done = true;
+        channel.release();
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super Record> action) {
+        while (tryAdvance(action)) {
+            // keep going
+        }
+    }
+
+    /**
+     * Splits off the first half of the range, only before this part has
+     * started to be read.
+     */
+    @Override
+    public Spliterator<Record> trySplit() {
+        if (reader != null || done || end - start < 2 * minSplitSize) {
+            return null;
+        }
+        try {
+            final long boundary = findRecordStart(start + (end - start) / 2);
+            if (boundary <= start || boundary >= end) {
+                return null;
+            }
+            final MappedRecordSpliterator prefix = new MappedRecordSpliterator(this, start, boundary);
+            channel.retain();
+            lineBase = new LineBase(lineBase, channel.channel, start, boundary);
+            start = boundary;
+            return prefix;
+        } catch (final IOException e) {
+            throw new FPException("Error reading " + parser.getDataSource(), e);
+        }
+    }
+
+    @Override
+    public long estimateSize() {
+        return done ? 0 : end - start;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+
+    /**
+     * Closes the file, whether all the parts have been read or not.
+     */
+    void close() {
+        channel.close();
+    }
+
+    private void open() throws IOException {
+        firstLine = lineBase.get();
+        reader = parser.newRecordReader(channel.channel, start, end);
+        part = new PartDataSet(parser);
+    }
+
+    /**
+     * Finds the start of the first record starting at or after the given
+     * offset. The first line after the offset is a record start unless it is
+     * in the middle of a qualified cell: the records are read from there twice,
+     * once as if outside a qualified cell and once as if inside. Both readings
+     * soon fall on the same record end which is then certainly a record start.
+     * If they do not, within the lookahead and the range, the records are read
+     * from the start of the range.
+     */
+    private long findRecordStart(final long offset) throws IOException {
+        final FileChannel fc = channel.channel;
+        final long guess = MappedRecordReader.findLineStart(fc, offset);
+        if (guess >= end || !parser.isQualified()) {
+            return guess;
+        }
+        final MappedRecordReader outside = newProbe(fc, guess);
+        final MappedRecordReader inside = newProbe(fc, guess);
+        inside.startInsideQualifier();
+        long outsideEnd = guess;
+        long insideEnd = probe(inside);
+        // each probe moves forward or gives -1, the loop ends
+        while (outsideEnd != insideEnd && outsideEnd >= 0 && insideEnd >= 0) {
+            if (outsideEnd < insideEnd) {
+                outsideEnd = probe(outside);
+            } else {
+                insideEnd = probe(inside);
+            }
+        }
+        if (outsideEnd == insideEnd && outsideEnd >= 0) {
+            return outsideEnd;
+        }
+        LOGGER.debug("No record boundary found after offset {}, reading from {}", offset, start);
+        final MappedRecordReader exact = parser.newRecordReader(fc, start, offset);
+        while (exact.nextRecord()) {
+            // skip to the first record starting after the offset
+        }
+        return exact.getPosition();
+    }
+
+    private MappedRecordReader newProbe(final FileChannel fc, final long from) throws IOException {
+        final MappedRecordReader probe = parser.newRecordReader(fc, from, end);
+        probe.setWindowSize(BOUNDARY_LOOKAHEAD);
+        probe.setScanLimit(from + BOUNDARY_LOOKAHEAD);
+        return probe;
+    }
+
+    /**
+     * @return the offset after the next record, -1 if there is none starting
+     *         before the end of the range or it was not found within the
+     *         lookahead
+     */
+    private static long probe(final MappedRecordReader reader) throws IOException {
+        return reader.nextRecord() ? reader.getPosition() : -1;
+    }
+
+    /**
+     * Number of lines before a part, counted from the previous part on
+     * first use.
+     */
+    private static final class LineBase {
+        private final LineBase previous;
+        private final FileChannel channel;
+        private final long from;
+        private final long to;
+        private int lines = -1;
+
+        private LineBase(final int lines) {
+            this(null, null, 0, 0);
+            this.lines = lines;
+        }
+
+        private LineBase(final LineBase previous, final FileChannel channel, final long from, final long to) {
+            this.previous = previous;
+            this.channel = channel;
+            this.from = from;
+            this.to = to;
+        }
+
+        private synchronized int get() throws IOException {
+            if (lines < 0) {
+                lines = previous.get() + MappedRecordReader.countLineBreaks(channel, from, to);
+            }
+            return lines;
+        }
+    }
+
+    /**
+     * The file shared by all the parts, closed when the last one is done.
+     */
+    private static final class SharedChannel {
+        private final FileChannel channel;
+        private final AtomicInteger users = new AtomicInteger(1);
+
+        private SharedChannel(final FileChannel channel) {
+            this.channel = channel;
+        }
+
+        private void retain() {
+            users.incrementAndGet();
+        }
+
+        private void release() {
+            if (users.decrementAndGet() == 0) {
+                close();
+            }
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (final IOException e) {
+                LOGGER.warn("Error closing the file", e);
+            }
+        }
+    }
+
+    /**
+     * Errors of a part and factory for its Records.
+     */
+    private static final class PartDataSet extends DefaultDataSet {
+        private PartDataSet(final MappedDelimParser parser) {
+            super(parser.getPzMetaData(), parser);
+            setParseListener(parser.getParseListener());
+        }
+
+        private Record toRecord(final Row row) {
+            return newRecord(row);
+        }
+    }
+}
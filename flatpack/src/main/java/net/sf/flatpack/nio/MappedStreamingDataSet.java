@@ -0,0 +1,65 @@
+package net.sf.flatpack.nio;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import net.sf.flatpack.DataError;
+import net.sf.flatpack.ErrorLog;
+import net.sf.flatpack.Record;
+import net.sf.flatpack.StreamingDataSet;
+
+/**
+ * Streams the records of a memory-mapped file, a parallel stream splits the
+ * file by byte range, see {@link MappedRecordSpliterator}.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+class MappedStreamingDataSet implements StreamingDataSet {
+    private final MappedRecordSpliterator spliterator;
+    private final ErrorLog errors;
+    private Record current;
+
+    MappedStreamingDataSet(final MappedRecordSpliterator spliterator, final ErrorLog errors) {
+        this.spliterator = spliterator;
+        this.errors = errors;
+    }
+
+    @Override
+    public boolean next() {
+        current = null;
+        return spliterator.tryAdvance(r -> current = r);
+    }
+
+    @Override
+    public Optional<Record> getRecord() {
+        return Optional.ofNullable(current);
+    }
+
+    @Override
+    public List<DataError> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors.getErrors());
+        }
+    }
+
+    @Override
+    public int getErrorCount() {
+        synchronized (errors) {
+            return errors.getCount();
+        }
+    }
+
+    @Override
+    public Stream<Record> stream() {
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    @Override
+    public Stream<Record> parallelStream() {
+        return StreamSupport.stream(spliterator, true).onClose(spliterator::close);
+    }
+}
@@ -0,0 +1,602 @@
+package net.sf.flatpack.ordering;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+import net.sf.flatpack.AbstractParser;
+import net.sf.flatpack.ColumnRef;
+import net.sf.flatpack.DataError;
+import net.sf.flatpack.Parser;
+import net.sf.flatpack.Record;
+import net.sf.flatpack.RowRecord;
+import net.sf.flatpack.StreamingDataSet;
+import net.sf.flatpack.structure.Row;
+import net.sf.flatpack.util.FPConstants;
+import net.sf.flatpack.util.FPException;
+import net.sf.flatpack.writer.Writer;
+import net.sf.flatpack.xml.MetaData;
+
+/**
+ * Sorts files larger than the heap: the records are streamed from the parser,
+ * sorted by runs that fit in memory and spilled to temporary files, then the
+ * runs are merged while the sorted records are read:
+ *
+ * <pre>
+ * final Parser parser = BuffReaderParseFactory.getInstance().newDelimitedParser(new FileReader("trades.csv"), ',', '"');
+ * try (ExternalSorter.SortedDataSet ds = new ExternalSorter(orderBy).setMaxRunBytes(256L &lt;&lt; 20).sort(parser)) {
+ *     while (ds.next()) {
+ *         final Record record = ds.getRecord().get();
+ *         ...
+ *     }
+ * }
+ * </pre>
+ *
+ * At most {@link #setMaxMergeWidth(int)} runs are read at once, with a
+ * 64KB buffer each; if there are more, they are first merged in passes into
+ * longer runs.
+ *
+ * Use a parser from the BuffReaderParseFactory so that the file is not loaded
+ * in memory first. The detail records are sorted as by DataSet.orderRows(),
+ * header, trailer and other records follow in their original order. The
+ * sorted records keep their values and row number, not the raw data.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public class ExternalSorter {
+    /** estimated size of the rows sorted in memory before a run is spilled. */
+    public static final long DEFAULT_MAX_RUN_BYTES = 64L * 1024 * 1024;
+    /** number of runs merged at once. */
+    public static final int DEFAULT_MAX_MERGE_WIDTH = 64;
+
+    /** rough heap used by a Row, its list and by each cell, besides the chars. */
+    private static final int ROW_OVERHEAD = 80;
+    private static final int CELL_OVERHEAD = 48;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OrderBy orderBy;
+    private File tempDirectory;
+    private long maxRunBytes = DEFAULT_MAX_RUN_BYTES;
+    private int maxRunRows = Integer.MAX_VALUE;
+    private int maxMergeWidth = DEFAULT_MAX_MERGE_WIDTH;
+
+    /**
+     * @param orderBy
+     *          the order of the detail records
+     */
+    public ExternalSorter(final OrderBy orderBy) {
+        if (orderBy == null) {
+            throw new IllegalArgumentException("orderBy cannot be null");
+        }
+        this.orderBy = orderBy;
+    }
+
+    /**
+     * @param tempDirectory
+     *          where the runs are spilled, java.io.tmpdir if null
+     * @return this sorter
+     */
+    public ExternalSorter setTempDirectory(final File tempDirectory) {
+        this.tempDirectory = tempDirectory;
+        return this;
+    }
+
+    /**
+     * @param maxRunBytes
+     *          estimated heap taken by the rows of a run before it is sorted
+     *          and spilled
+     * @return this sorter
+     */
+    public ExternalSorter setMaxRunBytes(final long maxRunBytes) {
+        if (maxRunBytes < 1) {
+            throw new IllegalArgumentException("maxRunBytes must be positive: " + maxRunBytes);
+        }
+        this.maxRunBytes = maxRunBytes;
+        return this;
+    }
+
+    /**
+     * @param maxRunRows
+     *          number of rows of a run before it is sorted and spilled
+     * @return this sorter
+     */
+    public ExternalSorter setMaxRunRows(final int maxRunRows) {
+        if (maxRunRows < 1) {
+            throw new IllegalArgumentException("maxRunRows must be positive: " + maxRunRows);
+        }
+        this.maxRunRows = maxRunRows;
+        return this;
+    }
+
+    /**
+     * @param maxMergeWidth
+     *          number of runs merged at once, each one an open file; when
+     *          there are more runs they are merged in several passes
+     * @return this sorter
+     */
+    public ExternalSorter setMaxMergeWidth(final int maxMergeWidth) {
+        if (maxMergeWidth < 2) {
+            throw new IllegalArgumentException("maxMergeWidth must be at least 2: " + maxMergeWidth);
+        }
+        this.maxMergeWidth = maxMergeWidth;
+        return this;
+    }
+
+    /**
+     * Reads every record of the parser, the sorted records are then merged
+     * from the runs as they are read. Close the DataSet to remove the
+     * temporary files if it is not read to the end.
+     *
+     * @param parser
+     *          one of the flatpack parsers
+     * @return the sorted records
+     */
+    public SortedDataSet sort(final Parser parser) throws IOException {
+        if (!(parser instanceof AbstractParser)) {
+            throw new IllegalArgumentException("The parser must extend AbstractParser: " + parser);
+        }
+        final StreamingDataSet input = parser.parseAsStream();
+        final Map<String, ColumnRef[]> columnsById = new HashMap<>();
+        List<File> runs = new ArrayList<>();
+        final List<Row> run = new ArrayList<>();
+        RunWriter others = null;
+        long runBytes = 0;
+        try {
+            while (input.next()) {
+                final Record record = input.getRecord().get();
+                final String recordID = record.getRecordID();
+                final ColumnRef[] columns = columnsById.computeIfAbsent(recordID, id -> columnRefs(record.getColumns(id)));
+                final Row row = new Row();
+                row.setRowNumber(record.getRowNo());
+                long bytes = ROW_OVERHEAD;
+                for (final ColumnRef column : columns) {
+                    final String value = record.getString(column);
+                    row.addColumn(value);
+                    bytes += CELL_OVERHEAD + (value != null ? 2L * value.length() : 0);
+                }
+                if (FPConstants.DETAIL_ID.equals(recordID)) {
+                    run.add(row);
+                    runBytes += bytes;
+                    if (runBytes >= maxRunBytes || run.size() >= maxRunRows) {
+                        runs.add(spill(parser, run));
+                        run.clear();
+                        runBytes = 0;
+                    }
+                } else {
+                    row.setMdkey(recordID);
+                    if (others == null) {
+                        others = new RunWriter(createTempFile());
+                    }
+                    others.write(row);
+                }
+            }
+            if (!runs.isEmpty() && !run.isEmpty()) {
+                runs.add(spill(parser, run));
+                run.clear();
+            } else if (runs.isEmpty()) {
+                sortRun(parser, run);
+            }
+            if (others != null) {
+                others.close();
+            }
+            runs = mergePasses(runs);
+        } catch (final IOException | RuntimeException e) {
+            if (others != null) {
+                others.closeQuietly();
+                others.file.delete();
+            }
+            runs.forEach(File::delete);
+            throw e;
+        }
+        return new SortedDataSet(parser, input, run, runs, others != null ? others.file : null);
+    }
+
+    /**
+     * Writes the sorted detail records; the writers only know the detail
+     * columns so header, trailer and other records are skipped.
+     *
+     * @param parser
+     *          one of the flatpack parsers
+     * @param writer
+     *          receives every column of the detail records
+     * @return the number of records written
+     */
+    public int sort(final Parser parser, final Writer writer) throws IOException {
+        int count = 0;
+        try (SortedDataSet ds = sort(parser)) {
+            String[] columns = null;
+            while (ds.next()) {
+                final Record record = ds.getRecord().get();
+                if (record.isRecordID(FPConstants.DETAIL_ID)) {
+                    if (columns == null) {
+                        columns = record.getColumns(FPConstants.DETAIL_ID);
+                    }
+                    for (int i = 0; i < columns.length; i++) {
+                        writer.addRecordEntry(columns[i], ds.current.getValue(i));
+                    }
+                    writer.nextRecord();
+                    count++;
+                }
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static ColumnRef[] columnRefs(final String[] names) {
+        final ColumnRef[] refs = new ColumnRef[names.length];
+        for (int i = 0; i < names.length; i++) {
+            refs[i] = ColumnRef.of(names[i]);
+        }
+        return refs;
+    }
+
+    private void sortRun(final Parser parser, final List<Row> run) {
+        orderBy.setMetaData(((AbstractParser) parser).getPzMetaData());
+        orderBy.setParser(parser);
+        orderBy.sort(run);
+    }
+
+    private File spill(final Parser parser, final List<Row> run) throws IOException {
+        sortRun(parser, run);
+        final RunWriter writer = new RunWriter(createTempFile());
+        try {
+            for (final Row row : run) {
+                writer.write(row);
+            }
+            writer.close();
+        } catch (final IOException e) {
+            writer.closeQuietly();
+            writer.file.delete();
+            throw e;
+        }
+        return writer.file;
+    }
+
+    /**
+     * Merges groups of consecutive runs until there are no more than
+     * maxMergeWidth of them; the runs merged are deleted. Consecutive groups
+     * keep the order of the equal rows.
+     */
+    private List<File> mergePasses(final List<File> runs) throws IOException {
+        List<File> current = runs;
+        while (current.size() > maxMergeWidth) {
+            final OrderBy.KeyReader keys = orderBy.keyReader();
+            final List<File> merged = new ArrayList<>((current.size() + maxMergeWidth - 1) / maxMergeWidth);
+            try {
+                for (int from = 0; from < current.size(); from += maxMergeWidth) {
+                    final List<File> group = current.subList(from, Math.min(from + maxMergeWidth, current.size()));
+                    if (group.size() == 1) {
+                        merged.add(group.get(0));
+                    } else {
+                        merged.add(mergeRuns(group, keys));
+                        group.forEach(File::delete);
+                    }
+                }
+            } catch (final IOException | RuntimeException e) {
+                merged.forEach(File::delete);
+                current.forEach(File::delete);
+                throw e;
+            }
+            current = merged;
+        }
+        return current;
+    }
+
+    private File mergeRuns(final List<File> group, final OrderBy.KeyReader keys) throws IOException {
+        final RunWriter writer = new RunWriter(createTempFile());
+        try (RunMerge merge = new RunMerge(group, keys)) {
+            Row row;
+            while ((row = merge.next()) != null) {
+                writer.write(row);
+            }
+            writer.close();
+        } catch (final IOException | RuntimeException e) {
+            writer.closeQuietly();
+            writer.file.delete();
+            throw e;
+        }
+        return writer.file;
+    }
+
+    private File createTempFile() throws IOException {
+        return File.createTempFile("flatpack-sort", ".run", tempDirectory);
+    }
+
+    /**
+     * The sorted records, merged from the runs spilled by the sorter.
+     */
+    public final class SortedDataSet implements StreamingDataSet, Closeable {
+        private final Parser parser;
+        private final StreamingDataSet input;
+        private final MetaData metaData;
+        private final List<File> files = new ArrayList<>();
+        private final Iterator<Row> inMemory;
+        private final RunMerge merge;
+        private final File othersFile;
+        private RunReader others;
+        private Row current;
+        private boolean done;
+
+        private SortedDataSet(final Parser parser, final StreamingDataSet input, final List<Row> run, final List<File> runs, final File othersFile)
+                throws IOException {
+            this.parser = parser;
+            this.input = input;
+            this.metaData = ((AbstractParser) parser).getPzMetaData();
+            this.othersFile = othersFile;
+            files.addAll(runs);
+            if (othersFile != null) {
+                files.add(othersFile);
+            }
+            if (runs.isEmpty()) {
+                inMemory = run.iterator();
+                merge = null;
+            } else {
+                inMemory = null;
+                try {
+                    merge = new RunMerge(runs, orderBy.keyReader());
+                } catch (final IOException e) {
+                    close();
+                    throw e;
+                }
+            }
+        }
+
+        @Override
+        public boolean next() {
+            if (done) {
+                return false;
+            }
+            try {
+                current = nextRow();
+            } catch (final IOException e) {
+                close();
+                throw new FPException("Error reading sorted run", e);
+            }
+            if (current == null) {
+                done = true;
+                close();
+                return false;
+            }
+            return true;
+        }
+
+        private Row nextRow() throws IOException {
+            if (inMemory != null && inMemory.hasNext()) {
+                return inMemory.next();
+            }
+            final Row merged = merge != null ? merge.next() : null;
+            if (merged != null) {
+                return merged;
+            }
+            if (othersFile != null && others == null) {
+                others = new RunReader(othersFile, 0);
+            }
+            if (others != null && others.advance(null)) {
+                return others.head;
+            }
+            return null;
+        }
+
+        @Override
+        public Optional<Record> getRecord() {
+            if (current == null) {
+                return Optional.empty();
+            }
+            return Optional.of(new RowRecord(current, metaData, parser.isColumnNamesCaseSensitive(), parser.getConverterRegistry(), false, false,
+                    false, parser.isNullEmptyStrings()));
+        }
+
+        /**
+         * @return the errors of the parser, known once every record is read
+         */
+        @Override
+        public List<DataError> getErrors() {
+            return input.getErrors();
+        }
+
+        @Override
+        public int getErrorCount() {
+            return input.getErrorCount();
+        }
+
+        /**
+         * Deletes the temporary files.
+         */
+        @Override
+        public void close() {
+            if (merge != null) {
+                merge.close();
+            }
+            if (others != null) {
+                others.closeQuietly();
+            }
+            files.forEach(File::delete);
+            files.clear();
+        }
+    }
+
+    /**
+     * The rows of several runs in order, the equal rows in the order of the
+     * runs.
+     */
+    private static final class RunMerge implements Closeable {
+        private final PriorityQueue<RunReader> queue;
+        private final OrderBy.KeyReader keys;
+
+        private RunMerge(final List<File> runs, final OrderBy.KeyReader keys) throws IOException {
+            this.keys = keys;
+            queue = new PriorityQueue<>(runs.size(), (r0, r1) -> {
+                final int result = keys.compare(r0.key, r1.key);
+                return result != 0 ? result : Integer.compare(r0.index, r1.index);
+            });
+            try {
+                for (int i = 0; i < runs.size(); i++) {
+                    final RunReader reader = new RunReader(runs.get(i), i);
+                    if (reader.advance(keys)) {
+                        queue.add(reader);
+                    }
+                }
+            } catch (final IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * @return the next row, null once every run is read
+         */
+        private Row next() throws IOException {
+            final RunReader reader = queue.poll();
+            if (reader == null) {
+                return null;
+            }
+            final Row row = reader.head;
+            if (reader.advance(keys)) {
+                queue.add(reader);
+            }
+            return row;
+        }
+
+        @Override
+        public void close() {
+            queue.forEach(RunReader::closeQuietly);
+            queue.clear();
+        }
+    }
+
+    /**
+     * Rows of a run as row number, mdkey and cells; a String is written as
+     * its UTF-8 length + 1, 0 for null, followed by the bytes.
+     */
+    private static final class RunWriter {
+        private final File file;
+        private final DataOutputStream out;
+
+        private RunWriter(final File file) throws IOException {
+            this.file = file;
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+        }
+
+        private void write(final Row row) throws IOException {
+            out.writeBoolean(true);
+            writeVarInt(row.getRowNumber());
+            writeString(row.getMdkey());
+            final List<String> cols = row.getCols();
+            writeVarInt(cols.size());
+            for (int i = 0; i < cols.size(); i++) {
+                writeString(cols.get(i));
+            }
+        }
+
+        private void writeString(final String value) throws IOException {
+            if (value == null) {
+                writeVarInt(0);
+            } else {
+                final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarInt(bytes.length + 1);
+                out.write(bytes);
+            }
+        }
+
+        private void writeVarInt(final int value) throws IOException {
+            int v = value;
+            while ((v & ~0x7F) != 0) {
+                out.writeByte(v & 0x7F | 0x80);
+                v >>>= 7;
+            }
+            out.writeByte(v);
+        }
+
+        private void close() throws IOException {
+            out.writeBoolean(false);
+            out.close();
+        }
+
+        private void closeQuietly() {
+            try {
+                out.close();
+            } catch (final IOException e) {
+                // the file is deleted anyway
+            }
+        }
+    }
+
+    private static final class RunReader {
+        private final DataInputStream in;
+        private final int index;
+        private Row head;
+        private Object[] key;
+
+        private RunReader(final File file, final int index) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+            this.index = index;
+        }
+
+        /**
+         * @return false at the end of the run, which is then closed
+         */
+        private boolean advance(final OrderBy.KeyReader keys) throws IOException {
+            if (!in.readBoolean()) {
+                head = null;
+                key = null;
+                in.close();
+                return false;
+            }
+            final Row row = new Row();
+            row.setRowNumber(readVarInt());
+            row.setMdkey(readString());
+            final int size = readVarInt();
+            for (int i = 0; i < size; i++) {
+                row.addColumn(readString());
+            }
+            head = row;
+            key = keys != null ? keys.keyOf(row) : null;
+            return true;
+        }
+
+        private String readString() throws IOException {
+            final int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            final byte[] bytes = new byte[length - 1];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0;; shift += 7) {
+                final int b = in.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                in.close();
+            } catch (final IOException e) {
+                // the file is deleted anyway
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package net.sf.flatpack.structure;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The cells of a record kept in one char buffer with the start and end of
+ * each cell; a String is only created when a cell is read with get(). Cells
+ * changed with set() or added with add() are kept as Strings.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public final class CellBuffer extends AbstractList<String> implements RandomAccess {
+    /** start of a cell held as a String. */
+    private static final int STRING_CELL = -1;
+
+    private final char[] chars;
+    private int[] bounds;
+    private String[] values;
+    private int size;
+
+    /**
+     * @param chars
+     *          the buffer holding the cells, it is not copied
+     * @param initialSize
+     *          expected number of cells
+     */
+    public CellBuffer(final char[] chars, final int initialSize) {
+        this.chars = chars;
+        this.bounds = new int[Math.max(1, initialSize) * 2];
+    }
+
+    /**
+     * Adds the cell held in the buffer between start (inclusive) and end
+     * (exclusive).
+     */
+    public void addCell(final int start, final int end) {
+        ensureCapacity(size + 1);
+        bounds[size * 2] = start;
+        bounds[size * 2 + 1] = end;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String get(final int index) {
+        checkIndex(index);
+        final int start = bounds[index * 2];
+        if (start == STRING_CELL) {
+            return values[index];
+        }
+        final int length = bounds[index * 2 + 1] - start;
+        return length == 0 ? "" : new String(chars, start, length);
+    }
+
+    /**
+     * @return the cell without copying its chars
+     */
+    public CharSequence getCharSequence(final int index) {
+        checkIndex(index);
+        final int start = bounds[index * 2];
+        if (start == STRING_CELL) {
+            return values[index];
+        }
+        return new CharSlice(chars, start, bounds[index * 2 + 1]);
+    }
+
+    @Override
+    public String set(final int index, final String value) {
+        final String previous = get(index);
+        setString(index, value);
+        return previous;
+    }
+
+    @Override
+    public void add(final int index, final String value) {
+        if (index != size) {
+            throw new UnsupportedOperationException("Cells can only be added at the end");
+        }
+        ensureCapacity(size + 1);
+        size++;
+        setString(index, value);
+        modCount++;
+    }
+
+    /**
+     * Unlike the usual sub list, the result is a copy of the cell table (still
+     * sharing the char buffer), changes to it do not affect this list.
+     */
+    @Override
+    public List<String> subList(final int fromIndex, final int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("fromIndex " + fromIndex + ", toIndex " + toIndex + ", size " + size);
+        }
+        final CellBuffer sub = new CellBuffer(chars, toIndex - fromIndex);
+        System.arraycopy(bounds, fromIndex * 2, sub.bounds, 0, (toIndex - fromIndex) * 2);
+        if (values != null) {
+            sub.values = Arrays.copyOfRange(values, fromIndex, fromIndex + sub.bounds.length / 2);
+        }
+        sub.size = toIndex - fromIndex;
+        return sub;
+    }
+
+    /**
+     * @return true if every cell is null or only made of whitespace
+     */
+    public boolean isBlank() {
+        for (int i = 0; i < size; i++) {
+            final int start = bounds[i * 2];
+            if (start == STRING_CELL) {
+                if (values[i] != null && values[i].trim().length() > 0) {
+                    return false;
+                }
+            } else {
+                for (int c = start; c < bounds[i * 2 + 1]; c++) {
+                    if (chars[c] > ' ') {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param keep
+     *          the cells kept, by position, the cells past its end are not kept
+     * @return a copy holding only the chars of the cells kept, the other cells
+     *         are empty
+     */
+    public CellBuffer project(final boolean[] keep) {
+        int length = 0;
+        for (int i = 0; i < size && i < keep.length; i++) {
+            if (keep[i] && bounds[i * 2] != STRING_CELL) {
+                length += bounds[i * 2 + 1] - bounds[i * 2];
+            }
+        }
+        final CellBuffer projected = new CellBuffer(new char[length], size);
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            final int start = bounds[i * 2];
+            if (i >= keep.length || !keep[i]) {
+                projected.addCell(0, 0);
+            } else if (start == STRING_CELL) {
+                projected.add(values[i]);
+            } else {
+                final int cellLength = bounds[i * 2 + 1] - start;
+                System.arraycopy(chars, start, projected.chars, offset, cellLength);
+                projected.addCell(offset, offset + cellLength);
+                offset += cellLength;
+            }
+        }
+        return projected;
+    }
+
+    /**
+     * @return a new ArrayList with the Strings of all the cells
+     */
+    public List<String> toList() {
+        final List<String> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(get(i));
+        }
+        return list;
+    }
+
+    private void setString(final int index, final String value) {
+        if (values == null) {
+            values = new String[bounds.length / 2];
+        }
+        bounds[index * 2] = STRING_CELL;
+        values[index] = value;
+    }
+
+    private void ensureCapacity(final int cells) {
+        if (cells * 2 > bounds.length) {
+            final int capacity = Math.max(cells, bounds.length);
+            bounds = Arrays.copyOf(bounds, capacity * 2);
+            if (values != null) {
+                values = Arrays.copyOf(values, capacity);
+            }
+        }
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
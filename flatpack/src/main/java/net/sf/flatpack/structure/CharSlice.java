@@ -0,0 +1,49 @@
+package net.sf.flatpack.structure;
+
+/**
+ * Read-only CharSequence over a range of a char array, the chars are not
+ * copied.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public final class CharSlice implements CharSequence {
+    private final char[] chars;
+    private final int start;
+    private final int end;
+
+    public CharSlice(final char[] chars, final int start, final int end) {
+        if (start < 0 || end > chars.length || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + chars.length);
+        }
+        this.chars = chars;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        if (index < 0 || index >= end - start) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + (end - start));
+        }
+        return chars[start + index];
+    }
+
+    @Override
+    public CharSequence subSequence(final int from, final int to) {
+        if (from < 0 || to > end - start || from > to) {
+            throw new IndexOutOfBoundsException("from " + from + ", to " + to + ", length " + (end - start));
+        }
+        return new CharSlice(chars, start + from, start + to);
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, start, end - start);
+    }
+}
@@ -86,6 +86,22 @@ public class Row {
         return cols.get(colPosition);
     }
 
+    /**
+     * Returns the value of a column without copying it if the columns are
+     * held in a {@link CellBuffer}
+     *
+     * @param colPosition -
+     *            int position of the column in the array
+     * @return value of column
+     * @since 4.0.5
+     */
+    public CharSequence getCharSequence(final int colPosition) {
+        if (cols instanceof CellBuffer) {
+            return ((CellBuffer) cols).getCharSequence(colPosition);
+        }
+        return cols.get(colPosition);
+    }
+
     /**
      * Set the value of a column for a specified column name
      *
@@ -0,0 +1,463 @@
+package net.sf.flatpack.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.sf.flatpack.structure.CellBuffer;
+
+/**
+ * Splits delimited records out of a Reader in a single pass: the chars are
+ * read once into a large buffer and a state machine finds the cells and the
+ * end of the record together, line breaks inside qualified cells included.
+ * A String is only created for the cells actually requested.
+ * <p>
+ * The records and cells are the ones of
+ * {@link net.sf.flatpack.nio.MappedRecordReader}. A single-line record is
+ * split like {@link ParserUtils#splitLine(String, char, char, int, boolean, boolean)}
+ * does for well-formed cells; a qualifier inside an unqualified cell or a
+ * cell opening with a doubled qualifier may be split differently.
+ * </p>
+ * <p>
+ * Unlike the line based reading used before 4.0.5, a qualified cell may span
+ * lines wherever it is in the record and the qualifiers are counted on the
+ * whole record, see {@link #hasOddNumberOfQualifiers()}: records such as
+ * <code>"a&#92;n",b</code> or <code>1,"a,&#92;nb"</code>, rejected line by line
+ * before, are read. A qualifier never closed runs to the end of the data.
+ * This class is not thread safe.
+ * </p>
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public class DelimitedRecordReader {
+    /** Default initial size of the buffer, it grows to hold the longest record. */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final char LF = '\n';
+    private static final char CR = '\r';
+    private static final char SPACE = ' ';
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+    private static final int QUOTED = RecordCells.QUOTED;
+    private static final int ESCAPED = RecordCells.ESCAPED;
+
+    private static final int RECORD = 0;
+    private static final int BLANK = 1;
+    private static final int NEED_MORE = 2;
+
+    private final Reader reader;
+    private final char delimiter;
+    private final char qualifier;
+    private final boolean splitting;
+    private final boolean quoting;
+    private final RecordCells cellBounds;
+
+    private char[] buf;
+    private int limit;
+    private int position;
+    private boolean eof;
+    private boolean started;
+    private long charsRead;
+    private int linesRead;
+
+    // current record, offsets are relative to the buffer
+    private int recordStart;
+    private int recordEnd;
+    private int recordLineNumber;
+    private int recordLineBreaks;
+    private int qualifierCount;
+    private int cellCount;
+
+    /**
+     * @param reader
+     *          the data, it is not closed by this reader
+     * @param delimiter
+     *          0 if the lines should not be split
+     * @param qualifier
+     *          0 if there is none
+     */
+    public DelimitedRecordReader(final Reader reader, final char delimiter, final char qualifier) {
+        this(reader, delimiter, qualifier, DEFAULT_BUFFER_SIZE);
+    }
+
+    public DelimitedRecordReader(final Reader reader, final char delimiter, final char qualifier, final int bufferSize) {
+        if (reader == null) {
+            throw new IllegalArgumentException("reader is null");
+        }
+        this.reader = reader;
+        this.delimiter = delimiter;
+        this.qualifier = qualifier;
+        this.splitting = delimiter > 0;
+        this.quoting = splitting && qualifier > 0;
+        this.cellBounds = new RecordCells(delimiter, qualifier);
+        this.buf = new char[Math.max(16, bufferSize)];
+    }
+
+    /**
+     * Moves to the next record, skipping blank lines.
+     *
+     * @return false at the end of the data
+     * @throws IOException
+     */
+    public boolean nextRecord() throws IOException {
+        cellCount = 0;
+        while (true) {
+            if (position >= limit && eof) {
+                return false;
+            }
+            final int status = position < limit ? scanRecord(position) : NEED_MORE;
+            if (status == RECORD) {
+                return true;
+            } else if (status == NEED_MORE) {
+                fill();
+                if (!started && limit > 0) {
+                    started = true;
+                    skipByteOrderMark();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of cells in the current record
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * Creates the cells of the current record, see the class comment for how
+     * they compare to {@link ParserUtils#splitLine(String, char, char, int, boolean, boolean)}.
+     *
+     * @return a new modifiable list
+     */
+    public List<String> getCells(final boolean preserveLeading, final boolean preserveTrailing) {
+        return getCells(preserveLeading, preserveTrailing, null);
+    }
+
+    /**
+     * Same as {@link #getCells(boolean, boolean)} but only the cells of the
+     * projection are created, the others are empty Strings.
+     *
+     * @param projection
+     *          the cells read, by position, null for all of them
+     * @since 4.0.5
+     */
+    public List<String> getCells(final boolean preserveLeading, final boolean preserveTrailing, final boolean[] projection) {
+        final List<String> cells = new ArrayList<>(Math.max(cellCount, FPConstants.SPLITLINE_SIZE_INIT));
+        for (int i = 0; i < cellCount; i++) {
+            cells.add(isProjected(projection, i) ? getCell(i, preserveLeading, preserveTrailing) : "");
+        }
+        return cells;
+    }
+
+    /**
+     * Same cells as {@link #getCells(boolean, boolean)} kept in a CellBuffer
+     * over a copy of the record; only the cells with doubled qualifiers or
+     * line breaks are created as Strings.
+     */
+    public CellBuffer getCellBuffer(final boolean preserveLeading, final boolean preserveTrailing) {
+        return getCellBuffer(preserveLeading, preserveTrailing, null);
+    }
+
+    /**
+     * Same as {@link #getCellBuffer(boolean, boolean)} but only the chars of the
+     * cells of the projection are copied, the others are empty.
+     *
+     * @param projection
+     *          the cells read, by position, null for all of them
+     * @since 4.0.5
+     */
+    public CellBuffer getCellBuffer(final boolean preserveLeading, final boolean preserveTrailing, final boolean[] projection) {
+        if (projection != null) {
+            return getProjectedCellBuffer(preserveLeading, preserveTrailing, projection);
+        }
+        final char[] chars = Arrays.copyOfRange(buf, recordStart, recordEnd);
+        final CellBuffer cells = new CellBuffer(chars, Math.max(cellCount, FPConstants.SPLITLINE_SIZE_INIT));
+        for (int i = 0; i < cellCount; i++) {
+            if (cellBounds.isEscaped(i)) {
+                cells.add(getCell(i, preserveLeading, preserveTrailing));
+            } else {
+                final long bounds = cellBounds.trim(buf, i, preserveLeading, preserveTrailing);
+                final int start = RecordCells.start(bounds);
+                final int stop = RecordCells.stop(bounds);
+                if (start == stop) {
+                    cells.addCell(0, 0);
+                } else {
+                    cells.addCell(start - recordStart, stop - recordStart);
+                }
+            }
+        }
+        return cells;
+    }
+
+    private CellBuffer getProjectedCellBuffer(final boolean preserveLeading, final boolean preserveTrailing, final boolean[] projection) {
+        // the bounds of the projected cells are kept to copy only their chars
+        final long[] projected = new long[cellCount];
+        int length = 0;
+        for (int i = 0; i < cellCount; i++) {
+            if (isProjected(projection, i) && !cellBounds.isEscaped(i)) {
+                projected[i] = cellBounds.trim(buf, i, preserveLeading, preserveTrailing);
+                length += Math.max(0, RecordCells.stop(projected[i]) - RecordCells.start(projected[i]));
+            }
+        }
+        final char[] chars = new char[length];
+        final CellBuffer cells = new CellBuffer(chars, Math.max(cellCount, FPConstants.SPLITLINE_SIZE_INIT));
+        int offset = 0;
+        for (int i = 0; i < cellCount; i++) {
+            if (!isProjected(projection, i)) {
+                cells.addCell(0, 0);
+            } else if (cellBounds.isEscaped(i)) {
+                cells.add(getCell(i, preserveLeading, preserveTrailing));
+            } else {
+                final int start = RecordCells.start(projected[i]);
+                final int cellLength = Math.max(0, RecordCells.stop(projected[i]) - start);
+                System.arraycopy(buf, start, chars, offset, cellLength);
+                cells.addCell(offset, offset + cellLength);
+                offset += cellLength;
+            }
+        }
+        return cells;
+    }
+
+    private static boolean isProjected(final boolean[] projection, final int index) {
+        return projection == null || index < projection.length && projection[index];
+    }
+
+    /**
+     * Creates a single cell of the current record.
+     */
+    public String getCell(final int index, final boolean preserveLeading, final boolean preserveTrailing) {
+        if (index < 0 || index >= cellCount) {
+            throw new IndexOutOfBoundsException("Cell " + index + " of " + cellCount);
+        }
+        final long bounds = cellBounds.trim(buf, index, preserveLeading, preserveTrailing);
+        final int start = RecordCells.start(bounds);
+        final int stop = RecordCells.stop(bounds);
+        final String value = stop <= start ? "" : new String(buf, start, stop - start);
+        return cellBounds.isEscaped(index) ? cellBounds.unescape(value) : value;
+    }
+
+    /**
+     * @return the current record as found in the data, without its final line
+     *         break, embedded line breaks are the system line separator
+     */
+    public String getRawRecord() {
+        final String raw = new String(buf, recordStart, recordEnd - recordStart);
+        return recordLineBreaks > 0 ? RecordCells.normaliseLineBreaks(raw) : raw;
+    }
+
+    /**
+     * @return the number of qualifier characters in the current record is odd,
+     *         the record is most likely malformed
+     */
+    public boolean hasOddNumberOfQualifiers() {
+        return qualifierCount % 2 != 0;
+    }
+
+    /**
+     * @return true if the current record spans several lines
+     */
+    public boolean isMultiLine() {
+        return recordLineBreaks > 0;
+    }
+
+    /**
+     * @return line number of the last line of the current record
+     */
+    public int getRecordLineNumber() {
+        return recordLineNumber;
+    }
+
+    /**
+     * @return number of lines consumed so far, including blank ones
+     */
+    public int getLinesRead() {
+        return linesRead;
+    }
+
+    /**
+     * @return number of chars consumed so far, including line breaks and blank
+     *         lines
+     */
+    public long getCharsRead() {
+        return charsRead;
+    }
+
+    /**
+     * Keeps the record being scanned at the start of the buffer, grows the
+     * buffer if the record already fills it, and reads once: a record is
+     * returned as soon as its chars arrive, the reader may be a pipe or a
+     * socket. The buffer is only topped up while the reader is ready.
+     */
+    private void fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buf, position, buf, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buf.length) {
+            if (buf.length == Integer.MAX_VALUE) {
+                throw new IOException("Record starting at line " + (linesRead + 1) + " is too large");
+            }
+            buf = Arrays.copyOf(buf, (int) Math.min(Integer.MAX_VALUE, buf.length * 2L));
+        }
+        do {
+            final int read = reader.read(buf, limit, buf.length - limit);
+            if (read < 0) {
+                eof = true;
+                return;
+            }
+            limit += read;
+        } while (limit < buf.length && reader.ready());
+    }
+
+    private void skipByteOrderMark() {
+        if (buf[0] == BYTE_ORDER_MARK) {
+            position = 1;
+            charsRead = 1;
+        }
+    }
+
+    /**
+     * Finds the end of the record starting at the given offset in the buffer
+     * and records the boundaries of its cells.
+     */
+    private int scanRecord(final int start) {
+        final char[] b = buf;
+        final int max = limit;
+        final boolean last = eof;
+        final char delim = delimiter;
+        final char qual = qualifier;
+
+        int cells = 0;
+        int qualifiers = 0;
+        int breaks = 0;
+        int cellStart = start;
+        int contentEnd = start;
+        boolean inQuotes = false;
+        int flags = 0;
+        boolean leading = true;
+        boolean blank = true;
+        int terminator = 0;
+        boolean trailingBreak = false;
+        int p = start;
+        while (true) {
+            if (p >= max) {
+                if (!last) {
+                    return NEED_MORE;
+                }
+                if (inQuotes) {
+                    // the qualifier is never closed, the cell runs to the end of the data
+                    contentEnd = p;
+                    trailingBreak = p > start && (b[p - 1] == LF || b[p - 1] == CR);
+                }
+                break;
+            }
+            final char c = b[p];
+            if (inQuotes) {
+                if (c == qual) {
+                    qualifiers++;
+                    final int next = p + 1;
+                    if (next >= max && !last) {
+                        return NEED_MORE;
+                    }
+                    if (next < max && b[next] == qual) {
+                        // doubled qualifier, part of the data
+                        qualifiers++;
+                        flags |= ESCAPED;
+                        p += 2;
+                        continue;
+                    }
+                    // closing qualifier only if followed by the delimiter or the end of the line
+                    int q = next;
+                    if (delim != SPACE) {
+                        while (q < max && b[q] == SPACE) {
+                            q++;
+                        }
+                    }
+                    if (q >= max && !last) {
+                        return NEED_MORE;
+                    }
+                    if (q >= max || isCellEnd(b[q])) {
+                        inQuotes = false;
+                        contentEnd = p;
+                        p = q;
+                        continue;
+                    }
+                } else if (c == LF || c == CR) {
+                    if (c == CR) {
+                        if (p + 1 >= max && !last) {
+                            return NEED_MORE;
+                        }
+                        if (p + 1 < max && b[p + 1] == LF) {
+                            p++;
+                        }
+                    }
+                    breaks++;
+                    flags |= ESCAPED;
+                }
+                p++;
+                continue;
+            }
+
+            if (c == LF || c == CR) {
+                terminator = 1;
+                if (c == CR) {
+                    if (p + 1 >= max && !last) {
+                        return NEED_MORE;
+                    }
+                    if (p + 1 < max && b[p + 1] == LF) {
+                        terminator = 2;
+                    }
+                }
+                break;
+            }
+            if (blank && c > SPACE) {
+                blank = false;
+            }
+            if (splitting && c == delim) {
+                cells = cellBounds.add(cells, cellStart, (flags & QUOTED) != 0 ? contentEnd : p, flags);
+                cellStart = p + 1;
+                flags = 0;
+                leading = true;
+            } else if (c == qual && qual != 0) {
+                qualifiers++;
+                if (quoting && leading) {
+                    inQuotes = true;
+                    flags |= QUOTED;
+                    cellStart = p + 1;
+                } else if (quoting) {
+                    flags |= ESCAPED;
+                }
+                leading = false;
+            } else if (c != SPACE) {
+                leading = false;
+            }
+            p++;
+        }
+
+        linesRead += breaks;
+        if (terminator > 0) {
+            linesRead++;
+        }
+        charsRead += p + terminator - start;
+        position = p + terminator;
+        if (blank) {
+            return BLANK;
+        }
+        cellCount = cellBounds.add(cells, cellStart, (flags & QUOTED) != 0 ? contentEnd : p, flags);
+        recordStart = start;
+        recordEnd = p;
+        recordLineNumber = linesRead + (terminator > 0 || trailingBreak ? 0 : 1);
+        recordLineBreaks = breaks;
+        qualifierCount = qualifiers;
+        return RECORD;
+    }
+
+    private boolean isCellEnd(final char c) {
+        return splitting && c == delimiter || c == LF || c == CR;
+    }
+}
@@ -37,6 +37,24 @@ public final class FPStringUtils {
         return true;
     }
 
+    /**
+     * Same as {@link #isBlank(String)} for any CharSequence, without creating
+     * a String.
+     *
+     * @param cs  the CharSequence to check, may be null
+     * @return <code>true</code> if the CharSequence is null, empty or whitespace
+     * @since 4.0.5
+     */
+    public static boolean isBlank(final CharSequence cs) {
+        final int len = cs == null ? 0 : cs.length();
+        for (int i = 0; i < len; i++) {
+            if (!Character.isWhitespace(cs.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * <p>Checks if a String is not empty (""), not null and not whitespace only.</p>
      *
@@ -33,13 +33,11 @@
 package net.sf.flatpack.util;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map.Entry;
 
+import net.sf.flatpack.structure.CellBuffer;
 import net.sf.flatpack.structure.ColumnMetaData;
 import net.sf.flatpack.xml.MetaData;
-import net.sf.flatpack.xml.XMLRecordElement;
 
 /**
  * Collection of parser utilities related to the parsing of fixed width files.
@@ -65,24 +63,150 @@ public final class FixedWidthParserUtils {
      */
     public static List<String> splitFixedText(final List<ColumnMetaData> columnMetaData, final String lineToParse,
             final boolean preserveLeadingWhitespace, final boolean preserveTrailingWhitespace) {
-        final List<String> splitResult = new ArrayList<>();
-        int recPosition = 1;
+        return splitFixedTextToCells(columnMetaData, lineToParse, preserveLeadingWhitespace, preserveTrailingWhitespace).toList();
+    }
+
+    /**
+     * Same as {@link #splitFixedText(List, String, boolean, boolean)} but only
+     * the columns of the projection are trimmed and created, the others are
+     * skipped by their length and are empty Strings.
+     *
+     * @param projection
+     *            the columns read, by position, null for all of them
+     * @return List Collection of Strings. Each element representing a column
+     * @since 4.0.5
+     */
+    public static List<String> splitFixedText(final List<ColumnMetaData> columnMetaData, final String lineToParse,
+            final boolean preserveLeadingWhitespace, final boolean preserveTrailingWhitespace, final boolean[] projection) {
+        if (projection == null) {
+            return splitFixedText(columnMetaData, lineToParse, preserveLeadingWhitespace, preserveTrailingWhitespace);
+        }
+        final List<String> cells = new ArrayList<>(columnMetaData.size());
+        int recPosition = 0;
+        for (int i = 0; i < columnMetaData.size(); i++) {
+            final ColumnMetaData colMetaDataObj = columnMetaData.get(i);
+            int start = recPosition;
+            int end = columnEnd(colMetaDataObj, recPosition, lineToParse.length());
+            recPosition = end;
+            if (!ParserUtils.isProjected(projection, i)) {
+                cells.add("");
+                continue;
+            }
+            if (!preserveLeadingWhitespace) {
+                while (start < end && (lineToParse.charAt(start) == ' ' || lineToParse.charAt(start) == '\t')) {
+                    start++;
+                }
+            }
+            if (!preserveTrailingWhitespace) {
+                while (end > start && (lineToParse.charAt(end - 1) == ' ' || lineToParse.charAt(end - 1) == '\t')) {
+                    end--;
+                }
+            }
+            cells.add(lineToParse.substring(start, end));
+        }
+        return cells;
+    }
+
+    /**
+     * Same as {@link #splitFixedText(List, String, boolean, boolean)} but the
+     * cells are kept in one copy of the line, no String is created until a
+     * cell is read.
+     *
+     * @param columnMetaData
+     *            Collection of ColumnMetaData to parse the line
+     * @param lineToParse
+     *            Line of text to be parsed against the ColumnMetaData
+     * @param preserveLeadingWhitespace
+     *            Keep any leading spaces
+     * @param preserveTrailingWhitespace
+     *            Keep any trailing spaces
+     * @return the cells
+     * @since 4.0.5
+     */
+    public static CellBuffer splitFixedTextToCells(final List<ColumnMetaData> columnMetaData, final String lineToParse,
+            final boolean preserveLeadingWhitespace, final boolean preserveTrailingWhitespace) {
+        final char[] chars = lineToParse.toCharArray();
+        final CellBuffer cells = new CellBuffer(chars, columnMetaData.size());
+        int recPosition = 0;
         for (final ColumnMetaData colMetaDataObj : columnMetaData) {
-            String tempValue = lineToParse.substring(recPosition - 1, recPosition + colMetaDataObj.getColLength() - 1);
-            recPosition += colMetaDataObj.getColLength();
+            int start = recPosition;
+            int end = columnEnd(colMetaDataObj, recPosition, chars.length);
+            recPosition = end;
             // make sure that we preserve leading and trailing spaces as user has requested
             // This was previously issuing a trim()
             if (!preserveLeadingWhitespace) {
-                tempValue = ParserUtils.lTrim(tempValue);
+                while (start < end && (chars[start] == ' ' || chars[start] == '\t')) {
+                    start++;
+                }
             }
             if (!preserveTrailingWhitespace) {
-                tempValue = ParserUtils.rTrim(tempValue);
+                while (end > start && (chars[end - 1] == ' ' || chars[end - 1] == '\t')) {
+                    end--;
+                }
             }
+            cells.addCell(start, end);
+        }
+        return cells;
+    }
 
-            splitResult.add(tempValue);
+    /**
+     * Same as {@link #splitFixedTextToCells(List, String, boolean, boolean)} but
+     * only the chars of the columns of the projection are copied, the others
+     * are skipped by their length and are empty.
+     *
+     * @param projection
+     *            the columns read, by position, null for all of them
+     * @return the cells
+     * @since 4.0.5
+     */
+    public static CellBuffer splitFixedTextToCells(final List<ColumnMetaData> columnMetaData, final String lineToParse,
+            final boolean preserveLeadingWhitespace, final boolean preserveTrailingWhitespace, final boolean[] projection) {
+        if (projection == null) {
+            return splitFixedTextToCells(columnMetaData, lineToParse, preserveLeadingWhitespace, preserveTrailingWhitespace);
+        }
+        int length = 0;
+        for (int i = 0; i < columnMetaData.size(); i++) {
+            if (ParserUtils.isProjected(projection, i)) {
+                length += columnMetaData.get(i).getColLength();
+            }
+        }
+        final char[] chars = new char[length];
+        final CellBuffer cells = new CellBuffer(chars, columnMetaData.size());
+        int recPosition = 0;
+        int copied = 0;
+        for (int i = 0; i < columnMetaData.size(); i++) {
+            final ColumnMetaData colMetaDataObj = columnMetaData.get(i);
+            final int from = recPosition;
+            recPosition = columnEnd(colMetaDataObj, recPosition, lineToParse.length());
+            if (!ParserUtils.isProjected(projection, i)) {
+                cells.addCell(0, 0);
+                continue;
+            }
+            lineToParse.getChars(from, recPosition, chars, copied);
+            int start = copied;
+            copied += recPosition - from;
+            int end = copied;
+            if (!preserveLeadingWhitespace) {
+                while (start < end && (chars[start] == ' ' || chars[start] == '\t')) {
+                    start++;
+                }
+            }
+            if (!preserveTrailingWhitespace) {
+                while (end > start && (chars[end - 1] == ' ' || chars[end - 1] == '\t')) {
+                    end--;
+                }
+            }
+            cells.addCell(start, end);
         }
+        return cells;
+    }
 
-        return splitResult;
+    private static int columnEnd(final ColumnMetaData colMetaDataObj, final int recPosition, final int lineLength) {
+        final int end = recPosition + colMetaDataObj.getColLength();
+        if (end > lineLength) {
+            throw new StringIndexOutOfBoundsException("Column " + colMetaDataObj.getColName() + " ends at " + end + ", line length " + lineLength);
+        }
+        return end;
     }
 
     /**
@@ -100,29 +224,8 @@ public final class FixedWidthParserUtils {
             // detail id
             return FPConstants.DETAIL_ID;
         }
-        final Iterator<Entry<String, XMLRecordElement>> mapEntries = columnMD.xmlRecordIterator();
-        // loop through the XMLRecordElement objects and see if we need a
-        // different MD object
-        while (mapEntries.hasNext()) {
-            final Entry<String, XMLRecordElement> entry = mapEntries.next();
-            final XMLRecordElement recordXMLElement = entry.getValue();
-
-            if (recordXMLElement.getEndPositition() > line.length()) {
-                // make sure our substring is not going to fail
-                continue;
-            }
-            final int subfrm = recordXMLElement.getStartPosition() - 1; // convert
-            // to 0
-            // based
-            final int subto = recordXMLElement.getEndPositition();
-            if (line.substring(subfrm, subto).equals(recordXMLElement.getIndicator())) {
-                // we found the MD object we want to return
-                return entry.getKey();
-            }
-
-        }
-
-        // must be a detail line
-        return FPConstants.DETAIL_ID;
+        // the indicators are looked up by position in tables compiled in the
+        // MetaData, without creating substrings
+        return columnMD.getFixedRecordKey(line);
     }
 }
@@ -33,6 +33,8 @@
 package net.sf.flatpack.util;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.net.URL;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -53,6 +55,7 @@ import java.util.Set;
 import net.sf.flatpack.Parser;
 import net.sf.flatpack.converter.Converter;
 import net.sf.flatpack.converter.FPConvertException;
+import net.sf.flatpack.structure.CellBuffer;
 import net.sf.flatpack.structure.ColumnMetaData;
 import net.sf.flatpack.xml.MetaData;
 import net.sf.flatpack.xml.XMLRecordElement;
@@ -66,6 +69,18 @@ import net.sf.flatpack.xml.XMLRecordElement;
  * @author Benoit Xhenseval
  */
 public final class ParserUtils {
+    /** above this, one more digit could overflow a long. */
+    private static final long MAX_BEFORE_DIGIT = (Long.MAX_VALUE - 9) / 10;
+    /** digits of an unscaled BigDecimal that always fit in a long. */
+    private static final int MAX_LONG_DIGITS = 18;
+    /** every long up to this is exact in a double. */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    /** the powers of ten that are exact in a double. */
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17,
+            1e18, 1e19, 1e20, 1e21, 1e22 };
+    /** exponents beyond this are left to Double.parseDouble. */
+    private static final int MAX_EXPONENT = 100_000;
+
     private static final String DATASTRUCTURE_LENGTH = "DATASTRUCTURE_LENGTH";
 
     private ParserUtils() {
@@ -79,6 +94,8 @@ public final class ParserUtils {
      * Elements which are not qualified will have leading and trailing white
      * space removed.  This includes unqualified elements, which may be
      * contained in an unqualified parse: "data",  data  ,"data"
+     * The spaces between a closing qualifier and the delimiter are not part of
+     * the element, as for the delimited parsers.
      *
      * Special thanks to Benoit for contributing this much improved speedy parser :0)
      *
@@ -99,49 +116,125 @@ public final class ParserUtils {
      */
     public static List<String> splitLine(final String line, final char delimiter, final char qualifier, final int initialSize,
             final boolean preserveLeadingWhitespace, final boolean preserveTrailingWhitespace) {
-        final List<String> list = new ArrayList<>(initialSize);
-
         if (delimiter == 0) {
+            final List<String> list = new ArrayList<>(initialSize);
             list.add(line);
             return list;
-        } else if (line == null) {
-            return list;
         }
+        return splitLineToCells(line, delimiter, qualifier, initialSize, preserveLeadingWhitespace, preserveTrailingWhitespace).toList();
+    }
 
-        String trimmedLine;
-        if (delimiter == '\t' || delimiter == ' ') {
-            // skip the trim for these delimiters, doing the trim will mess up the parse
-            // on empty records which contain just the delimiter
-            trimmedLine = line;
-        } else {
-            trimmedLine = line;
-            if (!preserveLeadingWhitespace) {
-                trimmedLine = ParserUtils.lTrim(line);
-            }
+    /**
+     * Same as {@link #splitLine(String, char, char, int, boolean, boolean)} but
+     * only the cells of the projection are trimmed and created, the others are
+     * empty Strings.
+     *
+     * @param projection
+     *            the cells read, by position, null for all of them
+     * @return List
+     * @since 4.0.5
+     */
+    public static List<String> splitLine(final String line, final char delimiter, final char qualifier, final int initialSize,
+            final boolean preserveLeadingWhitespace, final boolean preserveTrailingWhitespace, final boolean[] projection) {
+        if (projection == null || delimiter == 0) {
+            return splitLine(line, delimiter, qualifier, initialSize, preserveLeadingWhitespace, preserveTrailingWhitespace);
+        }
+        final CellBuffer cells = split(line, delimiter, qualifier, initialSize, preserveLeadingWhitespace, preserveTrailingWhitespace, projection);
+        final List<String> list = new ArrayList<>(cells.size());
+        for (int i = 0; i < cells.size(); i++) {
+            list.add(isProjected(projection, i) ? cells.get(i) : "");
+        }
+        return list;
+    }
+
+    /**
+     * Same as {@link #splitLine(String, char, char, int, boolean, boolean)} but
+     * all the cells are kept in a single char buffer, no String is created
+     * until a cell is read.
+     *
+     * @param line -
+     *            String of data to be parsed
+     * @param delimiter -
+     *            Delimiter separating each element
+     * @param qualifier -
+     *            qualifier which is surrounding the text
+     * @param initialSize -
+     *            expected number of cells
+     * @param preserveLeadingWhitespace
+     *            Keep any leading spaces
+     * @param preserveTrailingWhitespace
+     *            Keep any trailing spaces
+     * @return the cells
+     * @since 4.0.5
+     */
+    public static CellBuffer splitLineToCells(final String line, final char delimiter, final char qualifier, final int initialSize,
+            final boolean preserveLeadingWhitespace, final boolean preserveTrailingWhitespace) {
+        return split(line, delimiter, qualifier, initialSize, preserveLeadingWhitespace, preserveTrailingWhitespace, null);
+    }
+
+    /**
+     * Same as {@link #splitLineToCells(String, char, char, int, boolean, boolean)}
+     * but only the chars of the cells of the projection are kept, the others
+     * are empty.
+     *
+     * @param projection
+     *            the cells read, by position, null for all of them
+     * @return the cells
+     * @since 4.0.5
+     */
+    public static CellBuffer splitLineToCells(final String line, final char delimiter, final char qualifier, final int initialSize,
+            final boolean preserveLeadingWhitespace, final boolean preserveTrailingWhitespace, final boolean[] projection) {
+        final CellBuffer cells = split(line, delimiter, qualifier, initialSize, preserveLeadingWhitespace, preserveTrailingWhitespace, projection);
+        return projection == null || delimiter == 0 ? cells : cells.project(projection);
+    }
+
+    static boolean isProjected(final boolean[] projection, final int index) {
+        return projection == null || index < projection.length && projection[index];
+    }
+
+    private static CellBuffer split(final String line, final char delimiter, final char qualifier, final int initialSize,
+            final boolean preserveLeadingWhitespace, final boolean preserveTrailingWhitespace, final boolean[] projection) {
+        if (line == null) {
+            return new CellBuffer(new char[0], 0);
+        } else if (delimiter == 0) {
+            final CellBuffer cells = new CellBuffer(line.toCharArray(), 1);
+            cells.addCell(0, line.length());
+            return cells;
+        }
+
+        int from = 0;
+        int to = line.length();
+        // skip the trim for tab and space delimiters, doing the trim will mess up the parse
+        // on empty records which contain just the delimiter
+        if (delimiter != '\t' && delimiter != ' ') {
             if (!preserveTrailingWhitespace) {
-                trimmedLine = ParserUtils.rTrim(line);
+                // only the trailing whitespace of the line is removed when both are not preserved
+                to = rTrim(line, 0, to);
+            } else if (!preserveLeadingWhitespace) {
+                from = lTrim(line, from, to);
             }
         }
 
-        final int size = trimmedLine.length();
+        final int size = to - from;
+        final char[] block = new char[size];
+        final CellBuffer cells = new CellBuffer(block, initialSize);
 
         if (size == 0) {
-            list.add("");
-            return list;
+            cells.addCell(0, 0);
+            return cells;
         }
 
         boolean insideQualifier = false;
         char previousChar = 0;
         boolean blockWasInQualifier = false;
 
-        final String doubleQualifier = "" + qualifier + qualifier;
-
-        char[] newBlock = new char[size];
+        // the cells are written one after the other in the block, the current one starts at cellStart
+        int cellStart = 0;
         int sizeSelected = 0;
 
         for (int i = 0; i < size; i++) {
 
-            final char currentChar = trimmedLine.charAt(i);
+            final char currentChar = line.charAt(from + i);
 
             if (currentChar == '\uFEFF') {
                 continue; // skip bad char
@@ -149,39 +242,44 @@ public final class ParserUtils {
 
             if ((currentChar != delimiter || insideQualifier) && currentChar != qualifier) {
                 previousChar = currentChar;
-                newBlock[sizeSelected++] = currentChar;
-                // endBlock = i + 1;
+                block[sizeSelected++] = currentChar;
                 continue;
             }
 
             if (currentChar == delimiter) {
                 // we've found the delimiter (eg ,)
                 if (!insideQualifier) {
-                    String trimmed = String.valueOf(newBlock, 0, sizeSelected);
-                    if (!blockWasInQualifier) {
-                        if (!preserveLeadingWhitespace) {
-                            trimmed = ParserUtils.lTrim(trimmed);
-                        }
-                        if (!preserveTrailingWhitespace) {
-                            trimmed = ParserUtils.rTrim(trimmed);
+                    int start = cellStart;
+                    int end = sizeSelected;
+                    if (!isProjected(projection, cells.size())) {
+                        // skipped, neither trimmed nor unescaped
+                        cells.addCell(start, start);
+                    } else {
+                        if (!blockWasInQualifier) {
+                            if (!preserveLeadingWhitespace) {
+                                start = lTrim(block, start, end);
+                            }
+                            if (!preserveTrailingWhitespace) {
+                                end = rTrim(block, start, end);
+                            }
                         }
-                    }
 
-                    if (trimmed == null || trimmed.length() == 1 && (trimmed.charAt(0) == delimiter || trimmed.charAt(0) == qualifier)) {
-                        list.add("");
-                    } else {
-                        list.add(replace(trimmed, doubleQualifier, String.valueOf(qualifier), -1));
+                        if (end - start == 1 && (block[start] == delimiter || block[start] == qualifier)) {
+                            cells.addCell(start, start);
+                        } else {
+                            cells.addCell(start, unescape(block, start, end, qualifier));
+                        }
                     }
                     blockWasInQualifier = false;
-                    sizeSelected = 0;
+                    cellStart = sizeSelected;
                 }
             } else if (currentChar == qualifier) {
                 if (!insideQualifier && previousChar != qualifier) {
                     if (previousChar == delimiter || previousChar == 0 || previousChar == ' ') {
                         insideQualifier = true;
-                        sizeSelected = 0;
+                        sizeSelected = cellStart;
                     } else {
-                        newBlock[sizeSelected++] = currentChar;
+                        block[sizeSelected++] = currentChar;
                     }
                 } else {
                     if (i + 1 < size && delimiter != ' ') {
@@ -190,61 +288,107 @@ public final class ParserUtils {
                         // we don't want to trim the delimiter off
                         // loop until we find a char that is not a space, or we reach the end of the line.
                         int start = i + 1;
-                        char charToCheck = trimmedLine.charAt(start);
+                        char charToCheck = line.charAt(from + start);
                         while (charToCheck == ' ') {
                             start++;
                             if (start == size) {
                                 break;
                             }
-                            charToCheck = trimmedLine.charAt(start);
+                            charToCheck = line.charAt(from + start);
                         }
 
-                        if (charToCheck != delimiter) {
+                        if (start < size && charToCheck != delimiter) {
                             previousChar = currentChar;
-                            newBlock[sizeSelected++] = currentChar;
-                            // endBlock = i + 1;
+                            block[sizeSelected++] = currentChar;
                             continue;
                         }
-
+                        // the spaces between the qualifier and the delimiter are not part of the cell
+                        i = start - 1;
                     }
                     insideQualifier = false;
                     blockWasInQualifier = true;
                     // last column (e.g. finishes with ")
                     if (i == size - 1) {
-                        String str = String.valueOf(newBlock, 0, sizeSelected);
-                        str = replace(str, doubleQualifier, String.valueOf(qualifier), -1);
-                        list.add(str);
-                        sizeSelected = 0;
+                        final boolean projected = isProjected(projection, cells.size());
+                        cells.addCell(cellStart, projected ? unescape(block, cellStart, sizeSelected, qualifier) : cellStart);
+                        sizeSelected = cellStart;
                     }
                 }
             }
             previousChar = currentChar;
         }
 
-        if (sizeSelected > 0) {
-            String str = String.valueOf(newBlock, 0, sizeSelected);
-            str = replace(str, doubleQualifier, String.valueOf(qualifier), -1);
+        if (sizeSelected > cellStart && !isProjected(projection, cells.size())) {
+            cells.addCell(cellStart, cellStart);
+        } else if (sizeSelected > cellStart) {
+            int start = cellStart;
+            int end = unescape(block, cellStart, sizeSelected, qualifier);
             if (blockWasInQualifier) {
-                if (str.charAt(str.length() - 1) == qualifier) {
-                    list.add(str.substring(0, str.length() - 1));
-                } else {
-                    list.add(str);
+                if (block[end - 1] == qualifier) {
+                    end--;
                 }
             } else {
-                String s = str;
                 if (!preserveLeadingWhitespace) {
-                    s = ParserUtils.lTrim(s);
+                    start = lTrim(block, start, end);
                 }
                 if (!preserveTrailingWhitespace) {
-                    s = ParserUtils.rTrim(s);
+                    end = rTrim(block, start, end);
                 }
-                list.add(s);
             }
-        } else if (trimmedLine.charAt(size - 1) == delimiter) {
-            list.add("");
+            cells.addCell(start, end);
+        } else if (line.charAt(to - 1) == delimiter) {
+            cells.addCell(sizeSelected, sizeSelected);
         }
 
-        return list;
+        return cells;
+    }
+
+    /**
+     * Replaces the doubled qualifiers in the range of the block, in place.
+     *
+     * @return the new end of the range
+     */
+    private static int unescape(final char[] block, final int start, final int end, final char qualifier) {
+        int write = start;
+        for (int read = start; read < end; read++) {
+            block[write++] = block[read];
+            if (block[read] == qualifier && read + 1 < end && block[read + 1] == qualifier) {
+                read++;
+            }
+        }
+        return write;
+    }
+
+    private static int lTrim(final CharSequence value, final int start, final int end) {
+        int offset = start;
+        while (offset < end && (value.charAt(offset) == ' ' || value.charAt(offset) == '\t')) {
+            offset++;
+        }
+        return offset;
+    }
+
+    private static int rTrim(final CharSequence value, final int start, final int end) {
+        int offset = end;
+        while (offset > start && (value.charAt(offset - 1) == ' ' || value.charAt(offset - 1) == '\t')) {
+            offset--;
+        }
+        return offset;
+    }
+
+    private static int lTrim(final char[] value, final int start, final int end) {
+        int offset = start;
+        while (offset < end && (value[offset] == ' ' || value[offset] == '\t')) {
+            offset++;
+        }
+        return offset;
+    }
+
+    private static int rTrim(final char[] value, final int start, final int end) {
+        int offset = end;
+        while (offset > start && (value[offset - 1] == ' ' || value[offset - 1] == '\t')) {
+            offset--;
+        }
+        return offset;
     }
 
     /**
@@ -400,10 +544,26 @@ public final class ParserUtils {
      */
     public static MetaData getPZMetaDataFromFile(final String line, final char delimiter, final char qualifier, final Parser p,
             final boolean addSuffixToDuplicateColumnNames) {
+        final List<String> lineData = splitLine(line, delimiter, qualifier, FPConstants.SPLITLINE_SIZE_INIT, false, false);
+        return getPZMetaDataFromFile(lineData, p, addSuffixToDuplicateColumnNames);
+    }
+
+    /**
+     * Returns a list of ColumnMetaData objects built from the already split
+     * column names of the first line of a delimited file.
+     *
+     * @param lineData
+     *          column names, in file order
+     * @param p
+     *          PZParser used to specify additional option when working with the ColumnMetaData. Can be null
+     * @param addSuffixToDuplicateColumnNames
+     * @return PZMetaData
+     * @since 4.0.5
+     */
+    public static MetaData getPZMetaDataFromFile(final List<String> lineData, final Parser p, final boolean addSuffixToDuplicateColumnNames) {
         final List<ColumnMetaData> results = new ArrayList<>();
         final Set<String> dupCheck = new HashSet<>();
 
-        final List<String> lineData = splitLine(line, delimiter, qualifier, FPConstants.SPLITLINE_SIZE_INIT, false, false);
         for (final String colName : lineData) {
             final ColumnMetaData cmd = new ColumnMetaData();
             String colNameToUse = colName;
@@ -567,32 +727,10 @@ public final class ParserUtils {
             // detail id
             return FPConstants.DETAIL_ID;
         }
-        final Iterator<Entry<String, XMLRecordElement>> mapEntries = columnMD.xmlRecordIterator();
-        // loop through the XMLRecordElement objects and see if we need a
-        // different MD object
-        while (mapEntries.hasNext()) {
-            final Entry<String, XMLRecordElement> entry = mapEntries.next();
-            final XMLRecordElement recordXMLElement = entry.getValue();
-
-            if (recordXMLElement.getElementCount() > 0 && recordXMLElement.getElementCount() == lineElements.size()) {
-                // determing which <record> mapping to use by the number of elements
-                // contained on the line
-                return entry.getKey();
-            } else if (recordXMLElement.getElementNumber() > lineElements.size()) {
-                // make sure the element referenced in the mapping exists
-                continue;
-            }
-
-            final String lineElement = lineElements.get(recordXMLElement.getElementNumber() - 1);
-            if (lineElement.equals(recordXMLElement.getIndicator())) {
-                // we found the MD object we want to return
-                return entry.getKey();
-            }
-
-        }
-
-        // must be a detail line
-        return FPConstants.DETAIL_ID;
+        // the <record> mapping to use is found by the number of elements
+        // contained on the line or by the indicator in one element, with a
+        // lookup per element number compiled in the MetaData
+        return columnMD.getDelimitedRecordKey(lineElements);
     }
 
     public static List<ColumnMetaData> getColumnMetaData(final String key, final MetaData columnMD) {
@@ -666,13 +804,26 @@ public final class ParserUtils {
      * @return a new Map
      */
     public static Map<String, Integer> buidColumnIndexMap(final List<ColumnMetaData> columns, final Parser p) {
+        return buildColumnIndexMap(columns, p == null || p.isColumnNamesCaseSensitive());
+    }
+
+    /**
+     * Build a map of name/position based on a list of ColumnMetaData.
+     *
+     * @param columns
+     * @param columnNamesCaseSensitive
+     *         if false, the names are lower cased
+     * @return a new Map, null if there is no column
+     * @since 4.0.5
+     */
+    public static Map<String, Integer> buildColumnIndexMap(final List<ColumnMetaData> columns, final boolean columnNamesCaseSensitive) {
         Map<String, Integer> map = null;
         if (columns != null && !columns.isEmpty()) {
             map = new HashMap<>();
             int idx = 0;
             for (final ColumnMetaData meta : columns) {
                 String colName = meta.getColName();
-                if (p != null && !p.isColumnNamesCaseSensitive()) {
+                if (!columnNamesCaseSensitive) {
                     // user has selected to make column names case sensitive
                     // on lookups
                     colName = colName.toLowerCase(Locale.getDefault());
@@ -743,6 +894,259 @@ public final class ParserUtils {
         return newString.toString();
     }
 
+    /**
+     * Parses a long from the chars of the value, the result is the same as
+     * Long.parseLong(strict ? value : stripNonLongChars(value)) but no String
+     * is created unless the value cannot be parsed or is too close to the
+     * limits of a long.
+     *
+     * @param value
+     * @param strict
+     *          when false, chars that are not part of a long are ignored
+     * @return long
+     * @since 4.0.5
+     */
+    public static long parseLong(final CharSequence value, final boolean strict) {
+        final int length = value.length();
+        long result = 0;
+        int digits = 0;
+        boolean negative = false;
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (result > MAX_BEFORE_DIGIT) {
+                    return parseLongString(value, strict);
+                }
+                result = result * 10 + c - '0';
+                digits++;
+            } else if (c == '-' && digits == 0 && !negative && (i == 0 || !strict)) {
+                negative = true;
+            } else if (c == '+' && i == 0 && strict) {
+                continue;
+            } else if (strict || c == '-') {
+                return parseLongString(value, strict);
+            } else if (c == '.') {
+                // stop if we hit a decimal point
+                break;
+            }
+        }
+        if (digits == 0 && strict) {
+            return parseLongString(value, strict);
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * @see #parseLong(CharSequence, boolean)
+     * @since 4.0.5
+     */
+    public static int parseInt(final CharSequence value, final boolean strict) {
+        final long result = parseLong(value, strict);
+        if (result < Integer.MIN_VALUE || result > Integer.MAX_VALUE) {
+            // let Integer report the overflow
+            return Integer.parseInt(strict ? value.toString() : stripNonLongChars(value.toString()));
+        }
+        return (int) result;
+    }
+
+    /**
+     * Parses a double from the chars of the value, the result is the same as
+     * Double.parseDouble(strict ? value : stripNonDoubleChars(value)). When
+     * the significant digits fit in 53 bits and the power of ten is at most
+     * 22 (which covers most amounts and quantities), the double is the
+     * product or division of two exact doubles and therefore correctly
+     * rounded, no String is created. Other values (more digits, large
+     * exponents, NaN, hexadecimal, type suffix...) go through
+     * Double.parseDouble.
+     *
+     * @param value
+     * @param strict
+     *          when false, chars that are not part of a double are ignored
+     * @return double
+     * @since 4.0.5
+     */
+    public static double parseDouble(final CharSequence value, final boolean strict) {
+        int start = 0;
+        int end = value.length();
+        if (strict) {
+            // as Double.parseDouble, ignore the surrounding whitespace
+            while (start < end && value.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && value.charAt(end - 1) <= ' ') {
+                end--;
+            }
+        }
+        long mantissa = 0;
+        int significant = 0;
+        // zeros after the last non zero digit, only added to the mantissa
+        // if another digit follows
+        int trailingZeros = 0;
+        int exponent = 0;
+        boolean digits = false;
+        boolean negative = false;
+        boolean decimalPoint = false;
+        for (int i = start; i < end; i++) {
+            final char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+                if (decimalPoint) {
+                    exponent--;
+                }
+                if (c == '0') {
+                    if (mantissa != 0) {
+                        trailingZeros++;
+                    }
+                    continue;
+                }
+                significant += trailingZeros + 1;
+                if (significant > MAX_LONG_DIGITS) {
+                    return parseDoubleString(value, strict);
+                }
+                for (; trailingZeros > 0; trailingZeros--) {
+                    mantissa *= 10;
+                }
+                mantissa = mantissa * 10 + c - '0';
+            } else if (c == '.' && !decimalPoint) {
+                decimalPoint = true;
+            } else if (c == '-' && !digits && !negative && !decimalPoint && (i == start || !strict)) {
+                negative = true;
+            } else if (c == '+' && i == start && strict) {
+                continue;
+            } else if ((c == 'e' || c == 'E') && digits && strict) {
+                final int exponentPart = parseExponent(value, i + 1, end);
+                if (exponentPart == Integer.MIN_VALUE) {
+                    return parseDoubleString(value, strict);
+                }
+                exponent += exponentPart;
+                break;
+            } else if (strict || c == '-' || c == '.') {
+                return parseDoubleString(value, strict);
+            }
+        }
+        if (!digits) {
+            if (!strict && !(negative && decimalPoint)) {
+                // as stripNonDoubleChars, nothing to parse is 0
+                return 0;
+            }
+            return parseDoubleString(value, strict);
+        }
+        exponent += trailingZeros;
+        final double result;
+        if (mantissa == 0) {
+            result = 0;
+        } else if (mantissa <= MAX_EXACT_MANTISSA && exponent >= -22 && exponent <= 22) {
+            result = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        } else {
+            return parseDoubleString(value, strict);
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * @return the signed exponent written from start to end or
+     *         Integer.MIN_VALUE if it is not a plain exponent
+     */
+    private static int parseExponent(final CharSequence value, final int start, final int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (value.charAt(i) == '-' || value.charAt(i) == '+')) {
+            negative = value.charAt(i) == '-';
+            i++;
+        }
+        if (i == end) {
+            return Integer.MIN_VALUE;
+        }
+        int exponent = 0;
+        for (; i < end; i++) {
+            final char c = value.charAt(i);
+            if (c < '0' || c > '9' || exponent > MAX_EXPONENT) {
+                return Integer.MIN_VALUE;
+            }
+            exponent = exponent * 10 + c - '0';
+        }
+        return negative ? -exponent : exponent;
+    }
+
+    /**
+     * Parses a BigDecimal from the chars of the value, ignoring the ','
+     * separators and the surrounding whitespace; the result is the same as
+     * new BigDecimal(replace(value, ",", "", -1).trim()) or null if there is
+     * nothing to parse. A plain decimal number with up to 18 digits is read
+     * without creating a String.
+     *
+     * @param value
+     * @return BigDecimal or null
+     * @since 4.0.5
+     */
+    public static BigDecimal parseBigDecimal(final CharSequence value) {
+        if (FPStringUtils.isBlank(value)) {
+            // don't do the parse on empties
+            return null;
+        }
+        final int length = value.length();
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean negative = false;
+        boolean decimalPoint = false;
+        // 0 before the number, 1 in it, 2 after it
+        int state = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c == ',') {
+                continue;
+            } else if (c <= ' ') {
+                if (state == 1) {
+                    state = 2;
+                }
+                continue;
+            } else if (state == 2) {
+                return parseBigDecimalString(value);
+            }
+            if (c >= '0' && c <= '9') {
+                if (++digits > MAX_LONG_DIGITS) {
+                    return parseBigDecimalString(value);
+                }
+                unscaled = unscaled * 10 + c - '0';
+                if (decimalPoint) {
+                    scale++;
+                }
+            } else if (c == '.' && !decimalPoint) {
+                decimalPoint = true;
+            } else if ((c == '-' || c == '+') && state == 0) {
+                negative = c == '-';
+            } else {
+                return parseBigDecimalString(value);
+            }
+            state = 1;
+        }
+        if (state == 0) {
+            // only separators
+            return null;
+        }
+        if (digits == 0) {
+            return parseBigDecimalString(value);
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    private static long parseLongString(final CharSequence value, final boolean strict) {
+        return Long.parseLong(strict ? value.toString() : stripNonLongChars(value.toString()));
+    }
+
+    private static double parseDoubleString(final CharSequence value, final boolean strict) {
+        return Double.parseDouble(strict ? value.toString() : stripNonDoubleChars(value.toString()));
+    }
+
+    private static BigDecimal parseBigDecimalString(final CharSequence value) {
+        final String s = replace(value.toString(), ",", "", -1).trim();
+        if (FPStringUtils.isBlank(s)) {
+            return null;
+        }
+        return new BigDecimal(s);
+    }
+
     /**
      * Retrieves the conversion table for use with the getObject()
      * method in IDataSet
@@ -754,7 +1158,9 @@ public final class ParserUtils {
     public static Properties loadConvertProperties() throws IOException {
         final Properties pzConvertProps = new Properties();
         final URL url = ParserUtils.class.getClassLoader().getResource("fpconvert.properties");
-        pzConvertProps.load(url.openStream());
+        try (InputStream in = url.openStream()) {
+            pzConvertProps.load(in);
+        }
 
         return pzConvertProps;
     }
@@ -769,6 +1175,9 @@ public final class ParserUtils {
      *              true when all elements are empty
      */
     public static boolean isListElementsEmpty(final List<String> l) {
+        if (l instanceof CellBuffer) {
+            return ((CellBuffer) l).isBlank();
+        }
         for (final String s : l) {
             if (s != null && s.trim().length() > 0) {
                 return false;
@@ -789,6 +1198,7 @@ public final class ParserUtils {
      *             Type of object to be returned
      * @throws FPConvertException
      * @return Object
+     * @see net.sf.flatpack.converter.ConverterRegistry which instantiates each converter once
      */
     public static Object runPzConverter(final Properties classXref, final String value, final Class<?> typeToReturn) {
         final String sConverter = classXref.getProperty(typeToReturn.getName());
@@ -796,7 +1206,7 @@ public final class ParserUtils {
             throw new FPConvertException(typeToReturn.getName() + " is not registered in pzconvert.properties");
         }
         try {
-            final Converter pzconverter = (Converter) Class.forName(sConverter).newInstance();
+            final Converter<?> pzconverter = (Converter<?>) Class.forName(sConverter).newInstance();
             return pzconverter.convertValue(value);
         } catch (final IllegalAccessException | InstantiationException | ClassNotFoundException ex) {
             throw new FPConvertException(ex);
@@ -820,9 +1230,31 @@ public final class ParserUtils {
      */
     public static List<ColumnMetaData> buildMDFromSQLTable(final Connection con, final String dataDefinition, final Parser parser)
             throws SQLException {
-        final List<ColumnMetaData> cmds = new ArrayList<>();
         final String dfTbl = parser != null ? parser.getDataFileTable() : "DATAFILE";
         final String dsTbl = parser != null ? parser.getDataStructureTable() : "DATASTRUCTURE";
+        return buildMDFromSQLTable(con, dataDefinition, dfTbl, dsTbl);
+    }
+
+    /**
+     * Returns a definition of pz column metadata from a given
+     * pz datastructure held in an SQL database
+     *
+     * @param con
+     *          Database connection containing the Datafile and Datastructure
+     *          tables
+     * @param dataDefinition
+     *          Name of the data definition stored in the Datafile table
+     * @param dfTbl
+     *          name of the DATAFILE table
+     * @param dsTbl
+     *          name of the DATASTRUCTURE table
+     * @throws SQLException
+     * @return List
+     * @since 4.0.5
+     */
+    public static List<ColumnMetaData> buildMDFromSQLTable(final Connection con, final String dataDefinition, final String dfTbl, final String dsTbl)
+            throws SQLException {
+        final List<ColumnMetaData> cmds = new ArrayList<>();
         final StringBuilder sqlSb = new StringBuilder();
 
         sqlSb.append("SELECT * FROM ").append(dfTbl).append(" INNER JOIN ").append(dsTbl).append(" ON ").append(dfTbl).append(".DATAFILE_NO = ")
@@ -0,0 +1,184 @@
+package net.sf.flatpack.util;
+
+import java.util.Arrays;
+
+/**
+ * Boundaries of the cells of the current record of a record reader, with the
+ * trimming and unescaping rules shared by {@link DelimitedRecordReader} and
+ * {@link net.sf.flatpack.nio.MappedRecordReader}: the readers only differ in
+ * reading chars or bytes. This class is not thread safe.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public final class RecordCells {
+    /** the cell was surrounded by qualifiers. */
+    public static final int QUOTED = 1;
+    /** the cell contains doubled qualifiers or line breaks to convert. */
+    public static final int ESCAPED = 2;
+
+    private static final String LINE_BREAK = System.lineSeparator();
+    private static final char LF = '\n';
+    private static final char CR = '\r';
+    private static final char SPACE = ' ';
+    private static final char TAB = '\t';
+
+    private final char delimiter;
+    private final char qualifier;
+    private final boolean splitting;
+    private final boolean quoting;
+    private final String singleQualifier;
+    private final String doubleQualifier;
+
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int[] flags = new int[16];
+
+    /**
+     * @param delimiter
+     *          0 if the records are not split
+     * @param qualifier
+     *          0 if there is none
+     */
+    public RecordCells(final char delimiter, final char qualifier) {
+        this.delimiter = delimiter;
+        this.qualifier = qualifier;
+        this.splitting = delimiter > 0;
+        this.quoting = splitting && qualifier > 0;
+        this.singleQualifier = String.valueOf(qualifier);
+        this.doubleQualifier = singleQualifier + qualifier;
+    }
+
+    /**
+     * Sets the boundaries of a cell, growing the arrays if needed.
+     *
+     * @return the index of the next cell
+     */
+    public int add(final int index, final int start, final int stop, final int cellFlags) {
+        if (index == starts.length) {
+            final int size = index * 2;
+            starts = Arrays.copyOf(starts, size);
+            ends = Arrays.copyOf(ends, size);
+            flags = Arrays.copyOf(flags, size);
+        }
+        starts[index] = start;
+        ends[index] = Math.max(start, stop);
+        flags[index] = cellFlags;
+        return index + 1;
+    }
+
+    /**
+     * @return true if the cell must go through {@link #unescape(String)}
+     */
+    public boolean isEscaped(final int index) {
+        return (flags[index] & ESCAPED) != 0;
+    }
+
+    /**
+     * @param chars
+     *          the chars the boundaries of the cells refer to
+     * @return the start (high int) and end (low int) of the cell once trimmed,
+     *         equal if the cell is empty
+     */
+    public long trim(final char[] chars, final int index, final boolean preserveLeading, final boolean preserveTrailing) {
+        int start = starts[index];
+        int stop = ends[index];
+        if (splitting && (flags[index] & QUOTED) == 0) {
+            if (!preserveLeading) {
+                while (start < stop && (chars[start] == SPACE || chars[start] == TAB)) {
+                    start++;
+                }
+            }
+            if (!preserveTrailing) {
+                while (stop > start && (chars[stop - 1] == SPACE || chars[stop - 1] == TAB)) {
+                    stop--;
+                }
+            }
+            if (stop - start == 1 && (chars[start] == delimiter || quoting && chars[start] == qualifier)) {
+                stop = start;
+            }
+        }
+        return bounds(start, stop);
+    }
+
+    /**
+     * Same as {@link #trim(char[], int, boolean, boolean)} for ASCII
+     * delimiter and qualifier over bytes.
+     *
+     * @param offset
+     *          position in the boundaries of the cells of the first byte
+     * @return the start and end of the cell in the bytes
+     */
+    public long trim(final byte[] bytes, final int offset, final int index, final boolean preserveLeading, final boolean preserveTrailing) {
+        int start = starts[index] - offset;
+        int stop = ends[index] - offset;
+        if (splitting && (flags[index] & QUOTED) == 0) {
+            if (!preserveLeading) {
+                while (start < stop && (bytes[start] == SPACE || bytes[start] == TAB)) {
+                    start++;
+                }
+            }
+            if (!preserveTrailing) {
+                while (stop > start && (bytes[stop - 1] == SPACE || bytes[stop - 1] == TAB)) {
+                    stop--;
+                }
+            }
+            if (stop - start == 1 && (bytes[start] == delimiter || quoting && bytes[start] == qualifier)) {
+                stop = start;
+            }
+        }
+        return bounds(start, stop);
+    }
+
+    private static long bounds(final int start, final int stop) {
+        return (long) start << 32 | stop & 0xFFFFFFFFL;
+    }
+
+    /**
+     * @return the start of the bounds returned by trim
+     */
+    public static int start(final long bounds) {
+        return (int) (bounds >>> 32);
+    }
+
+    /**
+     * @return the end of the bounds returned by trim
+     */
+    public static int stop(final long bounds) {
+        return (int) bounds;
+    }
+
+    /**
+     * Replaces doubled qualifiers and makes embedded line breaks use the
+     * system line separator, as the line based parsing did.
+     */
+    public String unescape(final String value) {
+        return normaliseLineBreaks(quoting ? ParserUtils.replace(value, doubleQualifier, singleQualifier, -1) : value);
+    }
+
+    /**
+     * @return the value with its CR, LF and CRLF replaced by the system line
+     *         separator
+     */
+    public static String normaliseLineBreaks(final String value) {
+        if (value.indexOf(LF) < 0 && value.indexOf(CR) < 0) {
+            return value;
+        }
+        final StringBuilder sb = new StringBuilder(value.length() + 8);
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            if (c == CR) {
+                if (i + 1 < length && value.charAt(i + 1) == LF) {
+                    i++;
+                }
+                sb.append(LINE_BREAK);
+            } else if (c == LF) {
+                sb.append(LINE_BREAK);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
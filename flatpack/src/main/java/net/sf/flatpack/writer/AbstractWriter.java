@@ -2,7 +2,10 @@ package net.sf.flatpack.writer;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -14,6 +17,15 @@ public abstract class AbstractWriter implements Writer {
     private Map<String, Object> rowMap;
     protected String lineSeparator = System.lineSeparator();
 
+    /** set by initColumns, the values are then held by index in slots. */
+    private Map<String, Integer> columnIndexes;
+    private String[] columnNames;
+    private Object[] slots;
+    /** reused to format the primitive and char[] values of each column. */
+    private StringBuilder[] buffers;
+    private boolean rowStarted;
+    private char[] chars = new char[64];
+
     public AbstractWriter(final java.io.Writer output) {
         super();
         writer = new BufferedWriter(output);
@@ -25,8 +37,30 @@ public abstract class AbstractWriter implements Writer {
         this.lineSeparator = lineSeparator;
     }
 
+    /**
+     * Keeps the values of each record in an array indexed by column instead
+     * of a Map; validateColumnTitle is then no longer called. Subclasses
+     * calling it read the values with getValue(int).
+     *
+     * @param names
+     *          the columns of the records, in the order they are written
+     * @since 4.0.5
+     */
+    protected void initColumns(final List<String> names) {
+        columnNames = names.toArray(new String[names.size()]);
+        columnIndexes = new HashMap<>();
+        for (int i = 0; i < columnNames.length; i++) {
+            columnIndexes.put(columnNames[i], i);
+        }
+        slots = new Object[columnNames.length];
+        buffers = new StringBuilder[columnNames.length];
+    }
+
     @Override
     public Writer addRecordEntry(final String columnName, final Object value) {
+        if (slots != null) {
+            return addRecordEntry(getColumnIndex(columnName), value);
+        }
         if (rowMap == null) {
             rowMap = new HashMap<>();
         }
@@ -38,6 +72,115 @@ public abstract class AbstractWriter implements Writer {
         return this;
     }
 
+    @Override
+    public int getColumnIndex(final String columnName) {
+        checkIndexed();
+        final Integer index = columnIndexes.get(columnName);
+        if (index == null) {
+            throw new IllegalArgumentException("unknown column: \"" + columnName + "\"");
+        }
+        return index;
+    }
+
+    @Override
+    public Writer addRecordEntry(final int column, final Object value) {
+        return set(column, value);
+    }
+
+    @Override
+    public Writer addRecordEntry(final int column, final int value) {
+        return set(column, buffer(column).append(value));
+    }
+
+    @Override
+    public Writer addRecordEntry(final int column, final long value) {
+        return set(column, buffer(column).append(value));
+    }
+
+    @Override
+    public Writer addRecordEntry(final int column, final double value) {
+        return set(column, buffer(column).append(value));
+    }
+
+    @Override
+    public Writer addRecordEntry(final int column, final CharSequence value) {
+        return set(column, value);
+    }
+
+    @Override
+    public Writer addRecordEntry(final int column, final char[] value) {
+        return set(column, value != null ? buffer(column).append(value) : null);
+    }
+
+    private void checkIndexed() {
+        if (slots == null) {
+            throw new UnsupportedOperationException(getClass().getName() + " does not support values by index");
+        }
+    }
+
+    private StringBuilder buffer(final int column) {
+        checkIndexed();
+        StringBuilder buffer = buffers[column];
+        if (buffer == null) {
+            buffer = new StringBuilder(16);
+            buffers[column] = buffer;
+        }
+        buffer.setLength(0);
+        return buffer;
+    }
+
+    private Writer set(final int column, final Object value) {
+        checkIndexed();
+        validateValue(column, value);
+        slots[column] = value;
+        rowStarted = true;
+        return this;
+    }
+
+    /**
+     * Called before a value is set by index, the primitive and char[] values
+     * are given as CharSequences.
+     *
+     * @throws IllegalArgumentException
+     *           if the value cannot be written in the column
+     * @since 4.0.5
+     */
+    protected void validateValue(final int column, final Object value) {
+    }
+
+    /**
+     * @return the value of the column in the current record, primitive and
+     *         char[] values as a CharSequence
+     * @since 4.0.5
+     */
+    protected Object getValue(final int column) {
+        return slots[column];
+    }
+
+    /**
+     * @return the name of the column at that index
+     * @since 4.0.5
+     */
+    protected String getColumnName(final int column) {
+        return columnNames[column];
+    }
+
+    /**
+     * @return the number of columns given to initColumns
+     * @since 4.0.5
+     */
+    protected int getColumnCount() {
+        return columnNames != null ? columnNames.length : 0;
+    }
+
+    /**
+     * @return true if a value has been added to the current record
+     * @since 4.0.5
+     */
+    protected boolean isRowStarted() {
+        return slots != null ? rowStarted : rowMap != null;
+    }
+
     /**
      * Subclasses must implement this method to perform validation of
      * <code>columnTitle</code>.
@@ -60,6 +203,10 @@ public abstract class AbstractWriter implements Writer {
         // the row should have been written out by the subclass so it's safe to
         // discard it here
         rowMap = null;
+        if (slots != null) {
+            Arrays.fill(slots, null);
+            rowStarted = false;
+        }
         writer.write(this.lineSeparator);
         return this;
     }
@@ -78,6 +225,52 @@ public abstract class AbstractWriter implements Writer {
         writer.write(characters);
     }
 
+    /**
+     * Writes the characters without creating a String.
+     *
+     * @since 4.0.5
+     */
+    protected void writeChars(final CharSequence value, final int start, final int end) throws IOException {
+        if (value instanceof String) {
+            writer.write((String) value, start, end - start);
+            return;
+        }
+        if (value instanceof CharBuffer && ((CharBuffer) value).hasArray()) {
+            final CharBuffer buffer = (CharBuffer) value;
+            writer.write(buffer.array(), buffer.arrayOffset() + buffer.position() + start, end - start);
+            return;
+        }
+        final int length = end - start;
+        ensureChars(length);
+        if (value instanceof StringBuilder) {
+            ((StringBuilder) value).getChars(start, end, chars, 0);
+        } else {
+            for (int i = 0; i < length; i++) {
+                chars[i] = value.charAt(start + i);
+            }
+        }
+        writer.write(chars, 0, length);
+    }
+
+    /**
+     * Writes the character count times.
+     *
+     * @since 4.0.5
+     */
+    protected void writePadding(final char padChar, final int count) throws IOException {
+        if (count > 0) {
+            ensureChars(count);
+            Arrays.fill(chars, 0, count, padChar);
+            writer.write(chars, 0, count);
+        }
+    }
+
+    private void ensureChars(final int length) {
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+    }
+
     @Override
     public Writer flush() throws IOException {
         writer.flush();
@@ -90,7 +283,20 @@ public abstract class AbstractWriter implements Writer {
         writer.close();
     }
 
+    /**
+     * @return the values of the current record by column name, built from
+     *         the values by index if initColumns was called
+     */
     protected Map<String, Object> getRowMap() {
+        if (slots != null && rowStarted) {
+            final Map<String, Object> values = new HashMap<>();
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] != null) {
+                    values.put(columnNames[i], slots[i] instanceof StringBuilder ? slots[i].toString() : slots[i]);
+                }
+            }
+            return values;
+        }
         return rowMap;
     }
 }
@@ -33,6 +33,7 @@ public class DelimiterWriter extends AbstractWriter {
         for (final ColumnMetaData cmd : columns) {
             columnTitles.add(cmd.getColName());
         }
+        initColumns(columnTitles);
         // write the column headers
         if (options.isAutoPrintHeader()) {
             printHeader();
@@ -46,27 +47,38 @@ public class DelimiterWriter extends AbstractWriter {
 
     @Override
     protected void write(final Object value) throws IOException {
-        String stringValue = toString(value);
-
-        final boolean foundQualifier = qualifier != FPConstants.NO_QUALIFIER && stringValue.indexOf(qualifier) != -1;
-        final boolean needsQuoting = stringValue.indexOf(delimiter) != -1 //
-                || foundQualifier //
-                || stringValue.indexOf('\n') != -1;
+        final CharSequence chars = value instanceof CharSequence ? (CharSequence) value : toString(value);
+
+        boolean foundQualifier = false;
+        boolean needsQuoting = false;
+        final int length = chars.length();
+        for (int i = 0; i < length; i++) {
+            final char c = chars.charAt(i);
+            if (c == qualifier && qualifier != FPConstants.NO_QUALIFIER) {
+                foundQualifier = true;
+                needsQuoting = true;
+                break;
+            } else if (c == delimiter || c == '\n') {
+                needsQuoting = true;
+            }
+        }
 
         if (needsQuoting) {
             super.write(qualifier);
         }
 
         if (foundQualifier) {
-            final char[] chars = stringValue.toCharArray();
-            for (final char character : chars) {
-                if (character == qualifier) {
-                    super.write(qualifier);
+            int start = 0;
+            for (int i = 0; i < length; i++) {
+                if (chars.charAt(i) == qualifier) {
+                    // double the qualifier
+                    writeChars(chars, start, i + 1);
+                    start = i;
                 }
-                super.write(character);
             }
+            writeChars(chars, start, length);
         } else {
-            super.write(stringValue);
+            writeChars(chars, 0, length);
         }
 
         if (needsQuoting) {
@@ -101,16 +113,15 @@ public class DelimiterWriter extends AbstractWriter {
     }
 
     protected void writeRow() throws IOException {
-        final Iterator<String> titlesIter = columnTitles.iterator();
-        while (titlesIter.hasNext()) {
-            final String columnTitle = titlesIter.next();
-            if (getRowMap() != null) {
-                if (titlesIter.hasNext()) {
-                    writeWithDelimiter(getRowMap().get(columnTitle));
-                } else {
-                    write(getRowMap().get(columnTitle));
-                }
-            }
+        if (!isRowStarted()) {
+            return;
+        }
+        final int last = getColumnCount() - 1;
+        for (int i = 0; i < last; i++) {
+            writeWithDelimiter(getValue(i));
+        }
+        if (last >= 0) {
+            write(getValue(last));
         }
     }
 
@@ -2,6 +2,7 @@ package net.sf.flatpack.writer;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -17,37 +18,94 @@ public class FixedLengthWriter extends AbstractWriter {
     private static final int MAX_CHAR_TO_USE_LOOP = 8;
     private final Map<?, ?> columnMapping;
     private final char padChar;
+    private final int[] columnLengths;
+    private final boolean customFormat;
 
     protected FixedLengthWriter(final Map parsedMapping, final java.io.Writer output, final char padChar) {
         super(output);
         this.columnMapping = parsedMapping;
         this.padChar = padChar;
+        final List<ColumnMetaData> columns = getColumnMetaData();
+        final List<String> names = new ArrayList<>(columns.size());
+        columnLengths = new int[columns.size()];
+        for (int i = 0; i < columnLengths.length; i++) {
+            names.add(columns.get(i).getColName());
+            columnLengths[i] = columns.get(i).getColLength();
+        }
+        initColumns(names);
+        customFormat = overridesFormattedValue(getClass());
+    }
+
+    /**
+     * @return true if a subclass formats the values itself, they are then
+     *         written with formattedValue() as before 4.0.5
+     */
+    private static boolean overridesFormattedValue(final Class<?> type) {
+        for (Class<?> c = type; c != FixedLengthWriter.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("formattedValue", Object.class, ColumnMetaData.class);
+                return true;
+            } catch (final NoSuchMethodException e) {
+                // not in this class
+            }
+        }
+        return false;
     }
 
     @Override
-    public Writer addRecordEntry(final String columnName, final Object value) {
+    protected void validateValue(final int column, final Object value) {
         if (value != null) {
-            final ColumnMetaData metaData = this.getColumnMetaData(columnName);
-
-            final String valueString = value.toString();
-            if (valueString.length() > metaData.getColLength()) {
+            final int length = value instanceof CharSequence ? ((CharSequence) value).length() : value.toString().length();
+            if (length > columnLengths[column]) {
                 throw new IllegalArgumentException(
-                        valueString + " exceeds the maximum length for column " + columnName + "(" + metaData.getColLength() + ")");
+                        value + " exceeds the maximum length for column " + getColumnName(column) + "(" + columnLengths[column] + ")");
             }
         }
-        return super.addRecordEntry(columnName, value);
     }
 
     @Override
     public Writer nextRecord() throws IOException {
-        for (final ColumnMetaData element : getColumnMetaData()) {
-            final Object value = this.getRowMap().get(element.getColName());
-            this.write(this.formattedValue(value, element));
+        if (customFormat) {
+            final List<ColumnMetaData> columns = getColumnMetaData();
+            for (int i = 0; i < columnLengths.length; i++) {
+                write(formattedValue(getValue(i), columns.get(i)));
+            }
+            return super.nextRecord();
+        }
+        for (int i = 0; i < columnLengths.length; i++) {
+            final CharSequence value = toCharSequence(getValue(i));
+            // values longer than the column are refused when added
+            final int length = Math.min(value.length(), columnLengths[i]);
+            writeChars(value, 0, length);
+            writePadding(padChar, columnLengths[i] - length);
         }
 
         return super.nextRecord();
     }
 
+    private static CharSequence toCharSequence(final Object value) {
+        if (value == null) {
+            return "";
+        } else if (value instanceof CharSequence) {
+            return (CharSequence) value;
+        } else if (value instanceof BigDecimal) {
+            final BigDecimal bd = (BigDecimal) value;
+            return bd.signum() == 0 ? "0" : bd.toPlainString();
+        }
+        return value.toString();
+    }
+
+    /**
+     * Formats a value to the length of its column. The values are written
+     * directly unless a subclass overrides this method, which is then called
+     * for each column of each record.
+     *
+     * @param val
+     *          the value set for the column, null if none
+     * @param element
+     *          the column
+     * @return the chars to write, as long as the column
+     */
     protected char[] formattedValue(final Object val, final ColumnMetaData element) {
         Object value = val == null ? "" : val;
 
@@ -110,14 +168,4 @@ public class FixedLengthWriter extends AbstractWriter {
     private List<ColumnMetaData> getColumnMetaData() {
         return (List<ColumnMetaData>) columnMapping.get(FPConstants.DETAIL_ID);
     }
-
-    private ColumnMetaData getColumnMetaData(final String columnName) {
-        for (final ColumnMetaData element : getColumnMetaData()) {
-            if (element.getColName().equals(columnName)) {
-                return element;
-            }
-        }
-
-        throw new IllegalArgumentException("Column \"" + columnName + "\" unknown");
-    }
 }
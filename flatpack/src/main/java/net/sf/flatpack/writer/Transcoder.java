@@ -0,0 +1,385 @@
+package net.sf.flatpack.writer;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import net.sf.flatpack.ColumnRef;
+import net.sf.flatpack.DataError;
+import net.sf.flatpack.Parser;
+import net.sf.flatpack.Record;
+import net.sf.flatpack.StreamingDataSet;
+import net.sf.flatpack.util.FPConstants;
+import net.sf.flatpack.util.FPException;
+
+/**
+ * Copies the records of a parser to a writer, typically a delimited file to
+ * a fixed length one or the other way round:
+ *
+ * <pre>
+ * final Parser parser = BuffReaderParseFactory.getInstance().newDelimitedParser(new FileReader("trades.csv"), ',', '"');
+ * final WriterFactory fixed = new FixedWriterFactory(new FileReader("trades.pzmap.xml"));
+ * try (java.io.Writer out = new FileWriter("trades.txt")) {
+ *     new Transcoder(parser, fixed).mapColumn("Trade Id", "TRADE_ID").transcode(out);
+ * }
+ * </pre>
+ *
+ * The target column of each source column is looked up once, the cells are
+ * then read with getCharSequence() from the cell buffers of the parser and
+ * given to the writer by index, without a String or a Map per record. A
+ * source column goes to the target column of the same name unless mapped to
+ * another one; the source columns unknown to the writer are skipped. Only
+ * the detail records are written, as the writers only know their columns.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public class Transcoder {
+    private static final int POLL_MILLIS = 50;
+
+    private final Parser parser;
+    private final WriterFactory writerFactory;
+    private final Map<String, String> columnMapping = new HashMap<>();
+    private boolean writerThread;
+    private int batchSize = 256;
+    private int queueCapacity = 16;
+    private List<DataError> errors = Collections.emptyList();
+
+    /**
+     * @param parser
+     *          the source, it is closed once read if it is AutoCloseable
+     * @param writerFactory
+     *          creates the writer of the target, it must support the values by
+     *          index as the DelimiterWriter and the FixedLengthWriter do
+     */
+    public Transcoder(final Parser parser, final WriterFactory writerFactory) {
+        if (parser == null || writerFactory == null) {
+            throw new IllegalArgumentException("parser and writerFactory cannot be null");
+        }
+        this.parser = parser;
+        this.writerFactory = writerFactory;
+    }
+
+    /**
+     * @param sourceColumn
+     *          a column of the parser
+     * @param targetColumn
+     *          the column of the writer receiving it, null to skip it
+     * @return this transcoder
+     */
+    public Transcoder mapColumn(final String sourceColumn, final String targetColumn) {
+        columnMapping.put(sourceColumn, targetColumn);
+        return this;
+    }
+
+    /**
+     * @param writerThread
+     *          when true, the records are formatted and written on a separate
+     *          thread while the next ones are parsed; the cells are then copied
+     *          in batches. It only helps with spare processors.
+     * @return this transcoder
+     */
+    public Transcoder setWriterThread(final boolean writerThread) {
+        this.writerThread = writerThread;
+        return this;
+    }
+
+    /**
+     * @param batchSize
+     *          records handed to the writer thread at a time
+     * @return this transcoder
+     */
+    public Transcoder setBatchSize(final int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * @param queueCapacity
+     *          batches parsed ahead of the writer thread
+     * @return this transcoder
+     */
+    public Transcoder setQueueCapacity(final int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be positive: " + queueCapacity);
+        }
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * Parses every record and writes the detail records. The output is
+     * flushed, not closed.
+     *
+     * @param out
+     *          given to the WriterFactory
+     * @return the number of records written
+     */
+    public int transcode(final java.io.Writer out) throws IOException {
+        parser.setCellBuffers(true);
+        try {
+            final StreamingDataSet ds = parser.parseAsStream();
+            final Writer writer = writerFactory.createWriter(out);
+            final int count = writerThread ? transcodeOnThread(ds, writer) : transcode(ds, writer);
+            writer.flush();
+            errors = ds.getErrors();
+            return count;
+        } finally {
+            if (parser instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) parser).close();
+                } catch (final IOException | RuntimeException e) {
+                    throw e;
+                } catch (final Exception e) {
+                    throw new IOException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the errors of the last transcode
+     */
+    public List<DataError> getErrors() {
+        return errors;
+    }
+
+    private int transcode(final StreamingDataSet ds, final Writer writer) throws IOException {
+        Mapping mapping = null;
+        int count = 0;
+        while (ds.next()) {
+            final Record record = ds.getRecord().get();
+            if (record.isRecordID(FPConstants.DETAIL_ID)) {
+                if (mapping == null) {
+                    mapping = new Mapping(record, writer);
+                }
+                for (int i = 0; i < mapping.sources.length; i++) {
+                    writer.addRecordEntry(mapping.targets[i], record.getCharSequence(mapping.sources[i]));
+                }
+                writer.nextRecord();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int transcodeOnThread(final StreamingDataSet ds, final Writer writer) throws IOException {
+        final BlockingQueue<Batch> full = new ArrayBlockingQueue<>(queueCapacity + 1);
+        final BlockingQueue<Batch> free = new ArrayBlockingQueue<>(queueCapacity + 2);
+        final BatchWriter batchWriter = new BatchWriter(writer, full, free);
+        final Thread thread = new Thread(batchWriter, "flatpack-writer");
+        thread.setDaemon(true);
+
+        Mapping mapping = null;
+        Batch batch = null;
+        int count = 0;
+        try {
+            while (ds.next()) {
+                final Record record = ds.getRecord().get();
+                if (!record.isRecordID(FPConstants.DETAIL_ID)) {
+                    continue;
+                }
+                if (mapping == null) {
+                    mapping = new Mapping(record, writer);
+                    batchWriter.targets = mapping.targets;
+                    thread.start();
+                }
+                if (batch == null) {
+                    batch = free.poll();
+                    if (batch == null) {
+                        batch = new Batch(batchSize, mapping.sources.length);
+                    }
+                }
+                batch.add(record, mapping.sources);
+                count++;
+                if (batch.rows == batchSize) {
+                    put(full, batch, batchWriter);
+                    batch = null;
+                }
+            }
+            if (mapping == null) {
+                return 0;
+            }
+            if (batch != null) {
+                put(full, batch, batchWriter);
+            }
+            put(full, Batch.END, batchWriter);
+            thread.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            thread.interrupt();
+            throw new FPException("Interrupted while writing records", e);
+        } finally {
+            if (thread.isAlive()) {
+                batchWriter.stopped = true;
+                thread.interrupt();
+            }
+        }
+        batchWriter.checkFailure();
+        return count;
+    }
+
+    private static void put(final BlockingQueue<Batch> queue, final Batch batch, final BatchWriter batchWriter)
+            throws IOException, InterruptedException {
+        while (!queue.offer(batch, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            batchWriter.checkFailure();
+        }
+    }
+
+    /**
+     * The source column and target index of each column written.
+     */
+    private final class Mapping {
+        private final ColumnRef[] sources;
+        private final int[] targets;
+
+        private Mapping(final Record record, final Writer writer) {
+            final List<ColumnRef> refs = new ArrayList<>();
+            final List<Integer> indexes = new ArrayList<>();
+            for (final String column : record.getColumns(FPConstants.DETAIL_ID)) {
+                final String target = columnMapping.get(column);
+                if (target == null && columnMapping.containsKey(column)) {
+                    continue;
+                }
+                final int index;
+                try {
+                    index = writer.getColumnIndex(target != null ? target : column);
+                } catch (final IllegalArgumentException e) {
+                    if (target != null) {
+                        throw e;
+                    }
+                    // not written
+                    continue;
+                }
+                refs.add(ColumnRef.of(column));
+                indexes.add(index);
+            }
+            sources = refs.toArray(new ColumnRef[refs.size()]);
+            targets = indexes.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * The cells of a batch of records copied in one char array.
+     */
+    private static final class Batch {
+        private static final Batch END = new Batch(0, 0);
+
+        private final int columns;
+        private final int[] ends;
+        private char[] chars;
+        private int length;
+        private int rows;
+
+        private Batch(final int size, final int columns) {
+            this.columns = columns;
+            ends = new int[size * columns];
+            chars = new char[size * columns * 8];
+        }
+
+        private void add(final Record record, final ColumnRef[] sources) {
+            final int first = rows * columns;
+            for (int i = 0; i < columns; i++) {
+                final CharSequence value = record.getCharSequence(sources[i]);
+                if (value != null) {
+                    final int valueLength = value.length();
+                    if (length + valueLength > chars.length) {
+                        final char[] grown = new char[Math.max(length + valueLength, chars.length * 2)];
+                        System.arraycopy(chars, 0, grown, 0, length);
+                        chars = grown;
+                    }
+                    if (value instanceof String) {
+                        ((String) value).getChars(0, valueLength, chars, length);
+                    } else {
+                        for (int c = 0; c < valueLength; c++) {
+                            chars[length + c] = value.charAt(c);
+                        }
+                    }
+                    length += valueLength;
+                }
+                ends[first + i] = length;
+            }
+            rows++;
+        }
+    }
+
+    /**
+     * Writes the batches on the writer thread, the cells are given to the
+     * writer as CharBuffers over the batch.
+     */
+    private static final class BatchWriter implements Runnable {
+        private final Writer writer;
+        private final BlockingQueue<Batch> full;
+        private final BlockingQueue<Batch> free;
+        private int[] targets;
+        private volatile boolean stopped;
+        private volatile Throwable failure;
+
+        private BatchWriter(final Writer writer, final BlockingQueue<Batch> full, final BlockingQueue<Batch> free) {
+            this.writer = writer;
+            this.full = full;
+            this.free = free;
+        }
+
+        @Override
+        public void run() {
+            try {
+                final CharBuffer[] cells = new CharBuffer[targets.length];
+                char[] wrapped = null;
+                while (!stopped) {
+                    final Batch batch = full.take();
+                    if (batch == Batch.END) {
+                        return;
+                    }
+                    if (batch.chars != wrapped) {
+                        wrapped = batch.chars;
+                        for (int i = 0; i < cells.length; i++) {
+                            cells[i] = CharBuffer.wrap(wrapped);
+                        }
+                    }
+                    int start = 0;
+                    for (int r = 0; r < batch.rows; r++) {
+                        for (int i = 0; i < cells.length; i++) {
+                            final int end = batch.ends[r * cells.length + i];
+                            cells[i].limit(end).position(start);
+                            writer.addRecordEntry(targets[i], cells[i]);
+                            start = end;
+                        }
+                        writer.nextRecord();
+                    }
+                    batch.rows = 0;
+                    batch.length = 0;
+                    free.offer(batch);
+                }
+            } catch (final InterruptedException e) {
+                // stopped
+                Thread.currentThread().interrupt();
+            } catch (final Exception | Error e) {
+                failure = e;
+            }
+        }
+
+        private void checkFailure() throws IOException {
+            final Throwable t = failure;
+            if (t instanceof IOException) {
+                throw (IOException) t;
+            } else if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            } else if (t instanceof Error) {
+                throw (Error) t;
+            } else if (t != null) {
+                throw new FPException("Error writing records", t);
+            }
+        }
+    }
+}
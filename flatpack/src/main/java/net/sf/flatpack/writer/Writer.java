@@ -15,6 +15,59 @@ public interface Writer extends AutoCloseable {
 
     Writer addRecordEntry(String columnName, Object value);
 
+    /**
+     * Resolve the columns once and set the values by index, the values are
+     * then kept in an array reused for every record instead of a Map.
+     *
+     * @return the index of the column
+     * @throws IllegalArgumentException
+     *           if the column is unknown
+     * @since 4.0.5
+     */
+    int getColumnIndex(String columnName);
+
+    /**
+     * @see #getColumnIndex(String)
+     * @since 4.0.5
+     */
+    Writer addRecordEntry(int column, Object value);
+
+    /**
+     * The value is formatted without boxing.
+     *
+     * @since 4.0.5
+     */
+    Writer addRecordEntry(int column, int value);
+
+    /**
+     * The value is formatted without boxing.
+     *
+     * @since 4.0.5
+     */
+    Writer addRecordEntry(int column, long value);
+
+    /**
+     * The value is formatted without boxing.
+     *
+     * @since 4.0.5
+     */
+    Writer addRecordEntry(int column, double value);
+
+    /**
+     * The value is copied to the output by nextRecord() without creating a
+     * String, it must not change until then.
+     *
+     * @since 4.0.5
+     */
+    Writer addRecordEntry(int column, CharSequence value);
+
+    /**
+     * The characters are copied, the array can be reused straight away.
+     *
+     * @since 4.0.5
+     */
+    Writer addRecordEntry(int column, char[] value);
+
     Writer nextRecord() throws IOException;
 
     Writer flush() throws IOException;
@@ -36,7 +36,6 @@ import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -92,24 +91,50 @@ public final class MapParser {
      */
     public static Map<String, Object> parse(final Reader xmlStreamReader, final Parser pzparser)
             throws IOException, ParserConfigurationException, SAXException {
-        if (xmlStreamReader == null) {
-            throw new NullPointerException("XML Reader Is Not Allowed To Be Null...");
-        }
-        final Map<String, Object> mdIndex = new LinkedHashMap<>(); // retain the same order
+        return parse(xmlStreamReader, pzparser == null || pzparser.isColumnNamesCaseSensitive());
+    }
 
-        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        final DocumentBuilder builder = factory.newDocumentBuilder();
-        builder.setEntityResolver(new ResolveLocalDTD());
-        final org.w3c.dom.Document document = builder.parse(new InputSource(xmlStreamReader));
-        final NodeList nodeList = document.getDocumentElement().getChildNodes();
+    private static Map<String, Object> parse(final Reader xmlStreamReader, final boolean columnNamesCaseSensitive)
+            throws IOException, ParserConfigurationException, SAXException {
+        final Map<String, Object> mdIndex = new LinkedHashMap<>(); // retain the same order
 
+        final NodeList nodeList = parseDocument(xmlStreamReader);
         final List<ColumnMetaData> columnResults = parseColumnElements(nodeList);
 
         mdIndex.put(FPConstants.DETAIL_ID, columnResults); // always force detail
         // to the top of
         // the map no matter what
-        mdIndex.put(FPConstants.COL_IDX, ParserUtils.buidColumnIndexMap(columnResults, pzparser));
+        mdIndex.put(FPConstants.COL_IDX, ParserUtils.buildColumnIndexMap(columnResults, columnNamesCaseSensitive));
+
+        final Map<String, XMLRecordElement> records = parseRecordElements(nodeList, columnNamesCaseSensitive);
+        for (final Entry<String, XMLRecordElement> record : records.entrySet()) {
+            mdIndex.put(record.getKey(), record.getValue());
+            // make a column index for non detail records
+            mdIndex.put(FPConstants.COL_IDX + "_" + record.getKey(),
+                    ParserUtils.buildColumnIndexMap(record.getValue().getColumns(), columnNamesCaseSensitive));
+        }
+        if (showDebug) {
+            setShowDebug(columnResults, records);
+        }
+        return mdIndex;
+    }
+
+    private static NodeList parseDocument(final Reader xmlStreamReader) throws IOException, ParserConfigurationException, SAXException {
+        if (xmlStreamReader == null) {
+            throw new NullPointerException("XML Reader Is Not Allowed To Be Null...");
+        }
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        final DocumentBuilder builder = factory.newDocumentBuilder();
+        builder.setEntityResolver(new ResolveLocalDTD());
+        final org.w3c.dom.Document document = builder.parse(new InputSource(xmlStreamReader));
+        return document.getDocumentElement().getChildNodes();
+    }
 
+    /**
+     * @return the &lt;RECORD&gt; elements by id, in the order of the mapping
+     */
+    private static Map<String, XMLRecordElement> parseRecordElements(final NodeList nodeList, final boolean columnNamesCaseSensitive) {
+        final Map<String, XMLRecordElement> records = new LinkedHashMap<>();
         for (int i = 0; i < nodeList.getLength(); i++) {
             final Node node = nodeList.item(i);
 
@@ -128,22 +153,16 @@ public final class MapParser {
 
                 final List<ColumnMetaData> columns = parseColumnElements(node.getChildNodes());
                 final XMLRecordElement xmlre = new XMLRecordElement();
-                xmlre.setColumns(columns, pzparser);
+                xmlre.setColumns(columns, columnNamesCaseSensitive);
                 xmlre.setIndicator(getAttributeValue(attributes, "indicator"));
                 xmlre.setElementNumber(convertAttributeToInt(getAttributeValue(attributes, "elementNumber")));
                 xmlre.setStartPosition(convertAttributeToInt(getAttributeValue(attributes, "startPosition")));
                 xmlre.setEndPositition(convertAttributeToInt(getAttributeValue(attributes, "endPosition")));
                 xmlre.setElementCount(convertAttributeToInt(getAttributeValue(attributes, "elementCount")));
-                mdIndex.put(getAttributeValue(attributes, "id"), xmlre);
-                // make a column index for non detail records
-                mdIndex.put(FPConstants.COL_IDX + "_" + getAttributeValue(attributes, "id"), ParserUtils.buidColumnIndexMap(columns, pzparser));
-
+                records.put(getAttributeValue(attributes, "id"), xmlre);
             }
         }
-        if (showDebug) {
-            setShowDebug(mdIndex);
-        }
-        return mdIndex;
+        return records;
     }
 
     private static String getAttributeValue(final NamedNodeMap attributes, final String attributeName) {
@@ -214,27 +233,22 @@ public final class MapParser {
         showDebug = b;
     }
 
-    private static void setShowDebug(final Map<String, Object> xmlResults) {
-        for (final Entry<String, Object> entry : xmlResults.entrySet()) {
-            XMLRecordElement xmlrecEle = null;
-            final String recordID = entry.getKey();
-            List<ColumnMetaData> columns = null;
-            if (recordID.equals(FPConstants.DETAIL_ID)) {
-                columns = (List<ColumnMetaData>) entry.getValue();
-            } else {
-                xmlrecEle = (XMLRecordElement) entry.getValue();
-                columns = xmlrecEle.getColumns();
-            }
+    private static void setShowDebug(final List<ColumnMetaData> detailColumns, final Map<String, XMLRecordElement> records) {
+        showDebug(FPConstants.DETAIL_ID, null, detailColumns);
+        for (final Entry<String, XMLRecordElement> entry : records.entrySet()) {
+            showDebug(entry.getKey(), entry.getValue(), entry.getValue().getColumns());
+        }
+    }
 
-            LOGGER.debug(">>>>Column MD Id:{}", recordID);
-            if (xmlrecEle != null) {
-                LOGGER.debug("Start Position: {} End Postion: {} Element Number: {} Indicator{}", xmlrecEle.getStartPosition(),
-                        xmlrecEle.getEndPositition(), xmlrecEle.getElementNumber(), xmlrecEle.getIndicator());
-            }
-            for (final ColumnMetaData cmd : columns) {
-                LOGGER.debug("Column Name: {} LENGTH: {}", cmd.getColName(), cmd.getColLength());
+    private static void showDebug(final String recordID, final XMLRecordElement xmlrecEle, final List<ColumnMetaData> columns) {
+        LOGGER.debug(">>>>Column MD Id:{}", recordID);
+        if (xmlrecEle != null) {
+            LOGGER.debug("Start Position: {} End Postion: {} Element Number: {} Indicator{}", xmlrecEle.getStartPosition(),
+                    xmlrecEle.getEndPositition(), xmlrecEle.getElementNumber(), xmlrecEle.getIndicator());
+        }
+        for (final ColumnMetaData cmd : columns) {
+            LOGGER.debug("Column Name: {} LENGTH: {}", cmd.getColName(), cmd.getColLength());
 
-            }
         }
     }
 
@@ -253,26 +267,40 @@ public final class MapParser {
      */
     public static MetaData parseMap(final Reader xmlStreamReader, final Parser pzparser)
             throws IOException, ParserConfigurationException, SAXException {
-        final Map map = parse(xmlStreamReader, pzparser);
-
-        final List<ColumnMetaData> col = (List<ColumnMetaData>) map.get(FPConstants.DETAIL_ID);
-        map.remove(FPConstants.DETAIL_ID);
-
-        final Map m = (Map) map.get(FPConstants.COL_IDX);
-        map.remove(FPConstants.COL_IDX);
-
-        // loop through the map and remove anything else that is an index of FPConstancts.COL_IDX + _
-        // these were put in for the writer.
-        // TODO maybe these should be thrown into the MetaData instead of just discarded, but they are unused
-        // in the Reader the moment. This parseMap is not utilized in the writer so it is safe to remove them here
-        final Iterator entrySetIt = map.entrySet().iterator();
-        while (entrySetIt.hasNext()) {
-            final Entry e = (Entry) entrySetIt.next();
-            if (((String) e.getKey()).startsWith(FPConstants.COL_IDX + "_")) {
-                entrySetIt.remove();
-            }
-        }
+        return parseMetaData(xmlStreamReader, pzparser == null || pzparser.isColumnNamesCaseSensitive(), false);
+    }
 
-        return new MetaData(col, m, map);
+    /**
+     * Reads the XMLDocument for a PZMetaData into an immutable MetaData, that
+     * can be shared by any number of parsers and threads, see MetaDataCache.
+     *
+     * @param xmlStreamReader
+     * @param columnNamesCaseSensitive
+     *          the column name lookups of the parsers using this MetaData
+     * @return a compiled MetaData
+     * @throws IOException
+     * @throws SAXException
+     * @throws ParserConfigurationException
+     * @since 4.0.5
+     */
+    public static MetaData compileMap(final Reader xmlStreamReader, final boolean columnNamesCaseSensitive)
+            throws IOException, ParserConfigurationException, SAXException {
+        return parseMetaData(xmlStreamReader, columnNamesCaseSensitive, true);
+    }
+
+    /**
+     * Builds the MetaData straight from the document, the column indexes of
+     * the RECORD elements that parse puts in for the writer are not needed.
+     */
+    private static MetaData parseMetaData(final Reader xmlStreamReader, final boolean columnNamesCaseSensitive, final boolean compiled)
+            throws IOException, ParserConfigurationException, SAXException {
+        final NodeList nodeList = parseDocument(xmlStreamReader);
+        final List<ColumnMetaData> columns = parseColumnElements(nodeList);
+        final Map<String, Integer> columnIndex = ParserUtils.buildColumnIndexMap(columns, columnNamesCaseSensitive);
+        final Map<String, XMLRecordElement> records = parseRecordElements(nodeList, columnNamesCaseSensitive);
+        if (showDebug) {
+            setShowDebug(columns, records);
+        }
+        return compiled ? new MetaData(columns, columnIndex, records, columnNamesCaseSensitive) : new MetaData(columns, columnIndex, records);
     }
 }
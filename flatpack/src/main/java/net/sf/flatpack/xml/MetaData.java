@@ -3,6 +3,7 @@
  */
 package net.sf.flatpack.xml;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -12,44 +13,108 @@ import java.util.Map.Entry;
 
 import net.sf.flatpack.structure.ColumnMetaData;
 import net.sf.flatpack.util.FPConstants;
+import net.sf.flatpack.util.ParserUtils;
 
 /**
+ * The columns and &lt;RECORD&gt; elements of a mapping. A compiled MetaData,
+ * see {@link #isCompiled()}, cannot be changed and can be shared by any number
+ * of parsers and threads.
+ *
  * @author Benoit Xhenseval
  *
  */
 public class MetaData {
     private List<ColumnMetaData> columnsNames;
-    private Map columnIndexMap;
+    private Map<String, Integer> columnIndexMap;
     private final Map<String, XMLRecordElement> xmlRecordElements;
+    private final RecordDispatcher recordDispatcher;
+    private final boolean compiled;
+    private final boolean columnNamesCaseSensitive;
 
-    public MetaData(final List<ColumnMetaData> columnNames, final Map columnIndexMap) {
+    public MetaData(final List<ColumnMetaData> columnNames, final Map<String, Integer> columnIndexMap) {
         this.columnsNames = Collections.unmodifiableList(columnNames);
         this.columnIndexMap = Collections.unmodifiableMap(columnIndexMap);
-        this.xmlRecordElements = new HashMap();
+        this.xmlRecordElements = new HashMap<>();
+        this.recordDispatcher = null;
+        this.compiled = false;
+        this.columnNamesCaseSensitive = false;
     }
 
-    MetaData(final List<ColumnMetaData> columnNames, final Map columnIndexMap, final Map<String, XMLRecordElement> xmlRecordElements) {
+    MetaData(final List<ColumnMetaData> columnNames, final Map<String, Integer> columnIndexMap,
+            final Map<String, XMLRecordElement> xmlRecordElements) {
         this.columnsNames = Collections.unmodifiableList(columnNames);
         this.columnIndexMap = columnIndexMap;
         this.xmlRecordElements = xmlRecordElements;
+        this.recordDispatcher = xmlRecordElements != null && !xmlRecordElements.isEmpty() ? new RecordDispatcher(xmlRecordElements) : null;
+        this.compiled = false;
+        this.columnNamesCaseSensitive = false;
+    }
+
+    MetaData(final List<ColumnMetaData> columnNames, final Map<String, Integer> columnIndexMap,
+            final Map<String, XMLRecordElement> xmlRecordElements, final boolean columnNamesCaseSensitive) {
+        this.columnsNames = Collections.unmodifiableList(columnNames != null ? columnNames : Collections.<ColumnMetaData> emptyList());
+        this.columnIndexMap = columnIndexMap != null ? Collections.unmodifiableMap(columnIndexMap) : null;
+        this.xmlRecordElements = Collections.unmodifiableMap(xmlRecordElements);
+        this.recordDispatcher = xmlRecordElements.isEmpty() ? null : new RecordDispatcher(xmlRecordElements);
+        this.compiled = true;
+        this.columnNamesCaseSensitive = columnNamesCaseSensitive;
+    }
+
+    /**
+     * @param columns
+     *          the columns of a mapping without &lt;RECORD&gt;, e.g. from a
+     *          database data definition
+     * @param columnNamesCaseSensitive
+     *          the column name lookups of the parsers using this MetaData
+     * @return a compiled MetaData
+     * @since 4.0.5
+     */
+    public static MetaData compile(final List<ColumnMetaData> columns, final boolean columnNamesCaseSensitive) {
+        return new MetaData(new ArrayList<>(columns), ParserUtils.buildColumnIndexMap(columns, columnNamesCaseSensitive),
+                Collections.<String, XMLRecordElement> emptyMap(), columnNamesCaseSensitive);
+    }
+
+    /**
+     * @return true if this MetaData cannot be changed, it was built by
+     *         compile or MapParser.compileMap
+     * @since 4.0.5
+     */
+    public boolean isCompiled() {
+        return compiled;
+    }
+
+    /**
+     * @return for a compiled MetaData, if its column index is case sensitive
+     * @since 4.0.5
+     */
+    public boolean isColumnNamesCaseSensitive() {
+        return columnNamesCaseSensitive;
     }
 
     public List<ColumnMetaData> getColumnsNames() {
         return columnsNames;
     }
 
-    public Map getColumnIndexMap() {
+    public Map<String, Integer> getColumnIndexMap() {
         return columnIndexMap;
     }
 
-    public void setColumnIndexMap(final Map columnIndexMap) {
+    public void setColumnIndexMap(final Map<String, Integer> columnIndexMap) {
+        checkNotCompiled();
         this.columnIndexMap = columnIndexMap;
     }
 
     public void setColumnsNames(final List<ColumnMetaData> columnsNames) {
+        checkNotCompiled();
         this.columnsNames = Collections.unmodifiableList(columnsNames);
     }
 
+    private void checkNotCompiled() {
+        if (compiled) {
+            throw new UnsupportedOperationException("A compiled MetaData cannot be changed");
+        }
+    }
+
     public boolean isAnyRecordFormatSpecified() {
         return xmlRecordElements != null && !xmlRecordElements.isEmpty();
     }
@@ -58,6 +123,28 @@ public class MetaData {
         return xmlRecordElements.entrySet().iterator();
     }
 
+    /**
+     * @param lineElements
+     *          the cells of a delimited line
+     * @return the key of the first &lt;RECORD&gt; matching the line, by its number
+     *         of elements or its indicator, FPConstants.DETAIL_ID if none
+     * @since 4.0.5
+     */
+    public String getDelimitedRecordKey(final List<String> lineElements) {
+        return recordDispatcher != null ? recordDispatcher.getDelimitedKey(lineElements) : FPConstants.DETAIL_ID;
+    }
+
+    /**
+     * @param line
+     *          a fixed width line
+     * @return the key of the first &lt;RECORD&gt; whose indicator is found at its
+     *         position on the line, FPConstants.DETAIL_ID if none
+     * @since 4.0.5
+     */
+    public String getFixedRecordKey(final String line) {
+        return recordDispatcher != null ? recordDispatcher.getFixedKey(line) : FPConstants.DETAIL_ID;
+    }
+
     public List<ColumnMetaData> getListColumnsForRecord(final String key) {
         return xmlRecordElements.get(key).getColumns();
     }
@@ -67,7 +154,7 @@ public class MetaData {
         if (key != null && !key.equals(FPConstants.DETAIL_ID) && !key.equals(FPConstants.COL_IDX)) {
             idx = xmlRecordElements.get(key).getColumnIndex(columnName);
         } else if (key == null || key.equals(FPConstants.DETAIL_ID)) {
-            final Integer i = (Integer) columnIndexMap.get(columnName);
+            final Integer i = columnIndexMap.get(columnName);
             if (i != null) { // happens when the col name does not exist in the
                 // mapping
                 idx = i.intValue();
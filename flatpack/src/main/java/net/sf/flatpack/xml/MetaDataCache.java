@@ -0,0 +1,229 @@
+package net.sf.flatpack.xml;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.xml.sax.SAXException;
+
+import net.sf.flatpack.util.ParserUtils;
+
+/**
+ * Bounded cache of compiled MetaData, so that parsers created over and over
+ * for the same layout do not read the pzmap or query the database each time:
+ *
+ * <pre>
+ * private static final MetaDataCache MAPPINGS = new MetaDataCache(100, 10, TimeUnit.MINUTES);
+ * ...
+ * final MetaData md = MAPPINGS.getMapping(new File("orders.pzmap.xml"), false);
+ * final Parser parser = DefaultParserFactory.getInstance().newDelimitedParser(md, reader, ',', '"', true);
+ * </pre>
+ *
+ * The least recently used entries are evicted beyond the maximum number of
+ * entries. Data definitions read from a database expire after the optional
+ * time to live, pzmaps are keyed by file and last modified time or by content
+ * hash and never expire. Thread safe; two threads missing the same entry at
+ * the same time may both load it.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+public class MetaDataCache {
+    private final int maxEntries;
+    private final long dataDefinitionTtlNanos;
+    private final Map<String, CachedMetaData> entries;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param maxEntries
+     *          number of MetaData kept
+     */
+    public MetaDataCache(final int maxEntries) {
+        this(maxEntries, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param maxEntries
+     *          number of MetaData kept
+     * @param dataDefinitionTtl
+     *          time after which a data definition is read again from the
+     *          database, 0 for never
+     * @param unit
+     *          of the time to live
+     */
+    public MetaDataCache(final int maxEntries, final long dataDefinitionTtl, final TimeUnit unit) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.dataDefinitionTtlNanos = unit.toNanos(dataDefinitionTtl);
+        this.entries = new LinkedHashMap<String, CachedMetaData>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, CachedMetaData> eldest) {
+                return size() > MetaDataCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @param pzmap
+     *          the mapping file, read again if it has been modified
+     * @param columnNamesCaseSensitive
+     *          the column name lookups of the parsers using the MetaData
+     * @return the compiled MetaData of the file
+     */
+    public MetaData getMapping(final File pzmap, final boolean columnNamesCaseSensitive)
+            throws IOException, ParserConfigurationException, SAXException {
+        final String key = "file:" + pzmap.getCanonicalPath() + ':' + pzmap.lastModified() + ':' + pzmap.length() + ':' + columnNamesCaseSensitive;
+        MetaData metaData = get(key);
+        if (metaData == null) {
+            try (Reader reader = new FileReader(pzmap)) {
+                metaData = MapParser.compileMap(reader, columnNamesCaseSensitive);
+            }
+            metaData = put(key, metaData, 0);
+        }
+        return metaData;
+    }
+
+    /**
+     * @param pzmap
+     *          the content of a mapping, keyed by its SHA-256 hash
+     * @param columnNamesCaseSensitive
+     *          the column name lookups of the parsers using the MetaData
+     * @return the compiled MetaData of the content
+     */
+    public MetaData getMapping(final String pzmap, final boolean columnNamesCaseSensitive)
+            throws IOException, ParserConfigurationException, SAXException {
+        final String key = "sha256:" + sha256(pzmap) + ':' + columnNamesCaseSensitive;
+        MetaData metaData = get(key);
+        if (metaData == null) {
+            metaData = put(key, MapParser.compileMap(new StringReader(pzmap), columnNamesCaseSensitive), 0);
+        }
+        return metaData;
+    }
+
+    /**
+     * Data definition held in the default DATAFILE and DATASTRUCTURE tables.
+     *
+     * @see #getDataDefinition(Connection, String, String, String, boolean)
+     */
+    public MetaData getDataDefinition(final Connection con, final String dataDefinition, final boolean columnNamesCaseSensitive)
+            throws SQLException {
+        return getDataDefinition(con, "DATAFILE", "DATASTRUCTURE", dataDefinition, columnNamesCaseSensitive);
+    }
+
+    /**
+     * @param con
+     *          only used if the definition is not cached or has expired
+     * @param dataFileTable
+     *          name of the DATAFILE table
+     * @param dataStructureTable
+     *          name of the DATASTRUCTURE table
+     * @param dataDefinition
+     *          Name of the data definition stored in the Datafile table
+     * @param columnNamesCaseSensitive
+     *          the column name lookups of the parsers using the MetaData
+     * @return the compiled MetaData of the data definition
+     */
+    public MetaData getDataDefinition(final Connection con, final String dataFileTable, final String dataStructureTable, final String dataDefinition,
+            final boolean columnNamesCaseSensitive) throws SQLException {
+        final String key = "db:" + dataFileTable + ':' + dataStructureTable + ':' + dataDefinition + ':' + columnNamesCaseSensitive;
+        MetaData metaData = get(key);
+        if (metaData == null) {
+            final MetaData loaded = MetaData.compile(ParserUtils.buildMDFromSQLTable(con, dataDefinition, dataFileTable, dataStructureTable),
+                    columnNamesCaseSensitive);
+            metaData = put(key, loaded, dataDefinitionTtlNanos);
+        }
+        return metaData;
+    }
+
+    private synchronized MetaData get(final String key) {
+        final CachedMetaData cached = entries.get(key);
+        if (cached != null && cached.isExpired(System.nanoTime())) {
+            entries.remove(key);
+        } else if (cached != null) {
+            hits++;
+            return cached.metaData;
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * @return the MetaData cached under that key, the one given unless
+     *         another thread has loaded it in the meantime
+     */
+    private synchronized MetaData put(final String key, final MetaData metaData, final long ttlNanos) {
+        final long now = System.nanoTime();
+        final CachedMetaData cached = entries.get(key);
+        if (cached != null && !cached.isExpired(now)) {
+            return cached.metaData;
+        }
+        entries.put(key, new CachedMetaData(metaData, ttlNanos > 0 ? now + ttlNanos : 0));
+        return metaData;
+    }
+
+    /**
+     * Removes every MetaData, e.g. after the data definitions have changed in
+     * the database.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private static String sha256(final String content) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (final byte b : digest) {
+                sb.append(Character.forDigit(b >> 4 & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            // every Java platform has SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class CachedMetaData {
+        private final MetaData metaData;
+        /** System.nanoTime after which it is read again, 0 for never. */
+        private final long expiresAt;
+
+        private CachedMetaData(final MetaData metaData, final long expiresAt) {
+            this.metaData = metaData;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(final long now) {
+            return expiresAt != 0 && now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package net.sf.flatpack.xml;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import net.sf.flatpack.util.FPConstants;
+
+/**
+ * The &lt;RECORD&gt; elements of a mapping compiled into hash tables, one per
+ * indicator position, so that the record type of a line is found with a
+ * lookup per position instead of comparing the line with every record. When
+ * several records match, the first one of the mapping wins, as when they were
+ * tried one after the other.
+ *
+ * @author Benoit Xhenseval
+ * @since 4.0.5
+ */
+final class RecordDispatcher {
+    /** indicators of the delimited records, by element number. */
+    private final IndicatorTable[] byElement;
+    /** first record for a number of elements on the line. */
+    private final Map<Integer, Integer> byElementCount = new HashMap<>();
+    /** indicators of the fixed width records, by start and end position. */
+    private final IndicatorTable[] byPosition;
+    private final String[] keys;
+
+    RecordDispatcher(final Map<String, XMLRecordElement> records) {
+        keys = new String[records.size()];
+        final Map<Integer, IndicatorTable> elements = new HashMap<>();
+        final Map<Long, IndicatorTable> positions = new HashMap<>();
+        int order = 0;
+        for (final Entry<String, XMLRecordElement> entry : records.entrySet()) {
+            final XMLRecordElement record = entry.getValue();
+            keys[order] = entry.getKey();
+            if (record.getElementCount() > 0) {
+                byElementCount.putIfAbsent(record.getElementCount(), order);
+            }
+            final String indicator = record.getIndicator();
+            if (indicator != null) {
+                if (record.getElementNumber() > 0) {
+                    elements.computeIfAbsent(record.getElementNumber(), n -> new IndicatorTable(n - 1, 0)).add(indicator, order);
+                }
+                final int start = record.getStartPosition() - 1;
+                final int end = record.getEndPositition();
+                if (start >= 0 && end - start == indicator.length()) {
+                    positions.computeIfAbsent((long) start << 32 | end, p -> new IndicatorTable(start, end)).add(indicator, order);
+                }
+            }
+            order++;
+        }
+        byElement = elements.values().toArray(new IndicatorTable[0]);
+        byPosition = positions.values().toArray(new IndicatorTable[0]);
+    }
+
+    /**
+     * @return the key of the first record matching the cells, the number of
+     *         cells or the indicator in the element, the detail id if none
+     */
+    String getDelimitedKey(final List<String> cells) {
+        final int size = cells.size();
+        final Integer counted = byElementCount.isEmpty() ? null : byElementCount.get(size);
+        int found = counted != null ? counted : Integer.MAX_VALUE;
+        for (final IndicatorTable table : byElement) {
+            if (table.start < size) {
+                final String cell = cells.get(table.start);
+                if (cell != null) {
+                    found = Math.min(found, table.find(cell));
+                }
+            }
+        }
+        return found == Integer.MAX_VALUE ? FPConstants.DETAIL_ID : keys[found];
+    }
+
+    /**
+     * @return the key of the first record whose indicator is at its position on
+     *         the line, the detail id if none
+     */
+    String getFixedKey(final String line) {
+        int found = Integer.MAX_VALUE;
+        for (final IndicatorTable table : byPosition) {
+            if (table.end <= line.length()) {
+                found = Math.min(found, table.find(line, table.start, table.end));
+            }
+        }
+        return found == Integer.MAX_VALUE ? FPConstants.DETAIL_ID : keys[found];
+    }
+
+    /**
+     * Open addressing table of indicators, looked up with the hash of a range
+     * of the line so that no substring is created.
+     */
+    private static final class IndicatorTable {
+        private final int start;
+        private final int end;
+        private final List<String> indicators = new ArrayList<>();
+        private final List<Integer> orders = new ArrayList<>();
+        private String[] slots;
+        private int[] slotOrders;
+        private int mask;
+
+        private IndicatorTable(final int start, final int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        private void add(final String indicator, final int order) {
+            if (!indicators.contains(indicator)) {
+                indicators.add(indicator);
+                orders.add(order);
+                build();
+            }
+        }
+
+        private void build() {
+            int capacity = 4;
+            while (capacity < indicators.size() * 2) {
+                capacity <<= 1;
+            }
+            slots = new String[capacity];
+            slotOrders = new int[capacity];
+            mask = capacity - 1;
+            for (int i = 0; i < indicators.size(); i++) {
+                final String indicator = indicators.get(i);
+                int slot = spread(indicator.hashCode()) & mask;
+                while (slots[slot] != null) {
+                    slot = slot + 1 & mask;
+                }
+                slots[slot] = indicator;
+                slotOrders[slot] = orders.get(i);
+            }
+        }
+
+        /**
+         * @return the order of the record with this indicator, MAX_VALUE if none
+         */
+        private int find(final String value) {
+            int slot = spread(value.hashCode()) & mask;
+            String indicator;
+            while ((indicator = slots[slot]) != null) {
+                if (indicator.equals(value)) {
+                    return slotOrders[slot];
+                }
+                slot = slot + 1 & mask;
+            }
+            return Integer.MAX_VALUE;
+        }
+
+        /**
+         * Same as find(line.substring(from, to)).
+         */
+        private int find(final String line, final int from, final int to) {
+            int hash = 0;
+            for (int i = from; i < to; i++) {
+                hash = 31 * hash + line.charAt(i);
+            }
+            int slot = spread(hash) & mask;
+            String indicator;
+            while ((indicator = slots[slot]) != null) {
+                if (indicator.length() == to - from && line.regionMatches(from, indicator, 0, to - from)) {
+                    return slotOrders[slot];
+                }
+                slot = slot + 1 & mask;
+            }
+            return Integer.MAX_VALUE;
+        }
+
+        private static int spread(final int hash) {
+            return hash ^ hash >>> 16;
+        }
+    }
+}
@@ -110,8 +110,19 @@ public class XMLRecordElement {
      *          PZParser being used.  Can be null.
      */
     public void setColumns(final List<ColumnMetaData> columnsToUse, final Parser p) {
+        setColumns(columnsToUse, p == null || p.isColumnNamesCaseSensitive());
+    }
+
+    /**
+     * @param columnsToUse
+     *            The columns to set.
+     * @param columnNamesCaseSensitive
+     *            if false, the column index uses lower cased names
+     * @since 4.0.5
+     */
+    public void setColumns(final List<ColumnMetaData> columnsToUse, final boolean columnNamesCaseSensitive) {
         this.columns = columnsToUse;
-        this.columnIndex = ParserUtils.buidColumnIndexMap(columns, p);
+        this.columnIndex = ParserUtils.buildColumnIndexMap(columns, columnNamesCaseSensitive);
     }
 
     /**
@@ -0,0 +1,187 @@
+package net.sf.flatpack;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import net.sf.flatpack.ordering.OrderBy;
+import net.sf.flatpack.ordering.OrderColumn;
+
+/**
+ * Checks that a ColumnarDataSet behaves like a DefaultDataSet.
+ *
+ * @author Benoit Xhenseval
+ */
+public class ColumnarDataSetTest extends TestCase {
+    private static final String MAPPING = "<?xml version='1.0'?>\n" //
+            + "<PZMAP>\n" //
+            + "    <RECORD id=\"header\" indicator=\"H\" elementNumber=\"1\">\n" //
+            + "        <COLUMN name=\"RECORDINDICATOR\" />\n" //
+            + "        <COLUMN name=\"HEADERDATA\" />\n" //
+            + "    </RECORD>\n" //
+            + "    <COLUMN name=\"ID\" />\n" //
+            + "    <COLUMN name=\"CITY\" />\n" //
+            + "    <COLUMN name=\"AMOUNT\" />\n" //
+            + "</PZMAP>";
+
+    private static String content() {
+        final StringBuilder sb = new StringBuilder("H,header line\n");
+        for (int i = 0; i < 5000; i++) {
+            // ID is unique so it ends up packed, CITY stays dictionary encoded
+            sb.append("id").append(i).append(',').append(i % 3 == 0 ? "London" : "Paris").append(',').append(i % 100).append('\n');
+            if (i % 1000 == 0) {
+                sb.append(",,\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static DataSet parse(final boolean columnar) {
+        final Parser p = DefaultParserFactory.getInstance().newDelimitedParser(new StringReader(MAPPING), new StringReader(content()), ',', '"',
+                false);
+        p.setFlagEmptyRows(true);
+        p.setStoreRawDataToDataSet(true);
+        p.setColumnarStorage(columnar);
+        return p.parse();
+    }
+
+    public void testSameAsDefaultDataSet() {
+        final DataSet columnar = parse(true);
+        assertTrue(columnar instanceof ColumnarDataSet);
+        ((ColumnarDataSet) columnar).trimToSize();
+        assertEquals(dump(parse(false)), dump(columnar));
+    }
+
+    public void testNavigation() {
+        final DataSet ds = parse(true);
+        assertEquals(5006, ds.getRowCount());
+        ds.absolute(0);
+        assertTrue(ds.isRecordID("header"));
+        assertEquals("header line", ds.getString("HEADERDATA"));
+        assertTrue(ds.next());
+        assertEquals("id0", ds.getString("ID"));
+        assertEquals(0, ds.getInt("AMOUNT"));
+        assertTrue(ds.next());
+        assertTrue(ds.isRowEmpty());
+        ds.goBottom();
+        assertTrue(ds.previous());
+        assertEquals("id4998", ds.getString("ID"));
+        assertEquals("London", ds.getString("CITY"));
+        assertEquals(98, ds.getInt("AMOUNT"));
+        assertEquals("id4998,London,98", ds.getRawData());
+        assertEquals(5005, ds.getRowNo());
+    }
+
+    public void testUpdates() {
+        final DataSet ds = parse(true);
+        ds.absolute(3);
+        assertEquals("id1", ds.getString("ID"));
+        ds.setValue("ID", "a much longer id than before");
+        ds.setValue("CITY", "Rome");
+        ds.remove();
+        ds.absolute(2);
+        assertTrue(ds.isRowEmpty());
+        assertTrue(ds.next());
+        assertEquals("id2", ds.getString("ID"));
+
+        ds.absolute(1);
+        ds.setValue("ID", "changed");
+        ds.absolute(1);
+        assertEquals("changed", ds.getString("ID"));
+        assertEquals("London", ds.getString("CITY"));
+        ds.absolute(2);
+        assertEquals("", ds.getString("ID"));
+    }
+
+    public void testOrderRows() {
+        final DataSet columnar = parse(true);
+        final DataSet rows = parse(false);
+        for (final DataSet ds : new DataSet[] { columnar, rows }) {
+            final OrderBy orderBy = new OrderBy();
+            orderBy.addOrderColumn(new OrderColumn("CITY", true));
+            orderBy.addOrderColumn(new OrderColumn("ID", false));
+            ds.orderRows(orderBy);
+        }
+        assertEquals(dump(rows), dump(columnar));
+    }
+
+    public void testStringColumnEncodings() {
+        final StringColumn few = new StringColumn();
+        final StringColumn unique = new StringColumn();
+        for (int i = 0; i < 3000; i++) {
+            few.add(i % 2 == 0 ? "even" : null);
+            unique.add(i % 2 == 0 ? "value " + i : null);
+        }
+        assertTrue(few.isDictionaryEncoded());
+        assertFalse(unique.isDictionaryEncoded());
+
+        unique.set(2, "longer value 2");
+        unique.set(4, "v4");
+        unique.set(6, null);
+        unique.set(7, "");
+        unique.remove(0);
+        assertEquals(2999, unique.size());
+        assertNull(unique.get(0));
+        assertEquals("longer value 2", unique.get(1));
+        assertEquals("v4", unique.get(3));
+        assertNull(unique.get(5));
+        assertEquals("", unique.get(6));
+        assertEquals("value 2998", unique.get(2997));
+        assertNull(unique.get(2998));
+        unique.trimToSize();
+        unique.add("last");
+        assertEquals("last", unique.get(2999));
+    }
+
+    public void testPackedColumnEdits() {
+        final StringColumn column = new StringColumn();
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            column.add("value " + i);
+            expected.add("value " + i);
+        }
+        assertFalse(column.isDictionaryEncoded());
+
+        // enough updates to rebuild the buffer several times, with removes and adds in between
+        final Random random = new Random(4);
+        for (int i = 0; i < 5000; i++) {
+            final int index = random.nextInt(expected.size());
+            final int action = random.nextInt(20);
+            if (action == 0) {
+                column.remove(index);
+                expected.remove(index);
+            } else if (action == 1) {
+                column.add("added " + i);
+                expected.add("added " + i);
+            } else {
+                final String value = action == 2 ? null : action == 3 ? "" : "set " + i;
+                column.set(index, value);
+                expected.set(index, value);
+                assertEquals(value, column.get(index));
+            }
+        }
+        assertEquals(expected.size(), column.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), column.get(i));
+        }
+        column.trimToSize();
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), column.get(i));
+        }
+    }
+
+    private static String dump(final DataSet ds) {
+        final StringBuilder sb = new StringBuilder();
+        ds.goTop();
+        while (ds.next()) {
+            sb.append(ds.getRowNo()).append(' ').append(ds.getRecordID()).append(' ').append(ds.isRowEmpty()).append(' ').append(ds.getRawData());
+            for (final String col : ds.getColumns(ds.getRecordID())) {
+                sb.append('|').append(ds.getString(col));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
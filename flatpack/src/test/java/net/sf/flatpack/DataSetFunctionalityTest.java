@@ -3,14 +3,21 @@ package net.sf.flatpack;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.assertj.core.util.Arrays;
 
 import junit.framework.TestCase;
+import net.sf.flatpack.ordering.OrderBy;
+import net.sf.flatpack.ordering.OrderColumn;
+import net.sf.flatpack.structure.CharSlice;
+import net.sf.flatpack.structure.Row;
 import net.sf.flatpack.util.FPConstants;
+import net.sf.flatpack.util.FPException;
 
 /**
  * Test methods in the DataSet
@@ -30,6 +37,67 @@ public class DataSetFunctionalityTest extends TestCase {
         assertEquals("column should be found...", true, ds.contains("column1"));
     }
 
+    public void testCellBuffers() {
+        final String cols = "name,qty,price\r\n  apple , 12,\"1,234.50\"\r\npear,-3,0.25\r\n";
+        final Parser p = DefaultParserFactory.getInstance().newDelimitedParser(new StringReader(cols), ',', '"');
+        p.setCellBuffers(true);
+        final DataSet ds = p.parse();
+        assertTrue(ds.next());
+        assertEquals("  apple", ds.getString("name"));
+        assertTrue(ds.getCharSequence("name") instanceof CharSlice);
+        assertEquals("  apple", ds.getCharSequence("name").toString());
+        assertEquals(12, ds.getInt("qty"));
+        assertEquals(1234.5, ds.getDouble("price"), 0);
+        ds.setValue("qty", "13");
+        assertEquals(13L, ds.getLong("qty"));
+        assertTrue(ds.next());
+        assertEquals(-3, ds.getInt("qty"));
+        assertEquals(0.25, ds.getDouble("price"), 0);
+
+        final Parser fixed = DefaultParserFactory.getInstance().newFixedLengthParser(
+                new StringReader("<?xml version='1.0'?><PZMAP><COLUMN name='A' length='3'/><COLUMN name='B' length='4'/></PZMAP>"),
+                new StringReader("ab   12\nxyz 7.5\n"));
+        fixed.setCellBuffers(true);
+        final DataSet fds = fixed.parse();
+        assertTrue(fds.next());
+        assertEquals("ab", fds.getCharSequence("A").toString());
+        assertEquals(12, fds.getInt("B"));
+        assertTrue(fds.next());
+        assertEquals(7.5, fds.getDouble("B"), 0);
+    }
+
+    public void testColumnRef() {
+        final String mapping = "<?xml version='1.0'?><PZMAP><RECORD id='header' indicator='H' elementNumber='1'>"
+                + "<COLUMN name='TYPE'/><COLUMN name='AMOUNT'/></RECORD><COLUMN name='NAME'/><COLUMN name='AMOUNT'/></PZMAP>";
+        final String data = "H,100\napple,12\npear,-3.5\nH,7\n";
+        final Parser p = DefaultParserFactory.getInstance().newDelimitedParser(new StringReader(mapping), new StringReader(data), ',', '"', false);
+        final DataSet ds = p.parse();
+        final ColumnRef amount = ds.column("amount");
+        final ColumnRef name = ColumnRef.of("Name");
+        assertTrue(ds.next());
+        assertEquals(100, ds.getInt(amount));
+        assertTrue(ds.next());
+        assertEquals("apple", ds.getString(name));
+        assertEquals("apple", ds.getCharSequence(name).toString());
+        assertEquals(12L, ds.getLong(amount));
+        assertTrue(ds.next());
+        assertEquals(-3.5, ds.getDouble(amount), 0);
+        assertEquals("-3.5", ds.getBigDecimal(amount).toString());
+        assertTrue(ds.next());
+        assertEquals(7, ds.getInt(amount));
+        try {
+            ds.getString(name);
+            fail("header has no NAME");
+        } catch (final NoSuchElementException e) {
+            // expected
+        }
+
+        final ColumnRef qty = ColumnRef.of("qty");
+        final double total = DefaultParserFactory.newCsvParser(new StringReader("name,qty\na,1\nb,2.5\nc,3\n")).stream()
+                .mapToDouble(r -> r.getDouble(qty)).sum();
+        assertEquals(6.5, total, 0);
+    }
+
     public void testContainsForStream() {
         final String cols = "column1,column2,column3\r\n value1  ,value2,value3";
         final Parser p = DefaultParserFactory.getInstance().newDelimitedParser(new StringReader(cols), ',', FPConstants.NO_QUALIFIER);
@@ -176,6 +244,45 @@ public class DataSetFunctionalityTest extends TestCase {
         assertThat(ds.count()).isZero();
     }
 
+    public void testMultiLineCells() {
+        // a qualified cell may span lines wherever it is in the record and the qualifiers are
+        // counted on the whole record; before 4.0.5 these records were rejected line by line
+        final String cols = "column1,column2\r\n\"a\r\n\",b\r\n\"c\r\nd,\r\ne\",f\r\n1,\"g,\r\nh\"\r\n2,\"i\"\"\r\nj\"\r\n";
+        final String ls = System.lineSeparator();
+        final String expected = "[3:a" + ls + "|b, 6:c" + ls + "d," + ls + "e|f, 8:1|g," + ls + "h, 10:2|i\"" + ls + "j]";
+
+        final DataSet ds = DefaultParserFactory.getInstance().newDelimitedParser(new StringReader(cols), ',', '"').parse();
+        final List<String> rows = new ArrayList<>();
+        while (ds.next()) {
+            rows.add(ds.getRowNo() + ":" + ds.getString("column1") + "|" + ds.getString("column2"));
+        }
+        assertEquals(expected, rows.toString());
+        assertEquals(0, ds.getErrorCount());
+
+        final Parser p = DefaultParserFactory.getInstance().newDelimitedParser(new StringReader(cols), ',', '"');
+        assertEquals(expected,
+                p.stream().map(r -> r.getRowNo() + ":" + r.getString("column1") + "|" + r.getString("column2")).collect(Collectors.toList()).toString());
+    }
+
+    public void testQualifierNeverClosed() {
+        // the cell runs to the end of the data, the whole record is rejected
+        final String cols = "column1,column2\r\n1,\"a\r\n2,b\r\n3,c\r\n";
+        final DataSet ds = DefaultParserFactory.getInstance().newDelimitedParser(new StringReader(cols), ',', '"').parse();
+        assertFalse(ds.next());
+        assertThat(ds.getErrors()).extracting("errorDesc").containsExactly("Odd number of Qualifier characters");
+        assertThat(ds.getErrors()).extracting("lineNo").containsExactly(4);
+    }
+
+    public void testSpacesAfterClosingQualifier() {
+        final String cols = "column1,column2\r\n\"a\"  ,b";
+        final Parser p = DefaultParserFactory.getInstance().newDelimitedParser(new StringReader(cols), ',', '"');
+        p.setPreserveTrailingWhitespace(true);
+        final DataSet ds = p.parse();
+        assertTrue(ds.next());
+        assertEquals("a", ds.getString("column1"));
+        assertEquals("b", ds.getString("column2"));
+    }
+
     public void testContainsWithStream() {
         final String cols = "column1,column2,column3\r\nvalue1,value2,value3\r\nvalue1a,value2a,value3a";
         final Parser p = DefaultParserFactory.newCsvParser(new StringReader(cols));
@@ -195,4 +302,137 @@ public class DataSetFunctionalityTest extends TestCase {
         // t.contains("column1"));
         // });
     }
+
+    public void testProjection() {
+        final String mapping = "<?xml version='1.0'?><PZMAP><RECORD id='header' indicator='H' elementNumber='1'>"
+                + "<COLUMN name='TYPE'/><COLUMN name='DATE'/></RECORD><COLUMN name='CODE'/><COLUMN name='NAME'/><COLUMN name='CITY'/></PZMAP>";
+        final String data = "H,2024-01-31\nLON, x ,London\nPAR,\"y \"\"z\"\"\", Paris \nBAD,1\n";
+        for (final boolean cellBuffers : new boolean[] { false, true }) {
+            final DataSet ds = DefaultParserFactory.getInstance().newDelimitedParser(new StringReader(mapping), new StringReader(data), ',', '"', false)
+                    .setCellBuffers(cellBuffers).setProjection("city").parse();
+            assertEquals(3, ds.getRowCount());
+            // the short record is still rejected
+            assertEquals(1, ds.getErrorCount());
+            assertTrue(ds.next());
+            assertTrue(ds.isRecordID("header"));
+            assertEquals("", ds.getString("DATE"));
+            assertTrue(ds.next());
+            assertEquals("", ds.getString("NAME"));
+            assertEquals("London", ds.getString("CITY"));
+            assertTrue(ds.next());
+            assertEquals("", ds.getString("NAME"));
+            // the leading whitespace is preserved by default
+            assertEquals(" Paris", ds.getString("CITY"));
+        }
+
+        final String fixedMapping = "<?xml version='1.0'?><PZMAP><COLUMN name='A' length='3'/><COLUMN name='B' length='4'/><COLUMN name='C' length='2'/></PZMAP>";
+        for (final boolean cellBuffers : new boolean[] { false, true }) {
+            final Parser fixed = DefaultParserFactory.getInstance()
+                    .newFixedLengthParser(new StringReader(fixedMapping), new StringReader("ab   12x \nxyz 7.5yz\nshort\n"))
+                    .setCellBuffers(cellBuffers).setProjection("B", "C");
+            assertThat(fixed.getProjection()).containsExactly("B", "C");
+            final DataSet fds = fixed.parse();
+            assertEquals(2, fds.getRowCount());
+            assertEquals(1, fds.getErrorCount());
+            assertTrue(fds.next());
+            assertEquals("", fds.getString("A"));
+            assertEquals(12, fds.getInt("B"));
+            assertEquals("x", fds.getString("C"));
+            assertTrue(fds.next());
+            assertEquals(7.5, fds.getDouble("B"), 0);
+            assertEquals("yz", fds.getString("C"));
+        }
+    }
+
+    public void testIndexes() {
+        final String mapping = "<?xml version='1.0'?><PZMAP><RECORD id='header' indicator='H' elementNumber='1'>"
+                + "<COLUMN name='TYPE'/><COLUMN name='CODE'/></RECORD><COLUMN name='CODE'/><COLUMN name='CITY'/></PZMAP>";
+        final String data = "H,LON\nLON,London\nPAR,Paris\nLON2,London\nNYC,New York\n";
+        for (final boolean columnar : new boolean[] { false, true }) {
+            final DataSet ds = DefaultParserFactory.getInstance().newDelimitedParser(new StringReader(mapping), new StringReader(data), ',', '"', false)
+                    .setColumnarStorage(columnar).addIndex("code", true).parse();
+
+            assertEquals(1, ds.indexOf("CODE", "LON"));
+            assertEquals(-1, ds.indexOf("CODE", "BRU"));
+            assertEquals("Paris", ds.findFirst("code", "PAR").get().getString("CITY"));
+            assertFalse(ds.findFirst("code", "H").isPresent());
+            // created on demand
+            assertThat(ds.findAll("city", "London").stream().map(r -> r.getString("CODE")).collect(Collectors.toList())).containsExactly("LON",
+                    "LON2");
+            assertEquals(-1, ds.getIndex());
+
+            ds.absolute(ds.indexOf("CODE", "PAR"));
+            ds.setValue("CITY", "London");
+            assertThat(ds.findAll("CITY", "London").stream().map(Record::getRowNo).collect(Collectors.toList())).containsExactly(2, 3, 4);
+            ds.setValue("CODE", "CDG");
+            assertEquals(2, ds.indexOf("CODE", "CDG"));
+            assertEquals(-1, ds.indexOf("CODE", "PAR"));
+            try {
+                ds.setValue("CODE", "NYC");
+                fail("Expected FPException");
+            } catch (final FPException e) {
+                assertThat(e.getMessage()).contains("NYC");
+            }
+            assertEquals("CDG", ds.getString("CODE"));
+
+            ds.remove();
+            assertEquals(-1, ds.indexOf("CODE", "CDG"));
+            assertEquals(3, ds.indexOf("CODE", "NYC"));
+
+            final OrderBy orderBy = new OrderBy();
+            orderBy.addOrderColumn(new OrderColumn("CODE", true));
+            ds.orderRows(orderBy);
+            // the header goes after the detail records
+            assertEquals(0, ds.indexOf("CODE", "NYC"));
+            assertThat(ds.findAll("CITY", "London").stream().map(r -> r.getString("CODE")).collect(Collectors.toList())).containsExactly("LON2",
+                    "LON");
+
+            ds.dropIndex("CITY");
+            try {
+                ds.createIndex("CITY", true);
+                fail("Expected FPException");
+            } catch (final FPException e) {
+                assertThat(e.getMessage()).contains("London");
+            }
+        }
+    }
+
+    public void testIndexesRebuiltOneByOne() {
+        final DefaultDataSet ds = (DefaultDataSet) DefaultParserFactory.getInstance().newDelimitedParser(new StringReader("A,B\n1,x\n2,y\n"), ',', '"')
+                .parse();
+        ds.createIndex("A", true);
+        ds.createIndex("B", false);
+        final Row row = new Row();
+        final List<String> cols = new ArrayList<>();
+        cols.add("1");
+        cols.add("z");
+        row.setCols(cols);
+        row.setRowNumber(4);
+        ds.addRow(row);
+
+        // the duplicate in A does not prevent the lookups on B
+        assertEquals(4, ds.findFirst("B", "z").get().getRowNo());
+        for (int i = 0; i < 2; i++) {
+            assertEquals(2, ds.indexOf("B", "z"));
+        }
+        try {
+            ds.findFirst("A", "2");
+            fail("Expected FPException");
+        } catch (final FPException e) {
+            assertThat(e.getMessage()).contains("[1]");
+        }
+        assertEquals(4, ds.findFirst("B", "z").get().getRowNo());
+        // the unique index was dropped, a non unique one is created on demand
+        assertThat(ds.findAll("A", "1")).hasSize(2);
+    }
+
+    public void testUniqueIndexAtParseTime() {
+        final Parser p = DefaultParserFactory.getInstance().newDelimitedParser(new StringReader("A,B\n1,x\n2,x\n"), ',', '"').addIndex("B", true);
+        try {
+            p.parse();
+            fail("Expected FPException");
+        } catch (final FPException e) {
+            assertThat(e.getMessage()).contains("[x]");
+        }
+    }
 }
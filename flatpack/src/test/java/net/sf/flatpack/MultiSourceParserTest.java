@@ -0,0 +1,102 @@
+package net.sf.flatpack;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import junit.framework.TestCase;
+import net.sf.flatpack.brparse.BuffReaderParseFactory;
+import net.sf.flatpack.util.FPException;
+
+public class MultiSourceParserTest extends TestCase {
+    private Path directory;
+    private final List<Path> files = new ArrayList<>();
+    private final List<String> expected = new ArrayList<>();
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("sources");
+        for (int f = 0; f < 6; f++) {
+            final StringBuilder csv = new StringBuilder("ID,NAME\n");
+            for (int i = 0; i < 1_000 * (f + 1); i++) {
+                csv.append(f).append('-').append(i).append(",name").append(i).append('\n');
+                expected.add(directory.resolve("file" + f + ".csv") + ":" + f + "-" + i);
+            }
+            csv.append("too,many,columns\n");
+            final Path file = directory.resolve("file" + f + ".csv");
+            Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+            files.add(file);
+        }
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        for (final File file : directory.toFile().listFiles()) {
+            file.delete();
+        }
+        Files.delete(directory);
+    }
+
+    private static List<String> read(final StreamingDataSet ds) {
+        return ds.stream().map(r -> r.getSource() + ":" + r.getString("ID")).collect(Collectors.toList());
+    }
+
+    public void testPreserveOrder() {
+        try (MultiSourceParser<Path>.MergedDataSet ds = MultiSourceParser.delimited(files, null, ',', '"', true, StandardCharsets.UTF_8).setThreads(3)
+                .setQueueCapacity(2).setPreserveOrder(true).parse()) {
+            assertThat(read(ds)).isEqualTo(expected);
+            assertThat(ds.getErrorCount()).isEqualTo(6);
+            assertThat(ds.getErrors().stream().map(DataError::getSource).collect(Collectors.toList()))
+                    .isEqualTo(files.stream().map(Path::toString).collect(Collectors.toList()));
+            assertThat(ds.getErrors().get(0).getLineNo()).isEqualTo(1_002);
+            assertThat(ds.getErrors().get(0).toString()).startsWith("Source:" + files.get(0) + " Line:1002");
+        }
+    }
+
+    public void testMergedAsRead() {
+        final List<String> records;
+        try (MultiSourceParser<Path>.MergedDataSet ds = MultiSourceParser.delimited(files, null, ',', '"', true, StandardCharsets.UTF_8).setThreads(4)
+                .parse()) {
+            records = read(ds);
+            assertThat(ds.next()).isFalse();
+            assertThat(ds.getErrorCount()).isEqualTo(6);
+        }
+
+        assertThat(records).containsExactlyInAnyOrder(expected.toArray(new String[0]));
+        // each file is still read in order
+        final Map<String, List<String>> bySource = new HashMap<>();
+        records.forEach(r -> bySource.computeIfAbsent(r.substring(0, r.lastIndexOf(':')), k -> new ArrayList<>()).add(r));
+        expected.forEach(r -> assertThat(bySource.get(r.substring(0, r.lastIndexOf(':'))).remove(0)).isEqualTo(r));
+    }
+
+    public void testCustomParsers() {
+        final List<String> sources = Arrays.asList("A,B\n1,2\n3,4\n", "A,B\n5,6\n");
+        final MultiSourceParser<String> parser = new MultiSourceParser<>(sources,
+                csv -> BuffReaderParseFactory.getInstance().newDelimitedParser(new StringReader(csv), ',', '"'));
+        try (MultiSourceParser<String>.MergedDataSet ds = parser.setPreserveOrder(true).parse()) {
+            assertThat(ds.stream().map(r -> r.getString("B")).collect(Collectors.toList())).containsExactly("2", "4", "6");
+        }
+    }
+
+    public void testFailedSource() {
+        final List<Path> missing = new ArrayList<>(files);
+        missing.add(1, directory.resolve("missing.csv"));
+        try (MultiSourceParser<Path>.MergedDataSet ds = MultiSourceParser.delimited(missing, null, ',', '"', true, StandardCharsets.UTF_8)
+                .setPreserveOrder(true).parse()) {
+            read(ds);
+            fail("Expected FPException");
+        } catch (final FPException e) {
+            assertThat(e.getMessage()).contains("missing.csv");
+        }
+    }
+}
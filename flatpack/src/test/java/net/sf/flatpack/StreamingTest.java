@@ -4,6 +4,7 @@ import java.io.StringReader;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import junit.framework.TestCase;
 
@@ -56,4 +57,24 @@ public class StreamingTest extends TestCase {
         assertEquals("Item", "Surface3", test.getItemName());
         assertTrue("Price", new BigDecimal("850").compareTo(test.getPrice()) == 0);
     }
+
+    public void testParallelStream() {
+        final StringBuilder cols = new StringBuilder("id,name,comment\r\n");
+        for (int i = 0; i < 5000; i++) {
+            cols.append(i).append(",name ").append(i).append(i % 10 == 0 ? ",\"quoted, comment\"\r\n" : ",plain\r\n");
+        }
+        // one row too short, it is rejected
+        cols.append("5000,short\r\n");
+        final List<String> sequential = toStrings(CsvParserFactory.newForwardParser(new StringReader(cols.toString())).stream());
+        assertEquals(5000, sequential.size());
+        assertEquals("4990|name 4990|quoted, comment", sequential.get(4990));
+
+        final StreamingDataSet ds = CsvParserFactory.newForwardParser(new StringReader(cols.toString())).parseAsStream();
+        assertEquals(sequential, toStrings(ds.parallelStream()));
+        assertEquals(1, ds.getErrorCount());
+    }
+
+    private static List<String> toStrings(final Stream<Record> records) {
+        return records.map(r -> r.getString("id") + "|" + r.getString("name") + "|" + r.getString("comment")).collect(Collectors.toList());
+    }
 }
@@ -3,11 +3,19 @@ package net.sf.flatpack.brparse;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 
 import junit.framework.TestCase;
 import net.sf.flatpack.CsvParserFactory;
+import net.sf.flatpack.DataError;
 import net.sf.flatpack.DataSet;
+import net.sf.flatpack.ErrorRetention;
 import net.sf.flatpack.Parser;
+import net.sf.flatpack.Record;
+import net.sf.flatpack.StreamingDataSet;
 
 public class BuffReaderDataSetTest extends TestCase {
     private static final String CSV = "col1,col2" + System.getProperty("line.separator") + "val1,val2";
@@ -20,4 +28,163 @@ public class BuffReaderDataSetTest extends TestCase {
         assertThat(ds.getString("col1")).isEqualToIgnoringCase("val1");
         assertThat(ds.getString("col2")).isEqualToIgnoringCase("val2");
     }
+
+    public void testCurrentRow() {
+        for (final boolean pipelined : new boolean[] { false, true }) {
+            final Parser parser = CsvParserFactory.newForwardParser(new StringReader("A,B\n1,2\n,\n"));
+            parser.setStoreRawDataToDataSet(true);
+            parser.setFlagEmptyRows(true);
+            parser.setPipelined(pipelined);
+            final DataSet ds = parser.parse();
+            try {
+                ds.contains("A");
+                fail("Expected IndexOutOfBoundsException before next()");
+            } catch (final IndexOutOfBoundsException e) {
+                // expected
+            }
+            assertThat(ds.next()).isTrue();
+            assertThat(ds.contains("A")).isTrue();
+            assertThat(ds.contains("C")).isFalse();
+            assertThat(ds.getRawData()).isEqualTo("1,2");
+            assertThat(ds.isRowEmpty()).isFalse();
+            assertThat(ds.next()).isTrue();
+            assertThat(ds.getRawData()).isEqualTo(",");
+            assertThat(ds.isRowEmpty()).isTrue();
+            assertThat(ds.next()).isFalse();
+        }
+    }
+
+    public void testErrorRetention() {
+        // 5 short records between 2 good ones
+        final StringBuilder csv = new StringBuilder("col1,col2\nok1,a\n");
+        for (int i = 1; i <= 5; i++) {
+            csv.append("bad").append(i).append('\n');
+        }
+        csv.append("ok2,b\n");
+
+        DataSet ds = parse(csv, ErrorRetention.lastErrors(2));
+        assertThat(ds.getErrorCount()).isEqualTo(5);
+        assertThat(ds.getErrors()).hasSize(2);
+        assertThat(ds.getErrors().get(0).getLineNo()).isEqualTo(6);
+        assertThat(ds.getErrors().get(1).getLineNo()).isEqualTo(7);
+        assertThat(ds.isAnError(7)).isTrue();
+        assertThat(ds.isAnError(3)).isFalse();
+        ds.clearErrors();
+        assertThat(ds.getErrorCount()).isEqualTo(0);
+        assertThat(ds.getErrors()).isEmpty();
+
+        ds = parse(csv, ErrorRetention.countOnly());
+        assertThat(ds.getErrorCount()).isEqualTo(5);
+        assertThat(ds.getErrors()).isEmpty();
+
+        final List<DataError> sunk = new ArrayList<>();
+        ds = parse(csv, ErrorRetention.sink(sunk::add));
+        assertThat(ds.getErrorCount()).isEqualTo(5);
+        assertThat(ds.getErrors()).isEmpty();
+        assertThat(sunk).hasSize(5);
+
+        ds = parse(csv, ErrorRetention.all());
+        assertThat(ds.getErrors()).hasSize(5);
+    }
+
+    public void testErrorsOfParallelStream() throws Exception {
+        final StringBuilder csv = new StringBuilder("col1,col2\n");
+        for (int i = 0; i < 20_000; i++) {
+            csv.append(i).append(i % 3 == 0 ? "\n" : ",v" + i + "\n");
+        }
+        final DataSet sequential = CsvParserFactory.newForwardParser(new StringReader(csv.toString())).parse();
+        final long rows = read(sequential).size();
+        final List<Integer> expected = sequential.getErrors().stream().map(DataError::getLineNo).collect(Collectors.toList());
+        assertThat(expected).hasSize(6_667);
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final StreamingDataSet ds = CsvParserFactory.newForwardParser(new StringReader(csv.toString())).parseAsStream();
+            // the rows, and their errors, are built by the threads of the pool
+            assertThat(pool.submit(() -> ds.parallelStream().count()).get()).isEqualTo(rows);
+            assertThat(ds.getErrorCount()).isEqualTo(expected.size());
+            assertThat(ds.getErrors().stream().map(DataError::getLineNo).sorted().collect(Collectors.toList())).isEqualTo(expected);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testPipelinedReadsSameRows() {
+        final StringBuilder csv = new StringBuilder("col1,col2\n");
+        for (int i = 0; i < 10_000; i++) {
+            csv.append(i).append(i % 1000 == 0 ? "\n" : ",\"v" + i + "\"\n");
+        }
+        final List<String> expected = read(CsvParserFactory.newForwardParser(new StringReader(csv.toString())).parse());
+        final Parser parser = CsvParserFactory.newForwardParser(new StringReader(csv.toString()));
+        assertThat(parser.setPipelined(true)).isSameAs(parser);
+        final DataSet ds = parser.parse();
+
+        assertThat(read(ds)).hasSize(9_990).isEqualTo(expected);
+        assertThat(ds.getErrorCount()).isEqualTo(10);
+        assertThat(ds.next()).isFalse();
+
+        final Parser streamed = CsvParserFactory.newForwardParser(new StringReader(csv.toString())).setPipelined(true);
+        assertThat(streamed.parseAsStream().stream().map(r -> r.getString("col1") + "=" + r.getString("col2")).collect(Collectors.toList()))
+                .isEqualTo(expected);
+    }
+
+    public void testPipelinedStopsOnClose() throws Exception {
+        final StringBuilder csv = new StringBuilder("col1,col2\n");
+        for (int i = 0; i < 100_000; i++) {
+            csv.append(i).append(",v").append(i).append('\n');
+        }
+        final Parser parser = CsvParserFactory.newForwardParser(new StringReader(csv.toString())).setPipelined(true);
+        final DataSet ds = parser.parse();
+        assertThat(ds.next()).isTrue();
+        assertThat(ds.getString("col1")).isEqualTo("0");
+        ((AutoCloseable) parser).close();
+
+        for (int i = 0; i < 100 && isPipelineRunning(); i++) {
+            Thread.sleep(10);
+        }
+        assertThat(isPipelineRunning()).isFalse();
+    }
+
+    public void testRingBuffer() {
+        final SpscRingBuffer<Integer> buffer = new SpscRingBuffer<>(3);
+        assertThat(buffer.capacity()).isEqualTo(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.poll()).isEqualTo(0);
+        assertThat(buffer.offer(4)).isTrue();
+        for (int i = 1; i <= 4; i++) {
+            assertThat(buffer.poll()).isEqualTo(i);
+        }
+        assertThat(buffer.poll()).isNull();
+    }
+
+    private static boolean isPipelineRunning() {
+        return Thread.getAllStackTraces().keySet().stream().anyMatch(t -> t.getName().startsWith("flatpack-"));
+    }
+
+    private static List<String> read(final DataSet ds) {
+        final List<String> rows = new ArrayList<>();
+        while (ds.next()) {
+            final Record record = ds.getRecord().get();
+            rows.add(record.getString("col1") + "=" + record.getString("col2"));
+        }
+        return rows;
+    }
+
+    private static DataSet parse(final CharSequence csv, final ErrorRetention errorRetention) {
+        final Parser parser = CsvParserFactory.newForwardParser(new StringReader(csv.toString()));
+        assertThat(parser.setErrorRetention(errorRetention)).isSameAs(parser);
+        final DataSet ds = parser.parse();
+        assertThat(ds.next()).isTrue();
+        assertThat(ds.getString("col1")).isEqualTo("ok1");
+        assertThat(ds.getRowNo()).isEqualTo(2);
+        assertThat(ds.next()).isTrue();
+        assertThat(ds.getString("col1")).isEqualTo("ok2");
+        assertThat(ds.getIndex()).isEqualTo(2);
+        assertThat(ds.next()).isFalse();
+        assertThat(ds.getRecord().isPresent()).isFalse();
+        return ds;
+    }
 }
@@ -0,0 +1,77 @@
+package net.sf.flatpack.converter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+import net.sf.flatpack.ColumnRef;
+import net.sf.flatpack.DataSet;
+import net.sf.flatpack.DefaultParserFactory;
+import net.sf.flatpack.Parser;
+import net.sf.flatpack.util.ParserUtils;
+
+public class ConverterRegistryTest extends TestCase {
+
+    public void testDefaultRegistryFromProperties() {
+        final ConverterRegistry registry = ConverterRegistry.getDefault();
+
+        assertThat(ConverterRegistry.getDefault()).isSameAs(registry);
+        assertThat(registry.convert("$5.00C", Double.class)).isEqualTo(5.0);
+        assertThat(registry.convert("$5.00C", Integer.class)).isEqualTo(5);
+        assertThat(registry.convert("$5.3556", BigDecimal.class)).isEqualTo(new BigDecimal("5.3556"));
+        assertThat(registry.convert("1,234,567,890,123", Long.class)).isEqualTo(1_234_567_890_123L);
+        assertThat(registry.getConverter(BigDecimal.class)).isSameAs(registry.getConverter(BigDecimal.class));
+    }
+
+    public void testPrimitiveConversion() throws Exception {
+        final ConverterRegistry registry = new ConverterRegistry(ParserUtils.loadConvertProperties());
+        registry.register(int.class, (IntConverter) s -> Integer.parseInt(s.trim(), 16));
+
+        assertThat(registry.convertInt(" ff", int.class)).isEqualTo(255);
+        assertThat(registry.convertLong("$12", Long.class)).isEqualTo(12L);
+        assertThat(registry.convertDouble("1.5", Double.class)).isEqualTo(1.5);
+        assertThat(registry.convertDouble("1.25", BigDecimal.class)).isEqualTo(1.25);
+    }
+
+    public void testForProperties() throws Exception {
+        final Properties props = ParserUtils.loadConvertProperties();
+        final ConverterRegistry registry = ConverterRegistry.forProperties(props);
+
+        assertThat(ConverterRegistry.forProperties(props)).isSameAs(registry);
+        assertThat(ConverterRegistry.forProperties(ParserUtils.loadConvertProperties())).isNotSameAs(registry);
+        final Parser parser = DefaultParserFactory.getInstance().newDelimitedParser(new StringReader("QTY\n$12\n"), ',', '"');
+        final DataSet ds = parser.parse();
+        ds.setPZConvertProps(props);
+        assertThat(ds.next()).isTrue();
+        assertThat(ds.getObject("QTY", Integer.class)).isEqualTo(12);
+        assertThat(ConverterRegistry.forProperties(props).getConverter(Integer.class))
+                .isSameAs(ConverterRegistry.forProperties(props).getConverter(Integer.class));
+    }
+
+    public void testNotRegistered() {
+        try {
+            new ConverterRegistry().convert("2018-01-01", LocalDate.class);
+            fail("Expected FPConvertException");
+        } catch (final FPConvertException e) {
+            assertThat(e.getMessage()).contains("java.time.LocalDate");
+        }
+    }
+
+    public void testParserRegistry() {
+        final ConverterRegistry registry = ConverterRegistry.getDefault();
+        final ConverterRegistry custom = new ConverterRegistry().register(LocalDate.class, LocalDate::parse);
+        final Parser parser = DefaultParserFactory.getInstance().newDelimitedParser(new StringReader("TRADE_DATE,QTY\n2018-03-04,12\n"), ',', '"');
+        assertThat(parser.getConverterRegistry()).isSameAs(registry);
+        parser.setConverterRegistry(custom);
+
+        final DataSet ds = parser.parse();
+        final ColumnRef tradeDate = ds.column("trade_date");
+        assertThat(ds.next()).isTrue();
+        assertThat(ds.getObject(tradeDate, LocalDate.class)).isEqualTo(LocalDate.of(2018, 3, 4));
+        assertThat(ds.getObject("TRADE_DATE", LocalDate.class)).isEqualTo(LocalDate.of(2018, 3, 4));
+    }
+}
@@ -0,0 +1,130 @@
+package net.sf.flatpack.metrics;
+
+import java.io.File;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.TestCase;
+import net.sf.flatpack.DataSet;
+import net.sf.flatpack.DefaultParserFactory;
+import net.sf.flatpack.Parser;
+import net.sf.flatpack.brparse.BuffReaderParseFactory;
+import net.sf.flatpack.nio.MappedDelimParser;
+
+/**
+ * Checks what the parsers report to a ParseListener.
+ *
+ * @author Benoit Xhenseval
+ */
+public class ParseMetricsTest extends TestCase {
+    /** 4 records (one on 2 lines, one too short) and a blank line. */
+    private static final String DELIMITED = "name,qty\na,1\nb,\"x\ny\"\nd\n\n";
+
+    public void testDelimited() {
+        final ParseMetrics metrics = new ParseMetrics();
+        final Parser p = DefaultParserFactory.getInstance().newDelimitedParser(new StringReader(DELIMITED), ',', '"');
+        assertSame(p, p.setParseListener(metrics));
+        final DataSet ds = p.parse();
+        assertEquals(2, ds.getRowCount());
+        assertDelimited(metrics, ds.getErrorCount());
+        assertEquals(2, metrics.getPeakRowsHeld());
+        assertTrue(metrics.getNanos(ParsePhase.READ) > 0);
+        assertTrue(metrics.getNanos(ParsePhase.SPLIT) > 0);
+        assertTrue(metrics.getNanos(ParsePhase.BUILD) > 0);
+    }
+
+    public void testBuffReaderDelimited() {
+        final ParseMetrics metrics = new ParseMetrics();
+        final Parser p = BuffReaderParseFactory.getInstance().newDelimitedParser(new StringReader(DELIMITED), ',', '"');
+        p.setParseListener(metrics);
+        final DataSet ds = p.parse();
+        int rows = 0;
+        while (ds.next()) {
+            rows++;
+        }
+        assertEquals(2, rows);
+        assertDelimited(metrics, ds.getErrorCount());
+        assertTrue(metrics.getNanos(ParsePhase.BUILD) > 0);
+    }
+
+    public void testMapped() throws Exception {
+        final File file = File.createTempFile("flatpack-metrics", ".csv");
+        try {
+            Files.write(file.toPath(), DELIMITED.getBytes(StandardCharsets.US_ASCII));
+            ParseMetrics metrics = new ParseMetrics();
+            DataSet ds = new MappedDelimParser(file, ',', '"', false).setParseListener(metrics).parse();
+            assertDelimited(metrics, ds.getErrorCount());
+            assertEquals(2, metrics.getPeakRowsHeld());
+
+            metrics = new ParseMetrics();
+            final ForkJoinPool pool = new ForkJoinPool(2);
+            try {
+                ds = new MappedDelimParser(file, ',', '"', false).setForkJoinPool(pool).setChunkSize(4).setParseListener(metrics).parse();
+            } finally {
+                pool.shutdown();
+            }
+            assertEquals(2, ds.getRowCount());
+            assertDelimited(metrics, ds.getErrorCount());
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    public void testFixed() {
+        final String mapping = "<?xml version='1.0'?><PZMAP><COLUMN name='A' length='3'/><COLUMN name='B' length='4'/></PZMAP>";
+        final String data = "ab   12\n\nxyz 7.5\nshort\n";
+        final ParseMetrics metrics = new ParseMetrics();
+        final Parser p = DefaultParserFactory.getInstance().newFixedLengthParser(new StringReader(mapping), new StringReader(data));
+        final DataSet ds = p.setParseListener(metrics).parse();
+        assertEquals(2, ds.getRowCount());
+        assertFixed(metrics, data);
+        assertEquals(2, metrics.getPeakRowsHeld());
+
+        metrics.reset();
+        assertEquals(0, metrics.getRecordsRead());
+        final DataSet br = BuffReaderParseFactory.getInstance().newFixedLengthParser(new StringReader(mapping), new StringReader(data))
+                .setParseListener(metrics).parse();
+        while (br.next()) {
+            // read them all
+        }
+        assertFixed(metrics, data);
+    }
+
+    public void testMBean() throws Exception {
+        final ParseMetrics metrics = new ParseMetrics();
+        DefaultParserFactory.getInstance().newDelimitedParser(new StringReader(DELIMITED), ',', '"').setParseListener(metrics).parse();
+        final ObjectName name = metrics.registerMBean("test, \"quoted\"");
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertTrue(server.isRegistered(name));
+            assertEquals(4L, server.getAttribute(name, "RecordsRead"));
+            server.invoke(name, "reset", null, null);
+            assertEquals(0L, metrics.getRecordsRead());
+        } finally {
+            ParseMetrics.unregisterMBean(name);
+        }
+        assertFalse(server.isRegistered(name));
+    }
+
+    private static void assertDelimited(final ParseMetrics metrics, final int errorCount) {
+        // the column names are a record
+        assertEquals(4, metrics.getRecordsRead());
+        assertEquals(DELIMITED.length(), metrics.getSizeRead());
+        assertEquals(1, metrics.getMultiLineRecords());
+        assertEquals(1, errorCount);
+        assertEquals(errorCount, metrics.getWarnings() + metrics.getErrors() + metrics.getSevereErrors());
+    }
+
+    private static void assertFixed(final ParseMetrics metrics, final String data) {
+        assertEquals(3, metrics.getRecordsRead());
+        assertEquals(data.length(), metrics.getSizeRead());
+        assertEquals(0, metrics.getMultiLineRecords());
+        assertEquals(1, metrics.getErrors());
+    }
+}
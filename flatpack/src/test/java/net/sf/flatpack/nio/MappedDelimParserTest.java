@@ -0,0 +1,401 @@
+package net.sf.flatpack.nio;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import junit.framework.TestCase;
+import net.sf.flatpack.CsvParserFactory;
+import net.sf.flatpack.DataError;
+import net.sf.flatpack.DataSet;
+import net.sf.flatpack.DelimiterParser;
+import net.sf.flatpack.ErrorRetention;
+import net.sf.flatpack.Parser;
+import net.sf.flatpack.Record;
+import net.sf.flatpack.StreamingDataSet;
+
+/**
+ * Checks that the memory-mapped parser gives the same DataSet as the
+ * Reader based DelimiterParser.
+ *
+ * @author Benoit Xhenseval
+ */
+public class MappedDelimParserTest extends TestCase {
+    private static final String MAPPING = "<?xml version='1.0'?>\n" //
+            + "<PZMAP>\n" //
+            + "    <RECORD id=\"header\" indicator=\"H\" elementNumber=\"1\">\n" //
+            + "        <COLUMN name=\"RECORDINDICATOR\" />\n" //
+            + "        <COLUMN name=\"HEADERDATA\" />\n" //
+            + "    </RECORD>\n" //
+            + "    <COLUMN name=\"FIRSTNAME\" />\n" //
+            + "    <COLUMN name=\"LASTNAME\" />\n" //
+            + "    <COLUMN name=\"CITY\" />\n" //
+            + "</PZMAP>";
+
+    private File file;
+
+    @Override
+    protected void setUp() throws Exception {
+        file = File.createTempFile("flatpack-mapped", ".csv");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    public void testSimpleFile() throws IOException {
+        final String content = "item,price,purchaseDate\r\n" //
+                + "MacBook,1890.20,20140523\r\n" //
+                + "Surface3,850.00,20140524\r\n";
+        final String result = assertSameAsDelimiterParser(content, ',', '"');
+        assertTrue(result, result.contains("row 3|item=Surface3|price=850.00|purchaseDate=20140524"));
+
+        final DataSet ds = CsvParserFactory.newMappedParser(writeFile(content, Charset.defaultCharset())).parse();
+        assertTrue(ds.next());
+        assertEquals("MacBook", ds.getString("item"));
+        assertEquals(1890.20, ds.getDouble("price"), 0.0001);
+    }
+
+    public void testQualifiedCells() throws IOException {
+        final String content = "a,b,c\n" //
+                + "\"one, two\",  spaced  ,\"say \"\"hello\"\"\"\n" //
+                + "\n" //
+                + "   \n" //
+                + "first,b,\"multi\nline\"\n" //
+                + "trailing,delimiter,\n" //
+                + "5\" pipe,\"q\"x\",end\n" //
+                + "no,final,newline";
+        final String result = assertSameAsDelimiterParser(content, ',', '"');
+        assertTrue(result, result.contains("|a=one, two|b=  spaced|c=say \"hello\""));
+        assertTrue(result, result.contains("row 6|a=first|b=b|c=multi" + System.lineSeparator() + "line"));
+        assertTrue(result, result.contains("row 9|a=no|b=final|c=newline"));
+    }
+
+    public void testMultiLineCells() throws IOException {
+        final String content = "a,b,c\r\n" //
+                + "\"multi\nline\r\nvalue\",\"\",last\r\n" //
+                + "\"with \"\"quotes\"\"\r\n\r\nand blank line\",\"y\"  ,z\r\n" //
+                + "\"never closed,x\r\n";
+        final DataSet ds = new MappedDelimParser(writeFile(content, StandardCharsets.UTF_8), ',', '"', false).setCharset(StandardCharsets.UTF_8)
+                .setWindowSize(5).parse();
+        assertTrue(ds.next());
+        assertEquals(4, ds.getRowNo());
+        assertEquals("multi" + System.lineSeparator() + "line" + System.lineSeparator() + "value", ds.getString("a"));
+        assertEquals("", ds.getString("b"));
+        assertTrue(ds.next());
+        assertEquals(7, ds.getRowNo());
+        assertEquals("with \"quotes\"" + System.lineSeparator() + System.lineSeparator() + "and blank line", ds.getString("a"));
+        assertEquals("y", ds.getString("b"));
+        assertFalse(ds.next());
+        assertEquals(1, ds.getErrorCount());
+        assertEquals("Odd number of Qualifier characters", ds.getErrors().get(0).getErrorDesc());
+        assertEquals(8, ds.getErrors().get(0).getLineNo());
+
+        // multi-line cells before the last one, with a delimiter or a doubled qualifier at the end of a line
+        assertSameAsDelimiterParser("a,b\r\n\"x\r\n\",y\r\n1,\"g,\r\nh\"\r\n2,\"i\"\"\r\nj\"\r\n", ',', '"');
+    }
+
+    public void testErrorsAndOptions() throws IOException {
+        final String content = "a;b;c\r\n" //
+                + "1;2\r\n" //
+                + "1;2;3;4\r\n" //
+                + "1;'2;3\r\n" //
+                + "  lead ; trail  ;'q'\r\n";
+        assertSameAsDelimiterParser(content, ';', '\'');
+
+        final File data = writeFile(content, StandardCharsets.UTF_8);
+        final Parser mapped = new MappedDelimParser(data, ';', '\'', false).setCharset(StandardCharsets.UTF_8);
+        final Parser delim = new DelimiterParser(new InputStreamReader(new FileInputStream(data), StandardCharsets.UTF_8), ';', '\'', false);
+        for (final Parser p : new Parser[] { mapped, delim }) {
+            p.setHandlingShortLines(true);
+            p.setIgnoreExtraColumns(true);
+            p.setPreserveLeadingWhitespace(true);
+            p.setPreserveTrailingWhitespace(true);
+            p.setStoreRawDataToDataError(true);
+            p.setStoreRawDataToDataSet(true);
+            p.setFlagEmptyRows(true);
+        }
+        assertEquals(dump(delim.parse(), true), dump(mapped.parse(), true));
+    }
+
+    public void testSmallWindowAndUtf8() throws IOException {
+        final StringBuilder content = new StringBuilder("\uFEFFname,city,comment\n");
+        for (int i = 0; i < 200; i++) {
+            content.append("né").append(i).append(",Zürich,\"a long comment, with a , in it ").append(i).append("\"\n");
+        }
+        for (final int window : new int[] { 2, 7, 64, 1024 }) {
+            final String result = assertSameAsDelimiterParser(content.toString(), ',', '"', StandardCharsets.UTF_8, window);
+            assertTrue(result, result.contains("|name=né199|city=Zürich|comment=a long comment, with a , in it 199"));
+        }
+    }
+
+    public void testWordScanning() throws IOException {
+        // short cells of a few bytes so that every position in a word gets a delimiter, qualifier or line break
+        final String[] pieces = { "a", "1", " ", "  ", "\t", ",", "\"", "\"\"", "\n", "\r\n", "\r", "é", "x y", "12345678", "\u20ac" };
+        final Random random = new Random(42);
+        for (int run = 0; run < 20; run++) {
+            final StringBuilder content = new StringBuilder("a,b,c\n");
+            for (int i = 0; i < 400; i++) {
+                content.append(pieces[random.nextInt(pieces.length)]);
+            }
+            final File data = writeFile(content.toString(), StandardCharsets.UTF_8);
+            for (final int window : new int[] { 9, 64, MappedRecordReader.DEFAULT_WINDOW_SIZE }) {
+                final String bytes = dump(parseAll(new MappedDelimParser(data, ',', '"', false).setWindowSize(window).setWordScanning(false)), true);
+                final String words = dump(parseAll(new MappedDelimParser(data, ',', '"', false).setWindowSize(window)), true);
+                assertEquals("Run " + run + " window " + window, bytes, words);
+            }
+        }
+    }
+
+    public void testParallelChunks() throws IOException {
+        final StringBuilder content = new StringBuilder("id,name,comment\r\n");
+        int rejected = 0;
+        for (int i = 0; i < 300; i++) {
+            content.append(i).append(",name ").append(i).append(',');
+            if (i % 7 == 0) {
+                content.append("\"spans\r\nthree\nlines, \"\"quoted\"\"\"");
+            } else if (i % 11 == 0) {
+                content.append("o\"dd");
+                rejected++;
+            } else if (i % 13 == 0) {
+                content.append("too,many");
+                rejected++;
+            } else {
+                content.append("plain ").append(i);
+            }
+            content.append(i % 17 == 0 ? "\r\n\r\n" : "\n");
+        }
+        final File data = writeFile(content.toString(), StandardCharsets.UTF_8);
+        final DataSet sequential = new MappedDelimParser(data, ',', '"', false).setCharset(StandardCharsets.UTF_8).parse();
+        final String expected = dump(sequential);
+        assertEquals(300 - rejected, sequential.getRowCount());
+        assertEquals(rejected, sequential.getErrorCount());
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (final long chunkSize : new long[] { 1, 5, 64, 333, 4096 }) {
+                final DataSet parallel = new MappedDelimParser(data, ',', '"', false).setCharset(StandardCharsets.UTF_8).setForkJoinPool(pool)
+                        .setChunkSize(chunkSize).setWindowSize(128).parse();
+                assertEquals("Chunk " + chunkSize, expected, dump(parallel));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public void testParallelStream() throws IOException {
+        final StringBuilder content = new StringBuilder("id,comment\n");
+        for (int i = 0; i < 2000; i++) {
+            content.append(i).append(',');
+            if (i % 5 == 0) {
+                // long multi-line cells, with lines looking like records
+                content.append("\"spans\n").append(i).append(",\"\"x\"\"\r\n,\n\"");
+            } else if (i % 97 == 0) {
+                content.append("o\"dd");
+            } else {
+                content.append("plain ").append(i);
+            }
+            content.append(i % 13 == 0 ? "\r\n\n" : "\n");
+        }
+        final File data = writeFile(content.toString(), StandardCharsets.UTF_8);
+        final DataSet ds = new MappedDelimParser(data, ',', '"', false).setCharset(StandardCharsets.UTF_8).parse();
+        final StringBuilder expected = new StringBuilder();
+        while (ds.next()) {
+            expected.append(ds.getRowNo()).append('|').append(ds.getString("id")).append('|').append(ds.getString("comment")).append('\n');
+        }
+
+        for (final long chunkSize : new long[] { 1, 100, 1000, MappedDelimParser.DEFAULT_CHUNK_SIZE }) {
+            final StreamingDataSet stream = new MappedDelimParser(data, ',', '"', false).setCharset(StandardCharsets.UTF_8).setChunkSize(chunkSize)
+                    .setWindowSize(64).parseAsStream();
+            try (Stream<Record> records = stream.parallelStream()) {
+                assertEquals("Chunk " + chunkSize, expected.toString(), toString(records));
+            }
+            assertEquals(ds.getErrorCount(), stream.getErrorCount());
+        }
+        final StreamingDataSet sequential = new MappedDelimParser(data, ',', '"', false).setCharset(StandardCharsets.UTF_8).parseAsStream();
+        assertEquals(expected.toString(), toString(sequential.stream()));
+    }
+
+    public void testStreamErrorRetention() throws IOException {
+        final StringBuilder content = new StringBuilder("id,name\n");
+        for (int i = 0; i < 20; i++) {
+            content.append(i).append(",name ").append(i).append(i % 2 == 0 ? ",too many\n" : "\n");
+        }
+        final File data = writeFile(content.toString(), StandardCharsets.UTF_8);
+        final MappedDelimParser parser = new MappedDelimParser(data, ',', '"', false);
+        parser.setErrorRetention(ErrorRetention.lastErrors(2));
+        final StreamingDataSet stream = parser.setCharset(StandardCharsets.UTF_8).parseAsStream();
+        int rows = 0;
+        while (stream.next()) {
+            rows++;
+        }
+        assertEquals(10, rows);
+        assertEquals(10, stream.getErrorCount());
+        assertEquals(2, stream.getErrors().size());
+        assertEquals(18, stream.getErrors().get(0).getLineNo());
+        assertEquals(20, stream.getErrors().get(1).getLineNo());
+
+        final MappedDelimParser counting = new MappedDelimParser(data, ',', '"', false);
+        counting.setErrorRetention(ErrorRetention.countOnly());
+        final StreamingDataSet parallel = counting.setCharset(StandardCharsets.UTF_8).setChunkSize(1).parseAsStream();
+        try (Stream<Record> records = parallel.parallelStream()) {
+            assertEquals(10, records.count());
+        }
+        assertEquals(10, parallel.getErrorCount());
+        assertTrue(parallel.getErrors().isEmpty());
+    }
+
+    public void testSmallChunksOverQualifiedLines() throws Exception {
+        // the two readings of the record boundary probes end past the split ranges, differently
+        final String content = "id,comment\r\n0,\"\n,\"\r\n1,v1\r\n2,\"\r\n ,\nx\"\" \"\r\n3,\" \"\"\"\" \r\n\"\r\n4,v4\r\n";
+        final File data = writeFile(content, StandardCharsets.UTF_8);
+        final DataSet ds = new MappedDelimParser(data, ',', '"', false).setCharset(StandardCharsets.UTF_8).parse();
+        assertEquals(5, ds.getRowCount());
+        final StringBuilder expected = new StringBuilder();
+        while (ds.next()) {
+            expected.append(ds.getRowNo()).append('|').append(ds.getString("id")).append('|').append(ds.getString("comment")).append('\n');
+        }
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (final long chunkSize : new long[] { 1, 2, 3, 4, 7 }) {
+                final Future<String> parsed = executor.submit(() -> {
+                    try (Stream<Record> stream = new MappedDelimParser(data, ',', '"', false).setCharset(StandardCharsets.UTF_8)
+                            .setChunkSize(chunkSize).parseAsStream().parallelStream()) {
+                        // every part split as far as it goes, then read in order
+                        final List<Spliterator<Record>> parts = new ArrayList<>();
+                        splitAll(stream.spliterator(), parts);
+                        final StringBuilder records = new StringBuilder();
+                        for (final Spliterator<Record> part : parts) {
+                            part.forEachRemaining(r -> records.append(r.getRowNo()).append('|').append(r.getString("id")).append('|')
+                                    .append(r.getString("comment")).append('\n'));
+                        }
+                        return records.toString();
+                    }
+                });
+                assertEquals("Chunk " + chunkSize, expected.toString(), parsed.get(30, TimeUnit.SECONDS));
+
+                try (Stream<Record> records = new MappedDelimParser(data, ',', '"', false).setCharset(StandardCharsets.UTF_8).setChunkSize(chunkSize)
+                        .parseAsStream().parallelStream()) {
+                    final StringBuilder ordered = new StringBuilder();
+                    records.forEachOrdered(r -> ordered.append(r.getRowNo()).append('|').append(r.getString("id")).append('|')
+                            .append(r.getString("comment")).append('\n'));
+                    assertEquals("Chunk " + chunkSize, expected.toString(), ordered.toString());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void splitAll(final Spliterator<Record> spliterator, final List<Spliterator<Record>> parts) {
+        final Spliterator<Record> prefix = spliterator.trySplit();
+        if (prefix == null) {
+            parts.add(spliterator);
+        } else {
+            splitAll(prefix, parts);
+            splitAll(spliterator, parts);
+        }
+    }
+
+    public void testRecordTypes() throws IOException {
+        final String content = "H,the header\n" //
+                + "John,Doe,London\n" //
+                + "Jane,Smith,Paris\n";
+        final File data = writeFile(content, StandardCharsets.UTF_8);
+        final DataSet mapped = new MappedDelimParser(new StringReader(MAPPING), data, ',', '"', false).setCharset(StandardCharsets.UTF_8).parse();
+        final DataSet delim = new DelimiterParser(new InputStreamReader(new FileInputStream(data), StandardCharsets.UTF_8), new StringReader(MAPPING),
+                ',', '"', false).parse();
+        final String result = dump(mapped);
+        assertEquals(dump(delim), result);
+        assertTrue(result, result.contains("row 1 header|RECORDINDICATOR=H|HEADERDATA=the header"));
+    }
+
+    public void testUnsupportedCharset() {
+        try {
+            new MappedDelimParser(file, ',', '"', false).setCharset(StandardCharsets.UTF_16);
+            fail("UTF-16 cannot be split at byte level");
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static String toString(final Stream<Record> records) {
+        final List<String> rows = records.map(r -> r.getRowNo() + "|" + r.getString("id") + "|" + r.getString("comment") + "\n")
+                .collect(Collectors.toList());
+        return String.join("", rows);
+    }
+
+    private String assertSameAsDelimiterParser(final String content, final char delimiter, final char qualifier) throws IOException {
+        return assertSameAsDelimiterParser(content, delimiter, qualifier, StandardCharsets.UTF_8, MappedRecordReader.DEFAULT_WINDOW_SIZE);
+    }
+
+    private String assertSameAsDelimiterParser(final String content, final char delimiter, final char qualifier, final Charset charset,
+            final int window) throws IOException {
+        final File data = writeFile(content, charset);
+        final String expected;
+        try (Reader reader = new InputStreamReader(new FileInputStream(data), charset)) {
+            expected = dump(new DelimiterParser(reader, delimiter, qualifier, false).parse());
+        }
+        final String actual = dump(new MappedDelimParser(data, delimiter, qualifier, false).setCharset(charset).setWindowSize(window).parse());
+        assertEquals("Window " + window, expected, actual);
+        return actual;
+    }
+
+    /**
+     * Parses keeping every record, its raw data and empty flag.
+     */
+    private static DataSet parseAll(final MappedDelimParser parser) {
+        return parser.setCharset(StandardCharsets.UTF_8).setHandlingShortLines(true).setIgnoreExtraColumns(true).setFlagEmptyRows(true)
+                .setStoreRawDataToDataSet(true).parse();
+    }
+
+    private File writeFile(final String content, final Charset charset) throws IOException {
+        Files.write(file.toPath(), content.getBytes(charset));
+        return file;
+    }
+
+    private static String dump(final DataSet ds) {
+        return dump(ds, false);
+    }
+
+    private static String dump(final DataSet ds, final boolean withRowFlags) {
+        final StringBuilder sb = new StringBuilder();
+        while (ds.next()) {
+            sb.append("row ").append(ds.getRowNo());
+            if (!ds.isRecordID("detail")) {
+                sb.append(' ').append(ds.getRecordID());
+            }
+            for (final String col : ds.getColumns(ds.getRecordID())) {
+                sb.append('|').append(col).append('=').append(ds.getString(col));
+            }
+            if (withRowFlags) {
+                sb.append("|empty=").append(ds.isRowEmpty()).append("|raw=").append(ds.getRawData());
+            }
+            sb.append('\n');
+        }
+        for (final DataError error : ds.getErrors()) {
+            sb.append("error ").append(error.getLineNo()).append('|').append(error.getErrorLevel()).append('|').append(error.getErrorDesc())
+                    .append('|').append(error.getRawData()).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,179 @@
+package net.sf.flatpack.ordering;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import net.sf.flatpack.DataSet;
+import net.sf.flatpack.DefaultParserFactory;
+import net.sf.flatpack.Parser;
+import net.sf.flatpack.Record;
+import net.sf.flatpack.brparse.BuffReaderParseFactory;
+import net.sf.flatpack.writer.DelimiterWriterFactory;
+import net.sf.flatpack.writer.Writer;
+
+public class ExternalSorterTest extends TestCase {
+    private static final String MAPPING = "<?xml version='1.0'?>\n" //
+            + "<PZMAP>\n" //
+            + "    <RECORD id=\"header\" elementNumber=\"1\" indicator=\"H\">\n" //
+            + "        <COLUMN name=\"TYPE\" />\n" //
+            + "        <COLUMN name=\"TEXT\" />\n" //
+            + "    </RECORD>\n" //
+            + "    <COLUMN name=\"TYPE\" />\n" //
+            + "    <COLUMN name=\"ID\" />\n" //
+            + "    <COLUMN name=\"NAME\" />\n" //
+            + "    <COLUMN name=\"AMOUNT\" />\n" //
+            + "    <COLUMN name=\"TRADE_DATE\" />\n" //
+            + "</PZMAP>\n";
+    private static final String[] NAMES = { "alice", "Bob", "bob", "Charlie", "dominique", "Eve", "Zoë" };
+
+    private File tempDirectory;
+    private String data;
+
+    @Override
+    protected void setUp() throws Exception {
+        tempDirectory = Files.createTempDirectory("sorter").toFile();
+        final Random random = new Random(11);
+        final StringBuilder sb = new StringBuilder("H,first header\n");
+        for (int i = 0; i < 5_000; i++) {
+            sb.append("D,").append(i).append(',').append(NAMES[random.nextInt(NAMES.length)]).append(",$").append(random.nextInt(20)).append(',')
+                    .append(i % 500 == 0 ? "" : "2018-0" + (1 + random.nextInt(9)) + "-1" + random.nextInt(10)).append('\n');
+            if (i == 2_500) {
+                sb.append("H,second header\n");
+            }
+        }
+        data = sb.toString();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        for (final File file : tempDirectory.listFiles()) {
+            file.delete();
+        }
+        tempDirectory.delete();
+    }
+
+    private static OrderBy orderBy() {
+        final OrderBy orderBy = new OrderBy();
+        orderBy.addOrderColumn(new OrderColumn("NAME", false));
+        orderBy.addOrderColumn(new OrderColumn("AMOUNT", true, OrderColumn.COLTYPE_NUMERIC));
+        final OrderColumn date = new OrderColumn("TRADE_DATE", false, OrderColumn.COLTYPE_DATE);
+        date.setDateFormatPattern("yyyy-MM-dd");
+        orderBy.addOrderColumn(date);
+        return orderBy;
+    }
+
+    private Parser newParser() {
+        return BuffReaderParseFactory.getInstance().newDelimitedParser(new StringReader(MAPPING), new StringReader(data), ',', '"', false);
+    }
+
+    private List<String> sortedInMemory() {
+        final DataSet ds = DefaultParserFactory.getInstance().newDelimitedParser(new StringReader(MAPPING), new StringReader(data), ',', '"', false)
+                .parse();
+        ds.orderRows(orderBy());
+        final List<String> rows = new ArrayList<>();
+        while (ds.next()) {
+            rows.add(ds.isRecordID("header") ? ds.getString("TEXT") : ds.getString("ID") + ":" + ds.getRowNo());
+        }
+        return rows;
+    }
+
+    private static List<String> read(final ExternalSorter.SortedDataSet ds) {
+        final List<String> rows = new ArrayList<>();
+        while (ds.next()) {
+            final Record record = ds.getRecord().get();
+            rows.add(record.isRecordID("header") ? record.getString("TEXT") : record.getString("ID") + ":" + record.getRowNo());
+        }
+        return rows;
+    }
+
+    public void testMergedRunsMatchOrderRows() throws Exception {
+        final List<String> expected = sortedInMemory();
+        try (ExternalSorter.SortedDataSet ds = new ExternalSorter(orderBy()).setTempDirectory(tempDirectory).setMaxRunRows(300).sort(newParser())) {
+            assertThat(tempDirectory.list()).hasSize(18);
+            assertThat(read(ds)).isEqualTo(expected);
+            assertThat(ds.next()).isFalse();
+        }
+        assertThat(tempDirectory.list()).isEmpty();
+        assertThat(expected.subList(expected.size() - 2, expected.size())).containsExactly("first header", "second header");
+    }
+
+    public void testMergePasses() throws Exception {
+        final List<String> expected = sortedInMemory();
+        try (ExternalSorter.SortedDataSet ds = new ExternalSorter(orderBy()).setTempDirectory(tempDirectory).setMaxRunRows(1).setMaxMergeWidth(3)
+                .sort(newParser())) {
+            // 3 merged runs and the headers
+            assertThat(tempDirectory.list()).hasSize(4);
+            assertThat(read(ds)).isEqualTo(expected);
+        }
+        assertThat(tempDirectory.list()).isEmpty();
+    }
+
+    public void testMaxMergeWidth() {
+        try {
+            new ExternalSorter(orderBy()).setMaxMergeWidth(1);
+            fail("a merge needs 2 runs");
+        } catch (final IllegalArgumentException e) {
+            assertThat(e.getMessage()).isEqualTo("maxMergeWidth must be at least 2: 1");
+        }
+    }
+
+    public void testSingleRunStaysInMemory() throws Exception {
+        try (ExternalSorter.SortedDataSet ds = new ExternalSorter(orderBy()).setTempDirectory(tempDirectory).sort(newParser())) {
+            assertThat(tempDirectory.list()).hasSize(1);
+            assertThat(read(ds)).isEqualTo(sortedInMemory());
+        }
+        assertThat(tempDirectory.list()).isEmpty();
+    }
+
+    public void testCloseDeletesRuns() throws Exception {
+        final ExternalSorter.SortedDataSet ds = new ExternalSorter(orderBy()).setTempDirectory(tempDirectory).setMaxRunBytes(50_000).sort(newParser());
+        assertThat(tempDirectory.list().length).isGreaterThan(2);
+        assertThat(ds.next()).isTrue();
+        ds.close();
+        assertThat(tempDirectory.list()).isEmpty();
+    }
+
+    public void testSortToWriter() throws Exception {
+        final StringWriter out = new StringWriter();
+        final DelimiterWriterFactory factory = new DelimiterWriterFactory(',', '"').addColumnTitle("TYPE").addColumnTitle("ID")
+                .addColumnTitle("NAME").addColumnTitle("AMOUNT").addColumnTitle("TRADE_DATE");
+        final int count;
+        try (Writer writer = factory.createWriter(out)) {
+            count = new ExternalSorter(orderBy()).setTempDirectory(tempDirectory).setMaxRunRows(1_000).sort(newParser(), writer);
+        }
+
+        assertThat(count).isEqualTo(5_000);
+        final List<String> ids = new ArrayList<>();
+        for (final String line : out.toString().split("\\R")) {
+            if (line.startsWith("D,")) {
+                ids.add(line.split(",")[1]);
+            }
+        }
+        final List<String> expected = new ArrayList<>();
+        for (final String row : sortedInMemory()) {
+            if (row.indexOf(':') > 0) {
+                expected.add(row.substring(0, row.indexOf(':')));
+            }
+        }
+        assertThat(ids).isEqualTo(expected);
+        assertThat(tempDirectory.list()).isEmpty();
+    }
+
+    public void testEmptyFile() throws Exception {
+        data = "";
+        try (ExternalSorter.SortedDataSet ds = new ExternalSorter(orderBy()).sort(newParser())) {
+            assertThat(ds.next()).isFalse();
+            assertThat(ds.getRecord().isPresent()).isFalse();
+        }
+        assertThat(Arrays.asList(tempDirectory.list())).isEmpty();
+    }
+}
@@ -0,0 +1,78 @@
+package net.sf.flatpack.ordering;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import net.sf.flatpack.DataSet;
+import net.sf.flatpack.DefaultParserFactory;
+
+public class OrderByTest extends TestCase {
+    private static final String MAPPING = "<?xml version='1.0'?>\n" //
+            + "<PZMAP>\n" //
+            + "    <RECORD id=\"header\" elementNumber=\"1\" indicator=\"H\">\n" //
+            + "        <COLUMN name=\"TYPE\" />\n" //
+            + "        <COLUMN name=\"TEXT\" />\n" //
+            + "    </RECORD>\n" //
+            + "    <RECORD id=\"trailer\" elementNumber=\"1\" indicator=\"T\">\n" //
+            + "        <COLUMN name=\"TYPE\" />\n" //
+            + "        <COLUMN name=\"TEXT\" />\n" //
+            + "    </RECORD>\n" //
+            + "    <COLUMN name=\"TYPE\" />\n" //
+            + "    <COLUMN name=\"ID\" />\n" //
+            + "    <COLUMN name=\"NAME\" />\n" //
+            + "    <COLUMN name=\"AMOUNT\" />\n" //
+            + "    <COLUMN name=\"TRADE_DATE\" />\n" //
+            + "</PZMAP>\n";
+    private static final String[] NAMES = { "alice", "Bob", "bob", "Charlie", "dominique", "Eve" };
+
+    public void testSortKeysMatchComparator() {
+        final Random random = new Random(7);
+        final StringBuilder data = new StringBuilder("H,first header\n");
+        final List<String[]> expected = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            final String[] cells = { "D", String.valueOf(i), NAMES[random.nextInt(NAMES.length)], "$" + random.nextInt(50) + ".5",
+                    "2018-0" + (1 + random.nextInt(9)) + "-1" + random.nextInt(10) };
+            if (i % 1000 == 0) {
+                cells[4] = "not a date";
+            }
+            expected.add(cells);
+            data.append(String.join(",", cells)).append('\n');
+            if (i == 10_000) {
+                data.append("H,second header\n");
+            }
+        }
+        data.append("T,trailer\n");
+
+        final DataSet ds = DefaultParserFactory.getInstance().newDelimitedParser(new StringReader(MAPPING), new StringReader(data.toString()), ',',
+                '"', false).parse();
+        final OrderBy orderBy = new OrderBy();
+        orderBy.addOrderColumn(new OrderColumn("NAME", false));
+        orderBy.addOrderColumn(new OrderColumn("AMOUNT", true, OrderColumn.COLTYPE_NUMERIC));
+        final OrderColumn date = new OrderColumn("TRADE_DATE", false, OrderColumn.COLTYPE_DATE);
+        date.setDateFormatPattern("yyyy-MM-dd");
+        orderBy.addOrderColumn(date);
+        ds.orderRows(orderBy);
+
+        expected.sort(Comparator.<String[], String> comparing(c -> c[2].toLowerCase(Locale.getDefault()))
+                .thenComparing(Comparator.<String[]> comparingDouble(c -> Double.parseDouble(c[3].substring(1))).reversed())
+                .thenComparing(c -> c[4].startsWith("not") ? "1900" : c[4]));
+        for (final String[] cells : expected) {
+            assertThat(ds.next()).isTrue();
+            assertThat(ds.getString("ID")).isEqualTo(cells[1]);
+        }
+        assertThat(ds.next()).isTrue();
+        assertThat(ds.getString("TEXT")).isEqualTo("first header");
+        assertThat(ds.next()).isTrue();
+        assertThat(ds.getString("TEXT")).isEqualTo("second header");
+        assertThat(ds.next()).isTrue();
+        assertThat(ds.getString("TEXT")).isEqualTo("trailer");
+        assertThat(ds.next()).isFalse();
+    }
+}
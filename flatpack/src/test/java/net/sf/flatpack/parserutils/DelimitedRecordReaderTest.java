@@ -0,0 +1,133 @@
+package net.sf.flatpack.parserutils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.sf.flatpack.structure.CellBuffer;
+import net.sf.flatpack.util.DelimitedRecordReader;
+import net.sf.flatpack.util.ParserUtils;
+
+/**
+ * Checks the records and cells found by the DelimitedRecordReader, whatever
+ * the size of its buffer.
+ *
+ * @author Benoit Xhenseval
+ */
+public class DelimitedRecordReaderTest extends TestCase {
+    private static final String LINE_BREAK = System.lineSeparator();
+
+    public void testSameCellsAsSplitLine() throws IOException {
+        final String[] lines = { "a,b,c", "  a , b ,c  ", "\"a,b\",\"c\"\"d\"", "a,,\"\",c", "a\"b,c", ",", "\t x\t,y", "\"a\"  ,b",
+                "  \"c\"\"d\" , \"e\"  " };
+        for (final int size : new int[] { 16, 17, 64, DelimitedRecordReader.DEFAULT_BUFFER_SIZE }) {
+            final DelimitedRecordReader reader = new DelimitedRecordReader(new StringReader(String.join("\r\n", lines)), ',', '"', size);
+            for (final String line : lines) {
+                assertTrue(line, reader.nextRecord());
+                for (final boolean preserve : new boolean[] { false, true }) {
+                    final List<String> expected = ParserUtils.splitLine(line, ',', '"', 10, preserve, preserve);
+                    assertEquals(line, expected, reader.getCells(preserve, preserve));
+                    final CellBuffer cells = reader.getCellBuffer(preserve, preserve);
+                    assertEquals(line, expected, cells.toList());
+                    // only the second cell
+                    final List<String> projected = new ArrayList<>(Collections.nCopies(expected.size(), ""));
+                    if (expected.size() > 1) {
+                        projected.set(1, expected.get(1));
+                    }
+                    final boolean[] projection = { false, true };
+                    assertEquals(line, projected, reader.getCells(preserve, preserve, projection));
+                    assertEquals(line, projected, reader.getCellBuffer(preserve, preserve, projection).toList());
+                }
+                assertEquals(line, reader.getRawRecord());
+            }
+            assertFalse(reader.nextRecord());
+        }
+    }
+
+    public void testSpacesAroundQualifiedCell() throws IOException {
+        // the spaces between the qualifier and the delimiter are not part of the cell
+        final DelimitedRecordReader reader = new DelimitedRecordReader(new StringReader("  \"a\"  ,b"), ',', '"');
+        assertTrue(reader.nextRecord());
+        assertEquals("[a, b]", reader.getCells(true, true).toString());
+        assertEquals(ParserUtils.splitLine("  \"a\"  ,b", ',', '"', 10, true, true), reader.getCells(true, true));
+    }
+
+    public void testMultiLineRecords() throws IOException {
+        final String data = "﻿id,text\n\n1,\"two\r\nlines\"\n  \n2,\"a \"\"quoted\"\"\nword\"\n3,last";
+        final DelimitedRecordReader reader = new DelimitedRecordReader(new StringReader(data), ',', '"', 16);
+        assertTrue(reader.nextRecord());
+        assertEquals(1, reader.getRecordLineNumber());
+        assertEquals("[id, text]", reader.getCells(false, false).toString());
+
+        assertTrue(reader.nextRecord());
+        assertTrue(reader.isMultiLine());
+        assertEquals(4, reader.getRecordLineNumber());
+        assertEquals("two" + LINE_BREAK + "lines", reader.getCell(1, false, false));
+        assertEquals("1,\"two" + LINE_BREAK + "lines\"", reader.getRawRecord());
+
+        assertTrue(reader.nextRecord());
+        assertEquals(7, reader.getRecordLineNumber());
+        assertEquals("a \"quoted\"" + LINE_BREAK + "word", reader.getCell(1, false, false));
+        assertFalse(reader.hasOddNumberOfQualifiers());
+
+        assertTrue(reader.nextRecord());
+        assertFalse(reader.isMultiLine());
+        assertEquals(8, reader.getRecordLineNumber());
+        assertEquals("last", reader.getCell(1, false, false));
+        assertFalse(reader.nextRecord());
+        assertEquals(data.length(), reader.getCharsRead());
+        assertEquals(7, reader.getLinesRead());
+    }
+
+    public void testLongQualifiedCell() throws IOException {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            text.append("line ").append(i).append('\n');
+        }
+        final DelimitedRecordReader reader = new DelimitedRecordReader(new StringReader("1,\"" + text + "\",x\n2,y,z\n"), ',', '"', 16);
+        assertTrue(reader.nextRecord());
+        final List<String> cells = reader.getCells(false, false);
+        assertEquals(3, cells.size());
+        assertEquals(text.toString().replace("\n", LINE_BREAK), cells.get(1));
+        assertEquals(50_001, reader.getRecordLineNumber());
+        assertTrue(reader.nextRecord());
+        assertEquals(new ArrayList<>(Arrays.asList("2", "y", "z")), reader.getCells(false, false));
+    }
+
+    public void testRecordReadAsItArrives() throws IOException {
+        // a pipe: each read returns what has arrived and the next one would block
+        final Deque<String> chunks = new ArrayDeque<>(Arrays.asList("a,b\nc", ",d\n"));
+        final int[] reads = new int[1];
+        final Reader pipe = new Reader() {
+            @Override
+            public int read(final char[] cbuf, final int off, final int len) {
+                reads[0]++;
+                if (chunks.isEmpty()) {
+                    return -1;
+                }
+                final String chunk = chunks.poll();
+                chunk.getChars(0, chunk.length(), cbuf, off);
+                return chunk.length();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        final DelimitedRecordReader reader = new DelimitedRecordReader(pipe, ',', '"');
+        assertTrue(reader.nextRecord());
+        assertEquals(Arrays.asList("a", "b"), reader.getCells(false, false));
+        assertEquals(1, reads[0]);
+        assertTrue(reader.nextRecord());
+        assertEquals(Arrays.asList("c", "d"), reader.getCells(false, false));
+        assertEquals(2, reads[0]);
+        assertFalse(reader.nextRecord());
+    }
+}
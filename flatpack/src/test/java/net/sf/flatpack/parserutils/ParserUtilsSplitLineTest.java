@@ -2,9 +2,12 @@ package net.sf.flatpack.parserutils;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.Arrays;
 import java.util.List;
 
 import junit.framework.TestCase;
+import net.sf.flatpack.structure.CellBuffer;
+import net.sf.flatpack.structure.CharSlice;
 import net.sf.flatpack.util.FPConstants;
 import net.sf.flatpack.util.ParserUtils;
 import net.sf.flatpack.utilities.UnitTestUtils;
@@ -206,6 +209,19 @@ public class ParserUtilsSplitLineTest extends TestCase {
         }
     }
 
+    /**
+     * The spaces between a closing qualifier and the delimiter or the end of
+     * the line are not part of the cell, as for the parsers.
+     */
+    public void testSpacesAfterClosingQualifier() {
+        check("\"a\" ,b", ',', '\"', new String[] { "a", "b" });
+        check("\"a\"   ,\"b\"  ", ',', '\"', new String[] { "a", "b" });
+        check("\"a \"\" b\"  ,c", ',', '\"', new String[] { "a \" b", "c" });
+        check("\"a\" b\"  ,c", ',', '\"', new String[] { "a\" b", "c" });
+        assertEquals(Arrays.asList("a", " b"), ParserUtils.splitLine("\"a\"  , b", ',', '\"', 10, true, true));
+        assertEquals(Arrays.asList("a", "b"), ParserUtils.splitLine("\"a\",\"b\"  ", ',', '\"', 10, true, true));
+    }
+
     public void testMultilineExtreme() {
         // Test without qualifier
         final List results = ParserUtils.splitLine("col1,col2,col3", ',', '"', 1, true, true);
@@ -236,6 +252,49 @@ public class ParserUtilsSplitLineTest extends TestCase {
         assertThat(results4.get(2)).isEqualTo("\r\n");
     }
 
+    public void testCellBuffer() {
+        final String[] lines = { "  a , \"b, \"\"c\"\"\"  ,d  ", "\"col1\r\n\",\"\r\ncol2\",\"\r\n", "x,,\",\",\"\"", "", "single" };
+        for (final String line : lines) {
+            for (final boolean preserve : new boolean[] { true, false }) {
+                final List<String> expected = ParserUtils.splitLine(line, ',', '"', 10, preserve, preserve);
+                final CellBuffer cells = ParserUtils.splitLineToCells(line, ',', '"', 10, preserve, preserve);
+                assertEquals(line, expected, cells);
+                for (int i = 0; i < cells.size(); i++) {
+                    assertEquals(line, expected.get(i), cells.getCharSequence(i).toString());
+                }
+            }
+        }
+
+        final CellBuffer cells = ParserUtils.splitLineToCells("one,two,three", ',', '"', 1, false, false);
+        assertTrue(cells.getCharSequence(1) instanceof CharSlice);
+        assertEquals("wo", cells.getCharSequence(1).subSequence(1, 3).toString());
+        cells.set(1, "2");
+        cells.add("four");
+        assertEquals(Arrays.asList("one", "2", "three", "four"), cells);
+        assertEquals(Arrays.asList("2", "three"), cells.subList(1, 3));
+        assertFalse(cells.isBlank());
+        assertTrue(ParserUtils.splitLineToCells(" , \t,", ',', '"', 1, true, true).isBlank());
+    }
+
+    public void testProjection() {
+        final String[] lines = { "  a , \"b, \"\"c\"\"\"  ,d  ", "\"col1\r\n\",\"\r\ncol2\",\"\r\n", "x,,\",\",\"\"", "", "single", "1,2,3,\"4\"" };
+        final boolean[][] projections = { { true, false, true }, { false, true }, { false, false, false, true }, {} };
+        for (final String line : lines) {
+            for (final boolean[] projection : projections) {
+                final List<String> expected = ParserUtils.splitLine(line, ',', '"', 10, false, false);
+                final List<String> projected = ParserUtils.splitLine(line, ',', '"', 10, false, false, projection);
+                final CellBuffer cells = ParserUtils.splitLineToCells(line, ',', '"', 10, false, false, projection);
+                assertEquals(line, expected.size(), projected.size());
+                assertEquals(line, expected.size(), cells.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    final String value = i < projection.length && projection[i] ? expected.get(i) : "";
+                    assertEquals(line, value, projected.get(i));
+                    assertEquals(line, value, cells.getCharSequence(i).toString());
+                }
+            }
+        }
+    }
+
     public static void main(final String[] args) {
         junit.textui.TestRunner.run(ParserUtilsSplitLineTest.class);
     }
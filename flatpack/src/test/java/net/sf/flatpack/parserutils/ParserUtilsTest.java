@@ -6,9 +6,11 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Properties;
+import java.util.function.Supplier;
 
 import junit.framework.TestCase;
 import net.sf.flatpack.util.FPConstants;
+import net.sf.flatpack.util.FPStringUtils;
 import net.sf.flatpack.util.ParserUtils;
 
 /**
@@ -51,6 +53,49 @@ public class ParserUtilsTest extends TestCase {
         assertEquals("expecting...", stripRes, expected);
     }
 
+    public void testParseFromCharSequence() {
+        final String[] values = { "10", "-10", "0", "-0", "  $10.00   ", "- $ 1 0 . 0 0 ", "1a2b3c4d.01234", "-", "", ".", "-.", "1.2.3", "1-2",
+                "--1", "+5", "1e3", "123456789012345", "1234567890123456789", "99999999999999999999", "2147483648", "0.1", "3.14159",
+                ".5", "5.", "1.5d", " 7 ", "1.50", "100.5", "1.005", "0.000123", "12.500000000000000000", "000000000000000000001", "1e22",
+                "1e23", "1E-5", "-1.5e+3", "1e", "1e+", ".e2", "1.e2", "+.5", "\t2.5\n", "+-1", "9007199254740993", "9223372036854775807",
+                "-9223372036854775808", "9223372036854775808", "NaN", "0x10", "1.1f", "1,234.56", "4.9e-324", "1e99999999999" };
+        for (final String value : values) {
+            for (final boolean strict : new boolean[] { true, false }) {
+                final CharSequence cs = new StringBuilder(value);
+                final String longValue = strict ? value : ParserUtils.stripNonLongChars(value);
+                final String doubleValue = strict ? value : ParserUtils.stripNonDoubleChars(value);
+                final String message = "[" + value + "] strict " + strict;
+                assertEquals(message, outcome(() -> Long.parseLong(longValue)), outcome(() -> ParserUtils.parseLong(cs, strict)));
+                assertEquals(message, outcome(() -> Integer.parseInt(longValue)), outcome(() -> ParserUtils.parseInt(cs, strict)));
+                assertEquals(message, outcome(() -> Double.parseDouble(doubleValue)), outcome(() -> ParserUtils.parseDouble(cs, strict)));
+            }
+        }
+    }
+
+    public void testParseBigDecimal() {
+        final String[] values = { "10", "-10.50", "+5", "5.", ".5", "-0.0", "1,234,567.89", " 1,234 ", ",", " , ", "", "  ", "-", "1 2", "1.2.3",
+                "1e3", "$5", "12345678901234567890.5", "0.000000000000000001", "\u2003" };
+        for (final String value : values) {
+            final Object expected = outcome(() -> {
+                if (FPStringUtils.isBlank(value)) {
+                    return null;
+                }
+                final String s = ParserUtils.replace(value, ",", "", -1).trim();
+                return FPStringUtils.isBlank(s) ? null : new BigDecimal(s);
+            });
+            assertEquals("[" + value + "]", expected, outcome(() -> ParserUtils.parseBigDecimal(new StringBuilder(value))));
+        }
+        assertNull(ParserUtils.parseBigDecimal(null));
+    }
+
+    private static Object outcome(final Supplier<Object> parse) {
+        try {
+            return parse.get();
+        } catch (final NumberFormatException e) {
+            return "NumberFormatException";
+        }
+    }
+
     public void testPZConverter() throws IOException {
         final Properties convertProps = ParserUtils.loadConvertProperties();
 
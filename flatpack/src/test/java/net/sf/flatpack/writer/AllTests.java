@@ -14,6 +14,7 @@ public class AllTests {
         // $JUnit-BEGIN$
         suite.addTestSuite(DelimiterWriterTest.class);
         suite.addTestSuite(FixedLengthWriterTest.class);
+        suite.addTestSuite(TranscoderTest.class);
         // $JUnit-END$
         return suite;
     }
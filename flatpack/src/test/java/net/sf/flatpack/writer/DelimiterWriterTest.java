@@ -195,6 +195,39 @@ public class DelimiterWriterTest extends PZWriterTestCase {
         Assert.assertEquals(expected, out.toString());
     }
 
+    public void testWriteByIndex() throws Exception {
+        final DelimiterWriterFactory factory = new DelimiterWriterFactory(';', '"').addColumnTitle("ID").addColumnTitle("QTY")
+                .addColumnTitle("PRICE").addColumnTitle("NAME").addColumnTitle("CODE");
+
+        final StringWriter out = new StringWriter();
+        final Writer writer = factory.createWriter(out);
+        final int id = writer.getColumnIndex("ID");
+        final int qty = writer.getColumnIndex("QTY");
+        final int price = writer.getColumnIndex("PRICE");
+        final int name = writer.getColumnIndex("NAME");
+        final int code = writer.getColumnIndex("CODE");
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= 2; i++) {
+            sb.setLength(0);
+            sb.append("name \"").append(i).append("\"");
+            writer.addRecordEntry(code, new char[] { 'C', (char) ('0' + i) }).addRecordEntry(id, 10_000_000_000L * i).addRecordEntry(qty, -i)
+                    .addRecordEntry(price, 2.5 * i).addRecordEntry(name, sb).nextRecord();
+        }
+        writer.addRecordEntry("NAME", "by;name").nextRecord();
+        writer.flush();
+
+        Assert.assertEquals("ID;QTY;PRICE;NAME;CODE" + System.lineSeparator() //
+                + "10000000000;-1;2.5;\"name \"\"1\"\"\";C1" + System.lineSeparator() //
+                + "20000000000;-2;5.0;\"name \"\"2\"\"\";C2" + System.lineSeparator() //
+                + ";;;\"by;name\";" + System.lineSeparator(), out.toString());
+        try {
+            writer.getColumnIndex("UNKNOWN");
+            Assert.fail("Expected IllegalArgumentException");
+        } catch (final IllegalArgumentException e) {
+            // expected
+        }
+    }
+
     public void testWriteMultiLine() throws Exception {
         final DelimiterWriterFactory factory = new DelimiterWriterFactory(';', '"');
         factory.addColumnTitle("col1");
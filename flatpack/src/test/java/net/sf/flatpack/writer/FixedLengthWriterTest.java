@@ -9,6 +9,7 @@ import java.math.BigDecimal;
 
 import junit.framework.Assert;
 import net.sf.flatpack.InitialisationException;
+import net.sf.flatpack.structure.ColumnMetaData;
 
 /**
  *
@@ -74,6 +75,52 @@ public class FixedLengthWriterTest extends PZWriterTestCase {
         }
     }
 
+    public void testWriteByIndex() throws Exception {
+        final StringWriter byName = new StringWriter();
+        final Writer nameWriter = new FixedWriterFactory(this.getMapping()).createWriter(byName);
+        nameWriter.addRecordEntry("FIRSTNAME", "JOHN").addRecordEntry("ZIP", "44035").addRecordEntry("REVENUE", "12.5").nextRecord().flush();
+
+        final StringWriter byIndex = new StringWriter();
+        final Writer writer = new FixedWriterFactory(this.getMapping()).createWriter(byIndex);
+        writer.addRecordEntry(writer.getColumnIndex("FIRSTNAME"), "JOHN".toCharArray()) //
+                .addRecordEntry(writer.getColumnIndex("ZIP"), 44035) //
+                .addRecordEntry(writer.getColumnIndex("REVENUE"), 12.5) //
+                .nextRecord() //
+                .flush();
+
+        Assert.assertEquals(byName.toString(), byIndex.toString());
+        try {
+            writer.addRecordEntry(writer.getColumnIndex("STATE"), 12345L);
+            Assert.fail("writing entries that are too long should fail");
+        } catch (final IllegalArgumentException iae) {
+            Assert.assertEquals("12345 exceeds the maximum length for column STATE(2)", iae.getMessage());
+        }
+    }
+
+    public void testFormattedValueOverride() throws Exception {
+        final StringWriter out = new StringWriter();
+        final Writer writer = new FixedWriterFactory(this.getMapping()) {
+            @Override
+            public Writer createWriter(final java.io.Writer output) {
+                return new FixedLengthWriter(getColumnMapping(), output, ' ') {
+                    @Override
+                    protected char[] formattedValue(final Object val, final ColumnMetaData element) {
+                        // numbers padded with zeros on the left
+                        if (val instanceof BigDecimal) {
+                            return String.format("%0" + element.getColLength() + "d", ((BigDecimal) val).intValue()).toCharArray();
+                        }
+                        return super.formattedValue(val, element);
+                    }
+                };
+            }
+        }.createWriter(out);
+
+        writer.addRecordEntry("FIRSTNAME", "JOHN").addRecordEntry("STATE", "OH").addRecordEntry("REVENUE", BigDecimal.TEN).nextRecord().flush();
+
+        final String expected = this.normalizeLineEnding(String.format("%-35s%-35s%-100s%-100s%-2s%-5s%010d", "JOHN", "", "", "", "OH", "", 10));
+        Assert.assertEquals(expected, out.toString());
+    }
+
     public void testWriteNullColumn() throws Exception {
         final StringWriter out = new StringWriter();
         final Writer writer = new FixedWriterFactory(this.getMapping()).createWriter(out);
@@ -0,0 +1,82 @@
+package net.sf.flatpack.writer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import net.sf.flatpack.brparse.BuffReaderParseFactory;
+
+public class TranscoderTest extends PZWriterTestCase {
+    private static final String MAPPING = "<?xml version='1.0'?>\n<PZMAP>\n" //
+            + "    <COLUMN name=\"ID\" length=\"4\" />\n" //
+            + "    <COLUMN name=\"NAME\" length=\"8\" />\n" //
+            + "    <COLUMN name=\"CITY\" length=\"6\" />\n" //
+            + "</PZMAP>\n";
+
+    private static String csv(final int rows) {
+        final StringBuilder csv = new StringBuilder("ID,NAME,COUNTRY,CITY\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append(i).append(",\"n, ").append(i).append("\",BE,c").append(i % 10).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static String fixed(final int rows) {
+        final StringBuilder fixed = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            fixed.append(String.format("%-4s%-8s%-6s", i, "n, " + i, "c" + i % 10)).append(System.lineSeparator());
+        }
+        return fixed.toString();
+    }
+
+    private static Transcoder csvToFixed(final String csv) throws Exception {
+        return new Transcoder(BuffReaderParseFactory.getInstance().newDelimitedParser(new StringReader(csv), ',', '"'),
+                new FixedWriterFactory(new StringReader(MAPPING)));
+    }
+
+    public void testDelimitedToFixed() throws Exception {
+        final StringWriter out = new StringWriter();
+        assertThat(csvToFixed(csv(1_000)).transcode(out)).isEqualTo(1_000);
+        assertThat(out.toString()).isEqualTo(fixed(1_000));
+    }
+
+    public void testWriterThread() throws Exception {
+        final StringWriter out = new StringWriter();
+        assertThat(csvToFixed(csv(1_000)).setWriterThread(true).setBatchSize(7).setQueueCapacity(2).transcode(out)).isEqualTo(1_000);
+        assertThat(out.toString()).isEqualTo(fixed(1_000));
+    }
+
+    public void testFixedToDelimited() throws Exception {
+        final StringWriter out = new StringWriter();
+        final Transcoder transcoder = new Transcoder(
+                BuffReaderParseFactory.getInstance().newFixedLengthParser(new StringReader(MAPPING), new StringReader(fixed(3))),
+                new DelimiterWriterFactory(',', '"').addColumnTitles("NAME", "ID"));
+        assertThat(transcoder.transcode(out)).isEqualTo(3);
+        assertThat(out.toString()).isEqualTo(joinLines("NAME,ID", "\"n, 0\",0") + joinLines("\"n, 1\",1", "\"n, 2\",2"));
+    }
+
+    public void testMapColumn() throws Exception {
+        final StringWriter out = new StringWriter();
+        assertThat(csvToFixed(csv(2)).mapColumn("COUNTRY", "CITY").mapColumn("CITY", null).transcode(out)).isEqualTo(2);
+        assertThat(out.toString()).isEqualTo(joinLines("0   n, 0    BE    ", "1   n, 1    BE    "));
+    }
+
+    public void testUnknownTarget() throws Exception {
+        try {
+            csvToFixed(csv(2)).mapColumn("COUNTRY", "STATE").transcode(new StringWriter());
+            fail("Expected IllegalArgumentException");
+        } catch (final IllegalArgumentException e) {
+            assertThat(e.getMessage()).contains("STATE");
+        }
+    }
+
+    public void testWriterThreadFailure() throws Exception {
+        try {
+            csvToFixed(csv(20_000)).setWriterThread(true).setBatchSize(10).setQueueCapacity(1).transcode(new StringWriter());
+            fail("Expected IllegalArgumentException");
+        } catch (final IllegalArgumentException e) {
+            assertThat(e.getMessage()).contains("exceeds the maximum length for column ID");
+        }
+    }
+}
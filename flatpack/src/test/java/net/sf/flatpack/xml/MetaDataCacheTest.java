@@ -0,0 +1,132 @@
+package net.sf.flatpack.xml;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+import net.sf.flatpack.DataSet;
+import net.sf.flatpack.DefaultParserFactory;
+import net.sf.flatpack.Parser;
+import net.sf.flatpack.brparse.BuffReaderParseFactory;
+import net.sf.flatpack.structure.ColumnMetaData;
+
+public class MetaDataCacheTest extends TestCase {
+    private static final String DELIMITED_MAP = "<?xml version='1.0'?>\n" //
+            + "<PZMAP>\n" //
+            + "    <RECORD id=\"header\" elementNumber=\"1\" indicator=\"H\">\n" //
+            + "        <COLUMN name=\"RECORDINDICATOR\" />\n" //
+            + "        <COLUMN name=\"HEADERDATA\" />\n" //
+            + "    </RECORD>\n" //
+            + "    <COLUMN name=\"RECORDINDICATOR\" />\n" //
+            + "    <COLUMN name=\"FirstName\" />\n" //
+            + "    <COLUMN name=\"LastName\" />\n" //
+            + "</PZMAP>\n";
+    private static final String DATA = "H,2018-01-01\nD,John,Smith\nD,Jane,Doe\n";
+
+    public void testSameContentIsCompiledOnce() throws Exception {
+        final MetaDataCache cache = new MetaDataCache(10);
+        final MetaData first = cache.getMapping(DELIMITED_MAP, false);
+        final MetaData second = cache.getMapping(new String(DELIMITED_MAP.toCharArray()), false);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.isCompiled()).isTrue();
+        assertThat(cache.getMapping(DELIMITED_MAP, true)).isNotSameAs(first);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    public void testLeastRecentlyUsedIsEvicted() throws Exception {
+        final MetaDataCache cache = new MetaDataCache(2);
+        final MetaData a = cache.getMapping(DELIMITED_MAP, false);
+        final MetaData b = cache.getMapping(DELIMITED_MAP + " ", false);
+        assertThat(cache.getMapping(DELIMITED_MAP, false)).isSameAs(a);
+        cache.getMapping(DELIMITED_MAP + "  ", false);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getMapping(DELIMITED_MAP, false)).isSameAs(a);
+        assertThat(cache.getMapping(DELIMITED_MAP + " ", false)).isNotSameAs(b);
+    }
+
+    public void testModifiedFileIsReadAgain() throws Exception {
+        final File file = File.createTempFile("cache", ".pzmap.xml");
+        try {
+            write(file, DELIMITED_MAP);
+            final MetaDataCache cache = new MetaDataCache(10);
+            final MetaData metaData = cache.getMapping(file, false);
+            assertThat(cache.getMapping(file, false)).isSameAs(metaData);
+
+            write(file, DELIMITED_MAP.replace("LastName", "Surname"));
+            file.setLastModified(file.lastModified() + 2000);
+            assertThat(cache.getMapping(file, false).getColumnIndex(null, "surname")).isEqualTo(2);
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testCompiledMetaDataCannotBeChanged() throws Exception {
+        final MetaData metaData = MapParser.compileMap(new StringReader(DELIMITED_MAP), false);
+        try {
+            metaData.setColumnsNames(new ArrayList<ColumnMetaData>());
+            fail("Expected UnsupportedOperationException");
+        } catch (final UnsupportedOperationException e) {
+            assertThat(metaData.getColumnsNames()).hasSize(3);
+        }
+        try {
+            metaData.getColumnIndexMap().clear();
+            fail("Expected UnsupportedOperationException");
+        } catch (final UnsupportedOperationException e) {
+            assertThat(metaData.getColumnIndexMap()).hasSize(3);
+        }
+    }
+
+    public void testCompiledMetaDataSharedByParsers() throws Exception {
+        final MetaData metaData = new MetaDataCache(10).getMapping(DELIMITED_MAP, false);
+        final Parser fromMap = DefaultParserFactory.getInstance().newDelimitedParser(new StringReader(DELIMITED_MAP), new StringReader(DATA), ',',
+                '"', false);
+        final List<String> expected = read(fromMap.parse());
+
+        assertThat(read(DefaultParserFactory.getInstance().newDelimitedParser(metaData, new StringReader(DATA), ',', '"', false).parse()))
+                .isEqualTo(expected);
+        assertThat(read(DefaultParserFactory.getInstance().newDelimitedParser(metaData, new StringReader(DATA), ',', '"', false).parse()))
+                .isEqualTo(expected);
+        assertThat(read(BuffReaderParseFactory.getInstance().newDelimitedParser(metaData, new StringReader(DATA), ',', '"', false).parse()))
+                .isEqualTo(expected);
+        assertThat(expected).containsExactly("header:2018-01-01", "John Smith", "Jane Doe");
+    }
+
+    public void testParserTakesCaseSensitivityOfCompiledMetaData() throws Exception {
+        final MetaData metaData = MapParser.compileMap(new StringReader(DELIMITED_MAP), true);
+        final Parser parser = DefaultParserFactory.getInstance().newDelimitedParser(metaData, new StringReader(DATA), ',', '"', false);
+        final DataSet ds = parser.parse();
+
+        assertThat(parser.isColumnNamesCaseSensitive()).isTrue();
+        ds.next();
+        ds.next();
+        assertThat(ds.getString("FirstName")).isEqualTo("John");
+    }
+
+    private static List<String> read(final DataSet ds) {
+        final List<String> rows = new ArrayList<>();
+        while (ds.next()) {
+            if (ds.isRecordID("header")) {
+                rows.add("header:" + ds.getString("HEADERDATA"));
+            } else {
+                rows.add(ds.getString("firstname") + " " + ds.getString("lastname"));
+            }
+        }
+        return rows;
+    }
+
+    private static void write(final File file, final String content) throws Exception {
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(content);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package net.sf.flatpack.xml;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import net.sf.flatpack.util.FPConstants;
+
+public class RecordDispatcherTest extends TestCase {
+
+    public void testFirstDeclaredRecordWins() {
+        final Map<String, XMLRecordElement> records = new LinkedHashMap<>();
+        records.put("byCount", delimited(0, null, 3));
+        records.put("header", delimited(1, "H", 0));
+        records.put("other", delimited(2, "H", 0));
+        final RecordDispatcher dispatcher = new RecordDispatcher(records);
+
+        assertThat(dispatcher.getDelimitedKey(Arrays.asList("H", "H", "x"))).isEqualTo("byCount");
+        assertThat(dispatcher.getDelimitedKey(Arrays.asList("H", "H"))).isEqualTo("header");
+        assertThat(dispatcher.getDelimitedKey(Arrays.asList("x", "H"))).isEqualTo("other");
+        assertThat(dispatcher.getDelimitedKey(Arrays.asList("x", "y"))).isEqualTo(FPConstants.DETAIL_ID);
+        assertThat(dispatcher.getDelimitedKey(new ArrayList<>())).isEqualTo(FPConstants.DETAIL_ID);
+    }
+
+    public void testFixedIndicatorPastEndOfLine() {
+        final Map<String, XMLRecordElement> records = new LinkedHashMap<>();
+        records.put("header", fixed(1, 7, "HEADER "));
+        records.put("trailer", fixed(1, 7, "TRAILER"));
+        records.put("late", fixed(20, 22, "ABC"));
+        final RecordDispatcher dispatcher = new RecordDispatcher(records);
+
+        assertThat(dispatcher.getFixedKey("HEADER 2006")).isEqualTo("header");
+        assertThat(dispatcher.getFixedKey("TRAILER")).isEqualTo("trailer");
+        assertThat(dispatcher.getFixedKey("TRAILE")).isEqualTo(FPConstants.DETAIL_ID);
+        assertThat(dispatcher.getFixedKey("")).isEqualTo(FPConstants.DETAIL_ID);
+        assertThat(dispatcher.getFixedKey("John               ABC")).isEqualTo("late");
+        assertThat(dispatcher.getFixedKey("TRAILER            ABC")).isEqualTo("trailer");
+    }
+
+    public void testManyRecordTypesMatchLinearSearch() {
+        final Random random = new Random(42);
+        final Map<String, XMLRecordElement> delimited = new LinkedHashMap<>();
+        final Map<String, XMLRecordElement> fixed = new LinkedHashMap<>();
+        for (int i = 0; i < 40; i++) {
+            delimited.put("D" + i, delimited(1 + random.nextInt(3), "T" + random.nextInt(30), i % 7 == 0 ? 2 + random.nextInt(5) : 0));
+            final int start = 1 + random.nextInt(3) * 2;
+            fixed.put("F" + i, fixed(start, start + 1, "T" + random.nextInt(10)));
+        }
+        final RecordDispatcher delimitedDispatcher = new RecordDispatcher(delimited);
+        final RecordDispatcher fixedDispatcher = new RecordDispatcher(fixed);
+
+        for (int i = 0; i < 5_000; i++) {
+            final List<String> cells = new ArrayList<>();
+            final int size = random.nextInt(7);
+            final StringBuilder line = new StringBuilder();
+            for (int c = 0; c < size; c++) {
+                final String cell = "T" + random.nextInt(35);
+                cells.add(cell);
+                line.append(cell.substring(0, 2));
+            }
+            assertThat(delimitedDispatcher.getDelimitedKey(cells)).as(cells.toString()).isEqualTo(linearDelimited(delimited, cells));
+            assertThat(fixedDispatcher.getFixedKey(line.toString())).as(line.toString()).isEqualTo(linearFixed(fixed, line.toString()));
+        }
+    }
+
+    /**
+     * The search previously done by ParserUtils.getCMDKeyForDelimitedFile.
+     */
+    private static String linearDelimited(final Map<String, XMLRecordElement> records, final List<String> cells) {
+        for (final Entry<String, XMLRecordElement> entry : records.entrySet()) {
+            final XMLRecordElement record = entry.getValue();
+            if (record.getElementCount() > 0 && record.getElementCount() == cells.size()) {
+                return entry.getKey();
+            } else if (record.getElementNumber() > cells.size()) {
+                continue;
+            }
+            if (cells.get(record.getElementNumber() - 1).equals(record.getIndicator())) {
+                return entry.getKey();
+            }
+        }
+        return FPConstants.DETAIL_ID;
+    }
+
+    /**
+     * The search previously done by FixedWidthParserUtils.getCMDKey.
+     */
+    private static String linearFixed(final Map<String, XMLRecordElement> records, final String line) {
+        for (final Entry<String, XMLRecordElement> entry : records.entrySet()) {
+            final XMLRecordElement record = entry.getValue();
+            if (record.getEndPositition() <= line.length()
+                    && line.substring(record.getStartPosition() - 1, record.getEndPositition()).equals(record.getIndicator())) {
+                return entry.getKey();
+            }
+        }
+        return FPConstants.DETAIL_ID;
+    }
+
+    private static XMLRecordElement delimited(final int elementNumber, final String indicator, final int elementCount) {
+        final XMLRecordElement record = new XMLRecordElement();
+        record.setElementNumber(elementNumber);
+        record.setIndicator(indicator);
+        record.setElementCount(elementCount);
+        return record;
+    }
+
+    private static XMLRecordElement fixed(final int start, final int end, final String indicator) {
+        final XMLRecordElement record = new XMLRecordElement();
+        record.setStartPosition(start);
+        record.setEndPositition(end);
+        record.setIndicator(indicator);
+        return record;
+    }
+}